@@ -17,8 +17,14 @@
 
 package zeldaswordskills;
 
+import java.util.logging.Level;
+
+import net.minecraftforge.common.DimensionManager;
 import net.minecraftforge.common.MinecraftForge;
 import zeldaswordskills.block.ZSSBlocks;
+import zeldaswordskills.command.CommandZSSGenBench;
+import zeldaswordskills.command.CommandZSSNet;
+import zeldaswordskills.entity.EntityUpdateStats;
 import zeldaswordskills.entity.ZSSEntities;
 import zeldaswordskills.handler.BattlegearEvents;
 import zeldaswordskills.handler.GuiHandler;
@@ -28,10 +34,15 @@ import zeldaswordskills.handler.ZSSItemEvents;
 import zeldaswordskills.item.ZSSItems;
 import zeldaswordskills.lib.Config;
 import zeldaswordskills.lib.ModInfo;
+import zeldaswordskills.network.CustomPacket;
+import zeldaswordskills.network.PacketMetrics;
+import zeldaswordskills.network.PacketQueue;
+import zeldaswordskills.network.PacketRateLimiter;
 import zeldaswordskills.network.ZSSPacketHandler;
 import zeldaswordskills.util.LogHelper;
 import zeldaswordskills.world.gen.AntiqueAtlasHelper;
 import zeldaswordskills.world.gen.DungeonLootLists;
+import zeldaswordskills.world.gen.WorldGenStats;
 import zeldaswordskills.world.gen.ZSSWorldGenEvent;
 import cpw.mods.fml.common.Loader;
 import cpw.mods.fml.common.Mod;
@@ -41,11 +52,15 @@ import cpw.mods.fml.common.SidedProxy;
 import cpw.mods.fml.common.event.FMLInitializationEvent;
 import cpw.mods.fml.common.event.FMLPostInitializationEvent;
 import cpw.mods.fml.common.event.FMLPreInitializationEvent;
+import cpw.mods.fml.common.event.FMLServerStartingEvent;
+import cpw.mods.fml.common.event.FMLServerStoppingEvent;
 import cpw.mods.fml.common.network.NetworkMod;
 import cpw.mods.fml.common.network.NetworkRegistry;
+import cpw.mods.fml.common.registry.TickRegistry;
+import cpw.mods.fml.relauncher.Side;
 
 @Mod(modid = ModInfo.ID, name = ModInfo.NAME, version = ModInfo.VERSION)
-@NetworkMod(clientSideRequired=true, serverSideRequired=true, channels = {ModInfo.CHANNEL}, packetHandler = ZSSPacketHandler.class)
+@NetworkMod(clientSideRequired=true, serverSideRequired=true, channels = {CustomPacket.CHANNEL}, packetHandler = ZSSPacketHandler.class)
 
 /**
  * 
@@ -100,6 +115,8 @@ public class ZSSMain
 		MinecraftForge.EVENT_BUS.register(new ZSSItemEvents());
 		ZSSItemEvents.initializeDrops();
 		NetworkRegistry.instance().registerGuiHandler(this, new GuiHandler());
+		TickRegistry.registerTickHandler(new PacketQueue(), Side.SERVER);
+		TickRegistry.registerTickHandler(new PacketMetrics(), Side.SERVER);
 	}
 
 	@EventHandler
@@ -109,4 +126,21 @@ public class ZSSMain
 			MinecraftForge.EVENT_BUS.register(new BattlegearEvents());
 		}
 	}
+
+	@EventHandler
+	public void onServerStarting(FMLServerStartingEvent event) {
+		event.registerServerCommand(new CommandZSSNet());
+		event.registerServerCommand(new CommandZSSGenBench());
+	}
+
+	@EventHandler
+	public void onServerStopping(FMLServerStoppingEvent event) {
+		WorldGenStats.writeToFile(DimensionManager.getCurrentSaveRootDirectory());
+		PacketQueue.flush();
+		LogHelper.log(Level.INFO, "Packet queue: " + PacketQueue.getStats());
+		LogHelper.log(Level.INFO, "Inbound packets: " + PacketRateLimiter.getStats());
+		LogHelper.log(Level.INFO, "Entity updates: " + EntityUpdateStats.getStats());
+		EntityUpdateStats.reset();
+		PacketMetrics.stopCapture();
+	}
 }
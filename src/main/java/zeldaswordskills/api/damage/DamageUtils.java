@@ -17,7 +17,8 @@
 
 package zeldaswordskills.api.damage;
 
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Set;
 
 import net.minecraft.entity.Entity;
@@ -42,6 +43,20 @@ public class DamageUtils
 	/** Indirect damage caused by sword skills such as Leaping Blow */
 	INDIRECT_SWORD = "indirectSword";
 
+	/** Unmodifiable damage types shared by all sources of each kind */
+	private static final Set<EnumDamageType>
+	SHOCK_TYPES = Collections.unmodifiableSet(EnumSet.of(EnumDamageType.SHOCK, EnumDamageType.STUN)),
+	STUN_TYPES = Collections.unmodifiableSet(EnumSet.of(EnumDamageType.STUN)),
+	HOLY_TYPES = Collections.unmodifiableSet(EnumSet.of(EnumDamageType.HOLY)),
+	COLD_TYPES = Collections.unmodifiableSet(EnumSet.of(EnumDamageType.COLD));
+
+	/** Damage type masks of the shared sets */
+	private static final int
+	SHOCK_MASK = EnumDamageType.getMask(SHOCK_TYPES),
+	STUN_MASK = EnumDamageType.getMask(STUN_TYPES),
+	HOLY_MASK = EnumDamageType.getMask(HOLY_TYPES),
+	COLD_MASK = EnumDamageType.getMask(COLD_TYPES);
+
 	/**
 	 * Returns an armor-bypassing physical DamageSource
 	 */
@@ -134,7 +149,7 @@ public class DamageUtils
 		}
 	}
 
-	public static class DamageSourceShock extends DamageSourceDirect implements IDamageType, IDamageSourceStun
+	public static class DamageSourceShock extends DamageSourceDirect implements IDamageTypeMask, IDamageSourceStun
 	{
 		/** Maximum stun time; will also be modified by total damage inflicted */
 		private final int duration;
@@ -142,9 +157,6 @@ public class DamageUtils
 		/** Amount of hunger to drain */
 		private final float hunger;
 
-		/** EnumDamageTypes associated with this DamageSource */
-		private Set<EnumDamageType> enumDamageTypes;
-
 		/**
 		 * Creates a direct SHOCK damage source, causing stun and damaging hunger
 		 */
@@ -153,14 +165,16 @@ public class DamageUtils
 			this.duration = duration;
 			this.hunger = hunger;
 			setDamageBypassesArmor();
-			enumDamageTypes = new HashSet<EnumDamageType>();
-			enumDamageTypes.add(EnumDamageType.SHOCK);
-			enumDamageTypes.add(EnumDamageType.STUN);
 		}
 
 		@Override
 		public Set<EnumDamageType> getEnumDamageTypes() {
-			return enumDamageTypes;
+			return SHOCK_TYPES;
+		}
+
+		@Override
+		public int getDamageTypeMask() {
+			return SHOCK_MASK;
 		}
 
 		@Override
@@ -180,7 +194,7 @@ public class DamageUtils
 
 	}
 
-	public static class DamageSourceShockIndirect extends DamageSourceIndirect implements IDamageType, IDamageSourceStun
+	public static class DamageSourceShockIndirect extends DamageSourceIndirect implements IDamageTypeMask, IDamageSourceStun
 	{
 		/** Maximum stun time; will also be modified by total damage inflicted */
 		private final int duration;
@@ -188,9 +202,6 @@ public class DamageUtils
 		/** Amount of hunger to drain */
 		private final float hunger;
 
-		/** EnumDamageTypes associated with this DamageSource */
-		private Set<EnumDamageType> enumDamageTypes;
-
 		/**
 		 * Creates indirect source of SHOCK damage, causing stun and damaging hunger
 		 */
@@ -199,14 +210,16 @@ public class DamageUtils
 			this.duration = duration;
 			this.hunger = hunger;
 			setDamageBypassesArmor();
-			enumDamageTypes = new HashSet<EnumDamageType>();
-			enumDamageTypes.add(EnumDamageType.SHOCK);
-			enumDamageTypes.add(EnumDamageType.STUN);
 		}
 
 		@Override
 		public Set<EnumDamageType> getEnumDamageTypes() {
-			return enumDamageTypes;
+			return SHOCK_TYPES;
+		}
+
+		@Override
+		public int getDamageTypeMask() {
+			return SHOCK_MASK;
 		}
 
 		@Override
@@ -226,11 +239,8 @@ public class DamageUtils
 
 	}
 
-	public static class DamageSourceStun extends DamageSourceDirect implements IDamageType,IDamageSourceStun
+	public static class DamageSourceStun extends DamageSourceDirect implements IDamageTypeMask, IDamageSourceStun
 	{
-		/** EnumDamageTypes associated with this DamageSource */
-		private Set<EnumDamageType> enumDamageTypes;
-
 		/** Maximum stun time; will also be modified by total damage inflicted */
 		private final int duration;
 
@@ -249,13 +259,16 @@ public class DamageUtils
 			super(name, entity);
 			this.duration = duration;
 			this.amplifier = amplifier;
-			enumDamageTypes = new HashSet<EnumDamageType>();
-			enumDamageTypes.add(EnumDamageType.STUN);
 		}
 
 		@Override
 		public Set<EnumDamageType> getEnumDamageTypes() {
-			return enumDamageTypes;
+			return STUN_TYPES;
+		}
+
+		@Override
+		public int getDamageTypeMask() {
+			return STUN_MASK;
 		}
 
 		@Override
@@ -278,11 +291,8 @@ public class DamageUtils
 
 	}
 
-	public static class DamageSourceStunIndirect extends DamageSourceIndirect implements IDamageType,IDamageSourceStun
+	public static class DamageSourceStunIndirect extends DamageSourceIndirect implements IDamageTypeMask, IDamageSourceStun
 	{
-		/** EnumDamageTypes associated with this DamageSource */
-		private Set<EnumDamageType> enumDamageTypes;
-
 		/** Maximum stun time; will also be modified by total damage inflicted */
 		private final int duration;
 
@@ -301,13 +311,16 @@ public class DamageUtils
 			super(name, direct, indirect);
 			this.duration = duration;
 			this.amplifier = amplifier;
-			enumDamageTypes = new HashSet<EnumDamageType>();
-			enumDamageTypes.add(EnumDamageType.STUN);
 		}
 
 		@Override
 		public Set<EnumDamageType> getEnumDamageTypes() {
-			return enumDamageTypes;
+			return STUN_TYPES;
+		}
+
+		@Override
+		public int getDamageTypeMask() {
+			return STUN_MASK;
 		}
 
 		@Override
@@ -330,46 +343,44 @@ public class DamageUtils
 
 	}
 
-	public static class DamageSourceHoly extends DamageSourceDirect implements IDamageType
+	public static class DamageSourceHoly extends DamageSourceDirect implements IDamageTypeMask
 	{
-		/** EnumDamageTypes associated with this DamageSource */
-		private Set<EnumDamageType> enumDamageTypes;
-
 		/** Creates a HOLY type EntityDamageSource */
 		public DamageSourceHoly(String name, Entity entity) {
 			super(name, entity);
-			enumDamageTypes = new HashSet<EnumDamageType>();
-			enumDamageTypes.add(EnumDamageType.HOLY);
 		}
 
 		@Override
 		public Set<EnumDamageType> getEnumDamageTypes() {
-			return enumDamageTypes;
+			return HOLY_TYPES;
+		}
+
+		@Override
+		public int getDamageTypeMask() {
+			return HOLY_MASK;
 		}
 	}
 
-	public static class DamageSourceHolyIndirect extends DamageSourceIndirect implements IDamageType
+	public static class DamageSourceHolyIndirect extends DamageSourceIndirect implements IDamageTypeMask
 	{
-		/** EnumDamageTypes associated with this DamageSource */
-		private Set<EnumDamageType> enumDamageTypes;
-
 		/** Creates a HOLY type indirect entity DamageSource */
 		public DamageSourceHolyIndirect(String name, Entity direct, Entity indirect) {
 			super(name, direct, indirect);
-			enumDamageTypes = new HashSet<EnumDamageType>();
-			enumDamageTypes.add(EnumDamageType.HOLY);
 		}
 
 		@Override
 		public Set<EnumDamageType> getEnumDamageTypes() {
-			return enumDamageTypes;
+			return HOLY_TYPES;
+		}
+
+		@Override
+		public int getDamageTypeMask() {
+			return HOLY_MASK;
 		}
 	}
 
-	public static class DamageSourceIce extends DamageSourceDirect implements IDamageType, IPostDamageEffect
+	public static class DamageSourceIce extends DamageSourceDirect implements IDamageTypeMask, IPostDamageEffect
 	{
-		/** EnumDamageTypes associated with this DamageSource */
-		private Set<EnumDamageType> enumDamageTypes;
 		/** Slow effect duration and amplifier */
 		private final int duration, amplifier;
 
@@ -378,8 +389,6 @@ public class DamageUtils
 			super(name, entity);
 			this.duration = duration;
 			this.amplifier = amplifier;
-			enumDamageTypes = new HashSet<EnumDamageType>();
-			enumDamageTypes.add(EnumDamageType.COLD);
 		}
 
 		@Override
@@ -390,14 +399,17 @@ public class DamageUtils
 
 		@Override
 		public Set<EnumDamageType> getEnumDamageTypes() {
-			return enumDamageTypes;
+			return COLD_TYPES;
+		}
+
+		@Override
+		public int getDamageTypeMask() {
+			return COLD_MASK;
 		}
 	}
 
-	public static class DamageSourceIceIndirect extends DamageSourceIndirect implements IDamageType, IPostDamageEffect
+	public static class DamageSourceIceIndirect extends DamageSourceIndirect implements IDamageTypeMask, IPostDamageEffect
 	{
-		/** EnumDamageTypes associated with this DamageSource */
-		private Set<EnumDamageType> enumDamageTypes;
 		/** Slow effect duration and amplifier */
 		private final int duration, amplifier;
 
@@ -406,8 +418,6 @@ public class DamageUtils
 			super(name, direct, indirect);
 			this.duration = duration;
 			this.amplifier = amplifier;
-			enumDamageTypes = new HashSet<EnumDamageType>();
-			enumDamageTypes.add(EnumDamageType.COLD);
 		}
 
 		@Override
@@ -418,7 +428,12 @@ public class DamageUtils
 
 		@Override
 		public Set<EnumDamageType> getEnumDamageTypes() {
-			return enumDamageTypes;
+			return COLD_TYPES;
+		}
+
+		@Override
+		public int getDamageTypeMask() {
+			return COLD_MASK;
 		}
 	}
 }
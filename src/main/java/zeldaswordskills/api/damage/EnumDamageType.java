@@ -19,11 +19,13 @@ package zeldaswordskills.api.damage;
 
 import java.util.EnumMap;
 import java.util.Map;
+import java.util.Set;
 
 import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.potion.Potion;
 import net.minecraft.potion.PotionEffect;
+import net.minecraft.util.DamageSource;
 import zeldaswordskills.entity.ZSSEntityInfo;
 import zeldaswordskills.entity.buff.Buff;
 
@@ -48,6 +50,51 @@ public enum EnumDamageType {
 	SHOCK,
 	/** Stun damage temporarily stuns affected entities */
 	STUN;
+
+	/** Cached values, by ordinal */
+	private static final EnumDamageType[] types = values();
+	
+	/** Returns the bit for this type in a damage type mask */
+	public int getMask() {
+		return 1 << ordinal();
+	}
+
+	/** Returns the type with the ordinal given */
+	public static EnumDamageType byOrdinal(int ordinal) {
+		return types[ordinal];
+	}
+
+	/** Returns the damage type mask of all types in the set, which may be null */
+	public static int getMask(Set<EnumDamageType> damageTypes) {
+		int mask = 0;
+		if (damageTypes != null) {
+			for (EnumDamageType type : damageTypes) {
+				mask |= type.getMask();
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Returns the damage type mask of the source: precomputed if it is an {@link IDamageTypeMask},
+	 * otherwise computed from its {@link IDamageType#getEnumDamageTypes}, or 0 if it is neither
+	 */
+	public static int getMask(DamageSource source) {
+		if (source instanceof IDamageTypeMask) {
+			return ((IDamageTypeMask) source).getDamageTypeMask();
+		}
+		return (source instanceof IDamageType ? getMask(((IDamageType) source).getEnumDamageTypes()) : 0);
+	}
+
+	/** Returns the buff that resists this type of damage, or null, as currently set in {@link #damageResistMap} */
+	public Buff getResistance() {
+		return damageResistMap.get(this);
+	}
+
+	/** Returns the buff that increases this type of damage, or null, as currently set in {@link #damageWeaknessMap} */
+	public Buff getWeakness() {
+		return damageWeaknessMap.get(this);
+	}
 	
 	/**
 	 * Handles secondary effects of this damage type upon damaging a living entity
@@ -34,7 +34,8 @@ import java.util.Set;
 public interface IDamageType {
 
 	/**
-	 * Returns a list of all custom enumerated damage types associated with this DamageSource
+	 * Returns a list of all custom enumerated damage types associated with this DamageSource;
+	 * the set may be shared between sources and unmodifiable, so callers must not change it
 	 */
 	public Set<EnumDamageType> getEnumDamageTypes();
 	
@@ -0,0 +1,34 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.api.damage;
+
+/**
+ * 
+ * Optional interface for IDamageType DamageSources that precompute a bit mask of their
+ * damage types, so the types can be checked on each hit without iterating over a Set
+ *
+ */
+public interface IDamageTypeMask extends IDamageType {
+
+	/**
+	 * Returns a bit mask of all types in {@link #getEnumDamageTypes}, with the bit
+	 * {@link EnumDamageType#getMask()} set for each type; see {@link EnumDamageType#getMask(java.util.Set)}
+	 */
+	public int getDamageTypeMask();
+	
+}
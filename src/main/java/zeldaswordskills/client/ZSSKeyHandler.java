@@ -28,7 +28,6 @@ import org.lwjgl.input.Keyboard;
 
 import zeldaswordskills.api.item.ISwingSpeed;
 import zeldaswordskills.client.gui.GuiBuffBar;
-import zeldaswordskills.entity.ZSSEntityInfo;
 import zeldaswordskills.entity.ZSSPlayerInfo;
 import zeldaswordskills.entity.buff.Buff;
 import zeldaswordskills.handler.GuiHandler;
@@ -111,7 +110,7 @@ public class ZSSKeyHandler extends KeyHandler
 						PacketDispatcher.sendPacketToServer(new ActivateSkillPacket(SkillBase.swordBasic).makePacket());
 					}
 				} else if (kb == keys[KEY_BOMB]) {
-					PacketDispatcher.sendPacketToServer(new GetBombPacket().makePacket());
+					PacketDispatcher.sendPacketToServer(GetBombPacket.INSTANCE.makePacket());
 				} else if (kb == keys[KEY_TOGGLE_AUTOTARGET]) {
 					if (mc.thePlayer.isSneaking()) {
 						mc.thePlayer.addChatMessage(StatCollector.translateToLocalFormatted("chat.zss.key.toggletp",
@@ -139,7 +138,7 @@ public class ZSSKeyHandler extends KeyHandler
 	 */
 	private void handleTargetingKeys(KeyBinding kb, ZSSPlayerInfo skills) {
 		ILockOnTarget skill = skills.getTargetingSkill();
-		boolean canInteract = skills.canInteract() && !ZSSEntityInfo.get(mc.thePlayer).isBuffActive(Buff.STUN);
+		boolean canInteract = skills.canInteract() && !skills.getEntityInfo().isBuffActive(Buff.STUN);
 
 		if (skill == null || !skill.isLockedOn()) {
 			return;
@@ -17,8 +17,8 @@
 
 package zeldaswordskills.client.gui;
 
-import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.Gui;
@@ -73,12 +73,12 @@ public class GuiBuffBar extends Gui
 		int yPos = 2;
 		int offset = 0;
 		int increment = Config.isBuffBarHorizontal() && !Config.isBuffBarLeft() ? -ICON_SPACING : ICON_SPACING;
-		Collection<BuffBase> collection = ZSSEntityInfo.get(mc.thePlayer).getActiveBuffsMap().values();
-		if (!collection.isEmpty()) {
+		List<BuffBase> buffs = ZSSEntityInfo.get(mc.thePlayer).getActiveBuffs();
+		if (!buffs.isEmpty()) {
 			GL11.glColor4f(1.0F, 1.0F, 1.0F, 1.0F);
 			GL11.glDisable(GL11.GL_LIGHTING);
 			mc.getTextureManager().bindTexture(textures);
-			for (Iterator<BuffBase> iterator = ZSSEntityInfo.get(mc.thePlayer).getActiveBuffsMap().values().iterator();
+			for (Iterator<BuffBase> iterator = buffs.iterator();
 					iterator.hasNext(); offset = increment)
 			{
 				BuffBase buff = iterator.next();
@@ -61,7 +61,7 @@ public class RenderItemBomb implements IItemRenderer
 		GL11.glPushMatrix();
 		float size = 0.0475F;
 		
-		boolean isFlashing = (stack.hasTagCompound() && stack.getTagCompound().hasKey("time") && stack.getTagCompound().getInteger("time") % 13 > 10);
+		boolean isFlashing = (mc.theWorld != null && ItemBomb.getFuseTime(stack, mc.theWorld) % 13 > 10);
 		mc.getTextureManager().bindTexture(getTexture(ItemBomb.getType(stack), isFlashing));
 		if (isFlashing && type != ItemRenderType.EQUIPPED_FIRST_PERSON) {
 			GL11.glScalef(1.2F, 1.2F, 1.2F);
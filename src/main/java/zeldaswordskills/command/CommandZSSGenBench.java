@@ -0,0 +1,122 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.command;
+
+import java.io.File;
+import java.util.List;
+import java.util.Locale;
+
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.command.WrongUsageException;
+import net.minecraft.util.ChatMessageComponent;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.gen.ChunkProviderServer;
+import net.minecraftforge.common.DimensionManager;
+import zeldaswordskills.world.gen.WorldGenStats;
+
+/**
+ * 
+ * Benchmarks ZSS world generation by generating a fixed square grid of chunks with
+ * {@link WorldGenStats} enabled, then writing the stats to the world folder as JSON:
+ * 
+ * /zssgenbench <chunkX> <chunkZ> <size> [dimension]
+ * 
+ * Chunks are loaded one row at a time in a fixed order, so the same seed and grid always
+ * place the same structures and runs of different builds can be compared. The grid must
+ * not have been generated before, so use a new world or a grid far from any player;
+ * running it from the console of a dedicated server requires no client at all.
+ * 
+ * This is not a headless harness: it needs a running server with the mod loaded, and
+ * generates real terrain, so the overall chunks per second includes vanilla generation.
+ * Only the per-generator figures in the JSON isolate the cost of ZSS generation.
+ * 
+ * The whole grid is generated during the tick in which the command runs, so the server
+ * does nothing else until it finishes; grids are capped at {@link #MAX_SIZE} chunks per
+ * side to keep that to seconds. For a larger sample, run it on several separate grids,
+ * keeping a copy of the stats file after each run since the next one overwrites it.
+ *
+ */
+public class CommandZSSGenBench extends CommandBase
+{
+	/** Largest grid allowed, in chunks per side; 33 x 33 chunks are loaded for the largest */
+	private static final int MAX_SIZE = 32;
+
+	@Override
+	public String getCommandName() {
+		return "zssgenbench";
+	}
+
+	@Override
+	public int getRequiredPermissionLevel() {
+		return 4;
+	}
+
+	@Override
+	public String getCommandUsage(ICommandSender sender) {
+		return "/zssgenbench <chunkX> <chunkZ> <size> [dimension]";
+	}
+
+	@Override
+	public void processCommand(ICommandSender sender, String[] args) {
+		if (args.length < 3 || args.length > 4) {
+			throw new WrongUsageException(getCommandUsage(sender));
+		}
+		int originX = parseInt(sender, args[0]);
+		int originZ = parseInt(sender, args[1]);
+		int size = parseIntBounded(sender, args[2], 1, MAX_SIZE);
+		int dimension = (args.length > 3 ? parseInt(sender, args[3]) : 0);
+		WorldServer world = DimensionManager.getWorld(dimension);
+		if (world == null) {
+			throw new CommandException("Dimension " + dimension + " is not loaded");
+		}
+		boolean wasEnabled = WorldGenStats.isEnabled();
+		WorldGenStats.setEnabled(true);
+		WorldGenStats.reset();
+		long start = System.nanoTime();
+		ChunkProviderServer provider = world.theChunkProviderServer;
+		// each chunk is populated once its +x, +z and +x+z neighbors are loaded, hence the extra row and column
+		for (int i = 0; i <= size; ++i) {
+			for (int k = 0; k <= size; ++k) {
+				provider.loadChunk(originX + i, originZ + k);
+			}
+			// rows more than one behind can no longer be populated by further loading
+			if (i > 1) {
+				for (int k = 0; k <= size; ++k) {
+					provider.unloadChunksIfNotNearSpawn(originX + i - 2, originZ + k);
+				}
+				provider.unloadQueuedChunks();
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1.0E9D;
+		send(sender, String.format(Locale.US, "Generated %d chunks in %.2f seconds (%.1f chunks/second)", size * size, seconds, size * size / seconds));
+		File file = WorldGenStats.writeToFile(DimensionManager.getCurrentSaveRootDirectory());
+		send(sender, file == null ? "Failed to write world generation stats" : "Wrote world generation stats to " + file.getPath());
+		WorldGenStats.setEnabled(wasEnabled);
+	}
+
+	@Override
+	public List addTabCompletionOptions(ICommandSender sender, String[] args) {
+		return null;
+	}
+
+	private static void send(ICommandSender sender, String message) {
+		sender.sendChatToPlayer(ChatMessageComponent.createFromText(message));
+	}
+}
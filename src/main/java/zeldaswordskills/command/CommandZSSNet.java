@@ -0,0 +1,105 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.command;
+
+import java.io.File;
+import java.util.List;
+
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.command.WrongUsageException;
+import net.minecraft.util.ChatMessageComponent;
+import net.minecraftforge.common.DimensionManager;
+import zeldaswordskills.network.PacketMetrics;
+import zeldaswordskills.network.PacketQueue;
+import zeldaswordskills.network.PacketRateLimiter;
+
+/**
+ * 
+ * Shows the traffic on the ZSS channel and controls packet capture:
+ * 
+ * /zssnet stats - totals and each packet type's counts, bytes, timings and rates
+ * /zssnet players - packets and bytes sent to and received from each player per second
+ * /zssnet reset - resets all counters
+ * /zssnet capture start [file] - records all packets to the file, by default in the world folder
+ * /zssnet capture stop - stops recording
+ *
+ */
+public class CommandZSSNet extends CommandBase
+{
+	/** Default capture file name, within the world folder */
+	private static final String CAPTURE_FILE = "zss_packets.cap";
+
+	@Override
+	public String getCommandName() {
+		return "zssnet";
+	}
+
+	@Override
+	public int getRequiredPermissionLevel() {
+		return 3;
+	}
+
+	@Override
+	public String getCommandUsage(ICommandSender sender) {
+		return "/zssnet <stats|players|reset|capture <start [file]|stop>>";
+	}
+
+	@Override
+	public void processCommand(ICommandSender sender, String[] args) {
+		if (args.length < 1) {
+			throw new WrongUsageException(getCommandUsage(sender));
+		} else if (args[0].equals("stats")) {
+			send(sender, PacketMetrics.getSummary());
+			for (String line : PacketMetrics.getPacketStats()) {
+				send(sender, line);
+			}
+			send(sender, PacketQueue.getStats());
+			send(sender, PacketRateLimiter.getStats());
+		} else if (args[0].equals("players")) {
+			for (String line : PacketMetrics.getPlayerStats()) {
+				send(sender, line);
+			}
+		} else if (args[0].equals("reset")) {
+			PacketMetrics.reset();
+			send(sender, "Packet counters reset");
+		} else if (args[0].equals("capture") && args.length > 1 && args[1].equals("start")) {
+			File file = (args.length > 2 ? new File(args[2]) : new File(DimensionManager.getCurrentSaveRootDirectory(), CAPTURE_FILE));
+			send(sender, PacketMetrics.startCapture(file) ? "Capturing packets to " + file.getPath() : "Failed to open " + file.getPath());
+		} else if (args[0].equals("capture") && args.length > 1 && args[1].equals("stop")) {
+			PacketMetrics.stopCapture();
+			send(sender, "Packet capture stopped");
+		} else {
+			throw new WrongUsageException(getCommandUsage(sender));
+		}
+	}
+
+	@Override
+	public List addTabCompletionOptions(ICommandSender sender, String[] args) {
+		if (args.length == 1) {
+			return getListOfStringsMatchingLastWord(args, "stats", "players", "reset", "capture");
+		} else if (args.length == 2 && args[0].equals("capture")) {
+			return getListOfStringsMatchingLastWord(args, "start", "stop");
+		}
+		return null;
+	}
+
+	private static void send(ICommandSender sender, String message) {
+		sender.sendChatToPlayer(ChatMessageComponent.createFromText(message));
+	}
+}
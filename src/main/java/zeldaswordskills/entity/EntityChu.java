@@ -40,6 +40,7 @@ import zeldaswordskills.api.damage.DamageUtils.DamageSourceIce;
 import zeldaswordskills.api.damage.DamageUtils.DamageSourceShock;
 import zeldaswordskills.api.damage.IDamageSourceStun;
 import zeldaswordskills.entity.buff.Buff;
+import zeldaswordskills.entity.buff.InnateResistances;
 import zeldaswordskills.item.ItemTreasure.Treasures;
 import zeldaswordskills.item.ZSSItems;
 import zeldaswordskills.lib.Sounds;
@@ -80,6 +81,13 @@ public class EntityChu extends EntityLiving implements IMob
 {
 	/** Chuchu types, in order of rarity and strength */
 	public static enum ChuType {RED,GREEN,BLUE,YELLOW};
+	/** Innate resistances shared by all Chu of each type, by type ordinal */
+	private static final InnateResistances[] typeResistances = {
+		InnateResistances.NONE.with(Buff.RESIST_FIRE, 75),
+		InnateResistances.NONE,
+		InnateResistances.NONE.with(Buff.RESIST_MAGIC, 75).with(Buff.RESIST_COLD, 100).with(Buff.RESIST_SHOCK, 50),
+		InnateResistances.NONE.with(Buff.RESIST_SHOCK, 100)
+	};
 	/** Data watcher index for this Chu's size */
 	private static final int CHU_SIZE_INDEX = 16;
 	/** Data watcher index for this Chu's type */
@@ -94,6 +102,8 @@ public class EntityChu extends EntityLiving implements IMob
 
 	/** the time between each jump of the slime */
 	private int slimeJumpDelay;
+	/** This entity's ZSSEntityInfo, kept to avoid the extended property lookup each tick */
+	private ZSSEntityInfo entityInfo;
 
 	public EntityChu(World world) {
 		super(world);
@@ -144,25 +154,19 @@ public class EntityChu extends EntityLiving implements IMob
 		applyTypeTraits();
 	}
 
+	/** Returns this entity's ZSSEntityInfo, looking it up only the first time */
+	private ZSSEntityInfo getEntityInfo() {
+		if (entityInfo == null) {
+			entityInfo = ZSSEntityInfo.get(this);
+		}
+		return entityInfo;
+	}
+
 	/**
 	 * Applies traits based on Chu's type
 	 */
 	private void applyTypeTraits() {
-		ZSSEntityInfo.get(this).removeAllBuffs();
-		switch(getType()) {
-		case RED:
-			ZSSEntityInfo.get(this).applyBuff(Buff.RESIST_FIRE, Integer.MAX_VALUE, 75);
-			break;
-		case BLUE:
-			ZSSEntityInfo.get(this).applyBuff(Buff.RESIST_MAGIC, Integer.MAX_VALUE, 75);
-			ZSSEntityInfo.get(this).applyBuff(Buff.RESIST_COLD, Integer.MAX_VALUE, 100);
-			ZSSEntityInfo.get(this).applyBuff(Buff.RESIST_SHOCK, Integer.MAX_VALUE, 50);
-			break;
-		case YELLOW:
-			ZSSEntityInfo.get(this).applyBuff(Buff.RESIST_SHOCK, Integer.MAX_VALUE, 100);
-			break;
-		default:
-		}
+		getEntityInfo().setInnateResistances(typeResistances[getType().ordinal()]);
 	}
 
 	/** Whether this chu type can shock; always true for Yellow, sometimes true for Blue */
@@ -328,7 +332,7 @@ public class EntityChu extends EntityLiving implements IMob
 				if (source.isMagicDamage()) {
 					return super.attackEntityFrom(source, amount);
 				} else if (source.isExplosion()) {
-					ZSSEntityInfo.get(this).stun(20 + rand.nextInt((int)(amount * 5) + 1));
+					getEntityInfo().stun(20 + rand.nextInt((int)(amount * 5) + 1));
 					setShockTime(0);
 				} else if (source instanceof IDamageSourceStun) {
 					setShockTime(0);
@@ -475,7 +479,7 @@ public class EntityChu extends EntityLiving implements IMob
 			}
 		}
 
-		if (canChuTypeShock() && getShockTime() == 0 && !ZSSEntityInfo.get(this).isBuffActive(Buff.STUN)) {
+		if (canChuTypeShock() && getShockTime() == 0 && !getEntityInfo().isBuffActive(Buff.STUN)) {
 			if (player != null && (recentlyHit > 0 || rand.nextInt(getShockInterval()) == 0)) {
 				setShockTime(rand.nextInt(getSize() * 100) + (worldObj.difficultySetting * 100));
 			}
@@ -551,5 +555,6 @@ public class EntityChu extends EntityLiving implements IMob
 		super.readEntityFromNBT(compound);
 		setSize(compound.getInteger("Size") + 1);
 		dataWatcher.updateObject(CHU_TYPE_INDEX, (byte) compound.getInteger("ChuType"));
+		applyTypeTraits();
 	}
 }
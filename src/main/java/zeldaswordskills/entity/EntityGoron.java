@@ -49,6 +49,7 @@ import net.minecraft.village.Village;
 import net.minecraft.world.World;
 import zeldaswordskills.entity.ai.GenericAIDefendVillage;
 import zeldaswordskills.entity.buff.Buff;
+import zeldaswordskills.entity.buff.InnateResistances;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
@@ -58,6 +59,8 @@ public class EntityGoron extends EntityVillager implements IVillageDefender
 	protected Village village;
 	/** Flag for handling attack timer during client-side health update */
 	private static final Byte ATTACK_FLAG = (byte) 4;
+	/** Innate resistances shared by all Gorons */
+	private static final InnateResistances resistances = InnateResistances.NONE.with(Buff.RESIST_FIRE, 100);
 	/** Timer for health regeneration, similar to players when satiated */
 	private int regenTimer;
 
@@ -97,7 +100,7 @@ public class EntityGoron extends EntityVillager implements IVillageDefender
 		getEntityAttribute(SharedMonsterAttributes.knockbackResistance).setAttribute(0.75D);
 		getAttributeMap().func_111150_b(SharedMonsterAttributes.attackDamage);
 		isImmuneToFire = true;
-		ZSSEntityInfo.get(this).applyBuff(Buff.RESIST_FIRE, Integer.MAX_VALUE, 100);
+		ZSSEntityInfo.get(this).setInnateResistances(resistances);
 	}
 
 	@Override
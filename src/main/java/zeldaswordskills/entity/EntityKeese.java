@@ -41,6 +41,7 @@ import zeldaswordskills.api.damage.DamageUtils.DamageSourceShock;
 import zeldaswordskills.api.damage.IDamageSourceStun;
 import zeldaswordskills.api.item.ArmorIndex;
 import zeldaswordskills.entity.buff.Buff;
+import zeldaswordskills.entity.buff.InnateResistances;
 import zeldaswordskills.item.ItemTreasure.Treasures;
 import zeldaswordskills.item.ZSSItems;
 import zeldaswordskills.lib.Config;
@@ -51,6 +52,19 @@ public class EntityKeese extends EntityBat implements IMob
 	/** The different varieties of Keese */
 	public static enum KeeseType {NORMAL,FIRE,ICE,THUNDER,CURSED};
 
+	/** Innate resistances shared by all Keese of each type, by type ordinal */
+	private static final InnateResistances[] typeResistances;
+	static {
+		InnateResistances base = InnateResistances.NONE.with(Buff.EVADE_UP, 50);
+		typeResistances = new InnateResistances[] {
+			base,
+			base.with(Buff.RESIST_FIRE, 100).with(Buff.WEAKNESS_COLD, 100),
+			base.with(Buff.RESIST_COLD, 100).with(Buff.WEAKNESS_FIRE, 100),
+			base.with(Buff.RESIST_SHOCK, 100),
+			base.with(Buff.RESIST_FIRE, 100).with(Buff.WEAKNESS_HOLY, 100)
+		};
+	}
+
 	/** Chunk coordinates toward which this Keese is currently heading */
 	private ChunkCoordinates currentFlightTarget;
 
@@ -60,6 +74,8 @@ public class EntityKeese extends EntityBat implements IMob
 	private static final int SHOCK_INDEX = 18;
 	/** Whether this Keese has spawned a swarm already */
 	private boolean swarmSpawned;
+	/** This entity's ZSSEntityInfo, kept to avoid the extended property lookup each tick */
+	private ZSSEntityInfo entityInfo;
 
 	public EntityKeese(World world) {
 		super(world);
@@ -111,31 +127,31 @@ public class EntityKeese extends EntityBat implements IMob
 		setType(type);
 	}
 
+	/** Returns this entity's ZSSEntityInfo, looking it up only the first time */
+	private ZSSEntityInfo getEntityInfo() {
+		if (entityInfo == null) {
+			entityInfo = ZSSEntityInfo.get(this);
+		}
+		return entityInfo;
+	}
+
 	/**
 	 * Applies traits based on Keese's type
 	 */
 	private void applyTypeTraits() {
-		ZSSEntityInfo.get(this).removeAllBuffs();
-		ZSSEntityInfo.get(this).applyBuff(Buff.EVADE_UP, Integer.MAX_VALUE, 50);
+		getEntityInfo().setInnateResistances(typeResistances[getType().ordinal()]);
 		switch(getType()) {
 		case CURSED:
-			ZSSEntityInfo.get(this).applyBuff(Buff.RESIST_FIRE, Integer.MAX_VALUE, 100);
-			ZSSEntityInfo.get(this).applyBuff(Buff.WEAKNESS_HOLY, Integer.MAX_VALUE, 100);
 			experienceValue = 7;
 			break;
 		case FIRE:
-			ZSSEntityInfo.get(this).applyBuff(Buff.RESIST_FIRE, Integer.MAX_VALUE, 100);
-			ZSSEntityInfo.get(this).applyBuff(Buff.WEAKNESS_COLD, Integer.MAX_VALUE, 100);
 			isImmuneToFire = true;
 			experienceValue = 3;
 			break;
 		case ICE:
-			ZSSEntityInfo.get(this).applyBuff(Buff.RESIST_COLD, Integer.MAX_VALUE, 100);
-			ZSSEntityInfo.get(this).applyBuff(Buff.WEAKNESS_FIRE, Integer.MAX_VALUE, 100);
 			experienceValue = 3;
 			break;
 		case THUNDER:
-			ZSSEntityInfo.get(this).applyBuff(Buff.RESIST_SHOCK, Integer.MAX_VALUE, 100);
 			experienceValue = 5;
 			break;
 		default: experienceValue = 1;
@@ -285,7 +301,7 @@ public class EntityKeese extends EntityBat implements IMob
 
 	@Override
 	protected void updateAITasks() {
-		if (ZSSEntityInfo.get(this).isBuffActive(Buff.STUN)) {
+		if (getEntityInfo().isBuffActive(Buff.STUN)) {
 			// because Keese get moved twice per tick due to inherited EntityBat methods
 			return;
 		}
@@ -319,7 +335,7 @@ public class EntityKeese extends EntityBat implements IMob
 
 			if (attackingPlayer == null && rand.nextInt(100) == 0 && worldObj.isBlockNormalCube(MathHelper.floor_double(posX), (int) posY + 1, MathHelper.floor_double(posZ))) {
 				setIsBatHanging(true);
-			} else if (canShock() && getShockTime() == 0 && !ZSSEntityInfo.get(this).isBuffActive(Buff.STUN)) {
+			} else if (canShock() && getShockTime() == 0 && !getEntityInfo().isBuffActive(Buff.STUN)) {
 				if (attackingPlayer != null && ((recentlyHit > 0 && rand.nextInt(20) == 0) || rand.nextInt(300) == 0)) {
 					setShockTime(rand.nextInt(100) + (worldObj.difficultySetting * 50));
 				}
@@ -340,7 +356,7 @@ public class EntityKeese extends EntityBat implements IMob
 					if (source.isMagicDamage()) {
 						return super.attackEntityFrom(source, amount);
 					} else if (source.isExplosion()) {
-						ZSSEntityInfo.get(this).stun(20 + rand.nextInt((int)(amount * 5) + 1));
+						getEntityInfo().stun(20 + rand.nextInt((int)(amount * 5) + 1));
 						setShockTime(0);
 					} else if (source instanceof IDamageSourceStun) {
 						setShockTime(0);
@@ -362,6 +378,7 @@ public class EntityKeese extends EntityBat implements IMob
 		super.readEntityFromNBT(compound);
 		swarmSpawned = compound.getBoolean("SpawnedSwarm");
 		dataWatcher.updateObject(TYPE_INDEX, compound.getByte("KeeseType"));
+		applyTypeTraits();
 	}
 
 	@Override
@@ -0,0 +1,75 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.entity;
+
+import java.util.Locale;
+
+/**
+ *
+ * Counts how many ZSSEntityInfo and ZSSVillagerInfo updates are run and how many are
+ * skipped because the entity has no state that changes over time, so the effect on
+ * servers with many mobs can be confirmed. Server thread only.
+ *
+ */
+public class EntityUpdateStats
+{
+	private static long entitiesUpdated, entitiesSkipped, villagersUpdated, villagersSkipped;
+
+	/** Time of the first update counted since the last reset, or -1 */
+	private static long startTime = -1L;
+
+	/** Records whether an entity's ZSSEntityInfo was updated */
+	public static void onEntityUpdate(boolean updated) {
+		if (startTime < 0) {
+			startTime = System.currentTimeMillis();
+		}
+		if (updated) {
+			++entitiesUpdated;
+		} else {
+			++entitiesSkipped;
+		}
+	}
+
+	/** Records whether a villager's ZSSVillagerInfo was updated */
+	public static void onVillagerUpdate(boolean updated) {
+		if (updated) {
+			++villagersUpdated;
+		} else {
+			++villagersSkipped;
+		}
+	}
+
+	/** Returns a summary of all counters, including the average number of entities updated per second */
+	public static String getStats() {
+		long millis = (startTime < 0 ? 0L : System.currentTimeMillis() - startTime);
+		return String.format(Locale.US, "entity info: %d updated (%.1f/s), %d skipped (%.1f%%); villager info: %d updated, %d skipped (%.1f%%)",
+				entitiesUpdated, (millis > 0 ? entitiesUpdated * 1000.0D / millis : 0.0D),
+				entitiesSkipped, getPercent(entitiesSkipped, entitiesUpdated + entitiesSkipped),
+				villagersUpdated, villagersSkipped, getPercent(villagersSkipped, villagersUpdated + villagersSkipped));
+	}
+
+	private static double getPercent(long count, long total) {
+		return (total > 0 ? count * 100.0D / total : 0.0D);
+	}
+
+	/** Resets all counters */
+	public static void reset() {
+		entitiesUpdated = entitiesSkipped = villagersUpdated = villagersSkipped = 0L;
+		startTime = -1L;
+	}
+}
@@ -17,9 +17,8 @@
 
 package zeldaswordskills.entity;
 
-import java.util.EnumMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityLivingBase;
@@ -31,22 +30,54 @@ import net.minecraft.world.World;
 import net.minecraftforge.common.IExtendedEntityProperties;
 import zeldaswordskills.entity.buff.Buff;
 import zeldaswordskills.entity.buff.BuffBase;
+import zeldaswordskills.entity.buff.BuffExpiryWheel;
+import zeldaswordskills.entity.buff.InnateResistances;
 import zeldaswordskills.lib.Config;
+import zeldaswordskills.network.PacketQueue;
+import zeldaswordskills.network.UpdateBuffPacket;
 
 /**
  * 
  * For classes that extend EntityLivingBase
+ * 
+ * Buffs are stored as an amplifier and the world time at which they expire for each
+ * Buff, indexed by ordinal, plus a bit mask of those active. Expiry is handled by the
+ * world's {@link BuffExpiryWheel}, so buffs that do nothing each tick cost nothing to update.
+ * 
+ * Permanent traits of the entity's kind are kept separately in a shared {@link InnateResistances}
+ * profile, which takes precedence over any active buff of the same type.
  *
  */
 public class ZSSEntityInfo implements IExtendedEntityProperties
 {
 	private static final String EXT_PROP_NAME = "ZSSEntityInfo";
 
+	/** Expiry time of permanent buffs */
+	private static final long PERMANENT = Long.MAX_VALUE;
+
+	/** Bits of the buffs that have an effect each tick (see {@link Buff#onUpdate}) */
+	private static final int UPDATED_BUFFS = 1 << Buff.STUN.ordinal();
+
 	/** The entity to which these properties belong */
 	private final EntityLivingBase entity;
 	
-	/** Map of active buffs */
-	private Map<Buff, BuffBase> activeBuffs = new EnumMap<Buff, BuffBase>(Buff.class);
+	/** Bit for each active buff, by ordinal */
+	private int activeBuffs;
+
+	/** Bit for each active buff that is not permanent, by ordinal */
+	private int timedBuffs;
+
+	/** Amplifier of each buff, by ordinal; zero if not active */
+	private final int[] amplifiers = new int[Buff.values().length];
+
+	/** World time at which each buff expires, by ordinal, or {@link #PERMANENT} */
+	private final long[] expiryTimes = new long[Buff.values().length];
+	
+	/** Permanent buffs this entity has by nature; never saved */
+	private InnateResistances innate = InnateResistances.NONE;
+
+	/** World whose expiry wheel has all of this entity's buffs scheduled */
+	private World scheduledWorld;
 	
 	/** Time this entity will remain immune to further stun effects */
 	private int stunResistTime;
@@ -57,47 +88,127 @@ public class ZSSEntityInfo implements IExtendedEntityProperties
 	
 	@Override
 	public void init(Entity entity, World world) {}
+
+	private long getWorldTime() {
+		return entity.worldObj.getTotalWorldTime();
+	}
 	
-	/** Whether a Buff is currently active */
+	/** Whether a Buff is currently active, not including innate resistances */
 	public boolean isBuffActive(Buff buff) {
-		return activeBuffs.containsKey(buff);
+		return (activeBuffs & (1 << buff.ordinal())) != 0;
+	}
+
+	/** Whether any buff is currently active */
+	public boolean hasActiveBuffs() {
+		return activeBuffs != 0;
 	}
 	
-	/** Returns a currently active buff or null if that buff isn't active */
+	/** Returns a copy of a currently active buff or null if that buff isn't active */
 	public BuffBase getActiveBuff(Buff buff) {
-		return activeBuffs.get(buff);
+		return (isBuffActive(buff) ? new BuffBase(buff, getDuration(buff.ordinal()), amplifiers[buff.ordinal()]) : null);
+	}
+
+	/** Returns copies of all currently active buffs, in order of ordinal */
+	public List<BuffBase> getActiveBuffs() {
+		List<BuffBase> buffs = new ArrayList<BuffBase>(Integer.bitCount(activeBuffs));
+		for (int mask = activeBuffs; mask != 0; mask &= mask - 1) {
+			buffs.add(getActiveBuff(Buff.values()[Integer.numberOfTrailingZeros(mask)]));
+		}
+		return buffs;
+	}
+
+	/** Returns the remaining duration of the active buff with the ordinal given */
+	private int getDuration(int ordinal) {
+		return (expiryTimes[ordinal] == PERMANENT ? Integer.MAX_VALUE : (int) Math.max(expiryTimes[ordinal] - getWorldTime(), 0L));
 	}
 	
-	/** Returns the amplifier of the Buff, or 0 if not active */
+	/** Returns the amplifier of the Buff, including innate resistances, or 0 if not active */
 	public int getBuffAmplifier(Buff buff) {
-		return (isBuffActive(buff) ? getActiveBuff(buff).getAmplifier() : 0);
+		return (innate.hasBuff(buff) ? innate.getAmplifier(buff) : amplifiers[buff.ordinal()]);
+	}
+
+	/** Returns this entity's innate resistances, which are never null */
+	public InnateResistances getInnateResistances() {
+		return innate;
+	}
+
+	/** Sets this entity's innate resistances, replacing any previous profile */
+	public void setInnateResistances(InnateResistances profile) {
+		innate = (profile == null ? InnateResistances.NONE : profile);
 	}
 	
 	/** Returns true if a buff is both active and permanent */
 	public boolean isBuffPermanent(Buff buff) {
-		return isBuffActive(buff) && getActiveBuff(buff).isPermanent();
-	}
-	
-	/** Returns active buffs map */
-	public Map getActiveBuffsMap() {
-		return activeBuffs;
+		return isBuffActive(buff) && expiryTimes[buff.ordinal()] == PERMANENT;
 	}
 	
 	/** Shortcut method for applying a new buff */
 	public void applyBuff(Buff buff, int duration, int amplifier) {
-		applyBuff(new BuffBase(buff, duration, amplifier));
+		int i = buff.ordinal();
+		if (isBuffActive(buff)) {
+			int oldDuration = getDuration(i);
+			if (expiryTimes[i] == PERMANENT) {
+				// can't combine permanent effects
+			} else if (amplifier > amplifiers[i] || (amplifier == amplifiers[i] && duration > oldDuration)) {
+				setBuff(buff, duration, amplifier);
+			}
+			if (!entity.worldObj.isRemote) {
+				buff.onRemoved(entity, amplifiers[i]);
+				onBuffAdded(buff);
+			}
+		} else {
+			activeBuffs |= 1 << i;
+			setBuff(buff, duration, amplifier);
+			if (!entity.worldObj.isRemote) {
+				onBuffAdded(buff);
+			}
+		}
 	}
 	
 	/**
-	 * Applies a new Buff to the active buffs map
+	 * Applies a new Buff to the active buffs
 	 */
 	public void applyBuff(BuffBase newBuff) {
-		if (isBuffActive(newBuff.getBuff())) {
-			getActiveBuff(newBuff.getBuff()).combine(newBuff);
-			getActiveBuff(newBuff.getBuff()).onChanged(this.entity);
+		applyBuff(newBuff.getBuff(), newBuff.getDuration(), newBuff.getAmplifier());
+	}
+
+	/**
+	 * Sets the buff's amplifier and duration and schedules its expiry; does not notify anything
+	 */
+	private void setBuff(Buff buff, int duration, int amplifier) {
+		int i = buff.ordinal();
+		amplifiers[i] = amplifier;
+		if (duration == Integer.MAX_VALUE) {
+			expiryTimes[i] = PERMANENT;
+			timedBuffs &= ~(1 << i);
 		} else {
-			activeBuffs.put(newBuff.getBuff(), newBuff);
-			newBuff.onAdded(this.entity);
+			expiryTimes[i] = getWorldTime() + Math.max(duration, 0);
+			timedBuffs |= 1 << i;
+			BuffExpiryWheel.get(entity.worldObj).schedule(this, buff, expiryTimes[i]);
+		}
+	}
+
+	/** Adds the buff's effects and updates the client; server side only */
+	private void onBuffAdded(Buff buff) {
+		buff.onAdded(entity, amplifiers[buff.ordinal()]);
+		if (entity instanceof EntityPlayer) {
+			PacketQueue.sendToPlayer(new UpdateBuffPacket(getActiveBuff(buff), false), (EntityPlayer) entity);
+		}
+	}
+
+	/**
+	 * Sets the buff exactly as given without applying or removing any effects;
+	 * used on the client to mirror the server's buffs
+	 * @param remove true to remove the buff instead
+	 */
+	public void syncBuff(Buff buff, int duration, int amplifier, boolean remove) {
+		if (remove) {
+			activeBuffs &= ~(1 << buff.ordinal());
+			timedBuffs &= ~(1 << buff.ordinal());
+			amplifiers[buff.ordinal()] = 0;
+		} else {
+			activeBuffs |= 1 << buff.ordinal();
+			setBuff(buff, duration, amplifier);
 		}
 	}
 	
@@ -106,32 +217,68 @@ public class ZSSEntityInfo implements IExtendedEntityProperties
 	 */
 	public void removeAllBuffs() {
 		if (!entity.worldObj.isRemote) {
-			Iterator<Buff> iterator = activeBuffs.keySet().iterator();
-			while (iterator.hasNext()) {
-				Buff buff = iterator.next();
-				activeBuffs.get(buff).onRemoved(entity);
-				iterator.remove();
+			for (int mask = activeBuffs; mask != 0; mask &= mask - 1) {
+				removeBuff(Buff.values()[Integer.numberOfTrailingZeros(mask)]);
 			}
 		}
 	}
 	
 	/**
-	 * Removes a buff from the entity
+	 * Removes a buff from the entity; safe to call while buffs are being updated or expired
 	 */
 	public void removeBuff(Buff buff) {
-		BuffBase buffBase = activeBuffs.remove(buff);
-		if (buffBase != null) {
-			buffBase.onRemoved(this.entity);
+		if (isBuffActive(buff)) {
+			BuffBase removed = getActiveBuff(buff);
+			activeBuffs &= ~(1 << buff.ordinal());
+			timedBuffs &= ~(1 << buff.ordinal());
+			amplifiers[buff.ordinal()] = 0;
+			if (!entity.worldObj.isRemote) {
+				buff.onRemoved(entity, removed.getAmplifier());
+				if (entity instanceof EntityPlayer) {
+					PacketQueue.sendToPlayer(new UpdateBuffPacket(removed, true), (EntityPlayer) entity);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns true if this entity is alive and currently loaded in the world given
+	 */
+	public boolean isLoadedIn(World world) {
+		return !entity.isDead && entity.worldObj == world && world.getEntityByID(entity.entityId) == entity;
+	}
+
+	/**
+	 * Called by the world's {@link BuffExpiryWheel} when the buff was scheduled to expire;
+	 * the buff is only removed if it has not been changed since being scheduled
+	 */
+	public void onBuffExpired(Buff buff, long expiry) {
+		if (isBuffActive(buff) && expiryTimes[buff.ordinal()] == expiry && !entity.isDead) {
+			removeBuff(buff);
 		}
 	}
 	
 	/**
-	 * Updates all active buffs, removing any whose duration reaches zero
+	 * Updates the effects of any active buffs that have an effect each tick
 	 */
 	protected void updateBuffs() {
-		for (BuffBase buff : activeBuffs.values()) {
-			if (buff.onUpdate(entity)) {
-				removeBuff(buff.getBuff());
+		long now = getWorldTime();
+		BuffExpiryWheel wheel = BuffExpiryWheel.get(entity.worldObj);
+		wheel.advance(entity.worldObj, now);
+		if (scheduledWorld != entity.worldObj) {
+			// entity changed dimensions; the previous world may unload before its buffs expire
+			scheduledWorld = entity.worldObj;
+			for (int mask = activeBuffs; mask != 0; mask &= mask - 1) {
+				int i = Integer.numberOfTrailingZeros(mask);
+				if (expiryTimes[i] != PERMANENT) {
+					wheel.schedule(this, Buff.values()[i], expiryTimes[i]);
+				}
+			}
+		}
+		for (int mask = activeBuffs & UPDATED_BUFFS; mask != 0; mask &= mask - 1) {
+			int i = Integer.numberOfTrailingZeros(mask);
+			if (isBuffActive(Buff.values()[i]) && expiryTimes[i] != PERMANENT && expiryTimes[i] > now) {
+				Buff.values()[i].onUpdate(entity, (int)(expiryTimes[i] - now), amplifiers[i]);
 			}
 		}
 	}
@@ -166,7 +313,16 @@ public class ZSSEntityInfo implements IExtendedEntityProperties
 	}
 
 	/**
-	 * This method should be called every update tick; currently called from LivingUpdateEvent
+	 * Whether this entity has any state that changes over time, i.e. buffs that are not
+	 * permanent or stun resistance; {@link #onUpdate} need not be called while this is false
+	 */
+	public boolean needsUpdate() {
+		return timedBuffs != 0 || stunResistTime > 0;
+	}
+
+	/**
+	 * This method should be called every update tick while {@link #needsUpdate} is true;
+	 * currently called from LivingUpdateEvent
 	 */
 	public void onUpdate() {
 		updateBuffs();
@@ -191,12 +347,17 @@ public class ZSSEntityInfo implements IExtendedEntityProperties
 
 	@Override
 	public void saveNBTData(NBTTagCompound compound) {
-		if (!activeBuffs.isEmpty()) {
+		if (activeBuffs != 0) {
 			NBTTagList list = new NBTTagList();
-			for (BuffBase buff : activeBuffs.values()) {
-				list.appendTag(buff.writeToNBT(new NBTTagCompound()));
+			for (BuffBase buff : getActiveBuffs()) {
+				// permanent buffs are always reapplied by their source, e.g. worn equipment
+				if (!buff.isPermanent()) {
+					list.appendTag(buff.writeToNBT(new NBTTagCompound()));
+				}
+			}
+			if (list.tagCount() > 0) {
+				compound.setTag("ActiveBuffs", list);
 			}
-			compound.setTag("ActiveBuffs", list);
 		}
 	}
 
@@ -207,7 +368,11 @@ public class ZSSEntityInfo implements IExtendedEntityProperties
 			for (int i = 0; i < list.tagCount(); ++i) {
 				NBTTagCompound tag = (NBTTagCompound) list.tagAt(i);
 				BuffBase buff = BuffBase.readFromNBT(tag);
-				activeBuffs.put(buff.getBuff(), buff);
+				// older versions saved permanent buffs, which are now innate or reapplied by their source
+				if (buff.isPermanent()) {
+					continue;
+				}
+				syncBuff(buff.getBuff(), buff.getDuration(), buff.getAmplifier(), false);
 			}
 		}
 	}
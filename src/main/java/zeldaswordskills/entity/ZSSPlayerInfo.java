@@ -17,6 +17,7 @@
 
 package zeldaswordskills.entity;
 
+import java.io.IOException;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
@@ -43,15 +44,22 @@ import zeldaswordskills.item.ItemZeldaShield;
 import zeldaswordskills.item.ZSSItems;
 import zeldaswordskills.lib.Config;
 import zeldaswordskills.network.AttackBlockedPacket;
+import zeldaswordskills.network.EffectBroadcaster;
+import zeldaswordskills.network.InLiquidPacket;
+import zeldaswordskills.network.PacketCodec;
+import zeldaswordskills.network.PacketQueue;
+import zeldaswordskills.network.ResyncPlayerInfoPacket;
 import zeldaswordskills.network.SpawnNayruParticlesPacket;
 import zeldaswordskills.network.SyncPlayerInfoPacket;
 import zeldaswordskills.skills.ICombo;
 import zeldaswordskills.skills.ILockOnTarget;
 import zeldaswordskills.skills.SkillActive;
 import zeldaswordskills.skills.SkillBase;
-import zeldaswordskills.util.WorldUtils;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+
 import cpw.mods.fml.common.network.PacketDispatcher;
-import cpw.mods.fml.common.network.Player;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
@@ -60,6 +68,9 @@ public final class ZSSPlayerInfo implements IExtendedEntityProperties
 	private static final String EXT_PROP_NAME = "ZSSPlayerInfo";
 
 	private final EntityPlayer player;
+
+	/** The player's ZSSEntityInfo, kept after the first lookup; see {@link #getEntityInfo} */
+	private ZSSEntityInfo entityInfo;
 	
 	/** Special block timer for shields; player cannot block while this is greater than zero */
 	private int blockTime = 0;
@@ -99,6 +110,13 @@ public final class ZSSPlayerInfo implements IExtendedEntityProperties
 	/** Current amount of time hovered */
 	public int hoverTime = 0;
 
+	public static final byte
+	/** Liquid states for Heavy Boots: not in liquid, standing in water, standing in lava */
+	LIQUID_NONE = 0, LIQUID_WATER = 1, LIQUID_LAVA = 2;
+
+	/** Liquid in which the player is standing while wearing Heavy Boots; set by the server */
+	private byte liquidState = LIQUID_NONE;
+
 	/** Stores information on the player's skills */
 	private final Map<Byte, SkillBase> skills;
 
@@ -117,6 +135,27 @@ public final class ZSSPlayerInfo implements IExtendedEntityProperties
 	/** Reduces fall damage next impact; used for Rising Cut */
 	public float reduceFallAmount = 0.0F;
 
+	/** Bit flags for each part of the data synchronized with the client */
+	private static final int SYNC_SKILLS = 1, SYNC_STATS = 2, SYNC_GEAR = 4, SYNC_ORBS = 8, SYNC_MASK = 16, SYNC_ALL = 31;
+
+	/** Number of ticks between syncs sent even if nothing changed, so the client can verify its checksum */
+	private static final int CHECKSUM_INTERVAL = 200;
+
+	/** Minimum number of ticks between full syncs sent at the client's request */
+	private static final int RESYNC_INTERVAL = 40;
+
+	/** Sync flags for each part of the data changed since last sent to the client; server only */
+	private int dirtyFields = 0;
+
+	/** Incremented for each sync sent; the client expects each one in sequence */
+	private int syncVersion = 0;
+
+	/** Tick at which a full sync was last requested by (client) or sent to (server) the client */
+	private int lastResyncTick = -RESYNC_INTERVAL;
+
+	/** Set on the client when a full sync has been requested and not yet received */
+	private boolean awaitingResync = false;
+
 	public ZSSPlayerInfo(EntityPlayer player) {
 		this.player = player;
 		skills = new HashMap<Byte, SkillBase>(SkillBase.getNumSkills());
@@ -137,7 +176,7 @@ public final class ZSSPlayerInfo implements IExtendedEntityProperties
 		blockTime = (shield.getItem() instanceof ItemZeldaShield ? ((ItemZeldaShield) shield.getItem()).getRecoveryTime() : 20);
 		player.clearItemInUse();
 		if (!player.worldObj.isRemote) {
-			PacketDispatcher.sendPacketToPlayer(new AttackBlockedPacket(shield).makePacket(), (Player) player);
+			PacketQueue.sendToPlayer(new AttackBlockedPacket(shield), player);
 			player.addExhaustion(0.3F * damage);
 		}
 	}
@@ -160,6 +199,7 @@ public final class ZSSPlayerInfo implements IExtendedEntityProperties
 		case STAT_BOSS_ROOMS: playerStats.put(stat, i | value); break;
 		default: playerStats.put(stat, i + value);
 		}
+		dirtyFields |= SYNC_STATS;
 	}
 
 	/**
@@ -173,7 +213,7 @@ public final class ZSSPlayerInfo implements IExtendedEntityProperties
 		validateSkills();
 		skills.clear();
 		fairySpinOrbsReceived = 0;
-		PacketDispatcher.sendPacketToPlayer(new SyncPlayerInfoPacket(this).setReset().makePacket(), (Player) player);
+		PacketQueue.sendToPlayer(new SyncPlayerInfoPacket(this).setReset(), player);
 	}
 
 	/**
@@ -182,6 +222,7 @@ public final class ZSSPlayerInfo implements IExtendedEntityProperties
 	public void verifyStartingGear() {
 		if ((receivedGear & 1) == 0 && ZSSItems.grantBonusGear(player)) {
 			receivedGear |= 1;
+			dirtyFields |= SYNC_GEAR;
 		}
 	}
 
@@ -217,6 +258,9 @@ public final class ZSSPlayerInfo implements IExtendedEntityProperties
 	 */
 	public void setWearingBoots() {
 		ItemStack boots = player.getCurrentArmor(ArmorIndex.WORN_BOOTS);
+		if (!player.worldObj.isRemote) {
+			setLiquidState(LIQUID_NONE);
+		}
 		setFlag(IS_WEARING_BOOTS, (boots != null && boots.getItem() instanceof ItemArmorBoots));
 		lastBootsID = (boots != null ? boots.itemID : -1);
 		ItemArmorBoots.applyAttributeModifiers(boots, player);
@@ -225,6 +269,24 @@ public final class ZSSPlayerInfo implements IExtendedEntityProperties
 		}
 	}
 
+	/** Returns the liquid the player is standing in while wearing Heavy Boots, one of the LIQUID_ states */
+	public byte getLiquidState() {
+		return liquidState;
+	}
+
+	/**
+	 * Sets the liquid the player is standing in while wearing Heavy Boots; when called
+	 * on the server, the client is only notified if the state has changed
+	 */
+	public void setLiquidState(byte state) {
+		if (state != liquidState) {
+			liquidState = state;
+			if (!player.worldObj.isRemote) {
+				PacketQueue.sendToPlayer(new InLiquidPacket(state), player);
+			}
+		}
+	}
+
 	/**
 	 * Checks whether player is wearing a special helm based on currently equipped gear
 	 * and applies / removes modifiers as appropriate
@@ -256,6 +318,7 @@ public final class ZSSPlayerInfo implements IExtendedEntityProperties
 
 	/** Increments the number of Super Spin Attack orbs received, returning true if it's the last one */
 	public boolean receiveFairyOrb() {
+		dirtyFields |= SYNC_ORBS;
 		return (++fairySpinOrbsReceived == SkillBase.MAX_LEVEL);
 	}
 
@@ -267,6 +330,7 @@ public final class ZSSPlayerInfo implements IExtendedEntityProperties
 	/** Sets the mask that the player has borrowed */
 	public void setBorrowedMask(Item item) {
 		borrowedMask = item;
+		dirtyFields |= SYNC_MASK;
 	}
 
 	/**
@@ -280,6 +344,7 @@ public final class ZSSPlayerInfo implements IExtendedEntityProperties
 	/** Increments the mask quest stage by one */
 	public void completeCurrentMaskStage() {
 		++maskStage;
+		dirtyFields |= SYNC_MASK;
 	}
 
 	/** Returns true if the player has at least one level in the specified skill */
@@ -436,16 +501,163 @@ public final class ZSSPlayerInfo implements IExtendedEntityProperties
 	}
 
 	/**
-	 * Reads a SkillBase from stream and updates the local skills map
-	 * Called client side only for synchronizing a skill with the server version.
+	 * Sends any data changed since the last sync to the client, or an empty sync every
+	 * so often so that the client can still verify its checksum; server side only
+	 */
+	private void updateClient() {
+		for (SkillBase skill : skills.values()) {
+			if (skill.isDirty()) {
+				dirtyFields |= SYNC_SKILLS;
+				break;
+			}
+		}
+		if (dirtyFields != 0 || player.ticksExisted % CHECKSUM_INTERVAL == 0) {
+			PacketQueue.sendToPlayer(new SyncPlayerInfoPacket(this, false), player);
+		}
+	}
+
+	/**
+	 * Writes the data to synchronize with the client, incrementing the sync version:
+	 * all of it if full, otherwise only the parts changed since last written. Server side only.
+	 */
+	public void writeSyncData(ByteArrayDataOutput out, boolean full) {
+		int fields = (full ? SYNC_ALL : dirtyFields);
+		PacketCodec.writeVarInt(out, ++syncVersion);
+		out.writeInt(getSyncChecksum());
+		out.writeByte(fields);
+		if ((fields & SYNC_SKILLS) != 0) {
+			int n = 0;
+			for (SkillBase skill : skills.values()) {
+				if (full || skill.isDirty()) {
+					++n;
+				}
+			}
+			PacketCodec.writeVarInt(out, n);
+			for (SkillBase skill : skills.values()) {
+				if (full || skill.isDirty()) {
+					out.writeByte(skill.getId());
+					out.writeByte(skill.getLevel());
+				}
+			}
+		}
+		if ((fields & SYNC_STATS) != 0) {
+			PacketCodec.writeVarInt(out, playerStats.size());
+			for (Integer value : playerStats.values()) {
+				PacketCodec.writeVarInt(out, value);
+			}
+		}
+		if ((fields & SYNC_GEAR) != 0) {
+			out.writeByte(receivedGear);
+		}
+		if ((fields & SYNC_ORBS) != 0) {
+			PacketCodec.writeVarInt(out, fairySpinOrbsReceived);
+		}
+		if ((fields & SYNC_MASK) != 0) {
+			PacketCodec.writeVarInt(out, maskStage);
+			PacketCodec.writeVarInt(out, borrowedMask != null ? borrowedMask.itemID + 1 : 0);
+		}
+		for (SkillBase skill : skills.values()) {
+			skill.clearDirty();
+		}
+		dirtyFields = 0;
+	}
+
+	/**
+	 * Applies data written by {@link #writeSyncData}; partial syncs are ignored if any before
+	 * them were missed or arrived out of order, or while waiting for a full sync.
+	 * @param full true if the data contains everything; skills not included are removed
+	 * @return false if the data was ignored or the result does not match the checksum, in
+	 * 			which case a full sync should be requested using {@link #requestResync}
+	 */
+	@SideOnly(Side.CLIENT)
+	public boolean readSyncData(ByteArrayDataInput in, boolean full) throws IOException {
+		int version = PacketCodec.readVarInt(in);
+		int checksum = in.readInt();
+		int fields = in.readByte();
+		if (full) {
+			awaitingResync = false;
+			skills.clear();
+		} else if (awaitingResync || version != syncVersion + 1) {
+			return false;
+		}
+		syncVersion = version;
+		if ((fields & SYNC_SKILLS) != 0) {
+			int n = PacketCodec.readVarInt(in);
+			for (int i = 0; i < n; ++i) {
+				byte id = in.readByte();
+				byte level = in.readByte();
+				if (level > 0 && SkillBase.doesSkillExist(id)) {
+					skills.put(id, SkillBase.createLeveledSkill(id, level));
+				} else {
+					skills.remove(id);
+				}
+			}
+		}
+		if ((fields & SYNC_STATS) != 0) {
+			int n = PacketCodec.readVarInt(in);
+			for (int i = 0; i < n; ++i) {
+				int value = PacketCodec.readVarInt(in);
+				if (i < Stats.values().length) {
+					playerStats.put(Stats.values()[i], value);
+				}
+			}
+		}
+		if ((fields & SYNC_GEAR) != 0) {
+			receivedGear = in.readByte();
+		}
+		if ((fields & SYNC_ORBS) != 0) {
+			fairySpinOrbsReceived = PacketCodec.readVarInt(in);
+		}
+		if ((fields & SYNC_MASK) != 0) {
+			maskStage = PacketCodec.readVarInt(in);
+			int maskID = PacketCodec.readVarInt(in) - 1;
+			borrowedMask = (maskID > -1 && maskID < Item.itemsList.length ? Item.itemsList[maskID] : null);
+		}
+		return checksum == getSyncChecksum();
+	}
+
+	/**
+	 * Asks the server for a full sync, unless one was requested recently
 	 */
 	@SideOnly(Side.CLIENT)
-	public void syncClientSideSkill(byte id, NBTTagCompound compound) {
-		if (SkillBase.doesSkillExist(id)) {
-			skills.put(id, SkillBase.getNewSkillInstance(id).loadFromNBT(compound));
+	public void requestResync() {
+		if (!awaitingResync || player.ticksExisted - lastResyncTick >= RESYNC_INTERVAL || player.ticksExisted < lastResyncTick) {
+			awaitingResync = true;
+			lastResyncTick = player.ticksExisted;
+			PacketDispatcher.sendPacketToServer(ResyncPlayerInfoPacket.INSTANCE.makePacket());
 		}
 	}
 
+	/**
+	 * Called when the client requests a full sync; ignored if one was sent recently
+	 */
+	public void onResyncRequested() {
+		if (player.ticksExisted - lastResyncTick >= RESYNC_INTERVAL || player.ticksExisted < lastResyncTick) {
+			lastResyncTick = player.ticksExisted;
+			PacketQueue.sendToPlayer(new SyncPlayerInfoPacket(this), player);
+		}
+	}
+
+	/**
+	 * Returns a checksum of all data synchronized with the client
+	 */
+	private int getSyncChecksum() {
+		int hash = 0;
+		for (SkillBase skill : skills.values()) {
+			if (skill.getLevel() > 0) {
+				// summed so that the order of the skills map does not matter
+				hash += ((skill.getId() << 8) | (skill.getLevel() & 0xFF)) * 0x9E3779B1;
+			}
+		}
+		for (Integer value : playerStats.values()) {
+			hash = 31 * hash + value;
+		}
+		hash = 31 * hash + receivedGear;
+		hash = 31 * hash + fairySpinOrbsReceived;
+		hash = 31 * hash + maskStage;
+		return 31 * hash + (borrowedMask != null ? borrowedMask.itemID : -1);
+	}
+
 	/**
 	 * This method should be called every update tick; currently called from LivingUpdateEvent
 	 */
@@ -472,7 +684,9 @@ public final class ZSSPlayerInfo implements IExtendedEntityProperties
 		for (SkillBase skill : skills.values()) {
 			skill.onUpdate(player);
 		}
-		if (player.worldObj.isRemote) {
+		if (!player.worldObj.isRemote) {
+			updateClient();
+		} else {
 			if (ZSSKeyHandler.keys[ZSSKeyHandler.KEY_BLOCK].pressed && isSkillActive(SkillBase.swordBasic) && player.getHeldItem() != null) {
 				Minecraft.getMinecraft().playerController.sendUseItem(player, player.worldObj, player.getHeldItem());
 			}
@@ -490,7 +704,7 @@ public final class ZSSPlayerInfo implements IExtendedEntityProperties
 		if (player.getFoodStats().getFoodLevel() == 0) {
 			setFlag(IS_NAYRU_ACTIVE, false);
 		} else {
-			WorldUtils.sendPacketToAllAround(new SpawnNayruParticlesPacket(player).makePacket(), player.worldObj, player, 4096.0D);
+			EffectBroadcaster.NAYRU_PARTICLES.broadcast(new SpawnNayruParticlesPacket(player), player);
 		}
 	}
 
@@ -504,6 +718,17 @@ public final class ZSSPlayerInfo implements IExtendedEntityProperties
 		return (ZSSPlayerInfo) player.getExtendedProperties(EXT_PROP_NAME);
 	}
 
+	/**
+	 * Returns the player's ZSSEntityInfo; callers already holding these properties should
+	 * use this rather than {@link ZSSEntityInfo#get}, which repeats the map lookup
+	 */
+	public ZSSEntityInfo getEntityInfo() {
+		if (entityInfo == null) {
+			entityInfo = ZSSEntityInfo.get(player);
+		}
+		return entityInfo;
+	}
+
 	/** Makes it look nicer in the methods save/loadProxyData */
 	private static final String getSaveKey(EntityPlayer player) {
 		return player.username + ":" + EXT_PROP_NAME;
@@ -531,7 +756,9 @@ public final class ZSSPlayerInfo implements IExtendedEntityProperties
 			info.loadNBTData(tag);
 		}
 		info.validateSkills();
-		PacketDispatcher.sendPacketToPlayer(new SyncPlayerInfoPacket(info).makePacket(), (Player) player);
+		// client player is new and not in any liquid yet, so the next change must be sent
+		info.liquidState = LIQUID_NONE;
+		PacketQueue.sendToPlayer(new SyncPlayerInfoPacket(info), player);
 	}
 
 	/**
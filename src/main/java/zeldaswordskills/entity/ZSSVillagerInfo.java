@@ -261,7 +261,14 @@ public class ZSSVillagerInfo implements IExtendedEntityProperties
 	}
 
 	/**
-	 * Call each update tick
+	 * Whether this villager is mating; {@link #onUpdate} need not be called while this is false
+	 */
+	public boolean needsUpdate() {
+		return matingTime > 0;
+	}
+
+	/**
+	 * Call each update tick while {@link #needsUpdate} is true
 	 */
 	public void onUpdate() {
 		updateMating();
@@ -118,7 +118,8 @@ public enum Buff
 	public void onRemoved(EntityLivingBase entity, int amplifier) {}
 	
 	/**
-	 * Updates this buff's effects, if any
+	 * Updates this buff's effects, if any; only called for buffs included in
+	 * ZSSEntityInfo's UPDATED_BUFFS mask, and never for permanent buffs
 	 */
 	public void onUpdate(EntityLivingBase entity, int remainingDuration, int amplifier) {
 		switch(this) {
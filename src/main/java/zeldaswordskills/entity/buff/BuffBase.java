@@ -17,26 +17,19 @@
 
 package zeldaswordskills.entity.buff;
 
-import java.util.logging.Level;
-
-import net.minecraft.entity.EntityLivingBase;
-import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.nbt.NBTTagCompound;
-import zeldaswordskills.network.UpdateBuffPacket;
-import zeldaswordskills.util.LogHelper;
-import cpw.mods.fml.common.network.PacketDispatcher;
-import cpw.mods.fml.common.network.Player;
 
 /**
  * 
- * An actual instance of a Buff, with duration and amplitude
+ * A snapshot of an active Buff, with its remaining duration and amplitude;
+ * the buffs themselves are stored by {@link zeldaswordskills.entity.ZSSEntityInfo}
  *
  */
 public class BuffBase
 {
 	private final Buff buff;
-	private int duration;
-	private int amplifier;
+	private final int duration;
+	private final int amplifier;
 
 	public BuffBase(Buff buff, int duration, int amplifier) {
 		this.buff = buff;
@@ -87,76 +80,6 @@ public class BuffBase
 		return buff.getName(); // TODO add more information
 	}
 
-	/**
-	 * Combines the new buff's duration and amplifier with the old buff
-	 */
-	public void combine(BuffBase newBuff) {
-		if (newBuff.buff != this.buff) {
-			LogHelper.log(Level.WARNING, "Combining two buffs of different types should be impossible!");
-		} else if (this.isPermanent()) {
-			// can't combine permanent effects
-		} else if (newBuff.amplifier > this.amplifier) {
-			this.amplifier = newBuff.amplifier;
-			this.duration = newBuff.duration;
-		} else if (newBuff.amplifier == this.amplifier && newBuff.duration > this.duration) {
-			this.duration = newBuff.duration;
-		}
-	}
-
-	/**
-	 * Adds any effects the buff may have to the entity when first applied 
-	 */
-	public void onAdded(EntityLivingBase entity) {
-		if (!entity.worldObj.isRemote) {
-			buff.onAdded(entity, amplifier);
-			if (entity instanceof EntityPlayer) {
-				PacketDispatcher.sendPacketToPlayer(new UpdateBuffPacket(this, false).makePacket(), (Player) entity);
-			}
-		}
-	}
-
-	/**
-	 * Removes any effects that may have been applied when the buff is removed
-	 */
-	public void onRemoved(EntityLivingBase entity) {
-		onRemoved(entity, true);
-	}
-
-	/**
-	 * Removes any effects that may have been applied when the buff is removed,
-	 * updating the client player if needsUpdate is true
-	 */
-	private void onRemoved(EntityLivingBase entity, boolean needsUpdate) {
-		if (!entity.worldObj.isRemote) {
-			buff.onRemoved(entity, amplifier);
-			if (needsUpdate && entity instanceof EntityPlayer) {
-				PacketDispatcher.sendPacketToPlayer(new UpdateBuffPacket(this, true).makePacket(), (Player) entity);
-			}
-		}
-	}
-
-	/**
-	 * Called when a buff has changed, removing the old effects and applying the new
-	 */
-	public void onChanged(EntityLivingBase entity) {
-		if (!entity.worldObj.isRemote) {
-			onRemoved(entity, false);
-			onAdded(entity);
-		}
-	}
-
-	/**
-	 * Updates this buff's duration and effects, if any
-	 * @return true if this buff needs to be removed (duration remaining is zero)
-	 */
-	public boolean onUpdate(EntityLivingBase entity) {
-		if (duration > 0 && !isPermanent()) {
-			buff.onUpdate(entity, duration, amplifier);
-			--duration;
-		}
-		return duration == 0;
-	}
-
 	/**
 	 * Reads and returns a new BuffBase from the tag compound
 	 */
@@ -0,0 +1,142 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.entity.buff;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.minecraft.world.World;
+import zeldaswordskills.entity.ZSSEntityInfo;
+
+/**
+ * 
+ * Timer wheel for the buffs in a single world, so that expiring buffs are found without
+ * looking at any others: each buff is scheduled in the slot for the world time at which it
+ * expires, and each tick only that slot is checked. Buffs expiring further away than one
+ * turn of the wheel simply stay in their slot until their turn comes.
+ * 
+ * Entries are never removed when a buff is changed or removed early; instead, each entry
+ * is checked against the entity's current expiry time when its slot comes up, and entries
+ * for entities that have died or left the world are discarded at that point.
+ * 
+ * Wheels must be {@link #remove removed} when their world unloads, since their entries
+ * reference entities in that world and so would keep it from being collected.
+ *
+ */
+public class BuffExpiryWheel
+{
+	/** Number of slots, i.e. ticks per turn of the wheel; must be a power of 2 */
+	private static final int SLOTS = 256;
+
+	/** Wheel for each world */
+	private static final Map<World, BuffExpiryWheel> wheels = new WeakHashMap<World, BuffExpiryWheel>();
+
+	/** Buffs scheduled in each slot */
+	private final List<Entry>[] slots;
+
+	/** World time up to which all slots have been processed; -1 before the first advance */
+	private long lastTime = -1L;
+
+	@SuppressWarnings("unchecked")
+	private BuffExpiryWheel() {
+		slots = new List[SLOTS];
+		for (int i = 0; i < SLOTS; ++i) {
+			slots[i] = new ArrayList<Entry>();
+		}
+	}
+
+	/** Returns the wheel for the world, creating it if necessary */
+	public static BuffExpiryWheel get(World world) {
+		synchronized (wheels) {
+			BuffExpiryWheel wheel = wheels.get(world);
+			if (wheel == null) {
+				wheel = new BuffExpiryWheel();
+				wheels.put(world, wheel);
+			}
+			return wheel;
+		}
+	}
+
+	/**
+	 * Discards the wheel for the world, if any; call when the world unloads
+	 */
+	public static void remove(World world) {
+		synchronized (wheels) {
+			wheels.remove(world);
+		}
+	}
+
+	/**
+	 * Schedules the buff to expire at the world time given; if that time has already
+	 * been processed, it will expire on the next advance instead
+	 */
+	public void schedule(ZSSEntityInfo info, Buff buff, long expiry) {
+		long time = (lastTime >= 0 ? Math.max(expiry, lastTime + 1) : expiry);
+		slots[(int)(time & (SLOTS - 1))].add(new Entry(info, buff, expiry));
+	}
+
+	/**
+	 * Expires all buffs scheduled up to and including the world time given; only the
+	 * first call each tick does anything, so it is safe to call for every entity
+	 */
+	public void advance(World world, long now) {
+		if (now <= lastTime) {
+			return;
+		}
+		long from = (lastTime < 0 || now - lastTime > SLOTS ? now - SLOTS + 1 : lastTime + 1);
+		lastTime = now;
+		for (long time = from; time <= now; ++time) {
+			int index = (int)(time & (SLOTS - 1));
+			List<Entry> slot = slots[index];
+			if (slot.isEmpty()) {
+				continue;
+			}
+			// buffs applied or changed while expiring others are scheduled into a fresh slot
+			slots[index] = new ArrayList<Entry>();
+			for (Entry entry : slot) {
+				if (!entry.info.isLoadedIn(world)) {
+					continue;
+				} else if (entry.expiry > now) {
+					slots[index].add(entry);
+				} else {
+					entry.info.onBuffExpired(entry.buff, entry.expiry);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * A buff scheduled to expire at a certain world time
+	 *
+	 */
+	private static class Entry
+	{
+		private final ZSSEntityInfo info;
+		private final Buff buff;
+		private final long expiry;
+
+		public Entry(ZSSEntityInfo info, Buff buff, long expiry) {
+			this.info = info;
+			this.buff = buff;
+			this.expiry = expiry;
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.entity.buff;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.entity.EnumCreatureAttribute;
+import net.minecraft.entity.boss.EntityWither;
+import net.minecraft.entity.monster.EntityGolem;
+import net.minecraft.entity.monster.EntityWitch;
+
+/**
+ * 
+ * An immutable set of permanent buff amplifiers that an entity has by nature, such as the
+ * undead's weakness to holy damage. Profiles are shared by every entity of the same kind
+ * and are never saved, as they are always determined from the entity itself.
+ * 
+ * Profiles for vanilla mobs are computed once per entity class (and fire immunity); entities whose traits
+ * depend on the individual, such as Keese and Chu types, keep their own static profiles.
+ *
+ */
+public final class InnateResistances
+{
+	/** Profile of entities with no innate resistances or weaknesses */
+	public static final InnateResistances NONE = new InnateResistances(0, new int[Buff.values().length]);
+
+	/**
+	 * Profiles for vanilla mobs, by entity class; each class has one profile for normal
+	 * entities and one for those immune to fire, since e.g. Wither Skeletons share a class
+	 */
+	private static final Map<Class<?>, InnateResistances[]> classProfiles = new HashMap<Class<?>, InnateResistances[]>();
+
+	/** Bit for each buff included, by ordinal */
+	private final int mask;
+
+	/** Amplifier of each buff, by ordinal */
+	private final int[] amplifiers;
+
+	private InnateResistances(int mask, int[] amplifiers) {
+		this.mask = mask;
+		this.amplifiers = amplifiers;
+	}
+
+	/**
+	 * Returns a new profile with the buff added at the amplifier given, replacing any previous amplifier
+	 */
+	public InnateResistances with(Buff buff, int amplifier) {
+		int[] copy = Arrays.copyOf(amplifiers, amplifiers.length);
+		copy[buff.ordinal()] = amplifier;
+		return new InnateResistances(mask | (1 << buff.ordinal()), copy);
+	}
+
+	/**
+	 * Returns a new profile without the buff
+	 */
+	public InnateResistances without(Buff buff) {
+		int[] copy = Arrays.copyOf(amplifiers, amplifiers.length);
+		copy[buff.ordinal()] = 0;
+		return new InnateResistances(mask & ~(1 << buff.ordinal()), copy);
+	}
+
+	/** Whether this profile includes the buff */
+	public boolean hasBuff(Buff buff) {
+		return (mask & (1 << buff.ordinal())) != 0;
+	}
+
+	/** Returns the amplifier of the buff, or 0 if not included */
+	public int getAmplifier(Buff buff) {
+		return amplifiers[buff.ordinal()];
+	}
+
+	/**
+	 * Returns the shared profile for the vanilla mob's class, determining it from
+	 * this entity if it is the first of its class; server thread only
+	 */
+	public static InnateResistances forEntity(EntityLivingBase entity) {
+		InnateResistances[] profiles = classProfiles.get(entity.getClass());
+		if (profiles == null) {
+			profiles = new InnateResistances[2];
+			classProfiles.put(entity.getClass(), profiles);
+		}
+		int index = (entity.isImmuneToFire() ? 1 : 0);
+		if (profiles[index] == null) {
+			profiles[index] = createProfile(entity);
+		}
+		return profiles[index];
+	}
+
+	/**
+	 * Determines the permanent buffs / debuffs of a vanilla mob
+	 */
+	private static InnateResistances createProfile(EntityLivingBase entity) {
+		InnateResistances profile = NONE;
+		// double damage from cold effects, highly resistant to fire damage
+		if (entity.isImmuneToFire()) {
+			profile = profile.with(Buff.RESIST_FIRE, 75).with(Buff.WEAKNESS_COLD, 100);
+		}
+		if (entity.getCreatureAttribute() == EnumCreatureAttribute.UNDEAD) {
+			if (!entity.isImmuneToFire()) {
+				profile = profile.with(Buff.WEAKNESS_FIRE, 50);
+			}
+			profile = profile.with(Buff.WEAKNESS_HOLY, 300).with(Buff.RESIST_COLD, 50).with(Buff.RESIST_STUN, 50);
+		}
+		if (entity instanceof EntityGolem) {
+			profile = profile.with(Buff.RESIST_COLD, 100).with(Buff.RESIST_STUN, 100);
+		}
+		if (entity instanceof EntityWitch) {
+			profile = profile.with(Buff.RESIST_MAGIC, 75);
+		}
+		if (entity instanceof EntityWither) {
+			profile = profile.without(Buff.WEAKNESS_COLD);
+		}
+		return (profile.mask == 0 ? NONE : profile);
+	}
+}
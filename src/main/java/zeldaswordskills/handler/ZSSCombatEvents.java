@@ -17,8 +17,6 @@
 
 package zeldaswordskills.handler;
 
-import java.util.Set;
-
 import net.minecraft.client.Minecraft;
 import net.minecraft.entity.DirtyEntityAccessor;
 import net.minecraft.entity.Entity;
@@ -30,6 +28,7 @@ import net.minecraft.entity.monster.IMob;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraft.util.DamageSource;
 import net.minecraftforge.client.event.FOVUpdateEvent;
 import net.minecraftforge.client.event.MouseEvent;
 import net.minecraftforge.event.EventPriority;
@@ -42,7 +41,6 @@ import net.minecraftforge.event.entity.player.AttackEntityEvent;
 import zeldaswordskills.api.damage.DamageUtils;
 import zeldaswordskills.api.damage.DamageUtils.DamageSourceArmorBreak;
 import zeldaswordskills.api.damage.EnumDamageType;
-import zeldaswordskills.api.damage.IDamageType;
 import zeldaswordskills.api.damage.IPostDamageEffect;
 import zeldaswordskills.api.item.ArmorIndex;
 import zeldaswordskills.api.item.IArmorBreak;
@@ -63,6 +61,7 @@ import zeldaswordskills.lib.Sounds;
 import zeldaswordskills.network.ActivateSkillPacket;
 import zeldaswordskills.network.AddExhaustionPacket;
 import zeldaswordskills.network.MortalDrawPacket;
+import zeldaswordskills.network.PacketQueue;
 import zeldaswordskills.network.UnpressKeyPacket;
 import zeldaswordskills.skills.ICombo;
 import zeldaswordskills.skills.ILockOnTarget;
@@ -78,7 +77,6 @@ import zeldaswordskills.skills.sword.SwordBreak;
 import zeldaswordskills.util.TargetUtils;
 import zeldaswordskills.util.WorldUtils;
 import cpw.mods.fml.common.network.PacketDispatcher;
-import cpw.mods.fml.common.network.Player;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
@@ -148,10 +146,10 @@ public class ZSSCombatEvents
 				event.setCanceled(true);
 			} else if (event.button == 0) {
 				Item heldItem = (player.getHeldItem() != null ? player.getHeldItem().getItem() : null);
-				event.setCanceled(ZSSEntityInfo.get(player).isBuffActive(Buff.STUN) || heldItem instanceof ItemHeldBlock ||
+				event.setCanceled(skills.getEntityInfo().isBuffActive(Buff.STUN) || heldItem instanceof ItemHeldBlock ||
 						(player.attackTime > 0 && (Config.affectAllSwings() || heldItem instanceof ISwingSpeed)));
 			} else if (event.button == 1) {
-				event.setCanceled(ZSSEntityInfo.get(player).isBuffActive(Buff.STUN));
+				event.setCanceled(skills.getEntityInfo().isBuffActive(Buff.STUN));
 			}
 		} else if (!event.buttonstate && event.button == 0) {
 			if (skills.hasSkill(SkillBase.armorBreak)) {
@@ -161,7 +159,7 @@ public class ZSSCombatEvents
 		if (event.isCanceled()) {
 			return;
 		}
-		ILockOnTarget skill = ZSSPlayerInfo.get(player).getTargetingSkill();
+		ILockOnTarget skill = skills.getTargetingSkill();
 		if (skill != null && skill.isLockedOn() && !skills.isNayruActive()) {
 			if (event.button == 0 && event.buttonstate) {
 				if (!skills.canInteract()) {
@@ -246,7 +244,7 @@ public class ZSSCombatEvents
 						PacketDispatcher.sendPacketToServer(new AddExhaustionPacket(exhaustion).makePacket());
 					}
 				} else {
-					PacketDispatcher.sendPacketToPlayer(new UnpressKeyPacket(UnpressKeyPacket.LMB).makePacket(), (Player) player);
+					PacketQueue.sendToPlayer(UnpressKeyPacket.UNPRESS_LMB, player);
 				}
 			}
 		}
@@ -300,7 +298,7 @@ public class ZSSCombatEvents
 			} else if (skills.isSkillActive(SkillBase.mortalDraw) && event.source.getEntity() != null) {
 				if (!player.worldObj.isRemote) {
 					if (((MortalDraw) skills.getPlayerSkill(SkillBase.mortalDraw)).drawSword(player, event.source.getEntity())) {
-						PacketDispatcher.sendPacketToPlayer(new MortalDrawPacket().makePacket(), (Player) player);
+						PacketQueue.sendToPlayer(MortalDrawPacket.INSTANCE, player);
 						event.setCanceled(true);
 					}
 				}
@@ -311,9 +309,10 @@ public class ZSSCombatEvents
 			}
 		} else if (!event.isCanceled() && event.source.getEntity() != null) {
 			EntityLivingBase entity = event.entityLiving;
-			float evade = ZSSEntityInfo.get(entity).getBuffAmplifier(Buff.EVADE_UP) * 0.01F;
+			ZSSEntityInfo info = ZSSEntityInfo.get(entity);
+			float evade = info.getBuffAmplifier(Buff.EVADE_UP) * 0.01F;
 			if (evade > 0.0F) {
-				float penalty = ZSSEntityInfo.get(entity).getBuffAmplifier(Buff.EVADE_DOWN) * 0.01F;
+				float penalty = info.getBuffAmplifier(Buff.EVADE_DOWN) * 0.01F;
 				if (entity.worldObj.rand.nextFloat() < evade - penalty) {
 					WorldUtils.playSoundAtEntity(entity.worldObj, entity, Sounds.SWORD_MISS, 0.4F, 0.5F);
 					event.setCanceled(true);
@@ -441,75 +440,71 @@ public class ZSSCombatEvents
 	}
 
 	/**
-	 * Applies all damage modifiers
+	 * Applies all damage modifiers in a single pass: the attacker's attack buffs, then the
+	 * victim's weaknesses, then its defense and resistances; each buff is looked up once,
+	 * and the damage types are read from the source's mask rather than its Set
 	 */
 	private void applyDamageModifiers(LivingHurtEvent event) {
+		ZSSEntityInfo attacker = null;
 		if (event.source.getEntity() instanceof EntityLivingBase) {
-			EntityLivingBase entity = (EntityLivingBase) event.source.getEntity();
-			event.ammount *= 1.0F - (ZSSEntityInfo.get(entity).getBuffAmplifier(Buff.ATTACK_DOWN) * 0.01F);
-			event.ammount *= 1.0F + (ZSSEntityInfo.get(entity).getBuffAmplifier(Buff.ATTACK_UP) * 0.01F);
+			attacker = ZSSEntityInfo.get((EntityLivingBase) event.source.getEntity());
 		}
-		applyDamageWeaknesses(event);
-		applyDamageResistances(event);
+		event.ammount = applyDamageModifiers(event.ammount, event.source, attacker, ZSSEntityInfo.get(event.entityLiving));
 	}
 
 	/**
-	 * Modifies damage of LivingHurtEvent based on entity resistances
+	 * Returns the amount of damage after all modifiers, as applied to the LivingHurtEvent
+	 * @param attacker info for the living entity that caused the damage, or null if none
 	 */
-	private void applyDamageResistances(LivingHurtEvent event) {
-		float defenseUp = (ZSSEntityInfo.get(event.entityLiving).getBuffAmplifier(Buff.DEFENSE_UP) * 0.01F);
-		float defenseDown = (ZSSEntityInfo.get(event.entityLiving).getBuffAmplifier(Buff.DEFENSE_DOWN) * 0.01F);
-		event.ammount *= (1.0F + defenseDown - defenseUp);
-		if (event.source instanceof IDamageType && event.ammount > 0.0F) {
-			Set<EnumDamageType> damageTypes = ((IDamageType) event.source).getEnumDamageTypes();
-			if (damageTypes != null) {
-				for (EnumDamageType type : damageTypes) {
-					if (EnumDamageType.damageResistMap.get(type) != null) {
-						event.ammount *= 1.0F - (ZSSEntityInfo.get(event.entityLiving).getBuffAmplifier(EnumDamageType.damageResistMap.get(type)) * 0.01F);
-					}
-				}
+	static float applyDamageModifiers(float amount, DamageSource source, ZSSEntityInfo attacker, ZSSEntityInfo victim) {
+		if (attacker != null) {
+			amount *= 1.0F - (attacker.getBuffAmplifier(Buff.ATTACK_DOWN) * 0.01F);
+			amount *= 1.0F + (attacker.getBuffAmplifier(Buff.ATTACK_UP) * 0.01F);
+		}
+		int damageTypes = EnumDamageType.getMask(source);
+		boolean isFire = source.isFireDamage();
+		boolean isMagic = source.isMagicDamage();
+		// weaknesses
+		for (int mask = damageTypes; mask != 0; mask &= mask - 1) {
+			Buff weakness = EnumDamageType.byOrdinal(Integer.numberOfTrailingZeros(mask)).getWeakness();
+			if (weakness != null) {
+				amount *= 1.0F + (victim.getBuffAmplifier(weakness) * 0.01F);
 			}
 		}
-		if (event.source.isFireDamage()) {
-			event.ammount *= 1.0F - (ZSSEntityInfo.get(event.entityLiving).getBuffAmplifier(Buff.RESIST_FIRE) * 0.01F);
+		if (isFire) {
+			amount *= 1.0F + (victim.getBuffAmplifier(Buff.WEAKNESS_FIRE) * 0.01F);
 		}
-		if (event.source.isMagicDamage()) {
-			event.ammount *= 1.0F - (ZSSEntityInfo.get(event.entityLiving).getBuffAmplifier(Buff.RESIST_MAGIC) * 0.01F);
+		if (isMagic) {
+			amount *= 1.0F + (victim.getBuffAmplifier(Buff.WEAKNESS_MAGIC) * 0.01F);
 		}
-	}
-
-	/**
-	 * Modifies damage of LivingHurtEvent based on entity weaknesses
-	 */
-	private void applyDamageWeaknesses(LivingHurtEvent event) {
-		if (event.source instanceof IDamageType) {
-			Set<EnumDamageType> damageTypes = ((IDamageType) event.source).getEnumDamageTypes();
-			if (damageTypes != null) {
-				for (EnumDamageType type : damageTypes) {
-					if (EnumDamageType.damageWeaknessMap.get(type) != null) {
-						event.ammount *= 1.0F + (ZSSEntityInfo.get(event.entityLiving).getBuffAmplifier(EnumDamageType.damageWeaknessMap.get(type)) * 0.01F);
-					}
+		// resistances
+		float defenseUp = (victim.getBuffAmplifier(Buff.DEFENSE_UP) * 0.01F);
+		float defenseDown = (victim.getBuffAmplifier(Buff.DEFENSE_DOWN) * 0.01F);
+		amount *= (1.0F + defenseDown - defenseUp);
+		if (amount > 0.0F) {
+			for (int mask = damageTypes; mask != 0; mask &= mask - 1) {
+				Buff resistance = EnumDamageType.byOrdinal(Integer.numberOfTrailingZeros(mask)).getResistance();
+				if (resistance != null) {
+					amount *= 1.0F - (victim.getBuffAmplifier(resistance) * 0.01F);
 				}
 			}
 		}
-		if (event.source.isFireDamage()) {
-			event.ammount *= 1.0F + (ZSSEntityInfo.get(event.entityLiving).getBuffAmplifier(Buff.WEAKNESS_FIRE) * 0.01F);
+		if (isFire) {
+			amount *= 1.0F - (victim.getBuffAmplifier(Buff.RESIST_FIRE) * 0.01F);
 		}
-		if (event.source.isMagicDamage()) {
-			event.ammount *= 1.0F + (ZSSEntityInfo.get(event.entityLiving).getBuffAmplifier(Buff.WEAKNESS_MAGIC) * 0.01F);
+		if (isMagic) {
+			amount *= 1.0F - (victim.getBuffAmplifier(Buff.RESIST_MAGIC) * 0.01F);
 		}
+		return amount;
 	}
 
 	/**
 	 * Applies any secondary effects that may occur when a living entity is injured
 	 */
 	private void handleSecondaryEffects(LivingHurtEvent event) {
-		if (event.ammount > 0.0F && event.source instanceof IDamageType && event.source instanceof IPostDamageEffect) {
-			Set<EnumDamageType> damageTypes = ((IDamageType) event.source).getEnumDamageTypes();
-			if (damageTypes != null) {
-				for (EnumDamageType type : damageTypes) {
-					type.handleSecondaryEffects((IPostDamageEffect) event.source, event.entityLiving, event.ammount);
-				}
+		if (event.ammount > 0.0F && event.source instanceof IPostDamageEffect) {
+			for (int mask = EnumDamageType.getMask(event.source); mask != 0; mask &= mask - 1) {
+				EnumDamageType.byOrdinal(Integer.numberOfTrailingZeros(mask)).handleSecondaryEffects((IPostDamageEffect) event.source, event.entityLiving, event.ammount);
 			}
 		}
 	}
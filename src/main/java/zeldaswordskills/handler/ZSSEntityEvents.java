@@ -18,10 +18,6 @@
 package zeldaswordskills.handler;
 
 import net.minecraft.entity.EntityLivingBase;
-import net.minecraft.entity.EnumCreatureAttribute;
-import net.minecraft.entity.boss.EntityWither;
-import net.minecraft.entity.monster.EntityGolem;
-import net.minecraft.entity.monster.EntityWitch;
 import net.minecraft.entity.passive.EntityVillager;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.item.ItemStack;
@@ -36,23 +32,25 @@ import net.minecraftforge.event.entity.living.LivingEvent.LivingUpdateEvent;
 import net.minecraftforge.event.entity.living.LivingFallEvent;
 import net.minecraftforge.event.entity.player.EntityInteractEvent;
 import net.minecraftforge.event.entity.player.PlayerFlyableFallEvent;
+import net.minecraftforge.event.world.WorldEvent;
 import zeldaswordskills.api.item.ArmorIndex;
 import zeldaswordskills.entity.EntityGoron;
 import zeldaswordskills.entity.EntityMaskTrader;
+import zeldaswordskills.entity.EntityUpdateStats;
 import zeldaswordskills.entity.ZSSEntities;
 import zeldaswordskills.entity.ZSSEntityInfo;
 import zeldaswordskills.entity.ZSSPlayerInfo;
 import zeldaswordskills.entity.ZSSVillagerInfo;
-import zeldaswordskills.entity.buff.Buff;
+import zeldaswordskills.entity.buff.BuffExpiryWheel;
+import zeldaswordskills.entity.buff.InnateResistances;
 import zeldaswordskills.item.ItemMask;
 import zeldaswordskills.item.ItemTreasure.Treasures;
 import zeldaswordskills.item.ZSSItems;
 import zeldaswordskills.lib.Config;
+import zeldaswordskills.network.PacketQueue;
 import zeldaswordskills.network.SyncEntityInfoPacket;
 import zeldaswordskills.skills.SkillBase;
 import zeldaswordskills.skills.sword.LeapingBlow;
-import cpw.mods.fml.common.network.PacketDispatcher;
-import cpw.mods.fml.common.network.Player;
 
 /**
  * 
@@ -89,10 +87,10 @@ public class ZSSEntityEvents
 	 */
 	@ForgeSubscribe
 	public void onCreativeFall(PlayerFlyableFallEvent event) {
-		if (ZSSPlayerInfo.get(event.entityPlayer) != null && event.entityPlayer.worldObj.isRemote) {
-			if (ZSSPlayerInfo.get(event.entityPlayer).isSkillActive(SkillBase.leapingBlow)) {
-				EntityPlayer player = event.entityPlayer;
-				((LeapingBlow) ZSSPlayerInfo.get(player).getPlayerSkill(SkillBase.leapingBlow)).onImpact(player, event.distance);
+		ZSSPlayerInfo skills = ZSSPlayerInfo.get(event.entityPlayer);
+		if (skills != null && event.entityPlayer.worldObj.isRemote) {
+			if (skills.isSkillActive(SkillBase.leapingBlow)) {
+				((LeapingBlow) skills.getPlayerSkill(SkillBase.leapingBlow)).onImpact(event.entityPlayer, event.distance);
 			}
 		}
 	}
@@ -142,19 +140,36 @@ public class ZSSEntityEvents
 
 	@ForgeSubscribe
 	public void onLivingUpdate(LivingUpdateEvent event) {
+		ZSSEntityInfo info;
 		if (event.entity instanceof EntityPlayer) {
 			EntityPlayer player = (EntityPlayer) event.entity;
-			ZSSPlayerInfo.get(player).onUpdate();
+			ZSSPlayerInfo skills = ZSSPlayerInfo.get(player);
+			skills.onUpdate();
 			if (player.getHeldItem() != null && player.getHeldItem().getItem() == ZSSItems.rocsFeather && player.motionY < -0.25D) {
 				player.motionY = -0.25D;
 				player.fallDistance = 0.0F;
 			}
+			info = skills.getEntityInfo();
+		} else {
+			info = ZSSEntityInfo.get(event.entityLiving);
+		}
+		// most entities have nothing that changes over time, so only those that do are updated
+		boolean updated = info.needsUpdate();
+		if (updated) {
+			info.onUpdate();
 		}
-		if (event.entity instanceof EntityLivingBase) {
-			ZSSEntityInfo.get((EntityLivingBase) event.entity).onUpdate();
+		if (!event.entity.worldObj.isRemote) {
+			EntityUpdateStats.onEntityUpdate(updated);
 		}
 		if (event.entity instanceof EntityVillager) {
-			ZSSVillagerInfo.get((EntityVillager) event.entity).onUpdate();
+			ZSSVillagerInfo villagerInfo = ZSSVillagerInfo.get((EntityVillager) event.entity);
+			updated = villagerInfo.needsUpdate();
+			if (updated) {
+				villagerInfo.onUpdate();
+			}
+			if (!event.entity.worldObj.isRemote) {
+				EntityUpdateStats.onVillagerUpdate(updated);
+			}
 		}
 	}
 
@@ -164,7 +179,7 @@ public class ZSSEntityEvents
 			if (event.entity instanceof EntityPlayer) {
 				EntityPlayer player = (EntityPlayer) event.entity;
 				ZSSPlayerInfo.loadProxyData(player);
-				PacketDispatcher.sendPacketToPlayer(new SyncEntityInfoPacket(ZSSEntityInfo.get(player)).makePacket(), (Player) player);
+				PacketQueue.sendToPlayer(new SyncEntityInfoPacket(ZSSEntityInfo.get(player)), player);
 				ZSSPlayerInfo.get(player).verifyStartingGear();
 			} else if (event.entity.getClass().isAssignableFrom(EntityVillager.class)) {
 				// this event is called each time the entity joins, which is every time the world is
@@ -213,35 +228,18 @@ public class ZSSEntityEvents
 		}
 	}
 
+	@ForgeSubscribe
+	public void onWorldUnload(WorldEvent.Unload event) {
+		BuffExpiryWheel.remove(event.world);
+	}
+
 	/**
-	 * Applies permanent buffs / debuffs to vanilla mobs
+	 * Applies the shared innate resistances for vanilla mobs; mobs that set their own are unchanged
 	 */
 	private void initBuffs(EntityLivingBase entity) {
-		if (!ZSSEntityInfo.get(entity).getActiveBuffsMap().isEmpty()) {
-			return;
-		}
-		// double damage from cold effects, highly resistant to fire damage
-		if (entity.isImmuneToFire()) {
-			ZSSEntityInfo.get(entity).applyBuff(Buff.RESIST_FIRE, Integer.MAX_VALUE, 75);
-			ZSSEntityInfo.get(entity).applyBuff(Buff.WEAKNESS_COLD, Integer.MAX_VALUE, 100);
-		}
-		if (entity.getCreatureAttribute() == EnumCreatureAttribute.UNDEAD) {
-			if (!entity.isImmuneToFire()) {
-				ZSSEntityInfo.get(entity).applyBuff(Buff.WEAKNESS_FIRE, Integer.MAX_VALUE, 50);
-			}
-			ZSSEntityInfo.get(entity).applyBuff(Buff.WEAKNESS_HOLY, Integer.MAX_VALUE, 300);
-			ZSSEntityInfo.get(entity).applyBuff(Buff.RESIST_COLD, Integer.MAX_VALUE, 50);
-			ZSSEntityInfo.get(entity).applyBuff(Buff.RESIST_STUN, Integer.MAX_VALUE, 50);
-		}
-		if (entity instanceof EntityGolem) {
-			ZSSEntityInfo.get(entity).applyBuff(Buff.RESIST_COLD, Integer.MAX_VALUE, 100);
-			ZSSEntityInfo.get(entity).applyBuff(Buff.RESIST_STUN, Integer.MAX_VALUE, 100);
-		}
-		if (entity instanceof EntityWitch) {
-			ZSSEntityInfo.get(entity).applyBuff(Buff.RESIST_MAGIC, Integer.MAX_VALUE, 75);
-		}
-		if (entity instanceof EntityWither) {
-			ZSSEntityInfo.get(entity).removeBuff(Buff.WEAKNESS_COLD);
+		ZSSEntityInfo info = ZSSEntityInfo.get(entity);
+		if (info.getInnateResistances() == InnateResistances.NONE) {
+			info.setInnateResistances(InnateResistances.forEntity(entity));
 		}
 	}
 }
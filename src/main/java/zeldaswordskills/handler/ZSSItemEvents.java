@@ -72,12 +72,11 @@ import zeldaswordskills.item.ItemHeldBlock;
 import zeldaswordskills.item.ZSSItems;
 import zeldaswordskills.lib.Config;
 import zeldaswordskills.lib.Sounds;
+import zeldaswordskills.network.PacketQueue;
 import zeldaswordskills.network.UnpressKeyPacket;
 import zeldaswordskills.skills.SkillBase;
 import zeldaswordskills.util.PlayerUtils;
 import zeldaswordskills.util.WorldUtils;
-import cpw.mods.fml.common.network.PacketDispatcher;
-import cpw.mods.fml.common.network.Player;
 import cpw.mods.fml.common.registry.GameRegistry;
 
 /**
@@ -218,7 +217,7 @@ public class ZSSItemEvents
 			if (stack != null && stack.getItem() instanceof ISmashBlock && event.entityPlayer.attackTime == 0) {
 				if (blockWasSmashed(event.entityPlayer.worldObj, event.entityPlayer, stack, event.x, event.y, event.z, event.face)) {
 					ZSSCombatEvents.setPlayerAttackTime(event.entityPlayer);
-					PacketDispatcher.sendPacketToPlayer(new UnpressKeyPacket(UnpressKeyPacket.LMB).makePacket(), (Player) event.entityPlayer);
+					PacketQueue.sendToPlayer(UnpressKeyPacket.UNPRESS_LMB, event.entityPlayer);
 					event.useBlock = Result.DENY;
 				}
 			}
@@ -24,6 +24,7 @@ import net.minecraft.block.Block;
 import net.minecraft.block.BlockFluid;
 import net.minecraft.block.BlockSoulSand;
 import net.minecraft.block.material.Material;
+import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.texture.IconRegister;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.SharedMonsterAttributes;
@@ -49,10 +50,7 @@ import zeldaswordskills.entity.ZSSEntityInfo;
 import zeldaswordskills.entity.ZSSPlayerInfo;
 import zeldaswordskills.entity.buff.Buff;
 import zeldaswordskills.lib.ModInfo;
-import zeldaswordskills.network.InLiquidPacket;
 import zeldaswordskills.util.MerchantRecipeHelper;
-import cpw.mods.fml.common.network.PacketDispatcher;
-import cpw.mods.fml.common.network.Player;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
@@ -130,14 +128,16 @@ public class ItemArmorBoots extends ItemArmor
 		}
 		if (this == ZSSItems.bootsHeavy) {
 			reverseMaterialAcceleration(world, player.boundingBox.expand(0.0D, -0.4000000059604645D, 0.0D).contract(0.001D, 0.001D, 0.001D), Material.water, player);
-			if (!world.isRemote) {
+			if (world.isRemote) {
+				if (info.getLiquidState() != ZSSPlayerInfo.LIQUID_NONE) {
+					applyLiquidMotion(player, info.getLiquidState() == ZSSPlayerInfo.LIQUID_LAVA);
+				}
+			} else {
 				int i = MathHelper.floor_double(player.posX);
 				int j = MathHelper.floor_double(player.boundingBox.minY);
 				int k = MathHelper.floor_double(player.posZ);
 				Material m = world.getBlockMaterial(i, j, k);
-				if (m.isLiquid()) {
-					PacketDispatcher.sendPacketToPlayer(new InLiquidPacket(m == Material.lava).makePacket(), (Player) player);
-				}
+				info.setLiquidState(m == Material.lava ? ZSSPlayerInfo.LIQUID_LAVA : (m.isLiquid() ? ZSSPlayerInfo.LIQUID_WATER : ZSSPlayerInfo.LIQUID_NONE));
 				Material m1 = world.getBlockMaterial(i, j - 1, k);
 				if ((m1 == Material.glass || m1 == Material.ice) && world.getWorldTime() % 2 == 0) {
 					if ((!player.isSneaking() && world.rand.nextFloat() < 0.15F) || world.rand.nextFloat() < 0.01F) {
@@ -166,6 +166,24 @@ public class ItemArmorBoots extends ItemArmor
 		}
 	}
 
+	/**
+	 * Increases velocity of a player wearing Heavy Boots while standing in liquid; client
+	 * side only, since the client can't detect liquids until the player is submerged
+	 */
+	@SideOnly(Side.CLIENT)
+	private static void applyLiquidMotion(EntityPlayer player, boolean inLava) {
+		double d = (inLava ? 1.75D : 1.125D);
+		if (player.onGround) {
+			player.motionX *= d;
+			player.motionZ *= d;
+		} else if (player.motionY < 0 && !Minecraft.getMinecraft().gameSettings.keyBindJump.pressed) {
+			player.motionY *= 1.5;
+			if (player.motionY < -0.35D) {
+				player.motionY = -0.35D;
+			}
+		}
+	}
+
 	/**
 	 * Applies or removes attribute modifiers for boots when equipped or unequipped
 	 */
@@ -184,7 +202,7 @@ public class ItemArmorBoots extends ItemArmor
 		if (movement.getModifier(pegasusBootsMoveBonusUUID) != null) {
 			movement.removeModifier(pegasusBootsMoveBonus);
 		}
-		ZSSEntityInfo buffInfo = ZSSEntityInfo.get(player);
+		ZSSEntityInfo buffInfo = info.getEntityInfo();
 		if (buffInfo.isBuffPermanent(Buff.EVADE_DOWN)) {
 			buffInfo.removeBuff(Buff.EVADE_DOWN);
 		}
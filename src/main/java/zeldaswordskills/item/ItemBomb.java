@@ -20,7 +20,6 @@ package zeldaswordskills.item;
 import java.util.List;
 
 import net.minecraft.block.material.Material;
-import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.texture.IconRegister;
 import net.minecraft.creativetab.CreativeTabs;
 import net.minecraft.entity.Entity;
@@ -46,9 +45,7 @@ import zeldaswordskills.creativetab.ZSSCreativeTabs;
 import zeldaswordskills.entity.projectile.EntityBomb;
 import zeldaswordskills.lib.Config;
 import zeldaswordskills.lib.ModInfo;
-import zeldaswordskills.network.BombTickPacket;
 import zeldaswordskills.util.MerchantRecipeHelper;
-import cpw.mods.fml.common.network.PacketDispatcher;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
@@ -61,6 +58,11 @@ import cpw.mods.fml.relauncher.SideOnly;
  * 
  * Incrementing the itemstack's item damage each tick resulted in strange rendering behavior;
  * storing the time in NBT instead works nicely.
+ * 
+ * The fuse of a held bomb runs on the server only. While lit, the stack stores the world time
+ * at which the fuse would have been at zero rather than the current time, so the stack only
+ * changes (and is only sent to the client) when the fuse starts or stops, and the client
+ * derives the current time from its own world time for rendering.
  *
  */
 public class ItemBomb extends Item implements IHandlePickup, IHandleToss
@@ -117,7 +119,7 @@ public class ItemBomb extends Item implements IHandlePickup, IHandleToss
 		if (!world.isRemote) {
 			int extraTime = Config.getBombFuseTime();
 			if (extraTime == 0) { extraTime = 56; }
-			world.spawnEntityInWorld(new EntityBomb(world, player).setType(getType(stack)).addTime(extraTime - stack.getTagCompound().getInteger("time")));
+			world.spawnEntityInWorld(new EntityBomb(world, player).setType(getType(stack)).addTime(extraTime - getFuseTime(stack, world)));
 		}
 		player.destroyCurrentEquippedItem();
 		return stack;
@@ -175,6 +177,7 @@ public class ItemBomb extends Item implements IHandlePickup, IHandleToss
 		ItemStack stack = item.getEntityItem();
 		if (stack.hasTagCompound() && stack.getTagCompound().hasKey("time")) {
 			stack.getTagCompound().setInteger("time", 0);
+			stack.getTagCompound().removeTag("fuseStart");
 		}
 	}
 	
@@ -191,21 +194,41 @@ public class ItemBomb extends Item implements IHandlePickup, IHandleToss
 		}
 		
 		if (isHeld) {
-			if (entity instanceof EntityPlayer) {
-				if (world.isRemote && Minecraft.getMinecraft().currentScreen == null) {
-					PacketDispatcher.sendPacketToServer(new BombTickPacket().makePacket());
-				}
-			} else {
+			if (!world.isRemote) {
 				tickBomb(stack, world, entity);
 			}
-		} else {
+		} else if (stack.getTagCompound().getInteger("time") != 0 || stack.getTagCompound().hasKey("fuseStart")
+				|| stack.getTagCompound().getBoolean("inWater"))
+		{
 			stack.getTagCompound().setInteger("time", 0);
 			stack.getTagCompound().setBoolean("inWater", false);
+			stack.getTagCompound().removeTag("fuseStart");
 		}
 	}
+
+	/**
+	 * Returns the number of ticks the bomb's fuse has burned
+	 */
+	public static int getFuseTime(ItemStack stack, World world) {
+		if (!stack.hasTagCompound()) {
+			return 0;
+		} else if (stack.getTagCompound().hasKey("fuseStart")) {
+			return (int) Math.max(world.getTotalWorldTime() - stack.getTagCompound().getLong("fuseStart"), 0L);
+		}
+		return stack.getTagCompound().getInteger("time");
+	}
+
+	/**
+	 * Stops the fuse if lit, storing the time burned so far
+	 */
+	private static void stopFuse(ItemStack stack, int time) {
+		stack.getTagCompound().setInteger("time", time);
+		stack.getTagCompound().removeTag("fuseStart");
+	}
 	
 	/**
-	 * Increments bomb's timer and causes explosion if time is out; stack must be held by entity
+	 * Advances bomb's fuse and causes explosion if time is out; stack must be held by entity.
+	 * Server side only: the fuse is lit or stopped as needed, and otherwise the stack is unchanged.
 	 */
 	public void tickBomb(ItemStack stack, World world, Entity entity) {
 		if (!stack.hasTagCompound()) {
@@ -215,20 +238,28 @@ public class ItemBomb extends Item implements IHandlePickup, IHandleToss
 		}
 		
 		BombType type = getType(stack);
-		if (type != BombType.BOMB_WATER && world.getBlockMaterial((int) entity.posX, (int) entity.posY + 1, (int) entity.posZ) == Material.water) {
-			stack.getTagCompound().setInteger("time", 0);
+		if (type != BombType.BOMB_WATER && !stack.getTagCompound().getBoolean("inWater") && world.getBlockMaterial((int) entity.posX, (int) entity.posY + 1, (int) entity.posZ) == Material.water) {
+			stopFuse(stack, 0);
 			stack.getTagCompound().setBoolean("inWater", true);
 		}
 		if (canTick(world, type, stack.getTagCompound().getBoolean("inWater"))) {
-			int time = stack.getTagCompound().getInteger("time");
+			int time = getFuseTime(stack, world);
+			if (!stack.getTagCompound().hasKey("fuseStart")) {
+				// the time this tick is the time burned so far, i.e. the fuse is at 'time' now
+				stack.getTagCompound().setLong("fuseStart", world.getTotalWorldTime() - time);
+			}
 			if (time % 20 == 0) {
 				world.playSoundAtEntity(entity, "random.fuse", 1.0F, 2.0F + entity.worldObj.rand.nextFloat() * 0.4F);
 			}
-			stack.getTagCompound().setInteger("time", ((world.provider.dimensionId == -1 && type == BombType.BOMB_STANDARD) ? Config.getBombFuseTime() : ++time));
-			if (time == Config.getBombFuseTime() && !world.isRemote) {
+			if (time >= Config.getBombFuseTime()) {
 				entity.setCurrentItemOrArmor(0, null);
 				CustomExplosion.createExplosion(world, entity.posX, entity.posY, entity.posZ, getRadius(type), type);
+			} else if (world.provider.dimensionId == -1 && type == BombType.BOMB_STANDARD) {
+				// standard bombs go off the next tick in the Nether
+				stack.getTagCompound().setLong("fuseStart", world.getTotalWorldTime() + 1 - Config.getBombFuseTime());
 			}
+		} else if (stack.getTagCompound().hasKey("fuseStart")) {
+			stopFuse(stack, getFuseTime(stack, world));
 		}
 	}
 	
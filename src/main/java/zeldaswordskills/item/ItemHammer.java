@@ -48,6 +48,7 @@ import zeldaswordskills.creativetab.ZSSCreativeTabs;
 import zeldaswordskills.handler.ZSSCombatEvents;
 import zeldaswordskills.lib.ModInfo;
 import zeldaswordskills.lib.Sounds;
+import zeldaswordskills.network.EffectBroadcaster;
 import zeldaswordskills.network.PacketISpawnParticles;
 import zeldaswordskills.util.WorldUtils;
 
@@ -158,7 +159,7 @@ public class ItemHammer extends Item implements IArmorBreak, ISmashBlock, ISpawn
 			player.addExhaustion(charge * 2.0F);
 			if (charge > 0.25F) {
 				if (!player.worldObj.isRemote) {
-					WorldUtils.sendPacketToAllAround(new PacketISpawnParticles(player, this, 4.0F).makePacket(), world, player, 4096.0D);
+					EffectBroadcaster.ITEM_PARTICLES.broadcast(new PacketISpawnParticles(player, this, 4.0F), player);
 				}
 				player.swingItem();
 				ZSSCombatEvents.setPlayerAttackTime(player);
@@ -56,6 +56,7 @@ import zeldaswordskills.entity.projectile.EntityMobThrowable;
 import zeldaswordskills.lib.Config;
 import zeldaswordskills.lib.ModInfo;
 import zeldaswordskills.lib.Sounds;
+import zeldaswordskills.network.EffectBroadcaster;
 import zeldaswordskills.network.PacketISpawnParticles;
 import zeldaswordskills.util.TargetUtils;
 import zeldaswordskills.util.WorldUtils;
@@ -209,7 +210,7 @@ public class ItemMagicRod extends Item implements IFairyUpgrade, ISacredFlame, I
 		if (isUpgraded(stack)) {
 			r *= 1.5F;
 		}
-		WorldUtils.sendPacketToAllAround(new PacketISpawnParticles(player, this, r).makePacket(), world, player, 4096.0D);
+		EffectBroadcaster.ROD_PARTICLES.broadcast(new PacketISpawnParticles(player, this, r), player);
 		if (ticksInUse % 4 == 3) {
 			affectBlocks(world, player, r);
 			List<EntityLivingBase> targets = TargetUtils.acquireAllLookTargets(player, Math.round(r), 1.0F);
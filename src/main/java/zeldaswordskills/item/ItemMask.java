@@ -194,9 +194,10 @@ public class ItemMask extends ItemArmor implements IZoomHelper
 	public boolean onLeftClickEntity(ItemStack stack, EntityPlayer player, Entity entity) {
 		if (!player.worldObj.isRemote && entity instanceof EntityVillager) {
 			EntityVillager villager = (EntityVillager) entity;
-			if (ZSSVillagerInfo.get(villager).getMaskDesired() == this) {
+			ZSSVillagerInfo villagerInfo = ZSSVillagerInfo.get(villager);
+			if (villagerInfo.getMaskDesired() == this) {
 				//villager.setCurrentItemOrArmor(ArmorIndex.EQUIPPED_HELM, new ItemStack(this));
-				ZSSVillagerInfo.get(villager).onMaskTrade();
+				villagerInfo.onMaskTrade();
 				ZSSPlayerInfo.get(player).completeCurrentMaskStage();
 				player.setCurrentItemOrArmor(0, new ItemStack(Item.emerald, getSellPrice()));
 				PlayerUtils.playSound(player, Sounds.CASH_SALE, 1.0F, 1.0F);
@@ -253,7 +254,7 @@ public class ItemMask extends ItemArmor implements IZoomHelper
 		if (movement.getModifier(bunnyHoodMoveBonusUUID) != null) {
 			movement.removeModifier(bunnyHoodMoveBonus);
 		}
-		ZSSEntityInfo buffInfo = ZSSEntityInfo.get(player);
+		ZSSEntityInfo buffInfo = info.getEntityInfo();
 		if (buffInfo.isBuffPermanent(Buff.EVADE_UP)) {
 			buffInfo.removeBuff(Buff.EVADE_UP);
 		}
@@ -54,10 +54,11 @@ public class ItemPickupOnly extends Item implements IHandlePickup {
 			}
 		} else if (this == ZSSItems.powerPiece) {
 			PlayerUtils.playSound(player, Sounds.SUCCESS, 0.6F, 1.0F);
-			ZSSEntityInfo.get(player).applyBuff(Buff.ATTACK_UP, 600, 100);
-			ZSSEntityInfo.get(player).applyBuff(Buff.DEFENSE_UP, 600, 25);
-			ZSSEntityInfo.get(player).applyBuff(Buff.EVADE_UP, 600, 25);
-			ZSSEntityInfo.get(player).applyBuff(Buff.RESIST_STUN, 600, 100);
+			ZSSEntityInfo buffInfo = ZSSEntityInfo.get(player);
+			buffInfo.applyBuff(Buff.ATTACK_UP, 600, 100);
+			buffInfo.applyBuff(Buff.DEFENSE_UP, 600, 25);
+			buffInfo.applyBuff(Buff.EVADE_UP, 600, 25);
+			buffInfo.applyBuff(Buff.RESIST_STUN, 600, 100);
 		}
 		stack.stackSize = 0;
 		return true;
@@ -171,10 +171,11 @@ public class ItemSkillOrb extends Item implements IFairyUpgrade
 	// TODO could use the API from DSS and strip interface if ZSS not loaded
 	@Override
 	public void handleFairyUpgrade(EntityItem item, EntityPlayer player, TileEntityDungeonCore core) {
-		if (!ZSSPlayerInfo.get(player).hasReceivedAllOrbs()) {
+		ZSSPlayerInfo skills = ZSSPlayerInfo.get(player);
+		if (!skills.hasReceivedAllOrbs()) {
 			if (PlayerUtils.hasMasterSword(player)) {
-				if (ZSSPlayerInfo.get(player).canReceiveFairyOrb()) {
-					if (ZSSPlayerInfo.get(player).receiveFairyOrb()) {
+				if (skills.canReceiveFairyOrb()) {
+					if (skills.receiveFairyOrb()) {
 						player.addChatMessage(StatCollector.translateToLocal("chat.zss.fairy.finalskill"));
 						player.addChatMessage(StatCollector.translateToLocal("chat.zss.fairy.memento"));
 						WorldUtils.spawnItemWithRandom(core.worldObj, new ItemStack(ZSSItems.skillOrb,1,SkillBase.superSpinAttack.getId()), core.xCoord, core.yCoord + 2, core.zCoord);
@@ -46,6 +46,7 @@ import zeldaswordskills.entity.ZSSPlayerInfo;
 import zeldaswordskills.lib.Config;
 import zeldaswordskills.lib.ModInfo;
 import zeldaswordskills.lib.Sounds;
+import zeldaswordskills.network.EffectBroadcaster;
 import zeldaswordskills.network.PacketISpawnParticles;
 import zeldaswordskills.util.LogHelper;
 import zeldaswordskills.util.WorldUtils;
@@ -191,7 +192,7 @@ public class ItemSpiritCrystal extends Item implements ISacredFlame, ISpawnParti
 	private int handleDin(ItemStack stack, World world, EntityPlayer player) {
 		float radius = 5.0F;
 		if (!world.isRemote) {
-			WorldUtils.sendPacketToAllAround(new PacketISpawnParticles(player, this, radius).makePacket(), world, player, 4096.0D);
+			EffectBroadcaster.ITEM_PARTICLES.broadcast(new PacketISpawnParticles(player, this, radius), player);
 			affectDinBlocks(world, player, radius);
 		}
 		affectDinEntities(world, player, radius);
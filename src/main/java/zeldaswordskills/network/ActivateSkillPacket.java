@@ -41,6 +41,9 @@ public class ActivateSkillPacket extends CustomPacket
 	
 	/** Skill to activate */
 	private SkillBase skill;
+
+	/** Id of the skill to activate, as read */
+	private byte skillId;
 	
 	public ActivateSkillPacket() {}
 
@@ -60,21 +63,21 @@ public class ActivateSkillPacket extends CustomPacket
 	}
 
 	@Override
-	public void process(ByteArrayDataInput in, EntityPlayer player, Side side) throws IOException, ProtocolException {
+	public void read(ByteArrayDataInput in) throws IOException {
+		wasTriggered = in.readBoolean();
+		skillId = in.readByte();
+	}
+
+	@Override
+	public void execute(EntityPlayer player, Side side) throws ProtocolException {
 		if (ZSSPlayerInfo.get(player) != null) {
-			if (in.readBoolean()) {
-				ZSSPlayerInfo.get(player).triggerSkill(player.worldObj, in.readByte());
+			if (wasTriggered) {
+				ZSSPlayerInfo.get(player).triggerSkill(player.worldObj, skillId);
 			} else {
-				ZSSPlayerInfo.get(player).activateSkill(player.worldObj, in.readByte());
+				ZSSPlayerInfo.get(player).activateSkill(player.worldObj, skillId);
 			}
 		} else {
 			throw new ProtocolException("No Skills section");
 		}
 	}
-
-	@Override
-	public void read(ByteArrayDataInput in) throws IOException {}
-
-	@Override
-	public void execute(EntityPlayer player, Side side) throws ProtocolException {}
 }
@@ -21,7 +21,6 @@ import java.io.IOException;
 
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.item.ItemStack;
-import net.minecraft.nbt.NBTTagCompound;
 import zeldaswordskills.entity.ZSSPlayerInfo;
 
 import com.google.common.io.ByteArrayDataInput;
@@ -31,30 +30,28 @@ import cpw.mods.fml.relauncher.Side;
 
 public class AttackBlockedPacket extends CustomPacket
 {
-	/** Stores the shield ItemStack that was used to block */
-	private NBTTagCompound compound;
+	/** The shield ItemStack that was used to block */
+	private ItemStack shield;
 
 	public AttackBlockedPacket() {}
 
 	public AttackBlockedPacket(ItemStack shield) {
-		compound = new NBTTagCompound();
-		shield.writeToNBT(compound);
+		this.shield = shield;
 	}
 
 	@Override
 	public void write(ByteArrayDataOutput out) throws IOException {
-		writeNBTTagCompound(compound, out);
+		PacketCodec.writeItemStack(out, shield);
 	}
 
 	@Override
 	public void read(ByteArrayDataInput in) throws IOException {
-		compound = readNBTTagCompound(in);
+		shield = PacketCodec.readItemStack(in);
 	}
 
 	@Override
 	public void execute(EntityPlayer player, Side side) throws ProtocolException {
 		if (side.isClient()) {
-			ItemStack shield = ItemStack.loadItemStackFromNBT(compound);
 			ZSSPlayerInfo.get(player).onAttackBlocked(shield, 0.0F);
 		}
 	}
@@ -21,8 +21,6 @@ import java.io.IOException;
 
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.item.ItemStack;
-import net.minecraft.nbt.CompressedStreamTools;
-import net.minecraft.nbt.NBTTagCompound;
 import zeldaswordskills.entity.ZSSPlayerInfo;
 import zeldaswordskills.util.PlayerUtils;
 
@@ -33,30 +31,28 @@ import cpw.mods.fml.relauncher.Side;
 
 public class BorrowMaskPacket extends CustomPacket
 {
-	private NBTTagCompound item;
+	private ItemStack mask;
 
 	public BorrowMaskPacket() {}
 	
 	public BorrowMaskPacket(ItemStack mask) {
-		item = new NBTTagCompound();
-		mask.writeToNBT(item);
+		this.mask = mask;
 	}
 
 	@Override
 	public void write(ByteArrayDataOutput out) throws IOException {
-		CompressedStreamTools.write(item, out);
+		PacketCodec.writeItemStack(out, mask);
 	}
 
 	@Override
 	public void read(ByteArrayDataInput in) throws IOException {
-		item = CompressedStreamTools.read(in);
+		mask = PacketCodec.readItemStack(in);
 	}
 
 	@Override
 	public void execute(EntityPlayer player, Side side) throws ProtocolException {
 		if (side.isServer()) {
 			try {
-				ItemStack mask = ItemStack.loadItemStackFromNBT(item);
 				PlayerUtils.addItemToInventory(player, mask);
 				ZSSPlayerInfo.get(player).setBorrowedMask(mask.getItem());
 			} catch (Exception e) {
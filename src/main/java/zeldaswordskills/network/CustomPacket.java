@@ -20,17 +20,17 @@
 package zeldaswordskills.network;
 
 import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.logging.Level;
 
 import net.minecraft.entity.player.EntityPlayer;
-import net.minecraft.nbt.CompressedStreamTools;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.network.packet.Packet;
 import zeldaswordskills.lib.ModInfo;
 import zeldaswordskills.util.LogHelper;
 
-import com.google.common.collect.BiMap;
-import com.google.common.collect.ImmutableBiMap;
 import com.google.common.io.ByteArrayDataInput;
 import com.google.common.io.ByteArrayDataOutput;
 import com.google.common.io.ByteStreams;
@@ -39,43 +39,147 @@ import cpw.mods.fml.common.network.PacketDispatcher;
 import cpw.mods.fml.relauncher.Side;
 
 public abstract class CustomPacket {
-	private static final BiMap<Integer, Class<? extends CustomPacket>> idMap;
+	/**
+	 * Version of the packet protocol: packet ids and data formats. Must be increased whenever
+	 * a packet type is added, removed or reordered, or a packet's data format changes, so that
+	 * clients and servers from different builds do not read each other's packets.
+	 */
+	public static final int PROTOCOL_VERSION = 1;
+
+	/**
+	 * Channel on which all packets are sent; includes the protocol version, so that packets
+	 * from a build using a different protocol are never delivered to the packet handler
+	 */
+	public static final String CHANNEL = ModInfo.CHANNEL + "_" + PROTOCOL_VERSION;
+
+	/** This packet's id, looked up on first use; -1 until then */
+	private int packetId = -1;
+
+	/** Factory for each packet type, indexed by packet id */
+	private static final IPacketFactory[] factories = new IPacketFactory[256];
+
+	/** Packet id for each packet class */
+	private static final Map<Class<? extends CustomPacket>, Integer> packetIds = new IdentityHashMap<Class<? extends CustomPacket>, Integer>();
+
+	/**
+	 * Size of the most recent packet written of each type, used to size the next one's buffer;
+	 * atomic as packets are written on both the client and integrated server threads
+	 */
+	private static final AtomicIntegerArray lastSizes = new AtomicIntegerArray(256);
+
+	/** Simple class name of each packet type, indexed by packet id */
+	private static final String[] names = new String[256];
+
+	/** Number of packet types registered */
+	private static int numPackets = 0;
 
 	static {
-		ImmutableBiMap.Builder<Integer, Class<? extends CustomPacket>> builder = ImmutableBiMap.builder();
-		int i = 0;
-		builder.put(Integer.valueOf(i++), ActivateSkillPacket.class);
-		builder.put(Integer.valueOf(i++), AddExhaustionPacket.class);
-		builder.put(Integer.valueOf(i++), AttackBlockedPacket.class);
-		builder.put(Integer.valueOf(i++), BombTickPacket.class);
-		builder.put(Integer.valueOf(i++), BorrowMaskPacket.class);
-		builder.put(Integer.valueOf(i++), EndComboPacket.class);
-		builder.put(Integer.valueOf(i++), GetBombPacket.class);
-		builder.put(Integer.valueOf(i++), InLiquidPacket.class);
-		builder.put(Integer.valueOf(i++), MortalDrawPacket.class);
-		builder.put(Integer.valueOf(i++), OpenGuiPacket.class);
-		builder.put(Integer.valueOf(i++), PacketISpawnParticles.class);
-		builder.put(Integer.valueOf(i++), PlaySoundPacket.class);
-		builder.put(Integer.valueOf(i++), SpawnLeapingBlowPacket.class);
-		builder.put(Integer.valueOf(i++), SpawnNayruParticlesPacket.class);
-		builder.put(Integer.valueOf(i++), SyncEntityInfoPacket.class);
-		builder.put(Integer.valueOf(i++), SyncPlayerInfoPacket.class);
-		builder.put(Integer.valueOf(i++), SyncSkillPacket.class);
-		builder.put(Integer.valueOf(i++), TargetIdPacket.class);
-		builder.put(Integer.valueOf(i++), UnpressKeyPacket.class);
-		builder.put(Integer.valueOf(i++), UpdateBuffPacket.class);
-		builder.put(Integer.valueOf(i++), UpdateComboPacket.class);
-		idMap = builder.build();
+		register(ActivateSkillPacket.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return new ActivateSkillPacket(); }
+		});
+		register(AddExhaustionPacket.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return new AddExhaustionPacket(); }
+		});
+		register(AttackBlockedPacket.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return new AttackBlockedPacket(); }
+		});
+		register(BorrowMaskPacket.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return new BorrowMaskPacket(); }
+		});
+		register(EndComboPacket.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return new EndComboPacket(); }
+		});
+		register(GetBombPacket.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return GetBombPacket.INSTANCE; }
+		});
+		register(InLiquidPacket.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return new InLiquidPacket(); }
+		});
+		register(MortalDrawPacket.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return MortalDrawPacket.INSTANCE; }
+		});
+		register(MultiPacket.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return new MultiPacket(); }
+		});
+		register(OpenGuiPacket.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return new OpenGuiPacket(); }
+		});
+		register(PacketISpawnParticles.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return new PacketISpawnParticles(); }
+		});
+		register(PlaySoundPacket.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return new PlaySoundPacket(); }
+		});
+		register(ResyncPlayerInfoPacket.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return ResyncPlayerInfoPacket.INSTANCE; }
+		});
+		register(SpawnLeapingBlowPacket.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return new SpawnLeapingBlowPacket(); }
+		});
+		register(SpawnNayruParticlesPacket.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return new SpawnNayruParticlesPacket(); }
+		});
+		register(SyncEntityInfoPacket.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return new SyncEntityInfoPacket(); }
+		});
+		register(SyncPlayerInfoPacket.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return new SyncPlayerInfoPacket(); }
+		});
+		register(TargetIdPacket.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return new TargetIdPacket(); }
+		});
+		register(UnpressKeyPacket.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return new UnpressKeyPacket(); }
+		});
+		register(UpdateBuffPacket.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return new UpdateBuffPacket(); }
+		});
+		register(UpdateComboPacket.class, new IPacketFactory() {
+			@Override
+			public CustomPacket create() { return new UpdateComboPacket(); }
+		});
+	}
+
+	/**
+	 * Registers the packet type with the next available id
+	 */
+	private static void register(Class<? extends CustomPacket> clazz, IPacketFactory factory) {
+		lastSizes.set(numPackets, 32);
+		names[numPackets] = clazz.getSimpleName();
+		factories[numPackets] = factory;
+		packetIds.put(clazz, numPackets++);
 	}
 
-	public static CustomPacket constructPacket(int packetId)
-			throws ProtocolException, InstantiationException, IllegalAccessException {
-		Class<? extends CustomPacket> clazz = idMap.get(Integer.valueOf(packetId));
-		if (clazz == null) {
+	/**
+	 * Returns a packet of the type with the given id, ready to be read into
+	 */
+	public static CustomPacket constructPacket(int packetId) throws ProtocolException {
+		if (packetId < 0 || packetId >= numPackets) {
 			throw new ProtocolException("Unknown Packet Id!");
-		} else {
-			return clazz.newInstance();
 		}
+		CustomPacket packet = factories[packetId].create();
+		packet.packetId = packetId;
+		return packet;
 	}
 	
 	public static class ProtocolException extends Exception {
@@ -94,26 +198,75 @@ public abstract class CustomPacket {
 		}
 	}
 
+	/** Returns the number of packet types registered; ids range from 0 to this number, exclusive */
+	public static int getNumPackets() {
+		return numPackets;
+	}
+
+	/** Returns the simple class name of the packet type with the given id */
+	public static String getPacketName(int packetId) {
+		return (packetId >= 0 && packetId < numPackets ? names[packetId] : "Unknown#" + packetId);
+	}
+
+	/**
+	 * Returns the packet id for the packet class, or -1 if it is not registered
+	 */
+	public static int getPacketId(Class<? extends CustomPacket> clazz) {
+		Integer id = packetIds.get(clazz);
+		return (id == null ? -1 : id.intValue());
+	}
+
 	public final int getPacketId() {
-		if (idMap.inverse().containsKey(getClass())) {
-			return idMap.inverse().get(getClass()).intValue();
-		} else {
-			throw new RuntimeException("Packet " + getClass().getSimpleName() + " is missing a mapping!");
+		if (packetId < 0) {
+			Integer id = packetIds.get(getClass());
+			if (id == null) {
+				throw new RuntimeException("Packet " + getClass().getSimpleName() + " is missing a mapping!");
+			}
+			packetId = id.intValue();
 		}
+		return packetId;
 	}
 	
 	public final Packet makePacket() {
-		ByteArrayDataOutput dataOut = ByteStreams.newDataOutput();
+		return PacketDispatcher.getPacket(CHANNEL, toByteArray());
+	}
+
+	/**
+	 * Returns the packet id followed by the packet's data, i.e. the custom payload's data
+	 */
+	public final byte[] toByteArray() {
+		int id = getPacketId();
+		long start = System.nanoTime();
+		ByteArrayDataOutput out = ByteStreams.newDataOutput(lastSizes.get(id));
+		out.writeByte(id);
 		try {
-			write(dataOut);
+			write(out);
 		} catch (IOException e) {
 			LogHelper.log(Level.WARNING, "Error writing packet: " + e.toString());
 		}
-		byte[] data = dataOut.toByteArray();
-		ByteArrayDataOutput packetOut = ByteStreams.newDataOutput();
-		packetOut.writeByte(getPacketId());
-		packetOut.write(data);
-		return PacketDispatcher.getPacket(ModInfo.CHANNEL, packetOut.toByteArray());
+		byte[] data = out.toByteArray();
+		lastSizes.lazySet(id, data.length);
+		PacketMetrics.onEncoded(data, System.nanoTime() - start);
+		return data;
+	}
+
+	/**
+	 * Returns a key for the state this packet updates, if any, such that a later packet of the
+	 * same class and key makes this one redundant; used by {@link PacketQueue} to drop packets
+	 * superseded within the same tick. Returns -1 if every packet must be sent (default).
+	 */
+	public int getSupersedeKey() {
+		return -1;
+	}
+
+	/**
+	 * 
+	 * Creates new packets of a single type, or returns the shared INSTANCE for types
+	 * that have no fields to read into; used instead of reflection to construct incoming packets
+	 *
+	 */
+	public static interface IPacketFactory {
+		CustomPacket create();
 	}
 
 	public abstract void write(ByteArrayDataOutput out) throws IOException;
@@ -121,6 +274,13 @@ public abstract class CustomPacket {
 	public abstract void read(ByteArrayDataInput in) throws IOException;
 	
 	public abstract void execute(EntityPlayer player, Side side) throws ProtocolException;
+
+	/**
+	 * Called instead of {@link #execute} when the packet has been read but is dropped for
+	 * exceeding its rate limit; packets that update state kept for the connection, such as
+	 * the {@link SoundTable}, must still apply that update here so later packets agree on it
+	 */
+	public void onDropped(EntityPlayer player, Side side) throws ProtocolException {}
 	
 	public void process(ByteArrayDataInput in, EntityPlayer player, Side side)
 			throws IOException, ProtocolException {
@@ -129,30 +289,16 @@ public abstract class CustomPacket {
 	}
 	
 	/**
-	 * Adapted to a public version from Minecraft's Packet class method
+	 * Writes the tag compound, which may be null; only compressed if large, see {@link PacketCodec#writeNBT}
 	 */
 	public static void writeNBTTagCompound(NBTTagCompound compound, ByteArrayDataOutput out) throws IOException {
-		if (compound == null) {
-			out.writeShort(-1);
-		} else {
-			byte[] abyte = CompressedStreamTools.compress(compound);
-			out.writeShort((short)abyte.length);
-			out.write(abyte);
-		}
+		PacketCodec.writeNBT(out, compound);
 	}
 
 	/**
-	 * Adapted from Minecraft's Packet class method
+	 * Reads a tag compound written by {@link #writeNBTTagCompound}
 	 */
 	public static NBTTagCompound readNBTTagCompound(ByteArrayDataInput in) throws IOException {
-		short short1 = in.readShort();
-
-		if (short1 < 0) {
-			return null;
-		} else {
-			byte[] abyte = new byte[short1];
-			in.readFully(abyte);
-			return CompressedStreamTools.decompress(abyte);
-		}
+		return PacketCodec.readNBT(in);
 	}
 }
\ No newline at end of file
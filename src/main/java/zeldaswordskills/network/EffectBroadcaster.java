@@ -0,0 +1,144 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.server.management.PlayerInstance;
+import net.minecraft.util.AxisAlignedBB;
+import net.minecraft.util.MathHelper;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+
+/**
+ * 
+ * Sends effect packets (particles and the like) to the players who can see them, using the
+ * lists Minecraft already keeps rather than checking every player in the world: effects from
+ * an entity go to the players tracking that entity (and the entity itself, if a player), as
+ * kept by the world's EntityTracker, and effects at a position go to the players watching
+ * the chunk containing it, as kept by the world's PlayerManager.
+ * 
+ * Each type of effect may also limit how often a single source may broadcast it, and
+ * how often players farther than its near range receive it (level of detail), which
+ * for continuous effects simply results in fewer particles for distant viewers; the
+ * broadcasts for near players only are found from the entities in the chunks nearby.
+ * 
+ * Server thread only; calls on the client are ignored.
+ *
+ */
+public class EffectBroadcaster
+{
+	/** Particles for Nayru's Love, spawned continuously while active */
+	public static final EffectBroadcaster NAYRU_PARTICLES = new EffectBroadcaster(0, 64.0D, 1);
+
+	/** Particles for magic rods, spawned each tick while in use */
+	public static final EffectBroadcaster ROD_PARTICLES = new EffectBroadcaster(1, 32.0D, 2);
+
+	/** Particles for one-off effects such as Din's Fire, always sent to everyone tracking the source */
+	public static final EffectBroadcaster ITEM_PARTICLES = new EffectBroadcaster(0, 64.0D, 1);
+
+	/** Distance within which players receive every broadcast */
+	private final double nearRange;
+
+	/** Minimum number of ticks between broadcasts from the same source; 0 for no limit */
+	private final int minInterval;
+
+	/** Squared distance within which players receive every broadcast */
+	private final double nearRangeSq;
+
+	/** Players beyond the near range only receive every nth broadcast from a source */
+	private final int farInterval;
+
+	/** World time and count of each source's last broadcast, for rate limits and level of detail */
+	private final Map<Entity, long[]> sources = new WeakHashMap<Entity, long[]>();
+
+	/** Reused list of the players receiving the current broadcast */
+	private final List<EntityPlayerMP> recipients = new ArrayList<EntityPlayerMP>();
+
+	/**
+	 * @param minInterval	Minimum ticks between broadcasts from the same source; 0 for no limit
+	 * @param nearRange		Distance within which players receive every broadcast
+	 * @param farInterval	Players beyond the near range receive only every nth broadcast from a source
+	 */
+	public EffectBroadcaster(int minInterval, double nearRange, int farInterval) {
+		this.minInterval = minInterval;
+		this.nearRange = nearRange;
+		this.nearRangeSq = nearRange * nearRange;
+		this.farInterval = Math.max(farInterval, 1);
+	}
+
+	/**
+	 * Broadcasts the packet at the source entity's position, subject to this effect's rate limit
+	 * @return false if the source has broadcast this effect too recently and nothing was sent
+	 */
+	public boolean broadcast(CustomPacket packet, Entity source) {
+		if (source.worldObj.isRemote) {
+			return false;
+		}
+		long[] last = sources.get(source);
+		if (last == null) {
+			last = new long[] {Long.MIN_VALUE, 0L};
+			sources.put(source, last);
+		}
+		long time = source.worldObj.getTotalWorldTime();
+		if (minInterval > 0 && last[0] != Long.MIN_VALUE && time - last[0] < minInterval && time >= last[0]) {
+			return false;
+		}
+		last[0] = time;
+		if ((last[1]++ % farInterval) == 0) {
+			((WorldServer) source.worldObj).getEntityTracker().sendPacketToAllAssociatedPlayers(source, packet.makePacket());
+		} else {
+			sendToNearPlayers(packet, source.worldObj, source.posX, source.posY, source.posZ);
+		}
+		return true;
+	}
+
+	/**
+	 * Broadcasts the packet at the position given; rate limits do not apply without a source
+	 */
+	public void broadcast(CustomPacket packet, World world, double x, double y, double z) {
+		if (!world.isRemote) {
+			PlayerInstance watchers = ((WorldServer) world).getPlayerManager().getOrCreateChunkWatcher(MathHelper.floor_double(x) >> 4, MathHelper.floor_double(z) >> 4, false);
+			if (watchers != null) {
+				watchers.sendToAllPlayersWatchingChunk(packet.makePacket());
+			}
+		}
+	}
+
+	/**
+	 * Sends the packet to the players within the near range of the position, if any,
+	 * looking only at the entities in the chunks that range covers
+	 */
+	@SuppressWarnings("unchecked")
+	private void sendToNearPlayers(CustomPacket packet, World world, double x, double y, double z) {
+		double r = nearRange;
+		List<EntityPlayerMP> nearby = world.getEntitiesWithinAABB(EntityPlayerMP.class, AxisAlignedBB.getAABBPool().getAABB(x - r, y - r, z - r, x + r, y + r, z + r));
+		for (EntityPlayerMP player : nearby) {
+			if (player.getDistanceSq(x, y, z) < nearRangeSq) {
+				recipients.add(player);
+			}
+		}
+		PacketQueue.sendToPlayers(packet, recipients);
+		recipients.clear();
+	}
+}
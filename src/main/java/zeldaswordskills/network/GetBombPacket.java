@@ -33,6 +33,9 @@ import cpw.mods.fml.relauncher.Side;
 
 public class GetBombPacket extends CustomPacket {
 
+	/** Shared instance; this packet has no data, so it may be sent and received any number of times */
+	public static final GetBombPacket INSTANCE = new GetBombPacket();
+
 	public GetBombPacket() {}
 
 	@Override
@@ -19,10 +19,8 @@ package zeldaswordskills.network;
 
 import java.io.IOException;
 
-import net.minecraft.client.Minecraft;
 import net.minecraft.entity.player.EntityPlayer;
-import zeldaswordskills.api.item.ArmorIndex;
-import zeldaswordskills.item.ZSSItems;
+import zeldaswordskills.entity.ZSSPlayerInfo;
 
 import com.google.common.io.ByteArrayDataInput;
 import com.google.common.io.ByteArrayDataOutput;
@@ -35,46 +33,44 @@ import cpw.mods.fml.relauncher.Side;
  * incorrect value and is unable to detect liquids until player is submerged,
  * regardless of position parameters passed.
  * 
- * This packet should be received on the client side when the player is standing
- * in liquid wearing Heavy Boots; use to increase velocity.
+ * This packet is received on the client side whenever a player wearing Heavy Boots
+ * steps into or out of a liquid; the client then increases the player's velocity
+ * each tick for as long as the state lasts (see ZSSPlayerInfo#getLiquidState).
  *
  */
 public class InLiquidPacket extends CustomPacket
 {
-	/** If this is true, the magnitude of velocity increase will be higher*/
-	private boolean inLava;
+	/** One of the ZSSPlayerInfo LIQUID_ states */
+	private byte state;
 
 	public InLiquidPacket() {}
 
-	public InLiquidPacket(boolean inLava) {
-		this.inLava = inLava;
+	public InLiquidPacket(byte state) {
+		this.state = state;
+	}
+
+	@Override
+	public int getSupersedeKey() {
+		return 0;
 	}
 
 	@Override
 	public void write(ByteArrayDataOutput out) throws IOException {
-		out.writeBoolean(inLava);
+		out.writeByte(state);
 	}
 
 	@Override
 	public void read(ByteArrayDataInput in) throws IOException {
-		inLava = in.readBoolean();
+		state = in.readByte();
+		if (state < ZSSPlayerInfo.LIQUID_NONE || state > ZSSPlayerInfo.LIQUID_LAVA) {
+			throw new ProtocolException("Invalid liquid state: " + state);
+		}
 	}
 
 	@Override
 	public void execute(EntityPlayer player, Side side) throws ProtocolException {
 		if (side.isClient()) {
-			if (player.getCurrentArmor(ArmorIndex.WORN_BOOTS) != null && player.getCurrentArmor(ArmorIndex.WORN_BOOTS).getItem() == ZSSItems.bootsHeavy) {
-				double d = (inLava ? 1.75D : 1.125D);
-				if (player.onGround) {
-					player.motionX *= d;
-					player.motionZ *= d;
-				} else if (player.motionY < 0 && !Minecraft.getMinecraft().gameSettings.keyBindJump.pressed) {
-					player.motionY *= 1.5;
-					if (player.motionY < -0.35D) {
-						player.motionY = -0.35D;
-					}
-				}
-			}
+			ZSSPlayerInfo.get(player).setLiquidState(state);
 		} else {
 			throw new ProtocolException("InLiquid packet may only be sent to the client");
 		}
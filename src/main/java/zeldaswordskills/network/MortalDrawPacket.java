@@ -40,6 +40,9 @@ import cpw.mods.fml.relauncher.Side;
  */
 public class MortalDrawPacket extends CustomPacket
 {
+	/** Shared instance; this packet has no data, so it may be sent and received any number of times */
+	public static final MortalDrawPacket INSTANCE = new MortalDrawPacket();
+
 	public MortalDrawPacket() {}
 
 	@Override
@@ -18,12 +18,10 @@
 package zeldaswordskills.network;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import net.minecraft.entity.player.EntityPlayer;
-import net.minecraft.nbt.CompressedStreamTools;
-import net.minecraft.nbt.NBTTagCompound;
-import zeldaswordskills.entity.ZSSPlayerInfo;
-import zeldaswordskills.skills.SkillBase;
 
 import com.google.common.io.ByteArrayDataInput;
 import com.google.common.io.ByteArrayDataOutput;
@@ -32,42 +30,52 @@ import cpw.mods.fml.relauncher.Side;
 
 /**
  * 
- * Synchronizes the client-side version of a skill with the server-side data.
+ * Carries several packets to the client in a single custom payload; see {@link PacketQueue}.
+ * The packets are processed in order by {@link ZSSPacketHandler}, exactly as though each
+ * had been sent on its own.
  *
  */
-public class SyncSkillPacket extends CustomPacket
+public class MultiPacket extends CustomPacket
 {
-	/** The ID of the skill to update */
-	private byte id;
-	/** Stores the skill's data */
-	private NBTTagCompound compound;
+	/** Data of each packet carried, starting with its packet id */
+	private final List<byte[]> packets = new ArrayList<byte[]>();
 
-	public SyncSkillPacket() {}
+	public MultiPacket() {}
 
-	public SyncSkillPacket(SkillBase skill) {
-		id = skill.getId();
-		compound = new NBTTagCompound();
-		skill.writeToNBT(compound);
+	/**
+	 * Adds the data of a packet, as returned by {@link CustomPacket#toByteArray}
+	 */
+	public MultiPacket add(byte[] packet) {
+		packets.add(packet);
+		return this;
+	}
+
+	/** Returns the data of each packet carried, in order */
+	public List<byte[]> getPackets() {
+		return packets;
 	}
 
 	@Override
 	public void write(ByteArrayDataOutput out) throws IOException {
-		out.writeByte(id);
-		CompressedStreamTools.write(compound, out);
+		PacketCodec.writeVarInt(out, packets.size());
+		for (byte[] packet : packets) {
+			PacketCodec.writeVarInt(out, packet.length);
+			out.write(packet);
+		}
 	}
-	
+
 	@Override
 	public void read(ByteArrayDataInput in) throws IOException {
-		id = in.readByte();
-		compound = CompressedStreamTools.read(in);
+		int n = PacketCodec.readVarInt(in);
+		for (int i = 0; i < n; ++i) {
+			byte[] packet = new byte[PacketCodec.readVarInt(in)];
+			in.readFully(packet);
+			packets.add(packet);
+		}
 	}
 
 	@Override
 	public void execute(EntityPlayer player, Side side) throws ProtocolException {
-		if (side.isClient()) {
-			ZSSPlayerInfo.get(player).syncClientSideSkill(id, compound);
-		} else {
-			throw new ProtocolException("Cannot send SyncSkillPacket to the server!");
-		}
+		throw new ProtocolException("MultiPacket must be handled by ZSSPacketHandler");
 	}
 }
@@ -0,0 +1,307 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.Vec3;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+
+/**
+ * 
+ * Compact binary encodings for packet fields: variable-length integers, enum ordinals,
+ * and item stacks without any NBT key strings. Data that is only available as NBT is
+ * written uncompressed unless it exceeds {@link #COMPRESSION_THRESHOLD} bytes, in which
+ * case it is deflated without the GZIP header and trailer.
+ * 
+ * Floats and doubles need no special handling; write them with writeFloat / writeDouble,
+ * unless they are positions or directions for effects, which may be quantized using
+ * {@link #writeCoordinate} and {@link #writeDirection} without any visible difference.
+ * 
+ * These are only helpers for writing individual fields; there is no schema describing each
+ * packet's fields. A packet's {@link CustomPacket#write} and {@link CustomPacket#read} define
+ * its format between them, so they must handle the same fields in the same order, and any
+ * change to those fields must increase {@link CustomPacket#PROTOCOL_VERSION}.
+ *
+ */
+public final class PacketCodec
+{
+	/** NBT data larger than this many bytes is compressed */
+	public static final int COMPRESSION_THRESHOLD = 256;
+
+	/** Largest NBT data, compressed or not, that will be read */
+	private static final int MAX_NBT_SIZE = 2097152;
+
+	/** Number of fractional bits written for each coordinate, i.e. coordinates are accurate to 1/256 of a block */
+	private static final int COORDINATE_BITS = 8;
+
+	/** Scale of each component of an octahedral-encoded direction */
+	private static final float DIRECTION_SCALE = 32767.0F;
+
+	private PacketCodec() {}
+
+	/**
+	 * Writes the value in 1 to 5 bytes, 7 bits at a time starting with the lowest; small
+	 * positive values are cheapest, while negative values always take 5 bytes
+	 */
+	public static void writeVarInt(ByteArrayDataOutput out, int value) {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 * Reads a value written by {@link #writeVarInt}
+	 */
+	public static int readVarInt(ByteArrayDataInput in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			byte b = in.readByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("VarInt is too long");
+	}
+
+	/**
+	 * Writes the value as a var int after zig-zag encoding it, so that small negative
+	 * values are as cheap as small positive ones
+	 */
+	public static void writeSignedVarInt(ByteArrayDataOutput out, int value) {
+		writeVarInt(out, (value << 1) ^ (value >> 31));
+	}
+
+	/**
+	 * Reads a value written by {@link #writeSignedVarInt}
+	 */
+	public static int readSignedVarInt(ByteArrayDataInput in) throws IOException {
+		int value = readVarInt(in);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Writes a world coordinate as fixed point: the block coordinate as a signed var int
+	 * followed by the position within the block in {@link #COORDINATE_BITS} bits, so that
+	 * most coordinates take 3 or 4 bytes instead of 8
+	 */
+	public static void writeCoordinate(ByteArrayDataOutput out, double value) {
+		long fixed = Math.round(value * (1 << COORDINATE_BITS));
+		writeSignedVarInt(out, (int)(fixed >> COORDINATE_BITS));
+		out.writeByte((int)(fixed & ((1 << COORDINATE_BITS) - 1)));
+	}
+
+	/**
+	 * Reads a coordinate written by {@link #writeCoordinate}
+	 */
+	public static double readCoordinate(ByteArrayDataInput in) throws IOException {
+		int block = readSignedVarInt(in);
+		return block + (double)(in.readUnsignedByte()) / (1 << COORDINATE_BITS);
+	}
+
+	/**
+	 * Writes the direction in 4 bytes using an octahedral encoding: the vector is projected
+	 * onto the octahedron |x| + |y| + |z| = 1, the lower half folded over the upper half, and
+	 * the resulting x and y written as 16-bit fixed point. The vector need not be normalized.
+	 */
+	public static void writeDirection(ByteArrayDataOutput out, double x, double y, double z) {
+		double sum = Math.abs(x) + Math.abs(y) + Math.abs(z);
+		double u = 0.0D, v = 0.0D;
+		if (sum > 0.0D) {
+			u = x / sum;
+			v = y / sum;
+			if (z < 0.0D) {
+				double fu = (1.0D - Math.abs(v)) * (u < 0.0D ? -1.0D : 1.0D);
+				v = (1.0D - Math.abs(u)) * (v < 0.0D ? -1.0D : 1.0D);
+				u = fu;
+			}
+		}
+		out.writeShort(Math.round((float) u * DIRECTION_SCALE));
+		out.writeShort(Math.round((float) v * DIRECTION_SCALE));
+	}
+
+	/**
+	 * Reads a direction written by {@link #writeDirection} as a normalized vector;
+	 * a zero vector written is read back as (0, 0, 1)
+	 */
+	public static Vec3 readDirection(ByteArrayDataInput in) throws IOException {
+		double u = in.readShort() / DIRECTION_SCALE;
+		double v = in.readShort() / DIRECTION_SCALE;
+		double z = 1.0D - Math.abs(u) - Math.abs(v);
+		if (z < 0.0D) {
+			double fu = (1.0D - Math.abs(v)) * (u < 0.0D ? -1.0D : 1.0D);
+			v = (1.0D - Math.abs(u)) * (v < 0.0D ? -1.0D : 1.0D);
+			u = fu;
+		}
+		double length = Math.sqrt(u * u + v * v + z * z);
+		return Vec3.createVectorHelper(u / length, v / length, z / length);
+	}
+
+	/**
+	 * Writes the enum's ordinal as a var int
+	 */
+	public static void writeEnum(ByteArrayDataOutput out, Enum<?> value) {
+		writeVarInt(out, value.ordinal());
+	}
+
+	/**
+	 * Reads an enum value written by {@link #writeEnum}
+	 */
+	public static <E extends Enum<E>> E readEnum(ByteArrayDataInput in, Class<E> clazz) throws IOException {
+		int ordinal = readVarInt(in);
+		E[] values = clazz.getEnumConstants();
+		if (ordinal < 0 || ordinal >= values.length) {
+			throw new IOException("Invalid ordinal " + ordinal + " for " + clazz.getSimpleName());
+		}
+		return values[ordinal];
+	}
+
+	/**
+	 * Writes the item stack, which may be null, as its item id, stack size and damage
+	 * followed by its tag compound, if any
+	 */
+	public static void writeItemStack(ByteArrayDataOutput out, ItemStack stack) throws IOException {
+		if (stack == null) {
+			writeVarInt(out, 0);
+		} else {
+			writeVarInt(out, stack.itemID + 1);
+			out.writeByte(stack.stackSize);
+			writeVarInt(out, stack.getItemDamage());
+			writeNBT(out, stack.getTagCompound());
+		}
+	}
+
+	/**
+	 * Reads an item stack written by {@link #writeItemStack}, possibly null
+	 */
+	public static ItemStack readItemStack(ByteArrayDataInput in) throws IOException {
+		int id = readVarInt(in) - 1;
+		if (id < 0) {
+			return null;
+		} else if (id >= Item.itemsList.length || Item.itemsList[id] == null) {
+			throw new IOException("Invalid item id " + id);
+		}
+		ItemStack stack = new ItemStack(id, in.readByte(), readVarInt(in));
+		stack.setTagCompound(readNBT(in));
+		return stack;
+	}
+
+	/**
+	 * Writes the tag compound, which may be null, as a var int header followed by the
+	 * NBT data, compressed if larger than {@link #COMPRESSION_THRESHOLD}. The header is
+	 * zero for null, otherwise the data's length shifted left once and or'd with 1 if
+	 * compressed, in which case the uncompressed length follows as a var int.
+	 */
+	public static void writeNBT(ByteArrayDataOutput out, NBTTagCompound compound) throws IOException {
+		if (compound == null) {
+			writeVarInt(out, 0);
+			return;
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		CompressedStreamTools.write(compound, new DataOutputStream(bytes));
+		byte[] data = bytes.toByteArray();
+		if (data.length > COMPRESSION_THRESHOLD) {
+			byte[] compressed = deflate(data);
+			if (compressed.length < data.length) {
+				writeVarInt(out, compressed.length << 1 | 1);
+				writeVarInt(out, data.length);
+				out.write(compressed);
+				return;
+			}
+		}
+		writeVarInt(out, data.length << 1);
+		out.write(data);
+	}
+
+	/**
+	 * Reads a tag compound written by {@link #writeNBT}, possibly null
+	 */
+	public static NBTTagCompound readNBT(ByteArrayDataInput in) throws IOException {
+		int header = readVarInt(in);
+		if (header == 0) {
+			return null;
+		}
+		int length = header >>> 1;
+		boolean isCompressed = (header & 1) != 0;
+		int rawLength = (isCompressed ? readVarInt(in) : length);
+		if (length > MAX_NBT_SIZE || rawLength < 0 || rawLength > MAX_NBT_SIZE) {
+			throw new IOException("NBT data is too large: " + rawLength + " bytes");
+		}
+		byte[] data = new byte[length];
+		in.readFully(data);
+		if (isCompressed) {
+			data = inflate(data, rawLength);
+		}
+		return CompressedStreamTools.read(ByteStreams.newDataInput(data));
+	}
+
+	private static byte[] deflate(byte[] data) {
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+			byte[] buffer = new byte[1024];
+			while (!deflater.finished()) {
+				out.write(buffer, 0, deflater.deflate(buffer));
+			}
+			return out.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static byte[] inflate(byte[] data, int rawLength) throws IOException {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(data);
+			byte[] result = new byte[rawLength];
+			int length = 0;
+			while (length < rawLength && !inflater.finished()) {
+				int n = inflater.inflate(result, length, rawLength - length);
+				if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				length += n;
+			}
+			if (length != rawLength) {
+				throw new IOException("Compressed NBT data is truncated");
+			}
+			return result;
+		} catch (DataFormatException e) {
+			throw new IOException("Compressed NBT data is corrupt", e);
+		} finally {
+			inflater.end();
+		}
+	}
+}
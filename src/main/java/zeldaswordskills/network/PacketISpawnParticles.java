@@ -34,6 +34,9 @@ import cpw.mods.fml.relauncher.Side;
  * Packet that calls a specific ISpawnParticles method in the Item class, allowing
  * each Item to handle its own particle algorithm individually yet spawn them in
  * all client worlds
+ * 
+ * Position, radius and look vector are quantized (see {@link PacketCodec#writeCoordinate}
+ * and {@link PacketCodec#writeDirection}), taking about 16 bytes instead of 56.
  *
  */
 public class PacketISpawnParticles extends CustomPacket
@@ -62,26 +65,30 @@ public class PacketISpawnParticles extends CustomPacket
 
 	@Override
 	public void write(ByteArrayDataOutput out) throws IOException {
-		out.writeInt(item.itemID);
-		out.writeDouble(x);
-		out.writeDouble(y);
-		out.writeDouble(z);
-		out.writeFloat(r);
-		out.writeDouble(xCoord);
-		out.writeDouble(yCoord);
-		out.writeDouble(zCoord);
+		PacketCodec.writeVarInt(out, item.itemID);
+		PacketCodec.writeCoordinate(out, x);
+		PacketCodec.writeCoordinate(out, y);
+		PacketCodec.writeCoordinate(out, z);
+		// radius in 1/256ths of a block
+		out.writeShort(Math.min(Math.round(r * 256.0F), 65535));
+		PacketCodec.writeDirection(out, xCoord, yCoord, zCoord);
 	}
 
 	@Override
 	public void read(ByteArrayDataInput in) throws IOException {
-		item = Item.itemsList[in.readInt()];
-		x = in.readDouble();
-		y = in.readDouble();
-		z = in.readDouble();
-		r = in.readFloat();
-		xCoord = in.readDouble();
-		yCoord = in.readDouble();
-		zCoord = in.readDouble();
+		int id = PacketCodec.readVarInt(in);
+		if (id < 0 || id >= Item.itemsList.length) {
+			throw new IOException("Invalid item id " + id);
+		}
+		item = Item.itemsList[id];
+		x = PacketCodec.readCoordinate(in);
+		y = PacketCodec.readCoordinate(in);
+		z = PacketCodec.readCoordinate(in);
+		r = in.readUnsignedShort() / 256.0F;
+		Vec3 look = PacketCodec.readDirection(in);
+		xCoord = look.xCoord;
+		yCoord = look.yCoord;
+		zCoord = look.zCoord;
 	}
 
 	@Override
@@ -0,0 +1,312 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.network;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+
+import net.minecraft.entity.player.EntityPlayer;
+import zeldaswordskills.util.LogHelper;
+import cpw.mods.fml.common.ITickHandler;
+import cpw.mods.fml.common.TickType;
+
+/**
+ * 
+ * Counts the traffic on the ZSS channel: for each packet type, the number of packets and
+ * bytes written and read and the time spent doing so, and for each player on the server,
+ * the packets and bytes sent to and received from them. Counters are atomic, so they may
+ * be updated from the network thread as well as the server and client threads.
+ * 
+ * Packets written are counted once no matter how many players they are sent to, and a
+ * MultiPacket is counted in addition to each packet within it.
+ * 
+ * A summary is logged every few minutes if the server is launched with
+ * -Dzss.packetLogMinutes=<minutes>. Traffic may also be recorded to a capture file, either
+ * using the zssnet command or by launching with -Dzss.packetCapture=<file>, which can then
+ * be replayed against the packet decoders using {@link PacketReplay}.
+ *
+ */
+public class PacketMetrics implements ITickHandler
+{
+	/** Counters stored for each packet id */
+	private static final int ENCODED = 0, ENCODED_BYTES = 1, ENCODE_NANOS = 2, DECODED = 3, DECODED_BYTES = 4, DECODE_NANOS = 5, NUM_COUNTERS = 6;
+
+	/** Counters stored for each player */
+	private static final int SENT = 0, SENT_BYTES = 1, RECEIVED = 2, RECEIVED_BYTES = 3;
+
+	/** Capture file format version and record directions; see {@link #startCapture} */
+	public static final int CAPTURE_MAGIC = 0x5A535343, CAPTURE_VERSION = 1, INBOUND = 0, OUTBOUND = 1;
+
+	/** Number of ticks between summaries logged; 0 if disabled */
+	private static final int LOG_INTERVAL = Integer.getInteger("zss.packetLogMinutes", 0) * 1200;
+
+	/** Counters for each packet id, NUM_COUNTERS per id */
+	private static final AtomicLongArray counters = new AtomicLongArray(256 * NUM_COUNTERS);
+
+	/** Counters for each player, by username */
+	private static final ConcurrentMap<String, AtomicLongArray> players = new ConcurrentHashMap<String, AtomicLongArray>();
+
+	/** Time at which counting started, for rates */
+	private static volatile long startTime = System.nanoTime();
+
+	/** Open capture file, or null if not capturing */
+	private static volatile DataOutputStream capture;
+
+	/** Lock for the capture file, which may be written from any thread */
+	private static final Object captureLock = new Object();
+
+	/** Server ticks since the last summary was logged */
+	private int ticks;
+
+	static {
+		String file = System.getProperty("zss.packetCapture");
+		if (file != null) {
+			startCapture(new File(file));
+		}
+	}
+
+	/**
+	 * Records a packet written, given the packet id followed by its data
+	 */
+	public static void onEncoded(byte[] data, long nanos) {
+		int id = data[0] & 0xFF;
+		add(id, ENCODED, 1L);
+		add(id, ENCODED_BYTES, data.length);
+		add(id, ENCODE_NANOS, nanos);
+		if (capture != null && id != CustomPacket.getPacketId(MultiPacket.class)) {
+			writeCapture(OUTBOUND, data);
+		}
+	}
+
+	/**
+	 * Records a packet read, not including its execution
+	 */
+	public static void onDecoded(byte[] data, long nanos) {
+		int id = data[0] & 0xFF;
+		add(id, DECODED, 1L);
+		add(id, DECODED_BYTES, data.length);
+		add(id, DECODE_NANOS, nanos);
+	}
+
+	/**
+	 * Records a custom payload received, before it is validated or read
+	 * @param player the player who sent it, if received on the server
+	 */
+	public static void onReceived(byte[] data, EntityPlayer player) {
+		if (data == null) {
+			return;
+		}
+		if (player != null) {
+			AtomicLongArray counts = getPlayerCounts(player);
+			counts.incrementAndGet(RECEIVED);
+			counts.addAndGet(RECEIVED_BYTES, data.length);
+		}
+		if (capture != null && data.length > 0) {
+			writeCapture(INBOUND, data);
+		}
+	}
+
+	/**
+	 * Records a custom payload sent to a player from the server
+	 * @param bytes size of the payload including the custom payload packet's overhead
+	 */
+	public static void onSent(EntityPlayer player, int bytes) {
+		AtomicLongArray counts = getPlayerCounts(player);
+		counts.incrementAndGet(SENT);
+		counts.addAndGet(SENT_BYTES, bytes);
+	}
+
+	private static void add(int id, int counter, long value) {
+		counters.addAndGet(id * NUM_COUNTERS + counter, value);
+	}
+
+	private static long get(int id, int counter) {
+		return counters.get(id * NUM_COUNTERS + counter);
+	}
+
+	private static AtomicLongArray getPlayerCounts(EntityPlayer player) {
+		AtomicLongArray counts = players.get(player.username);
+		if (counts == null) {
+			players.putIfAbsent(player.username, new AtomicLongArray(4));
+			counts = players.get(player.username);
+		}
+		return counts;
+	}
+
+	/** Resets all counters */
+	public static void reset() {
+		for (int i = 0; i < counters.length(); ++i) {
+			counters.set(i, 0L);
+		}
+		players.clear();
+		startTime = System.nanoTime();
+	}
+
+	/** Returns the number of seconds since counting started */
+	private static double getElapsedSeconds() {
+		return Math.max((System.nanoTime() - startTime) / 1.0E9D, 1.0E-3D);
+	}
+
+	/**
+	 * Returns a line for each packet type seen, with counts, bytes, average time and rates
+	 */
+	public static String[] getPacketStats() {
+		double seconds = getElapsedSeconds();
+		String[] lines = new String[CustomPacket.getNumPackets()];
+		int n = 0;
+		for (int id = 0; id < lines.length; ++id) {
+			long encoded = get(id, ENCODED), decoded = get(id, DECODED);
+			if (encoded > 0 || decoded > 0) {
+				lines[n++] = String.format(Locale.US, "%s: out %d (%d bytes, %.1f/s, %d ns avg), in %d (%d bytes, %.1f/s, %d ns avg)",
+						CustomPacket.getPacketName(id),
+						encoded, get(id, ENCODED_BYTES), encoded / seconds, get(id, ENCODE_NANOS) / Math.max(encoded, 1L),
+						decoded, get(id, DECODED_BYTES), decoded / seconds, get(id, DECODE_NANOS) / Math.max(decoded, 1L));
+			}
+		}
+		String[] result = new String[n];
+		System.arraycopy(lines, 0, result, 0, n);
+		return result;
+	}
+
+	/**
+	 * Returns a line for each player with traffic, with packets and bytes sent and received per second
+	 */
+	public static String[] getPlayerStats() {
+		double seconds = getElapsedSeconds();
+		String[] lines = new String[players.size()];
+		int n = 0;
+		for (Map.Entry<String, AtomicLongArray> entry : players.entrySet()) {
+			if (n == lines.length) {
+				break;
+			}
+			AtomicLongArray counts = entry.getValue();
+			lines[n++] = String.format(Locale.US, "%s: sent %.1f packets/s (%.0f bytes/s), received %.1f packets/s (%.0f bytes/s)",
+					entry.getKey(), counts.get(SENT) / seconds, counts.get(SENT_BYTES) / seconds,
+					counts.get(RECEIVED) / seconds, counts.get(RECEIVED_BYTES) / seconds);
+		}
+		String[] result = new String[n];
+		System.arraycopy(lines, 0, result, 0, n);
+		return result;
+	}
+
+	/** Returns totals for all packet types */
+	public static String getSummary() {
+		long encoded = 0, encodedBytes = 0, decoded = 0, decodedBytes = 0;
+		for (int id = 0; id < 256; ++id) {
+			encoded += get(id, ENCODED);
+			encodedBytes += get(id, ENCODED_BYTES);
+			decoded += get(id, DECODED);
+			decodedBytes += get(id, DECODED_BYTES);
+		}
+		double seconds = getElapsedSeconds();
+		return String.format(Locale.US, "%.0f seconds: out %d packets (%.0f bytes/s), in %d packets (%.0f bytes/s)%s",
+				seconds, encoded, encodedBytes / seconds, decoded, decodedBytes / seconds, (isCapturing() ? "; capturing" : ""));
+	}
+
+	/** Whether traffic is currently being recorded to a capture file */
+	public static boolean isCapturing() {
+		return capture != null;
+	}
+
+	/**
+	 * Starts recording all packets read and written to the file, replacing any capture in progress.
+	 * The file starts with {@link #CAPTURE_MAGIC} and {@link #CAPTURE_VERSION} as ints, followed by
+	 * a record for each packet: direction byte, nano time long, data length int, then the data.
+	 * @return false if the file could not be opened
+	 */
+	public static boolean startCapture(File file) {
+		synchronized (captureLock) {
+			stopCapture();
+			try {
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+				out.writeInt(CAPTURE_MAGIC);
+				out.writeInt(CAPTURE_VERSION);
+				capture = out;
+				LogHelper.log(Level.INFO, "Capturing packets to " + file.getPath());
+				return true;
+			} catch (IOException e) {
+				LogHelper.log(Level.WARNING, "Failed to open packet capture file " + file.getPath() + ": " + e.getMessage());
+				return false;
+			}
+		}
+	}
+
+	/** Stops recording packets and closes the capture file, if any */
+	public static void stopCapture() {
+		synchronized (captureLock) {
+			if (capture != null) {
+				try {
+					capture.close();
+				} catch (IOException e) {
+					LogHelper.log(Level.WARNING, "Failed to close packet capture file: " + e.getMessage());
+				}
+				capture = null;
+			}
+		}
+	}
+
+	private static void writeCapture(int direction, byte[] data) {
+		synchronized (captureLock) {
+			if (capture != null) {
+				try {
+					capture.writeByte(direction);
+					capture.writeLong(System.nanoTime());
+					capture.writeInt(data.length);
+					capture.write(data);
+				} catch (IOException e) {
+					LogHelper.log(Level.WARNING, "Failed to write packet capture; capture stopped: " + e.getMessage());
+					stopCapture();
+				}
+			}
+		}
+	}
+
+	@Override
+	public void tickStart(EnumSet<TickType> type, Object... tickData) {}
+
+	@Override
+	public void tickEnd(EnumSet<TickType> type, Object... tickData) {
+		if (LOG_INTERVAL > 0 && ++ticks >= LOG_INTERVAL) {
+			ticks = 0;
+			LogHelper.log(Level.INFO, "ZSS packets over " + getSummary());
+			for (String line : getPacketStats()) {
+				LogHelper.log(Level.INFO, "  " + line);
+			}
+		}
+	}
+
+	@Override
+	public EnumSet<TickType> ticks() {
+		return EnumSet.of(TickType.SERVER);
+	}
+
+	@Override
+	public String getLabel() {
+		return "ZSS Packet Metrics";
+	}
+}
@@ -0,0 +1,238 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.network;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.network.packet.Packet250CustomPayload;
+import cpw.mods.fml.common.ITickHandler;
+import cpw.mods.fml.common.TickType;
+import cpw.mods.fml.common.network.PacketDispatcher;
+import cpw.mods.fml.common.network.Player;
+
+/**
+ * 
+ * Collects the packets sent to each player during a server tick and sends them at the end
+ * of the tick, dropping any made redundant by a later packet (see {@link CustomPacket#getSupersedeKey})
+ * and combining the rest into as few {@link MultiPacket}s as possible.
+ * 
+ * Packets are written as soon as they are queued, so later changes to any objects they
+ * reference have no effect. Server thread only.
+ *
+ */
+public class PacketQueue implements ITickHandler
+{
+	/** Largest custom payload a MultiPacket may use, leaving room under the vanilla limit of 32767 */
+	private static final int MAX_PAYLOAD = 32000;
+
+	/** Size of a custom payload packet apart from its data: packet id, channel and data length */
+	private static final int PAYLOAD_OVERHEAD = 1 + 2 + CustomPacket.CHANNEL.length() * 2 + 2;
+
+	/** Packets waiting to be sent to each player, in the order queued */
+	private static final Map<EntityPlayerMP, List<QueuedPacket>> queues = new LinkedHashMap<EntityPlayerMP, List<QueuedPacket>>();
+
+	/** Total packets queued, dropped as superseded, and combined into a MultiPacket */
+	private static long numQueued, numSuperseded, numCombined;
+
+	/** Total bytes that would have been sent without the queue, and that actually were sent */
+	private static long bytesQueued, bytesSent;
+
+	/** Number of packets queued of each type */
+	private static final Map<Class<? extends CustomPacket>, long[]> typeCounts = new HashMap<Class<? extends CustomPacket>, long[]>();
+
+	/** Time at which the first packet was queued, used for packet rates */
+	private static long startTime = -1L;
+
+	/**
+	 * Queues the packet to be sent to the player at the end of the current tick;
+	 * if the player is not a server player, the packet is sent immediately instead.
+	 */
+	public static void sendToPlayer(CustomPacket packet, EntityPlayer player) {
+		if (!(player instanceof EntityPlayerMP)) {
+			PacketDispatcher.sendPacketToPlayer(packet.makePacket(), (Player) player);
+			return;
+		}
+		enqueue((EntityPlayerMP) player, new QueuedPacket(packet));
+	}
+
+	/**
+	 * Queues the packet to be sent to each of the players at the end of the current tick;
+	 * the packet is only written once no matter how many players receive it.
+	 */
+	public static void sendToPlayers(CustomPacket packet, Collection<EntityPlayerMP> players) {
+		if (!players.isEmpty()) {
+			QueuedPacket queued = new QueuedPacket(packet);
+			for (EntityPlayerMP player : players) {
+				enqueue(player, queued);
+			}
+		}
+	}
+
+	private static void enqueue(EntityPlayerMP player, QueuedPacket queued) {
+		List<QueuedPacket> queue = queues.get(player);
+		if (queue == null) {
+			queue = new ArrayList<QueuedPacket>();
+			queues.put(player, queue);
+		}
+		if (queued.key != -1) {
+			for (Iterator<QueuedPacket> iterator = queue.iterator(); iterator.hasNext();) {
+				QueuedPacket other = iterator.next();
+				if (other.key == queued.key && other.type == queued.type) {
+					iterator.remove();
+					++numSuperseded;
+					break;
+				}
+			}
+		}
+		queue.add(queued);
+		++numQueued;
+		long[] count = typeCounts.get(queued.type);
+		if (count == null) {
+			count = new long[1];
+			typeCounts.put(queued.type, count);
+		}
+		++count[0];
+		if (startTime < 0) {
+			startTime = System.currentTimeMillis();
+		}
+		bytesQueued += queued.data.length + PAYLOAD_OVERHEAD;
+	}
+
+	/**
+	 * Sends all queued packets; called automatically at the end of each server tick
+	 */
+	public static void flush() {
+		for (Map.Entry<EntityPlayerMP, List<QueuedPacket>> entry : queues.entrySet()) {
+			List<QueuedPacket> queue = entry.getValue();
+			EntityPlayerMP player = entry.getKey();
+			if (queue.size() == 1) {
+				send(player, queue.get(0).data);
+				continue;
+			}
+			MultiPacket multi = new MultiPacket();
+			int size = 0;
+			for (QueuedPacket queued : queue) {
+				// each packet adds its data plus at most 3 bytes of length; the count takes at most 3 more
+				if (size + queued.data.length + 6 > MAX_PAYLOAD && !multi.getPackets().isEmpty()) {
+					sendMulti(player, multi);
+					multi = new MultiPacket();
+					size = 0;
+				}
+				multi.add(queued.data);
+				size += queued.data.length + 3;
+			}
+			sendMulti(player, multi);
+		}
+		queues.clear();
+	}
+
+	private static void sendMulti(EntityPlayerMP player, MultiPacket multi) {
+		List<byte[]> packets = multi.getPackets();
+		if (packets.size() == 1) {
+			send(player, packets.get(0));
+		} else {
+			numCombined += packets.size();
+			send(player, multi.toByteArray());
+		}
+	}
+
+	private static void send(EntityPlayerMP player, byte[] data) {
+		bytesSent += data.length + PAYLOAD_OVERHEAD;
+		PacketMetrics.onSent(player, data.length + PAYLOAD_OVERHEAD);
+		if (player.playerNetServerHandler != null && !player.playerNetServerHandler.connectionClosed) {
+			player.playerNetServerHandler.sendPacketToPlayer(new Packet250CustomPayload(CustomPacket.CHANNEL, data));
+		}
+	}
+
+	/** Total packets that were dropped because a later packet superseded them */
+	public static long getNumSuperseded() { return numSuperseded; }
+
+	/** Total packets that were sent as part of a MultiPacket */
+	public static long getNumCombined() { return numCombined; }
+
+	/** Total bytes saved by dropping and combining packets, including each custom payload's overhead */
+	public static long getBytesSaved() { return bytesQueued - bytesSent; }
+
+	/** Total packets of the type given that were queued */
+	public static long getNumQueued(Class<? extends CustomPacket> type) {
+		long[] count = typeCounts.get(type);
+		return (count == null ? 0L : count[0]);
+	}
+
+	/** Average number of packets of the type given queued per second since the first packet was queued */
+	public static double getQueueRate(Class<? extends CustomPacket> type) {
+		long millis = (startTime < 0 ? 0L : System.currentTimeMillis() - startTime);
+		return (millis > 0 ? getNumQueued(type) * 1000.0D / millis : 0.0D);
+	}
+
+	/** Returns a summary of all counters, including the rate at which each type of packet is queued */
+	public static String getStats() {
+		StringBuilder sb = new StringBuilder(String.format("%d packets queued, %d superseded, %d combined; %d of %d bytes saved",
+				numQueued, numSuperseded, numCombined, getBytesSaved(), bytesQueued));
+		for (Class<? extends CustomPacket> type : typeCounts.keySet()) {
+			sb.append(String.format(Locale.US, "; %s: %d (%.2f/s)", type.getSimpleName(), getNumQueued(type), getQueueRate(type)));
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public void tickStart(EnumSet<TickType> type, Object... tickData) {}
+
+	@Override
+	public void tickEnd(EnumSet<TickType> type, Object... tickData) {
+		flush();
+	}
+
+	@Override
+	public EnumSet<TickType> ticks() {
+		return EnumSet.of(TickType.SERVER);
+	}
+
+	@Override
+	public String getLabel() {
+		return "ZSS Packet Queue";
+	}
+
+	/**
+	 * 
+	 * A packet's data along with what is needed to tell whether a later packet supersedes it
+	 *
+	 */
+	private static class QueuedPacket
+	{
+		private final Class<? extends CustomPacket> type;
+		private final int key;
+		private final byte[] data;
+
+		public QueuedPacket(CustomPacket packet) {
+			this.type = packet.getClass();
+			this.key = packet.getSupersedeKey();
+			this.data = packet.toByteArray();
+		}
+	}
+}
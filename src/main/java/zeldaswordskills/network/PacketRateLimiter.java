@@ -0,0 +1,183 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.network;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+import zeldaswordskills.network.CustomPacket.ProtocolException;
+
+/**
+ * 
+ * Guards the server against packets sent by clients: each frame is checked before any
+ * packet is constructed from it, and each player may only send each type of packet at a
+ * limited rate, using a token bucket per player and packet type. Packets over the limit
+ * are dropped, and a player who keeps sending them is kicked. Dropped packets are still
+ * read so that any state kept for the connection stays in sync; see {@link CustomPacket#onDropped}.
+ * 
+ * Only packet types given a limit here are accepted from clients at all.
+ *
+ */
+public class PacketRateLimiter
+{
+	/** Maximum size of most packets received from a client, in bytes, including the packet id */
+	private static final int DEFAULT_MAX_SIZE = 64;
+
+	/** Number of dropped packets a player is allowed per second, and in a burst, before being kicked */
+	private static final float DROP_RATE = 10.0F, DROP_BURST = 100.0F;
+
+	/** Tokens restored per second for each packet id */
+	private static final float[] rates = new float[256];
+
+	/** Maximum tokens for each packet id, i.e. the largest burst allowed */
+	private static final float[] bursts = new float[256];
+
+	/** Maximum frame size for each packet id; zero if clients may not send the packet */
+	private static final int[] maxSizes = new int[256];
+
+	/** Budgets for each connection, keyed by the player's net handler so they survive respawning */
+	private static final Map<Object, Budget> budgets = new WeakHashMap<Object, Budget>();
+
+	/**
+	 * Total frames rejected as malformed, packets dropped for exceeding the limit, and players
+	 * kicked; atomic as packets from each connection may be handled on different threads
+	 */
+	private static final AtomicLong numRejected = new AtomicLong(), numDropped = new AtomicLong(), numKicked = new AtomicLong();
+
+	static {
+		setLimit(ActivateSkillPacket.class, 20.0F, 20, DEFAULT_MAX_SIZE);
+		setLimit(AddExhaustionPacket.class, 20.0F, 20, DEFAULT_MAX_SIZE);
+		setLimit(BorrowMaskPacket.class, 2.0F, 4, 512);
+		setLimit(EndComboPacket.class, 10.0F, 10, DEFAULT_MAX_SIZE);
+		setLimit(GetBombPacket.class, 4.0F, 8, DEFAULT_MAX_SIZE);
+		setLimit(OpenGuiPacket.class, 2.0F, 4, DEFAULT_MAX_SIZE);
+		setLimit(PlaySoundPacket.class, 10.0F, 20, 128);
+		setLimit(ResyncPlayerInfoPacket.class, 1.0F, 2, DEFAULT_MAX_SIZE);
+		setLimit(SpawnLeapingBlowPacket.class, 4.0F, 4, DEFAULT_MAX_SIZE);
+		setLimit(TargetIdPacket.class, 20.0F, 20, DEFAULT_MAX_SIZE);
+	}
+
+	private PacketRateLimiter() {}
+
+	/**
+	 * Allows clients to send the packet type
+	 * @param perSecond	Average number of packets allowed per second
+	 * @param burst		Number of packets that may be sent at once
+	 * @param maxSize	Largest frame allowed, in bytes, including the packet id
+	 */
+	private static void setLimit(Class<? extends CustomPacket> type, float perSecond, int burst, int maxSize) {
+		int id = CustomPacket.getPacketId(type);
+		rates[id] = perSecond;
+		bursts[id] = burst;
+		maxSizes[id] = maxSize;
+	}
+
+	/**
+	 * Checks a frame received from a client before any packet is constructed from it
+	 * @throws ProtocolException if the frame is empty, too large, or not a packet clients may send
+	 */
+	public static void validate(byte[] data) throws ProtocolException {
+		if (data == null || data.length == 0) {
+			numRejected.incrementAndGet();
+			throw new ProtocolException("Empty packet");
+		}
+		int id = data[0] & 0xFF;
+		if (maxSizes[id] == 0) {
+			numRejected.incrementAndGet();
+			throw new ProtocolException("Packet id " + id + " may not be sent to the server");
+		} else if (data.length > maxSizes[id]) {
+			numRejected.incrementAndGet();
+			throw new ProtocolException("Packet id " + id + " is too large: " + data.length + " bytes");
+		}
+	}
+
+	/**
+	 * Takes a token for the packet from the player's budget, if available
+	 * @param packetId id of a packet already passed by {@link #validate}
+	 * @return false if the player is over the limit and the packet should be dropped
+	 * @throws ProtocolException if the player has dropped so many packets that they should be kicked
+	 */
+	public static boolean tryAcquire(EntityPlayerMP player, int packetId) throws ProtocolException {
+		Budget budget = budgets.get(player.playerNetServerHandler);
+		if (budget == null) {
+			budget = new Budget();
+			budgets.put(player.playerNetServerHandler, budget);
+		}
+		long now = System.nanoTime();
+		if (budget.take(packetId, now, rates[packetId], bursts[packetId])) {
+			return true;
+		}
+		numDropped.incrementAndGet();
+		if (!budget.take(Budget.DROPS, now, DROP_RATE, DROP_BURST)) {
+			throw new ProtocolException("Too many packets; last was id " + packetId);
+		}
+		return false;
+	}
+
+	/** Call when a player is kicked for sending a bad packet */
+	public static void onKicked() {
+		numKicked.incrementAndGet();
+	}
+
+	/** Total frames rejected before a packet was constructed */
+	public static long getNumRejected() { return numRejected.get(); }
+
+	/** Total packets dropped for exceeding their rate limit */
+	public static long getNumDropped() { return numDropped.get(); }
+
+	/** Total players kicked for sending bad packets, including too many of them */
+	public static long getNumKicked() { return numKicked.get(); }
+
+	/** Returns a summary of all counters */
+	public static String getStats() {
+		return String.format("%d frames rejected, %d packets dropped, %d players kicked", numRejected.get(), numDropped.get(), numKicked.get());
+	}
+
+	/**
+	 * 
+	 * Token buckets for a single player: one per packet id, plus one for dropped packets
+	 *
+	 */
+	private static class Budget
+	{
+		/** Index of the bucket for dropped packets */
+		private static final int DROPS = 256;
+
+		private final float[] tokens = new float[257];
+
+		/** Time at which each bucket was last refilled; 0 if never used */
+		private final long[] lastTime = new long[257];
+
+		/** Refills the bucket for the time elapsed and takes a token from it, if there is one */
+		private boolean take(int index, long now, float rate, float burst) {
+			if (lastTime[index] == 0L) {
+				tokens[index] = burst;
+			} else {
+				tokens[index] = Math.min(burst, tokens[index] + (now - lastTime[index]) * rate / 1.0E9F);
+			}
+			lastTime[index] = now;
+			if (tokens[index] >= 1.0F) {
+				tokens[index] -= 1.0F;
+				return true;
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.network;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteStreams;
+
+/**
+ * 
+ * Offline tool that reads a capture file recorded by {@link PacketMetrics} and runs every
+ * packet in it through its decoder, reporting the time taken and any packets that fail to
+ * decode; use to compare the decoders of different builds against the same traffic.
+ * 
+ * Run with the mod and Minecraft on the class path:
+ * java zeldaswordskills.network.PacketReplay <capture file> [iterations]
+ *
+ */
+public class PacketReplay
+{
+	/** Number of packets decoded, bytes decoded, nanoseconds spent and failures for each packet id */
+	private final long[] count = new long[256], bytes = new long[256], nanos = new long[256], errors = new long[256];
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: PacketReplay <capture file> [iterations]");
+			System.exit(1);
+		}
+		int iterations = (args.length > 1 ? Integer.parseInt(args[1]) : 1);
+		List<byte[]> frames = readCapture(new File(args[0]));
+		System.out.println("Read " + frames.size() + " packets from " + args[0]);
+		PacketReplay replay = new PacketReplay();
+		for (int i = 0; i < iterations; ++i) {
+			if (i == 1) {
+				// the first pass warms up the decoders; only report the others
+				replay = new PacketReplay();
+			}
+			for (byte[] data : frames) {
+				replay.decode(data, true);
+			}
+		}
+		replay.printResults();
+	}
+
+	/**
+	 * Returns the data of each packet recorded in the capture file
+	 */
+	private static List<byte[]> readCapture(File file) throws IOException {
+		List<byte[]> frames = new ArrayList<byte[]>();
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (in.readInt() != PacketMetrics.CAPTURE_MAGIC || in.readInt() != PacketMetrics.CAPTURE_VERSION) {
+				throw new IOException("Not a ZSS packet capture, or unsupported version: " + file.getPath());
+			}
+			while (true) {
+				try {
+					in.readByte(); // direction
+				} catch (EOFException e) {
+					break;
+				}
+				in.readLong(); // time
+				byte[] data = new byte[in.readInt()];
+				in.readFully(data);
+				frames.add(data);
+			}
+		} finally {
+			in.close();
+		}
+		return frames;
+	}
+
+	/**
+	 * Reads the packet from its data, including each packet within a MultiPacket
+	 */
+	private void decode(byte[] data, boolean allowMulti) {
+		int id = data[0] & 0xFF;
+		try {
+			CustomPacket packet = CustomPacket.constructPacket(id);
+			ByteArrayDataInput in = ByteStreams.newDataInput(data, 1);
+			long start = System.nanoTime();
+			packet.read(in);
+			nanos[id] += System.nanoTime() - start;
+			bytes[id] += data.length;
+			++count[id];
+			if (packet instanceof MultiPacket && allowMulti) {
+				for (byte[] inner : ((MultiPacket) packet).getPackets()) {
+					decode(inner, false);
+				}
+			}
+		} catch (Exception e) {
+			++errors[id];
+		}
+	}
+
+	private void printResults() {
+		long totalCount = 0, totalBytes = 0, totalNanos = 0, totalErrors = 0;
+		for (int id = 0; id < 256; ++id) {
+			if (count[id] > 0 || errors[id] > 0) {
+				System.out.println(String.format(Locale.US, "%-28s %8d packets %10d bytes %8d ns avg %6d errors",
+						CustomPacket.getPacketName(id), count[id], bytes[id], nanos[id] / Math.max(count[id], 1L), errors[id]));
+				totalCount += count[id];
+				totalBytes += bytes[id];
+				totalNanos += nanos[id];
+				totalErrors += errors[id];
+			}
+		}
+		System.out.println(String.format(Locale.US, "%-28s %8d packets %10d bytes %8d ns avg %6d errors",
+				"Total", totalCount, totalBytes, totalNanos / Math.max(totalCount, 1L), totalErrors));
+	}
+}
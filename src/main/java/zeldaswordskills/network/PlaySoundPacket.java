@@ -19,7 +19,6 @@ package zeldaswordskills.network;
 
 import java.io.IOException;
 
-import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.EntityPlayer;
 
 import com.google.common.io.ByteArrayDataInput;
@@ -30,68 +29,101 @@ import cpw.mods.fml.relauncher.Side;
 /**
  * 
  * Plays a sound on the client or server side
+ * 
+ * The sound name is interned in the connection's {@link SoundTable}, and the position,
+ * which is only needed on the server, is written as fixed point.
  *
  */
 public class PlaySoundPacket extends CustomPacket
 {
 	private String sound;
 
+	/** Sound id and name (if sent in full) as read, resolved once the connection is known */
+	private int soundId;
+	private final String[] soundName = new String[1];
+
+	/** Table of sound names for the connection over which this packet is sent */
+	private SoundTable table;
+
 	private float volume;
 
 	private float pitch;
 
+	/** Whether the position is sent; only true when sending to the server */
+	private boolean hasPosition;
+
 	/** Coordinates at which to play the sound; used on the server side */
 	private double x, y, z;
 
 	public PlaySoundPacket() {}
 
-	public PlaySoundPacket(String sound, float volume, float pitch, double x, double y, double z) {
+	/**
+	 * Creates a packet to play the sound for the player: from the client, this plays the
+	 * sound on the server at the player's position; from the server, on the player's client
+	 */
+	public PlaySoundPacket(String sound, float volume, float pitch, EntityPlayer player) {
 		this.sound = sound;
 		this.volume = volume;
 		this.pitch = pitch;
-		this.x = x;
-		this.y = y;
-		this.z = z;
-	}
-
-	/**
-	 * @param entity entity can be null when sending packet to client; sound played at player's position
-	 */
-	public PlaySoundPacket(String sound, float volume, float pitch, Entity entity) {
-		this(sound, volume, pitch, (entity != null ? entity.posX : 0),
-				(entity != null ? entity.posY : 0), (entity != null ? entity.posZ : 0));
-	}
-
-	public PlaySoundPacket(String sound, float volume, float pitch) {
-		this(sound, volume, pitch, null);
+		if (player.worldObj.isRemote) {
+			table = SoundTable.forServer();
+			hasPosition = true;
+			x = player.posX;
+			y = player.posY;
+			z = player.posZ;
+		} else {
+			table = SoundTable.forPlayer(player);
+		}
 	}
 
 	@Override
 	public void write(ByteArrayDataOutput out) throws IOException {
-		out.writeUTF(sound);
+		table.writeSound(out, sound);
 		out.writeFloat(volume);
 		out.writeFloat(pitch);
-		out.writeDouble(x);
-		out.writeDouble(y);
-		out.writeDouble(z);
+		out.writeBoolean(hasPosition);
+		if (hasPosition) {
+			PacketCodec.writeCoordinate(out, x);
+			PacketCodec.writeCoordinate(out, y);
+			PacketCodec.writeCoordinate(out, z);
+		}
 	}
 
 	@Override
 	public void read(ByteArrayDataInput in) throws IOException {
-		sound = in.readUTF();
+		soundId = SoundTable.readSound(in, soundName);
 		volume = in.readFloat();
 		pitch = in.readFloat();
-		x = in.readDouble();
-		y = in.readDouble();
-		z = in.readDouble();
+		hasPosition = in.readBoolean();
+		if (hasPosition) {
+			x = PacketCodec.readCoordinate(in);
+			y = PacketCodec.readCoordinate(in);
+			z = PacketCodec.readCoordinate(in);
+		}
+	}
+
+	/** Resolves the sound name in the connection's table, interning it if it was sent in full */
+	private void resolveSound(EntityPlayer player, Side side) throws ProtocolException {
+		SoundTable table = (side.isClient() ? SoundTable.forServer() : SoundTable.forPlayer(player));
+		sound = table.resolve(soundId, soundName[0]);
 	}
 
 	@Override
 	public void execute(EntityPlayer player, Side side) throws ProtocolException {
+		resolveSound(player, side);
 		if (side.isClient()) {
 			player.playSound(sound, volume, pitch);
 		} else {
+			if (!hasPosition) {
+				throw new ProtocolException("Sound packet sent to the server must have a position");
+			}
 			player.worldObj.playSoundEffect(x, y, z, sound, volume, pitch);
 		}
 	}
+
+	@Override
+	public void onDropped(EntityPlayer player, Side side) throws ProtocolException {
+		// the name must still be interned, or later packets using its id would be rejected
+		resolveSound(player, side);
+	}
 }
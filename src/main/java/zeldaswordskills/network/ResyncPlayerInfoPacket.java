@@ -20,17 +20,24 @@ package zeldaswordskills.network;
 import java.io.IOException;
 
 import net.minecraft.entity.player.EntityPlayer;
-import net.minecraft.item.ItemStack;
-import zeldaswordskills.item.ItemBomb;
+import zeldaswordskills.entity.ZSSPlayerInfo;
 
 import com.google.common.io.ByteArrayDataInput;
 import com.google.common.io.ByteArrayDataOutput;
 
 import cpw.mods.fml.relauncher.Side;
 
-public class BombTickPacket extends CustomPacket {
+/**
+ * 
+ * Sent by the client when its ZSSPlayerInfo has drifted from the server's to request a full sync
+ *
+ */
+public class ResyncPlayerInfoPacket extends CustomPacket
+{
+	/** Shared instance; this packet has no data, so it may be sent and received any number of times */
+	public static final ResyncPlayerInfoPacket INSTANCE = new ResyncPlayerInfoPacket();
 
-	public BombTickPacket() {}
+	public ResyncPlayerInfoPacket() {}
 
 	@Override
 	public void write(ByteArrayDataOutput out) throws IOException {}
@@ -39,17 +46,11 @@ public class BombTickPacket extends CustomPacket {
 	public void read(ByteArrayDataInput in) throws IOException {}
 
 	@Override
-	public void execute(EntityPlayer player, Side side) throws ProtocolException {}
-
-	@Override
-	public void process(ByteArrayDataInput in, EntityPlayer player, Side side) throws IOException, ProtocolException {
+	public void execute(EntityPlayer player, Side side) throws ProtocolException {
 		if (side.isServer()) {
-			ItemStack held = player.getHeldItem();
-			if (held != null && held.getItem() instanceof ItemBomb) {
-				((ItemBomb) held.getItem()).tickBomb(held, player.worldObj, player);
-			}
+			ZSSPlayerInfo.get(player).onResyncRequested();
 		} else {
-			throw new ProtocolException("BombTickPacket can only be sent to the server");
+			throw new ProtocolException("ResyncPlayerInfoPacket may only be sent to the server");
 		}
 	}
 }
@@ -0,0 +1,136 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.network;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
+import zeldaswordskills.network.CustomPacket.ProtocolException;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+
+import cpw.mods.fml.relauncher.Side;
+import cpw.mods.fml.relauncher.SideOnly;
+
+/**
+ * 
+ * Interns sound names sent over a single connection: the first time a name is sent in
+ * either direction it is written in full along with the next id, and from then on only
+ * its id is written. Each side keeps one table per connection, so ids are always agreed
+ * on without any registry that must match on client and server.
+ * 
+ * Names are written as a var int header, which is the id shifted left once and or'd with
+ * 1 if the name itself follows; an id of zero is used once a table is full and never interned.
+ *
+ */
+public class SoundTable
+{
+	/** Maximum number of names interned in each direction of a connection */
+	static final int MAX_SOUNDS = 256;
+
+	/** Table for each connection, keyed by the connection's net handler */
+	private static final Map<Object, SoundTable> tables = new WeakHashMap<Object, SoundTable>();
+
+	/** Ids of the names sent to the other side */
+	private final Map<String, Integer> sentIds = new HashMap<String, Integer>();
+
+	/** Names received from the other side, in order of id starting from 1 */
+	private final List<String> receivedNames = new ArrayList<String>();
+
+	/** Tables are normally only created for each connection; package visible for tests */
+	SoundTable() {}
+
+	private static synchronized SoundTable get(Object connection) {
+		SoundTable table = tables.get(connection);
+		if (table == null) {
+			table = new SoundTable();
+			tables.put(connection, table);
+		}
+		return table;
+	}
+
+	/** Returns the table for the server's connection to the player; server side only */
+	public static SoundTable forPlayer(EntityPlayer player) {
+		return get(((EntityPlayerMP) player).playerNetServerHandler);
+	}
+
+	/** Returns the table for the client's connection to the server */
+	@SideOnly(Side.CLIENT)
+	public static SoundTable forServer() {
+		return get(Minecraft.getMinecraft().getNetHandler());
+	}
+
+	/**
+	 * Writes the name, interning it if it has not been sent over this connection before
+	 */
+	public synchronized void writeSound(ByteArrayDataOutput out, String name) {
+		Integer id = sentIds.get(name);
+		if (id != null) {
+			PacketCodec.writeVarInt(out, id << 1);
+		} else {
+			if (sentIds.size() < MAX_SOUNDS) {
+				id = sentIds.size() + 1;
+				sentIds.put(name, id);
+			} else {
+				id = 0;
+			}
+			PacketCodec.writeVarInt(out, (id << 1) | 1);
+			out.writeUTF(name);
+		}
+	}
+
+	/**
+	 * Reads the header written by {@link #writeSound}, returning the id, and stores the
+	 * name in the array given if it follows (otherwise the array is left unchanged)
+	 */
+	public static int readSound(ByteArrayDataInput in, String[] name) throws IOException {
+		int header = PacketCodec.readVarInt(in);
+		if ((header & 1) != 0) {
+			name[0] = in.readUTF();
+		}
+		return header >>> 1;
+	}
+
+	/**
+	 * Returns the name for the id read by {@link #readSound}, interning the name if it was
+	 * sent in full; names must be resolved in the order they were received
+	 * @param name the name sent in full, or null if only the id was sent
+	 */
+	public synchronized String resolve(int id, String name) throws ProtocolException {
+		if (name != null) {
+			if (id != 0) {
+				if (id != receivedNames.size() + 1 || id > MAX_SOUNDS) {
+					throw new ProtocolException("Unexpected sound id " + id + " for " + name);
+				}
+				receivedNames.add(name);
+			}
+			return name;
+		} else if (id < 1 || id > receivedNames.size()) {
+			throw new ProtocolException("Unknown sound id " + id);
+		}
+		return receivedNames.get(id - 1);
+	}
+}
@@ -20,31 +20,46 @@ package zeldaswordskills.network;
 import java.io.IOException;
 
 import net.minecraft.entity.player.EntityPlayer;
-import net.minecraft.nbt.NBTTagCompound;
 import zeldaswordskills.entity.ZSSPlayerInfo;
 
 import com.google.common.io.ByteArrayDataInput;
 import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
 
 import cpw.mods.fml.relauncher.Side;
 
 /**
  * 
- * Synchronizes all ZSSPlayerInfo data on the client
+ * Synchronizes ZSSPlayerInfo data on the client, either all of it or only what has changed
+ * since the last sync; see {@link ZSSPlayerInfo#writeSyncData}
  *
  */
 public class SyncPlayerInfoPacket extends CustomPacket
 {
-	/** NBTTagCompound used to store and transfer the Player's Info */
-	private NBTTagCompound compound;
-	/** Whether skills should validate; only false when skills reset */
+	/** The player info's sync data */
+	private byte[] data;
+	/** Whether the data contains everything rather than only what changed */
+	private boolean full = true;
+	/** Whether skills should validate after a full sync; only false when skills reset */
 	private boolean validate = true;
 
 	public SyncPlayerInfoPacket() {}
 
+	/**
+	 * Full sync of all the player's info
+	 */
 	public SyncPlayerInfoPacket(ZSSPlayerInfo info) {
-		compound = new NBTTagCompound();
-		info.saveNBTData(compound);
+		this(info, true);
+	}
+
+	/**
+	 * @param full false to send only what has changed since the last sync
+	 */
+	public SyncPlayerInfoPacket(ZSSPlayerInfo info, boolean full) {
+		this.full = full;
+		ByteArrayDataOutput out = ByteStreams.newDataOutput();
+		info.writeSyncData(out, full);
+		data = out.toByteArray();
 	}
 	
 	/**
@@ -57,14 +72,18 @@ public class SyncPlayerInfoPacket extends CustomPacket
 
 	@Override
 	public void write(ByteArrayDataOutput out) throws IOException {
-		writeNBTTagCompound(compound, out);
-		out.writeBoolean(validate);
+		out.writeByte((full ? 1 : 0) | (validate ? 2 : 0));
+		PacketCodec.writeVarInt(out, data.length);
+		out.write(data);
 	}
 
 	@Override
 	public void read(ByteArrayDataInput in) throws IOException {
-		compound = readNBTTagCompound(in);
-		validate = in.readBoolean();
+		byte flags = in.readByte();
+		full = (flags & 1) != 0;
+		validate = (flags & 2) != 0;
+		data = new byte[PacketCodec.readVarInt(in)];
+		in.readFully(data);
 	}
 
 	@Override
@@ -72,9 +91,16 @@ public class SyncPlayerInfoPacket extends CustomPacket
 		if (side.isClient()) {
 			ZSSPlayerInfo info = ZSSPlayerInfo.get(player);
 			if (info != null) {
-				info.loadNBTData(compound);
-				if (validate) {
-					info.validateSkills();
+				try {
+					boolean synced = info.readSyncData(ByteStreams.newDataInput(data), full);
+					if (full && validate) {
+						info.validateSkills();
+					}
+					if (!synced) {
+						info.requestResync();
+					}
+				} catch (IOException e) {
+					throw new ProtocolException(e);
 				}
 			} else {
 				throw new ProtocolException("No Skills section");
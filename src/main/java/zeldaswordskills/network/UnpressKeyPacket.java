@@ -38,6 +38,9 @@ public class UnpressKeyPacket extends CustomPacket
 	public static final int LMB = -100, RMB = -99, MMB = -98;
 	private int keyCode;
 
+	/** Shared instance for unpressing the left mouse button, which may be sent any number of times */
+	public static final UnpressKeyPacket UNPRESS_LMB = new UnpressKeyPacket(LMB);
+
 	public UnpressKeyPacket() {}
 	
 	public UnpressKeyPacket(int keyCode) {
@@ -20,8 +20,8 @@ package zeldaswordskills.network;
 import java.io.IOException;
 
 import net.minecraft.entity.player.EntityPlayer;
-import net.minecraft.nbt.NBTTagCompound;
 import zeldaswordskills.entity.ZSSEntityInfo;
+import zeldaswordskills.entity.buff.Buff;
 import zeldaswordskills.entity.buff.BuffBase;
 
 import com.google.common.io.ByteArrayDataInput;
@@ -31,7 +31,7 @@ import cpw.mods.fml.relauncher.Side;
 
 /**
  * 
- * Updates a buff on the client side, either adding or removing it from the activeBuffs map
+ * Updates a buff on the client side, either adding or removing it from the active buffs
  *
  */
 public class UpdateBuffPacket extends CustomPacket
@@ -49,26 +49,32 @@ public class UpdateBuffPacket extends CustomPacket
 		this.remove = remove;
 	}
 
+	/** Only the final state of each buff needs to be sent, whether added or removed */
+	@Override
+	public int getSupersedeKey() {
+		return buff.getBuff().ordinal();
+	}
+
 	@Override
 	public void write(ByteArrayDataOutput out) throws IOException {
-		writeNBTTagCompound(buff.writeToNBT(new NBTTagCompound()), out);
+		PacketCodec.writeEnum(out, buff.getBuff());
+		out.writeByte(buff.getAmplifier());
+		PacketCodec.writeVarInt(out, buff.getDuration());
 		out.writeBoolean(remove);
 	}
 
 	@Override
 	public void read(ByteArrayDataInput in) throws IOException {
-		this.buff = BuffBase.readFromNBT(readNBTTagCompound(in));
+		Buff type = PacketCodec.readEnum(in, Buff.class);
+		byte amplifier = in.readByte();
+		this.buff = new BuffBase(type, PacketCodec.readVarInt(in), amplifier);
 		this.remove = in.readBoolean();
 	}
 
 	@Override
 	public void execute(EntityPlayer player, Side side) throws ProtocolException {
 		if (side.isClient()) {
-			if (remove) {
-				ZSSEntityInfo.get(player).getActiveBuffsMap().remove(buff.getBuff());
-			} else {
-				ZSSEntityInfo.get(player).getActiveBuffsMap().put(buff.getBuff(), buff);
-			}
+			ZSSEntityInfo.get(player).syncBuff(buff.getBuff(), buff.getDuration(), buff.getAmplifier(), remove);
 		} else {
 			throw new ProtocolException("Update buff packet may only be sent to the client");
 		}
@@ -21,8 +21,6 @@ import java.io.IOException;
 import java.util.logging.Level;
 
 import net.minecraft.entity.player.EntityPlayer;
-import net.minecraft.nbt.CompressedStreamTools;
-import net.minecraft.nbt.NBTTagCompound;
 import zeldaswordskills.entity.ZSSPlayerInfo;
 import zeldaswordskills.skills.Combo;
 import zeldaswordskills.skills.ICombo;
@@ -40,29 +38,34 @@ import cpw.mods.fml.relauncher.Side;
  */
 public class UpdateComboPacket extends CustomPacket
 {
-	/** Stores data of combo to be updated */
-	private NBTTagCompound compound;
+	/** The combo to be updated */
+	private Combo combo;
 	
 	public UpdateComboPacket() {}
 	
 	public UpdateComboPacket(Combo combo) {
-		compound = combo.writeToNBT();
+		this.combo = combo;
+	}
+
+	/** Only the latest state of each skill's combo needs to be sent */
+	@Override
+	public int getSupersedeKey() {
+		return combo.getSkill();
 	}
 
 	@Override
 	public void write(ByteArrayDataOutput out) throws IOException {
-		CompressedStreamTools.write(compound, out);
+		combo.writeData(out);
 	}
 
 	@Override
 	public void read(ByteArrayDataInput in) throws IOException {
-		compound = CompressedStreamTools.read(in);
+		combo = Combo.readData(in);
 	}
 
 	@Override
 	public void execute(EntityPlayer player, Side side) throws ProtocolException {
 		if (side.isClient()) {
-			Combo combo = Combo.readFromNBT(compound);
 			try {
 				ICombo skill = (ICombo) ZSSPlayerInfo.get(player).getPlayerSkill(combo.getSkill());
 				if (skill != null) {
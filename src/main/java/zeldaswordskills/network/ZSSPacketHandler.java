@@ -44,26 +44,77 @@ public class ZSSPacketHandler implements IPacketHandler {
 	public void onPacketData(INetworkManager manager, Packet250CustomPayload packet, Player player) {
 		try {
 			EntityPlayer entityPlayer = (EntityPlayer) player;
-			ByteArrayDataInput in = ByteStreams.newDataInput(packet.data);
-			// Assuming your packetId is between 0 (inclusive) and 256 (exclusive).
-			int packetId = in.readUnsignedByte();
-			CustomPacket customPacket = CustomPacket.constructPacket(packetId);
-			try {
-				customPacket.process(in, entityPlayer, entityPlayer.worldObj.isRemote ? Side.CLIENT : Side.SERVER);
-			} catch (IOException e) {
-				throw new ProtocolException(e);
+			Side side = (entityPlayer.worldObj.isRemote ? Side.CLIENT : Side.SERVER);
+			PacketMetrics.onReceived(packet.data, side.isServer() ? entityPlayer : null);
+			boolean dropped = false;
+			if (side.isServer()) {
+				// check the frame and the player's budget before constructing anything
+				PacketRateLimiter.validate(packet.data);
+				dropped = !PacketRateLimiter.tryAcquire((EntityPlayerMP) player, packet.data[0] & 0xFF);
 			}
+			processPacket(packet.data, entityPlayer, side, true, dropped);
 		} catch (ProtocolException e) {
 			if (player instanceof EntityPlayerMP) {
+				PacketRateLimiter.onKicked();
 				((EntityPlayerMP) player).playerNetServerHandler.kickPlayerFromServer("Protocol Exception!");
 				LogHelper.log(Level.WARNING, String.format("Player %s caused a Protocol Exception and was kicked.", ((EntityPlayer)player).username) + e.toString());
 			} else {
 				LogHelper.log(Level.SEVERE, e.toString());
 			}
-		} catch (InstantiationException e) {
-			throw new RuntimeException("Unexpected InstantiationException during Packet construction!", e);
-		} catch (IllegalAccessException e) {
-			throw new RuntimeException("Unexpected IllegalAccessException during Packet construction!", e);
+		}
+	}
+
+	/**
+	 * Constructs and processes the packet from its data, including each packet within a MultiPacket
+	 * @param allowMulti false for packets within a MultiPacket, as they may not be nested
+	 * @param dropped true if the packet is over its rate limit: it is still read, so that any
+	 * 			connection state it carries stays in sync, but {@link CustomPacket#onDropped}
+	 * 			is called instead of executing it
+	 */
+	private void processPacket(byte[] data, EntityPlayer player, Side side, boolean allowMulti, boolean dropped)
+			throws ProtocolException {
+		ByteArrayDataInput in = ByteStreams.newDataInput(data);
+		// Assuming your packetId is between 0 (inclusive) and 256 (exclusive).
+		int packetId;
+		try {
+			packetId = in.readUnsignedByte();
+		} catch (RuntimeException e) {
+			throw new ProtocolException("Empty packet", e);
+		}
+		CustomPacket customPacket = CustomPacket.constructPacket(packetId);
+		if (customPacket instanceof MultiPacket) {
+			if (!allowMulti || side.isServer()) {
+				throw new ProtocolException("MultiPacket may only be sent to the client and may not be nested");
+			}
+			read(customPacket, in);
+			for (byte[] packet : ((MultiPacket) customPacket).getPackets()) {
+				processPacket(packet, player, side, false, false);
+			}
+		} else {
+			long start = System.nanoTime();
+			read(customPacket, in);
+			if (dropped) {
+				customPacket.onDropped(player, side);
+			} else {
+				PacketMetrics.onDecoded(data, System.nanoTime() - start);
+				customPacket.execute(player, side);
+			}
+		}
+	}
+
+	/**
+	 * Reads the packet's data, treating any exception thrown while doing so as malformed data
+	 * rather than letting it escape into the network thread: besides IOExceptions, reading may
+	 * run past the end of the data (IllegalStateException) or use bad sizes, indices or ids
+	 * taken from it (NegativeArraySizeException, IndexOutOfBoundsException, etc.)
+	 */
+	private static void read(CustomPacket packet, ByteArrayDataInput in) throws ProtocolException {
+		try {
+			packet.read(in);
+		} catch (IOException e) {
+			throw new ProtocolException(e);
+		} catch (RuntimeException e) {
+			throw new ProtocolException("Malformed " + packet.getClass().getSimpleName(), e);
 		}
 	}
 }
@@ -17,18 +17,22 @@
 
 package zeldaswordskills.skills;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.EntityPlayer;
-import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.StatCollector;
 import net.minecraft.world.World;
 import zeldaswordskills.ZSSAchievements;
+import zeldaswordskills.network.PacketCodec;
+import zeldaswordskills.network.PacketQueue;
 import zeldaswordskills.network.UpdateComboPacket;
-import cpw.mods.fml.common.network.PacketDispatcher;
-import cpw.mods.fml.common.network.Player;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
@@ -96,7 +100,7 @@ public class Combo
 		this.skillId = skill.getId();
 		this.maxComboSize = maxComboSize;
 		this.timeLimit = timeLimit;
-		PacketDispatcher.sendPacketToPlayer(new UpdateComboPacket(this).makePacket(), (Player) player);
+		PacketQueue.sendToPlayer(new UpdateComboPacket(this), player);
 	}
 
 	/**
@@ -178,7 +182,7 @@ public class Combo
 			case 12: player.triggerAchievement(ZSSAchievements.comboLegend); break;
 			}
 			comboDamage += damage;
-			PacketDispatcher.sendPacketToPlayer(new UpdateComboPacket(this).makePacket(), (Player) player);
+			PacketQueue.sendToPlayer(new UpdateComboPacket(this), player);
 			if (getSize() == maxComboSize) {
 				endCombo(player);
 			} else {
@@ -202,7 +206,7 @@ public class Combo
 			if (getSize() == 0) {
 				comboTimer = timeLimit;
 			}
-			PacketDispatcher.sendPacketToPlayer(new UpdateComboPacket(this).makePacket(), (Player) player);
+			PacketQueue.sendToPlayer(new UpdateComboPacket(this), player);
 		}
 	}
 
@@ -215,13 +219,13 @@ public class Combo
 			lastEntityHit = null;
 			consecutiveHits = 0;
 			if (!player.worldObj.isRemote) {
-				PacketDispatcher.sendPacketToPlayer(new UpdateComboPacket(this).makePacket(), (Player) player);
+				PacketQueue.sendToPlayer(new UpdateComboPacket(this), player);
 			}
 		}
 	}
 
 	/**
-	 * Attempts to set the last entity hit after loading from NBT; use from update packet
+	 * Attempts to set the last entity hit after reading from the update packet
 	 */
 	@SideOnly(Side.CLIENT)
 	public void getEntityFromWorld(World world) {
@@ -229,37 +233,35 @@ public class Combo
 	}
 
 	/**
-	 * Writes this combo to NBT and returns the tag compound
+	 * Writes this combo's data for the update packet
 	 */
-	public final NBTTagCompound writeToNBT() {
-		NBTTagCompound compound = new NBTTagCompound();
-		compound.setByte("SkillID", skillId);
-		compound.setInteger("MaxSize", maxComboSize);
-		compound.setInteger("TimeLimit", timeLimit);
-		compound.setInteger("CurrentSize", getSize());
+	public final void writeData(ByteArrayDataOutput out) {
+		out.writeByte(skillId);
+		PacketCodec.writeVarInt(out, maxComboSize);
+		PacketCodec.writeVarInt(out, timeLimit);
+		PacketCodec.writeVarInt(out, getSize());
 		for (int i = 0; i < getSize(); ++i) {
-			compound.setFloat("Dmg" + i, damageList.get(i));
+			out.writeFloat(damageList.get(i));
 		}
-		compound.setFloat("TotalDamage", comboDamage);
-		compound.setInteger("EntityId", (lastEntityHit != null ? lastEntityHit.entityId : 0));
-		compound.setInteger("ConsecutiveHits", consecutiveHits);
-		compound.setBoolean("Finished", isFinished);
-		return compound;
+		out.writeFloat(comboDamage);
+		out.writeInt(lastEntityHit != null ? lastEntityHit.entityId : 0);
+		PacketCodec.writeVarInt(out, consecutiveHits);
+		out.writeBoolean(isFinished);
 	}
 
 	/**
-	 * Creates a new combo from the nbt tag data
+	 * Creates a new combo from data written by {@link #writeData}
 	 */
-	public static final Combo readFromNBT(NBTTagCompound compound) {
-		Combo combo = new Combo(compound.getByte("SkillID"), compound.getInteger("MaxSize"), compound.getInteger("TimeLimit"));
-		int size = compound.getInteger("CurrentSize");
+	public static final Combo readData(ByteArrayDataInput in) throws IOException {
+		Combo combo = new Combo(in.readByte(), PacketCodec.readVarInt(in), PacketCodec.readVarInt(in));
+		int size = PacketCodec.readVarInt(in);
 		for (int i = 0; i < size; ++i) {
-			combo.damageList.add(compound.getFloat("Dmg" + i));
+			combo.damageList.add(in.readFloat());
 		}
-		combo.comboDamage = compound.getFloat("TotalDamage");
-		combo.entityId = compound.getInteger("EntityId");
-		combo.consecutiveHits = compound.getInteger("ConsecutiveHits");
-		combo.isFinished = compound.getBoolean("Finished");
+		combo.comboDamage = in.readFloat();
+		combo.entityId = in.readInt();
+		combo.consecutiveHits = PacketCodec.readVarInt(in);
+		combo.isFinished = in.readBoolean();
 		return combo;
 	}
 }
@@ -23,8 +23,7 @@ import net.minecraft.util.StatCollector;
 import net.minecraft.world.World;
 import zeldaswordskills.entity.ZSSPlayerInfo;
 import zeldaswordskills.network.ActivateSkillPacket;
-import cpw.mods.fml.common.network.PacketDispatcher;
-import cpw.mods.fml.common.network.Player;
+import zeldaswordskills.network.PacketQueue;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
@@ -116,7 +115,7 @@ public abstract class SkillActive extends SkillBase
 				player.addExhaustion(getExhaustion());
 			}
 			if (!world.isRemote) {
-				PacketDispatcher.sendPacketToPlayer(new ActivateSkillPacket(this).makePacket(), (Player) player);
+				PacketQueue.sendToPlayer(new ActivateSkillPacket(this), player);
 			} else if (disablesLMB) { // only care about this client side
 				ZSSPlayerInfo.get(player).setCurrentActiveSkill(this);
 			}
@@ -29,7 +29,6 @@ import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.StatCollector;
 import zeldaswordskills.lib.ModInfo;
-import zeldaswordskills.network.SyncSkillPacket;
 import zeldaswordskills.skills.sword.ArmorBreak;
 import zeldaswordskills.skills.sword.Dash;
 import zeldaswordskills.skills.sword.Dodge;
@@ -43,8 +42,6 @@ import zeldaswordskills.skills.sword.SwordBasic;
 import zeldaswordskills.skills.sword.SwordBeam;
 import zeldaswordskills.skills.sword.SwordBreak;
 import zeldaswordskills.util.LogHelper;
-import cpw.mods.fml.common.network.PacketDispatcher;
-import cpw.mods.fml.common.network.Player;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
@@ -93,6 +90,9 @@ public abstract class SkillBase
 	/** Mutable field storing current level for this instance of SkillBase */
 	protected byte level = 0;
 
+	/** Whether the level has changed since last synchronized with the client; server only */
+	private boolean isDirty = false;
+
 	/** Contains descriptions for tooltip display */
 	private final List<String> tooltip = new ArrayList<String>();
 
@@ -394,11 +394,21 @@ public abstract class SkillBase
 			levelUp(player);
 		}
 		if (!player.worldObj.isRemote && oldLevel < level) {
-			PacketDispatcher.sendPacketToPlayer(new SyncSkillPacket(this).makePacket(), (Player) player);
+			isDirty = true;
 		}
 		return oldLevel < level;
 	}
 
+	/** Returns true if the level has changed since last synchronized with the client */
+	public final boolean isDirty() {
+		return isDirty;
+	}
+
+	/** Called after the skill has been synchronized with the client */
+	public final void clearDirty() {
+		isDirty = false;
+	}
+
 	/** This method should be called every update tick */
 	public void onUpdate(EntityPlayer player) {}
 
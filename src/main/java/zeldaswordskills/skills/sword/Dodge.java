@@ -147,8 +147,9 @@ public class Dodge extends SkillActive
 
 	/** Returns player's base chance to successfully evade an attack, including bonuses from buffs */
 	private float getBaseDodgeChance(EntityPlayer player) {
-		float evadeUp = ZSSEntityInfo.get(player).getBuffAmplifier(Buff.EVADE_UP) * 0.01F;
-		float evadeDown = ZSSEntityInfo.get(player).getBuffAmplifier(Buff.EVADE_DOWN) * 0.01F;
+		ZSSEntityInfo buffInfo = ZSSEntityInfo.get(player);
+		float evadeUp = buffInfo.getBuffAmplifier(Buff.EVADE_UP) * 0.01F;
+		float evadeDown = buffInfo.getBuffAmplifier(Buff.EVADE_DOWN) * 0.01F;
 		return ((level * 0.1F) + evadeUp - evadeDown);
 	}
 
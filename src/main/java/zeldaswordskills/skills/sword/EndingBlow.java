@@ -193,8 +193,9 @@ public class EndingBlow extends SkillActive
 	 */
 	public void onImpact(EntityPlayer player, LivingHurtEvent event) {
 		activeTimer = 0;
-		ICombo combo = ZSSPlayerInfo.get(player).getComboSkill();
-		ILockOnTarget lock = ZSSPlayerInfo.get(player).getTargetingSkill();
+		ZSSPlayerInfo skills = ZSSPlayerInfo.get(player);
+		ICombo combo = skills.getComboSkill();
+		ILockOnTarget lock = skills.getTargetingSkill();
 		if (combo != null && combo.isComboInProgress() && lock != null && lock.getCurrentTarget() == combo.getCombo().getLastEntityHit()) {
 			event.ammount *= 1.0F + (level * 0.2F);
 			WorldUtils.playSoundAtEntity(player.worldObj, player, Sounds.MORTAL_DRAW, 0.4F, 0.5F);
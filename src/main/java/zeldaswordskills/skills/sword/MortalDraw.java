@@ -29,12 +29,11 @@ import zeldaswordskills.client.ZSSKeyHandler;
 import zeldaswordskills.entity.ZSSPlayerInfo;
 import zeldaswordskills.lib.Sounds;
 import zeldaswordskills.network.MortalDrawPacket;
+import zeldaswordskills.network.PacketQueue;
 import zeldaswordskills.skills.ILockOnTarget;
 import zeldaswordskills.skills.SkillActive;
 import zeldaswordskills.util.PlayerUtils;
 import zeldaswordskills.util.WorldUtils;
-import cpw.mods.fml.common.network.PacketDispatcher;
-import cpw.mods.fml.common.network.Player;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
@@ -144,7 +143,7 @@ public class MortalDraw extends SkillActive
 			if (attackTimer == DELAY && !player.worldObj.isRemote) {
 				drawSword(player, null);
 				if (player.getHeldItem() != null) {
-					PacketDispatcher.sendPacketToPlayer(new MortalDrawPacket().makePacket(), (Player) player);
+					PacketQueue.sendToPlayer(MortalDrawPacket.INSTANCE, player);
 				}
 			}
 		}
@@ -0,0 +1,290 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.minecraft.block.Block;
+import net.minecraft.util.LongHashMap;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.EnumSkyBlock;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+/**
+ *
+ * Places large numbers of blocks by writing directly into the chunks' block storage,
+ * rather than through World#setBlock, and defers everything else until {@link #flush}:
+ * the height map is recalculated once for each column changed (discarding any cached
+ * surface heights) and sky light relit over the span by which its height changed, block
+ * light only where a light source was placed or removed, and clients are sent one
+ * multi-block change (or a resend of the affected sections) per chunk.
+ *
+ * Blocks with tile entities, whether being placed or replaced, always go through the world.
+ * Blocks are otherwise not notified of being added unless requested using the block update
+ * flag, in which case onBlockAdded and neighbor notifications happen when flushed.
+ *
+ * Changes are visible to the world immediately, so reading blocks while writing is fine.
+ *
+ */
+public class BlockBatchWriter
+{
+	/** Number of changes per chunk at which clients are sent the changed sections instead; same as PlayerInstance */
+	private static final int MAX_CHANGES = 64;
+
+	private final World world;
+
+	/** Changes for each chunk, keyed by chunk coordinates */
+	private final LongHashMap chunkMap = new LongHashMap();
+
+	/** All chunks changed since the last flush, in order */
+	private final List<ChunkChanges> chunks = new ArrayList<ChunkChanges>();
+
+	/** Positions whose block light may have changed, stored as x/y/z triples */
+	private int[] lightUpdates = new int[48];
+
+	private int numLightUpdates;
+
+	/** Positions to notify once flushed, stored as x/y/z triples */
+	private int[] blockUpdates = new int[48];
+
+	private int numBlockUpdates;
+
+	public BlockBatchWriter(World world) {
+		this.world = world;
+	}
+
+	public World getWorld() {
+		return world;
+	}
+
+	/**
+	 * Sets the block without notifying it or its neighbors; same as World#setBlock with flag 2
+	 */
+	public void setBlock(int x, int y, int z, int blockId, int meta) {
+		setBlock(x, y, z, blockId, meta, 2);
+	}
+
+	/**
+	 * Sets the block, deferring all updates until flushed
+	 * @param flag same as World#setBlock; if the block update flag (1) is set, the block will
+	 * 			have onBlockAdded called and notify its neighbors when flushed
+	 */
+	public void setBlock(int x, int y, int z, int blockId, int meta, int flag) {
+		if (y < 0 || y > 255) {
+			return;
+		}
+		ChunkChanges changes = getChanges(x >> 4, z >> 4);
+		ExtendedBlockStorage[] storage = changes.chunk.getBlockStorageArray();
+		ExtendedBlockStorage section = storage[y >> 4];
+		int oldId = (section == null ? 0 : section.getExtBlockID(x & 15, y & 15, z & 15));
+		int oldMeta = (section == null ? 0 : section.getExtBlockMetadata(x & 15, y & 15, z & 15));
+		if (oldId == blockId && oldMeta == meta) {
+			return;
+		}
+		if (hasTileEntity(oldId, oldMeta) || hasTileEntity(blockId, meta)) {
+			world.setBlock(x, y, z, blockId, meta, flag);
+			return;
+		}
+		if (section == null) {
+			if (blockId == 0) {
+				return;
+			}
+			section = storage[y >> 4] = new ExtendedBlockStorage(y >> 4 << 4, !world.provider.hasNoSky);
+			changes.newSections = true;
+		}
+		section.setExtBlockID(x & 15, y & 15, z & 15, blockId);
+		section.setExtBlockMetadata(x & 15, y & 15, z & 15, meta);
+		changes.add(x & 15, y, z & 15);
+		if (Block.lightValue[oldId] != Block.lightValue[blockId]) {
+			lightUpdates = addPosition(lightUpdates, numLightUpdates, x, y, z);
+			numLightUpdates += 3;
+		}
+		if ((flag & 1) != 0 && blockId > 0) {
+			blockUpdates = addPosition(blockUpdates, numBlockUpdates, x, y, z);
+			numBlockUpdates += 3;
+		}
+	}
+
+	private static boolean hasTileEntity(int blockId, int meta) {
+		return (blockId > 0 && Block.blocksList[blockId] != null && Block.blocksList[blockId].hasTileEntity(meta));
+	}
+
+	/** Appends the position to the array at the index given, returning the (possibly expanded) array */
+	private static int[] addPosition(int[] positions, int index, int x, int y, int z) {
+		if (index + 3 > positions.length) {
+			positions = Arrays.copyOf(positions, positions.length << 1);
+		}
+		positions[index] = x;
+		positions[index + 1] = y;
+		positions[index + 2] = z;
+		return positions;
+	}
+
+	private ChunkChanges getChanges(int chunkX, int chunkZ) {
+		long key = ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ);
+		ChunkChanges changes = (ChunkChanges) chunkMap.getValueByKey(key);
+		if (changes == null) {
+			changes = new ChunkChanges(key, world.getChunkFromChunkCoords(chunkX, chunkZ));
+			chunkMap.add(key, changes);
+			chunks.add(changes);
+		}
+		return changes;
+	}
+
+	/**
+	 * Updates lighting, notifies blocks where requested, and sends all changes to clients;
+	 * the writer may continue to be used afterwards
+	 */
+	public void flush() {
+		for (ChunkChanges changes : chunks) {
+			changes.relight(world);
+			SurfaceHeightCache.invalidate(world, changes.chunk.xPosition, changes.chunk.zPosition);
+		}
+		for (int i = 0; i < numLightUpdates; i += 3) {
+			world.updateLightByType(EnumSkyBlock.Block, lightUpdates[i], lightUpdates[i + 1], lightUpdates[i + 2]);
+		}
+		for (int i = 0; i < numBlockUpdates; i += 3) {
+			int x = blockUpdates[i], y = blockUpdates[i + 1], z = blockUpdates[i + 2];
+			int blockId = world.getBlockId(x, y, z);
+			if (Block.blocksList[blockId] != null) {
+				Block.blocksList[blockId].onBlockAdded(world, x, y, z);
+				world.notifyBlockChange(x, y, z, blockId);
+			}
+		}
+		for (ChunkChanges changes : chunks) {
+			changes.sendChanges(world);
+			chunkMap.remove(changes.key);
+		}
+		chunks.clear();
+		numLightUpdates = 0;
+		numBlockUpdates = 0;
+	}
+
+	/**
+	 *
+	 * Changes made to a single chunk
+	 *
+	 */
+	private static class ChunkChanges
+	{
+		private final long key;
+
+		private final Chunk chunk;
+
+		/** Positions of the first changes, packed the same way as PlayerInstance */
+		private final short[] positions = new short[MAX_CHANGES];
+
+		/** Total number of changes made */
+		private int numChanges;
+
+		/** Bit flags of each 16-block section changed */
+		private int sectionFlags;
+
+		/** Bit flags of each column changed, indexed the same as the height map */
+		private final long[] columnFlags = new long[4];
+
+		/** Height map as it was before any changes */
+		private final int[] oldHeights;
+
+		/** Whether any block storage sections were created, which start out with no sky light */
+		private boolean newSections;
+
+		public ChunkChanges(long key, Chunk chunk) {
+			this.key = key;
+			this.chunk = chunk;
+			this.oldHeights = chunk.heightMap.clone();
+		}
+
+		/** Adds a change using coordinates local to the chunk */
+		public void add(int x, int y, int z) {
+			chunk.isModified = true;
+			sectionFlags |= 1 << (y >> 4);
+			columnFlags[z >> 2] |= 1L << ((z & 3) << 4 | x);
+			if (numChanges < MAX_CHANGES) {
+				positions[numChanges] = (short)(x << 12 | z << 8 | y);
+			}
+			++numChanges;
+		}
+
+		/**
+		 * Recalculates the height of each column changed and relights sky light over the
+		 * span between its old and new heights, same as Chunk#relightBlock but only once per
+		 * column; sections created are first given sky light the same way World#setBlock does
+		 */
+		public void relight(World world) {
+			if (newSections) {
+				chunk.generateSkylightMap();
+			}
+			if (world.provider.hasNoSky) {
+				return;
+			}
+			int baseX = chunk.xPosition << 4;
+			int baseZ = chunk.zPosition << 4;
+			for (int i = 0; i < 256; ++i) {
+				if ((columnFlags[i >> 6] & (1L << (i & 63))) == 0) {
+					continue;
+				}
+				int x = i & 15, z = i >> 4;
+				int height = getColumnHeight(x, z);
+				chunk.heightMap[i] = height;
+				chunk.precipitationHeightMap[i] = -999;
+				if (height < chunk.heightMapMinimum) {
+					chunk.heightMapMinimum = height;
+				}
+				int min = Math.min(oldHeights[i], height);
+				int max = Math.min(Math.max(oldHeights[i], height), 255);
+				for (int y = max; y >= min; --y) {
+					world.updateLightByType(EnumSkyBlock.Sky, baseX + x, y, baseZ + z);
+				}
+			}
+		}
+
+		/** Returns the y value above the highest block that blocks light in the column */
+		private int getColumnHeight(int x, int z) {
+			for (int y = chunk.getTopFilledSegment() + 16; y > 0; --y) {
+				if (chunk.getBlockLightOpacity(x, y - 1, z) != 0) {
+					return y;
+				}
+			}
+			return 0;
+		}
+
+		/**
+		 * Marks the changes for update; once the player manager's limit is reached it
+		 * resends every section flagged, so only one position per section is needed beyond that
+		 */
+		public void sendChanges(World world) {
+			int baseX = chunk.xPosition << 4;
+			int baseZ = chunk.zPosition << 4;
+			for (int i = 0; i < Math.min(numChanges, MAX_CHANGES); ++i) {
+				world.markBlockForUpdate(baseX + (positions[i] >> 12 & 15), positions[i] & 255, baseZ + (positions[i] >> 8 & 15));
+			}
+			if (numChanges > MAX_CHANGES) {
+				for (int i = 0; i < 16; ++i) {
+					if ((sectionFlags & (1 << i)) != 0) {
+						world.markBlockForUpdate(baseX, i << 4, baseZ);
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,161 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.material.Material;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
+
+/**
+ *
+ * A copy of the block ids within a volume of the world, taken directly from the loaded
+ * chunks' block storage arrays, so that structure validation can read the same blocks
+ * many times without going through the world and chunk provider for each one.
+ *
+ * Positions outside of the captured volume, or within chunks that were not loaded when it
+ * was captured, are read from the world instead, so results are always the same as if
+ * the world had been queried directly (provided the world has not changed since).
+ *
+ * Snapshots are pooled: obtain one using {@link #capture} and {@link #release} it in a finally
+ * block, so that it is returned to the pool even if validation throws.
+ *
+ */
+public class BlockVolumeSnapshot
+{
+	/** Snapshots available for reuse */
+	private static final List<BlockVolumeSnapshot> pool = new ArrayList<BlockVolumeSnapshot>();
+
+	/** Marks a position whose chunk was not loaded when captured */
+	private static final int UNKNOWN = -1;
+
+	/** The world from which the snapshot was captured */
+	private World world;
+
+	/** Origin and dimensions of the captured volume */
+	private int minX, minY, minZ, sizeX, sizeY, sizeZ;
+
+	/** Block ids, ordered by x, then z, then y */
+	private int[] blockIds = new int[4096];
+
+	private BlockVolumeSnapshot() {}
+
+	/**
+	 * Returns a snapshot of the bounding box expanded by the given margins
+	 * @param margin number of blocks to include around the box on the x and z axes
+	 * @param marginDown number of blocks to include below the box
+	 * @param marginUp number of blocks to include above the box
+	 */
+	public static BlockVolumeSnapshot capture(World world, StructureBoundingBox box, int margin, int marginDown, int marginUp) {
+		return capture(world, box.minX - margin, box.minY - marginDown, box.minZ - margin, box.maxX + margin, box.maxY + marginUp, box.maxZ + margin);
+	}
+
+	/**
+	 * Returns a snapshot of all blocks within the bounds given, inclusive
+	 */
+	public static BlockVolumeSnapshot capture(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+		BlockVolumeSnapshot snapshot;
+		synchronized (pool) {
+			snapshot = (pool.isEmpty() ? new BlockVolumeSnapshot() : pool.remove(pool.size() - 1));
+		}
+		snapshot.copyFrom(world, minX, Math.max(minY, 0), minZ, maxX, Math.min(maxY, 255), maxZ);
+		return snapshot;
+	}
+
+	/**
+	 * Returns this snapshot to the pool; it must not be used afterwards
+	 */
+	public void release() {
+		world = null;
+		synchronized (pool) {
+			pool.add(this);
+		}
+	}
+
+	private void copyFrom(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+		this.world = world;
+		this.minX = minX;
+		this.minY = minY;
+		this.minZ = minZ;
+		sizeX = Math.max(maxX - minX + 1, 0);
+		sizeY = Math.max(maxY - minY + 1, 0);
+		sizeZ = Math.max(maxZ - minZ + 1, 0);
+		if (sizeX * sizeY * sizeZ > blockIds.length) {
+			blockIds = new int[sizeX * sizeY * sizeZ];
+		}
+		for (int chunkX = minX >> 4; chunkX <= maxX >> 4; ++chunkX) {
+			for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; ++chunkZ) {
+				ExtendedBlockStorage[] storage = null;
+				if (world.getChunkProvider().chunkExists(chunkX, chunkZ)) {
+					storage = world.getChunkFromChunkCoords(chunkX, chunkZ).getBlockStorageArray();
+				}
+				int x1 = Math.min(maxX, (chunkX << 4) + 15);
+				int z1 = Math.min(maxZ, (chunkZ << 4) + 15);
+				for (int x = Math.max(minX, chunkX << 4); x <= x1; ++x) {
+					for (int z = Math.max(minZ, chunkZ << 4); z <= z1; ++z) {
+						int index = getIndex(x, minY, z);
+						for (int y = minY; y <= maxY; ++y) {
+							if (storage == null) {
+								blockIds[index++] = UNKNOWN;
+							} else {
+								ExtendedBlockStorage section = storage[y >> 4];
+								blockIds[index++] = (section == null ? 0 : section.getExtBlockID(x & 15, y & 15, z & 15));
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private int getIndex(int x, int y, int z) {
+		return ((x - minX) * sizeZ + (z - minZ)) * sizeY + (y - minY);
+	}
+
+	/** Returns the world from which this snapshot was captured */
+	public World getWorld() {
+		return world;
+	}
+
+	/** Same as World#getBlockId */
+	public int getBlockId(int x, int y, int z) {
+		if (x >= minX && y >= minY && z >= minZ && x < minX + sizeX && y < minY + sizeY && z < minZ + sizeZ) {
+			int id = blockIds[getIndex(x, y, z)];
+			if (id != UNKNOWN) {
+				return id;
+			}
+		}
+		return world.getBlockId(x, y, z);
+	}
+
+	/** Same as World#getBlockMaterial */
+	public Material getBlockMaterial(int x, int y, int z) {
+		int id = getBlockId(x, y, z);
+		return (id == 0 || Block.blocksList[id] == null ? Material.air : Block.blocksList[id].blockMaterial);
+	}
+
+	/** Same as World#isAirBlock */
+	public boolean isAirBlock(int x, int y, int z) {
+		int id = getBlockId(x, y, z);
+		return (id == 0 || Block.blocksList[id] == null || Block.blocksList[id].isAirBlock(world, x, y, z));
+	}
+}
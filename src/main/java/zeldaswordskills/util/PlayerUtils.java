@@ -26,9 +26,9 @@ import zeldaswordskills.ZSSMain;
 import zeldaswordskills.api.item.ISkillItem;
 import zeldaswordskills.api.item.ISword;
 import zeldaswordskills.item.ItemZeldaSword;
+import zeldaswordskills.network.PacketQueue;
 import zeldaswordskills.network.PlaySoundPacket;
 import cpw.mods.fml.common.network.PacketDispatcher;
-import cpw.mods.fml.common.network.Player;
 
 /**
  * 
@@ -179,7 +179,7 @@ public class PlayerUtils
 		if (player.worldObj.isRemote) {
 			PacketDispatcher.sendPacketToServer(new PlaySoundPacket(sound, volume, pitch, player).makePacket());
 		} else {
-			PacketDispatcher.sendPacketToPlayer(new PlaySoundPacket(sound, volume, pitch).makePacket(), (Player) player);
+			PacketQueue.sendToPlayer(new PlaySoundPacket(sound, volume, pitch, player), player);
 		}
 	}
 
@@ -36,15 +36,16 @@ public class StructureGenUtils
 {	
 	/**
 	 * Scans the surface of the chunk and returns the average height for the entire chunk
-	 * by sampling the world height value of 25 of the 256 surface blocks
+	 * by sampling the cached surface height of 25 of the 256 surface blocks
 	 * posX and posZ are real world coordinates, not chunk coordinates
 	 */
 	public static int getAverageSurfaceHeight(World world, int posX, int posZ) {
-		int height = world.getHeightValue(posX, posZ);
+		SurfaceHeightCache cache = SurfaceHeightCache.get(world);
+		int height = cache.getSurfaceHeight(posX, posZ);
 		int count = 1;
 		for (int i = posX + 3; i < posX + 16; i += 3) {
 			for (int j = posZ + 3; j < posZ + 16; j += 3) {
-				height += world.getHeightValue(i, j);
+				height += cache.getSurfaceHeight(i, j);
 				++count;
 			}
 		}
@@ -88,8 +89,15 @@ public class StructureGenUtils
 	 * Returns number of blocks between coordinates given and solid ground, or 0 if solid ground is above
 	 */
 	public static int getDistanceToGround(World world, int x, int y, int z) {
+		SurfaceHeightCache cache = SurfaceHeightCache.get(world);
+		int surface = cache.getSurfaceHeight(x, z);
+		int floor = cache.getSolidFloorHeight(x, z);
 		int i = 0;
 		while (!world.getBlockMaterial(x, y - 1, z).isSolid() && y > 5) {
+			// nothing solid between here and the cached floor, so skip straight to it
+			if (y <= surface && y >= floor) {
+				return i + y - Math.max(floor, 5);
+			}
 			--y;
 			++i;
 		}
@@ -117,10 +125,29 @@ public class StructureGenUtils
 	 * @param ignoreBounds if true, will fill in blocks even outside of the structure's bounding box bounds
 	 */
 	public static void fillWithBlocks(World world, StructureBoundingBox box, int minX, int maxX, int minY, int maxY, int minZ, int maxZ, int blockId, int meta, boolean ignoreBounds) {
+		BlockBatchWriter writer = new BlockBatchWriter(world);
+		fillWithBlocks(writer, box, minX, maxX, minY, maxY, minZ, maxZ, blockId, meta, ignoreBounds);
+		writer.flush();
+	}
+
+	/**
+	 * Fills area defined by arguments and within the structure's bounding box with given metadata block,
+	 * up to but not including the max boundary; changes are not applied until the writer is flushed
+	 */
+	public static void fillWithBlocks(BlockBatchWriter writer, StructureBoundingBox box, int minX, int maxX, int minY, int maxY, int minZ, int maxZ, int blockId, int meta) {
+		fillWithBlocks(writer, box, minX, maxX, minY, maxY, minZ, maxZ, blockId, meta, false);
+	}
+
+	/**
+	 * Fills area defined by arguments with given metadata block, up to but not including the max boundary;
+	 * changes are not applied until the writer is flushed
+	 * @param ignoreBounds if true, will fill in blocks even outside of the structure's bounding box bounds
+	 */
+	public static void fillWithBlocks(BlockBatchWriter writer, StructureBoundingBox box, int minX, int maxX, int minY, int maxY, int minZ, int maxZ, int blockId, int meta, boolean ignoreBounds) {
 		for (int i = minX; i < maxX; ++i) {
 			for (int j = minY; j < maxY; ++j) {
 				for (int k = minZ; k < maxZ; ++k) {
-					setBlockAtPosition(world, box, i, j, k, blockId, meta, ignoreBounds);
+					setBlockAtPosition(writer, box, i, j, k, blockId, meta, ignoreBounds);
 				}
 			}
 		}
@@ -132,11 +159,22 @@ public class StructureGenUtils
 	 * @param flag block notification flag; see setBlock for details
 	 */
 	public static void fillWithoutReplace(World world, int minX, int maxX, int minY, int maxY, int minZ, int maxZ, int blockId, int meta, int flag) {
+		BlockBatchWriter writer = new BlockBatchWriter(world);
+		fillWithoutReplace(writer, minX, maxX, minY, maxY, minZ, maxZ, blockId, meta, flag);
+		writer.flush();
+	}
+
+	/**
+	 * Same as {@link #fillWithoutReplace(World, int, int, int, int, int, int, int, int, int)},
+	 * but changes are not applied until the writer is flushed
+	 */
+	public static void fillWithoutReplace(BlockBatchWriter writer, int minX, int maxX, int minY, int maxY, int minZ, int maxZ, int blockId, int meta, int flag) {
+		World world = writer.getWorld();
 		for (int i = minX; i < maxX; ++i) {
 			for (int j = minY; j < maxY; ++j) {
 				for (int k = minZ; k < maxZ; ++k) {
 					if (!world.getBlockMaterial(i, j, k).isSolid()) {
-						world.setBlock(i, j, k, blockId, meta, flag);
+						writer.setBlock(i, j, k, blockId, meta, flag);
 					}
 				}
 			}
@@ -148,13 +186,15 @@ public class StructureGenUtils
 	 * any non-solid or leaf blocks with the block and meta provided
 	 */
 	public static void fillDown(World world, StructureBoundingBox box, int blockId, int metadata) {
+		BlockBatchWriter writer = new BlockBatchWriter(world);
 		for (int i = box.minX; i <= box.maxX; ++i) {
 			for (int k = box.minZ; k <= box.maxZ; ++k) {
 				for (int j = box.minY - 1; j > 4 && (!world.getBlockMaterial(i, j, k).isSolid() || world.getBlockMaterial(i, j, k) == Material.leaves); --j) {
-					world.setBlock(i, j, k, blockId, metadata, 2);
+					writer.setBlock(i, j, k, blockId, metadata);
 				}
 			}
 		}
+		writer.flush();
 	}
 	
 	/**
@@ -248,6 +288,20 @@ public class StructureGenUtils
 			world.setBlock(j1, k1, l1, blockId, meta, 2);
 		}
 	}
+
+	/**
+	 * Sets the block at a position offset by the amounts x/y/z within the bounding box;
+	 * the change is not applied until the writer is flushed
+	 * @param ignoreBounds if true, will set a block even if it is outside of the structure's bounding box bounds
+	 */
+	public static void setBlockAtPosition(BlockBatchWriter writer, StructureBoundingBox box, int x, int y, int z, int blockId, int meta, boolean ignoreBounds) {
+		int j1 = getXWithOffset(box, x, z);
+		int k1 = getYWithOffset(box, y);
+		int l1 = getZWithOffset(box, x, z);
+		if (ignoreBounds || box.isVecInside(j1, k1, l1)) {
+			writer.setBlock(j1, k1, l1, blockId, meta);
+		}
+	}
 	
 	/**
 	 * Adjusts bounding box up to n blocks up or down if there is any of the given material
@@ -255,23 +309,23 @@ public class StructureGenUtils
 	 * @param checkAbove whether to check the blocks above the structure
 	 * @param moveUp whether the structure is moving up
 	 */
-	public static void adjustCornersForMaterial(World world, StructureBoundingBox box, Material material, int n, boolean checkAbove, boolean moveUp) {
+	public static void adjustCornersForMaterial(BlockVolumeSnapshot snapshot, StructureBoundingBox box, Material material, int n, boolean checkAbove, boolean moveUp) {
 		int count = n;
 		int i = (moveUp ? 1 : -1);
 
-		while (count > 0 && world.getBlockMaterial(box.maxX, (checkAbove ? box.maxY + 1 : box.minY - 1), box.maxZ) == material) {
+		while (count > 0 && snapshot.getBlockMaterial(box.maxX, (checkAbove ? box.maxY + 1 : box.minY - 1), box.maxZ) == material) {
 			--count;
 			box.offset(0, i, 0);
 		}
-		while (count > 0 && world.getBlockMaterial(box.maxX, (checkAbove ? box.maxY + 1 : box.minY - 1), box.minZ) == material) {
+		while (count > 0 && snapshot.getBlockMaterial(box.maxX, (checkAbove ? box.maxY + 1 : box.minY - 1), box.minZ) == material) {
 			--count;
 			box.offset(0, i, 0);
 		}
-		while (count > 0 && world.getBlockMaterial(box.minX, (checkAbove ? box.maxY + 1 : box.minY - 1), box.maxZ) == material) {
+		while (count > 0 && snapshot.getBlockMaterial(box.minX, (checkAbove ? box.maxY + 1 : box.minY - 1), box.maxZ) == material) {
 			--count;
 			box.offset(0, i, 0);
 		}
-		while (count > 0 && world.getBlockMaterial(box.minX, (checkAbove ? box.maxY + 1 : box.minY - 1), box.minZ) == material) {
+		while (count > 0 && snapshot.getBlockMaterial(box.minX, (checkAbove ? box.maxY + 1 : box.minY - 1), box.minZ) == material) {
 			--count;
 			box.offset(0, i, 0);
 		}
@@ -281,13 +335,13 @@ public class StructureGenUtils
 	 * Adjusts a bounding box for air blocks above or below so that as little of the structure
 	 * is showing as possible; call before final generation begins
 	 */
-	public static void adjustForAir(World world, RoomBase room, StructureBoundingBox box) {
+	public static void adjustForAir(BlockVolumeSnapshot snapshot, RoomBase room, StructureBoundingBox box) {
 		int worldHeight = (room.inNether ? 128 : 160);
 		int difficulty = (room.inNether ? Config.getNetherDungeonDifficulty() : Config.getMainDungeonDifficulty());
 		// Ocean and difficulty setting one make no adjustments
 		if (room.inOcean || difficulty == 1) { return; }
-		int topCount = getNumBlocksOfMaterial(world, box, Material.air, 1);
-		int bottomCount = getNumBlocksOfMaterial(world, box, Material.air, -1);
+		int topCount = getNumBlocksOfMaterial(snapshot, box, Material.air, 1);
+		int bottomCount = getNumBlocksOfMaterial(snapshot, box, Material.air, -1);
 		// same number of air blocks on both sides
 		if (topCount == bottomCount) { return; }
 
@@ -297,7 +351,7 @@ public class StructureGenUtils
 		int i = (shiftUp ? 1 : -1);
 
 		// Adjust center position first
-		while (maxShift > 0 && world.isAirBlock(box.getCenterX(), (shiftUp ? box.minY : box.maxY) - i,
+		while (maxShift > 0 && snapshot.isAirBlock(box.getCenterX(), (shiftUp ? box.minY : box.maxY) - i,
 				box.getCenterZ()) && box.maxY < worldHeight && box.minY > 8)
 		{
 			--maxShift;
@@ -306,13 +360,13 @@ public class StructureGenUtils
 
 		// Adjust corner positions
 		if (maxShift > 0) {
-			adjustCornersForMaterial(world, box, Material.air, maxShift, !shiftUp, shiftUp);
+			adjustCornersForMaterial(snapshot, box, Material.air, maxShift, !shiftUp, shiftUp);
 		}
 
-		int newCount = getNumBlocksOfMaterial(world, box, Material.air, shiftUp ? -1 : 1);
+		int newCount = getNumBlocksOfMaterial(snapshot, box, Material.air, shiftUp ? -1 : 1);
 		// Dungeon surface no longer showing at all; chance of resurfacing depending on difficulty
 		if (newCount == 0) {
-			if ((room.inNether && difficulty != 3) || world.rand.nextFloat() < (1.0F - (0.3F * difficulty))) {
+			if ((room.inNether && difficulty != 3) || snapshot.getWorld().rand.nextFloat() < (1.0F - (0.3F * difficulty))) {
 				box.offset(0, (shiftUp ? -1 : 1), 0);
 			}
 		} else if (newCount > (shiftUp ? bottomCount : topCount)) {
@@ -325,14 +379,14 @@ public class StructureGenUtils
 	 * Only checks 5 points: center and 4 corners
 	 * @param offY checks layer above or below this many blocks; positive value checks above
 	 */
-	public static int getNumBlocksOfMaterial(World world, StructureBoundingBox box, Material material, int offY) {
+	public static int getNumBlocksOfMaterial(BlockVolumeSnapshot snapshot, StructureBoundingBox box, Material material, int offY) {
 		int count = 0;
 		int y = (offY > 0 ? box.maxY + offY : box.minY + offY);
-		count += (world.getBlockMaterial(box.getCenterX(), y, box.getCenterZ()) == material ? 1 : 0);
-		count += (world.getBlockMaterial(box.maxX, y, box.maxZ) == material ? 1 : 0);
-		count += (world.getBlockMaterial(box.maxX, y, box.minZ) == material ? 1 : 0);
-		count += (world.getBlockMaterial(box.minX, y, box.maxZ) == material ? 1 : 0);
-		count += (world.getBlockMaterial(box.minX, y, box.minZ) == material ? 1 : 0);
+		count += (snapshot.getBlockMaterial(box.getCenterX(), y, box.getCenterZ()) == material ? 1 : 0);
+		count += (snapshot.getBlockMaterial(box.maxX, y, box.maxZ) == material ? 1 : 0);
+		count += (snapshot.getBlockMaterial(box.maxX, y, box.minZ) == material ? 1 : 0);
+		count += (snapshot.getBlockMaterial(box.minX, y, box.maxZ) == material ? 1 : 0);
+		count += (snapshot.getBlockMaterial(box.minX, y, box.minZ) == material ? 1 : 0);
 		return count;
 	}
 	
@@ -341,11 +395,11 @@ public class StructureGenUtils
 	 * above or below the bounding box
 	 * @param y negative values check that many blocks below; positive above
 	 */
-	public static int getNumBlocksOfMaterialInArea(World world, StructureBoundingBox box, Material material, int y) {
+	public static int getNumBlocksOfMaterialInArea(BlockVolumeSnapshot snapshot, StructureBoundingBox box, Material material, int y) {
 		if (y < 0) {
-			return getNumBlocksOfMaterialInArea(world, Material.air, box.minX, box.maxX + 1, box.minY + y - 1, box.minY + y, box.minZ, box.maxZ + 1);
+			return getNumBlocksOfMaterialInArea(snapshot, Material.air, box.minX, box.maxX + 1, box.minY + y - 1, box.minY + y, box.minZ, box.maxZ + 1);
 		} else {
-			return getNumBlocksOfMaterialInArea(world, Material.air, box.minX, box.maxX + 1, box.maxY + y, box.maxY + y + 1, box.minZ, box.maxZ + 1);
+			return getNumBlocksOfMaterialInArea(snapshot, Material.air, box.minX, box.maxX + 1, box.maxY + y, box.maxY + y + 1, box.minZ, box.maxZ + 1);
 		}
 	}
 	
@@ -353,12 +407,12 @@ public class StructureGenUtils
 	 * Returns the total number of blocks of the given material within the defined range,
 	 * up to but not including the max boundary
 	 */
-	public static int getNumBlocksOfMaterialInArea(World world, Material material, int minX, int maxX, int minY, int maxY, int minZ, int maxZ) {
+	public static int getNumBlocksOfMaterialInArea(BlockVolumeSnapshot snapshot, Material material, int minX, int maxX, int minY, int maxY, int minZ, int maxZ) {
 		int count = 0;
 		for (int i = minX; i < maxX; ++i) {
 			for (int j = minY; j < maxY; ++j) {
 				for (int k = minZ; k < maxZ; ++k) {
-					if (world.getBlockMaterial(i, j, k) == material) {
+					if (snapshot.getBlockMaterial(i, j, k) == material) {
 						++count;
 					}
 				}
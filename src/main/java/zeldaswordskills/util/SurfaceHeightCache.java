@@ -0,0 +1,145 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.util;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.material.Material;
+import net.minecraft.util.LongHashMap;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+
+/**
+ *
+ * Per-world cache of the surface and floor heights of each column in a chunk, built once
+ * per chunk from the chunk's height map plus a single downward scan of each column.
+ *
+ * For each column, three heights are stored:
+ * surface - same as World#getHeightValue
+ * water floor - y of the lowest block in the body of water at the surface, or the surface if there is none
+ * solid floor - y just above the highest solid block below the surface
+ *
+ * Entries are built on demand and must be invalidated whenever their chunk may have changed:
+ * this is done when the chunk unloads, after it is decorated, and when written to by a
+ * {@link BlockBatchWriter}. Server thread only.
+ *
+ */
+public class SurfaceHeightCache
+{
+	/** Cache for each world */
+	private static final Map<World, SurfaceHeightCache> caches = new WeakHashMap<World, SurfaceHeightCache>();
+
+	/** Bit offsets and mask for each height packed into a column's entry */
+	private static final int WATER_SHIFT = 9, SOLID_SHIFT = 18, MASK = 0x1FF;
+
+	private final World world;
+
+	/** Packed column heights for each chunk, keyed by chunk coordinates */
+	private final LongHashMap chunkMap = new LongHashMap();
+
+	private SurfaceHeightCache(World world) {
+		this.world = world;
+	}
+
+	/** Returns the cache for the world, creating it if necessary */
+	public static SurfaceHeightCache get(World world) {
+		SurfaceHeightCache cache = caches.get(world);
+		if (cache == null) {
+			cache = new SurfaceHeightCache(world);
+			caches.put(world, cache);
+		}
+		return cache;
+	}
+
+	/**
+	 * Discards the entry for the chunk, if the world has a cache
+	 */
+	public static void invalidate(World world, int chunkX, int chunkZ) {
+		SurfaceHeightCache cache = caches.get(world);
+		if (cache != null) {
+			cache.chunkMap.remove(ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ));
+		}
+	}
+
+	/** Same as World#getHeightValue */
+	public int getSurfaceHeight(int x, int z) {
+		int[] heights = getHeights(x >> 4, z >> 4);
+		return (heights == null ? 0 : heights[(z & 15) << 4 | (x & 15)] & MASK);
+	}
+
+	/**
+	 * Returns the y value of the lowest water block in the column's surface water, or
+	 * the surface height if the column's top block is not water
+	 */
+	public int getWaterFloorHeight(int x, int z) {
+		int[] heights = getHeights(x >> 4, z >> 4);
+		return (heights == null ? 0 : heights[(z & 15) << 4 | (x & 15)] >> WATER_SHIFT & MASK);
+	}
+
+	/**
+	 * Returns the y value just above the highest solid block below the column's surface,
+	 * i.e. all blocks from this height up to the surface are not solid
+	 */
+	public int getSolidFloorHeight(int x, int z) {
+		int[] heights = getHeights(x >> 4, z >> 4);
+		return (heights == null ? 0 : heights[(z & 15) << 4 | (x & 15)] >> SOLID_SHIFT & MASK);
+	}
+
+	/**
+	 * Returns the heights for the chunk, building them if necessary, or null if the chunk is not loaded
+	 */
+	private int[] getHeights(int chunkX, int chunkZ) {
+		long key = ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ);
+		int[] heights = (int[]) chunkMap.getValueByKey(key);
+		if (heights == null) {
+			if (!world.getChunkProvider().chunkExists(chunkX, chunkZ)) {
+				return null;
+			}
+			heights = buildHeights(world.getChunkFromChunkCoords(chunkX, chunkZ));
+			chunkMap.add(key, heights);
+		}
+		return heights;
+	}
+
+	private static int[] buildHeights(Chunk chunk) {
+		int[] heights = new int[256];
+		for (int k = 0; k < 16; ++k) {
+			for (int i = 0; i < 16; ++i) {
+				int surface = chunk.getHeightValue(i, k);
+				int y = surface - 1;
+				while (y >= 0 && getMaterial(chunk, i, y, k) == Material.water) {
+					--y;
+				}
+				int waterFloor = y + 1;
+				while (y >= 0 && !getMaterial(chunk, i, y, k).isSolid()) {
+					--y;
+				}
+				heights[k << 4 | i] = surface | waterFloor << WATER_SHIFT | (y + 1) << SOLID_SHIFT;
+			}
+		}
+		return heights;
+	}
+
+	private static Material getMaterial(Chunk chunk, int x, int y, int z) {
+		Block block = Block.blocksList[chunk.getBlockID(x, y, z)];
+		return (block == null ? Material.air : block.blockMaterial);
+	}
+}
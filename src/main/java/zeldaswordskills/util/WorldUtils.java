@@ -19,7 +19,6 @@ package zeldaswordskills.util;
 
 import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
 
@@ -31,10 +30,8 @@ import net.minecraft.entity.Entity;
 import net.minecraft.entity.item.EntityItem;
 import net.minecraft.entity.item.EntityXPOrb;
 import net.minecraft.entity.player.EntityPlayer;
-import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.inventory.IInventory;
 import net.minecraft.item.ItemStack;
-import net.minecraft.network.packet.Packet;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.AxisAlignedBB;
 import net.minecraft.util.MathHelper;
@@ -288,28 +285,6 @@ public class WorldUtils
 		world.playSoundEffect(x, y, z, sound, volume, pitch);
 	}
 
-	/**
-	 * Shortcut method sends the packet to all players within the distance squared of the player
-	 */
-	public static void sendPacketToAllAround(Packet packet, World world, EntityPlayer player, double distanceSq) {
-		sendPacketToAllAround(packet, world, player.posX, player.posY, player.posZ, distanceSq);
-	}
-
-	/**
-	 * Sends the provided packet to all players within the distance squared of the position
-	 */
-	public static void sendPacketToAllAround(Packet packet, World world, double posX, double posY, double posZ, double distanceSq) {
-		if (!world.isRemote) {
-			Iterator iterator = world.playerEntities.iterator();
-			while (iterator.hasNext()) {
-				EntityPlayer entityplayer = (EntityPlayer) iterator.next();
-				if (entityplayer.getDistanceSq(posX, posY, posZ) < distanceSq) {
-					((EntityPlayerMP) entityplayer).playerNetServerHandler.sendPacketToPlayer(packet);
-				}
-			}
-		}
-	}
-
 	/**
 	 * Spawns the provided ItemStack as an EntityItem with randomized position and motion
 	 * Used by blocks to scatter items when broken
@@ -46,6 +46,7 @@ import zeldaswordskills.entity.EntityOctorok;
 import zeldaswordskills.lib.Config;
 import zeldaswordskills.lib.ModInfo;
 import zeldaswordskills.lib.Sounds;
+import zeldaswordskills.util.BlockBatchWriter;
 import zeldaswordskills.util.BossType;
 import zeldaswordskills.util.StructureGenUtils;
 import zeldaswordskills.util.WorldUtils;
@@ -161,17 +162,19 @@ public class BossBattle extends AbstractCrisis
 		if (blockId < 1) {
 			blockId = BlockSecretStone.getIdFromMeta(world.getBlockMetadata(core.xCoord, core.yCoord, core.zCoord));
 		}
+		BlockBatchWriter writer = new BlockBatchWriter(world);
 		for (int i = box.minX; i <= box.maxX; ++i) {
 			for (int j = box.minY; j <= box.maxY; ++j) {
 				for (int k = box.minZ; k <= box.maxZ; ++k) {
 					if (i == box.minX || i == box.maxX || j == box.minY || j == box.maxY || k == box.minZ || k == box.maxZ) {
 						if (!world.isBlockOpaqueCube(i, j, k)) {
-							world.setBlock(i, j, k, blockId, 0, 2);
+							writer.setBlock(i, j, k, blockId, 0);
 						}
 					}
 				}
 			}
 		}
+		writer.flush();
 	}
 
 	/**
@@ -21,6 +21,7 @@ import net.minecraft.block.Block;
 import net.minecraft.world.World;
 import zeldaswordskills.block.tileentity.TileEntityDungeonCore;
 import zeldaswordskills.lib.Sounds;
+import zeldaswordskills.util.BlockBatchWriter;
 import zeldaswordskills.util.StructureGenUtils;
 
 public class ForestBattle extends BossBattle {
@@ -33,10 +34,12 @@ public class ForestBattle extends BossBattle {
 	public void beginCrisis(World world) {
 		super.beginCrisis(world);
 		scheduleUpdateTick(300 + world.rand.nextInt(300));
-		StructureGenUtils.fillWithoutReplace(world, box.minX + 1, box.minX + 2, box.minY + 1, box.minY + 4, box.minZ + 1, box.maxZ, Block.web.blockID, 0, 3);
-		StructureGenUtils.fillWithoutReplace(world, box.maxX - 1, box.maxX, box.minY + 1, box.minY + 4, box.minZ + 1, box.maxZ, Block.web.blockID, 0, 3);
-		StructureGenUtils.fillWithoutReplace(world, box.minX + 2, box.maxX - 1, box.minY + 1, box.minY + 4, box.minZ + 1, box.minZ + 2, Block.web.blockID, 0, 3);
-		StructureGenUtils.fillWithoutReplace(world, box.minX + 2, box.maxX - 1, box.minY + 1, box.minY + 4, box.maxZ - 1, box.maxZ, Block.web.blockID, 0, 3);
+		BlockBatchWriter writer = new BlockBatchWriter(world);
+		StructureGenUtils.fillWithoutReplace(writer, box.minX + 1, box.minX + 2, box.minY + 1, box.minY + 4, box.minZ + 1, box.maxZ, Block.web.blockID, 0, 3);
+		StructureGenUtils.fillWithoutReplace(writer, box.maxX - 1, box.maxX, box.minY + 1, box.minY + 4, box.minZ + 1, box.maxZ, Block.web.blockID, 0, 3);
+		StructureGenUtils.fillWithoutReplace(writer, box.minX + 2, box.maxX - 1, box.minY + 1, box.minY + 4, box.minZ + 1, box.minZ + 2, Block.web.blockID, 0, 3);
+		StructureGenUtils.fillWithoutReplace(writer, box.minX + 2, box.maxX - 1, box.minY + 1, box.minY + 4, box.maxZ - 1, box.maxZ, Block.web.blockID, 0, 3);
+		writer.flush();
 	}
 
 	@Override
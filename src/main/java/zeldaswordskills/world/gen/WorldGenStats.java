@@ -0,0 +1,275 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.world.gen;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+
+import zeldaswordskills.util.LogHelper;
+
+/**
+ *
+ * Records the cost and results of each ZSS world generator while enabled, e.g. while
+ * pre-generating a world, and writes them as JSON to the world folder when the server
+ * stops so that different builds can be compared on the same seed.
+ *
+ * Enable by launching the server with -Dzss.worldGenStats=true, or generate a fixed grid
+ * of chunks with stats enabled using /zssgenbench.
+ *
+ * Generators may run while another is in progress, e.g. when a structure placed by one
+ * causes neighboring chunks to be populated; each call's time and allocations exclude
+ * those of any calls nested within it, so nothing is counted twice.
+ *
+ * All methods must be called from the server thread.
+ *
+ */
+public class WorldGenStats
+{
+	/** Name of the file written to the world folder */
+	public static final String FILE_NAME = "zss_worldgen_stats.json";
+
+	/** Reasons a room candidate may fail to generate */
+	public static enum Rejection {
+		/** The site is too low or too high for the room */
+		HEIGHT,
+		/** No BossType is valid for the biome */
+		BIOME,
+		/** The room could not be settled into the surrounding terrain */
+		TERRAIN,
+		/** Another structure is too close */
+		NEARBY_STRUCTURE,
+		/** Too much of the room would be exposed */
+		EXPOSED,
+		/** Too many blocks in the room's volume may not be replaced */
+		OBSTRUCTED
+	}
+
+	/** Set from the zss.worldGenStats system property, or while running /zssgenbench */
+	private static boolean enabled = Boolean.getBoolean("zss.worldGenStats");
+
+	/** Stats for each generator, by name */
+	private static final Map<String, GeneratorStats> stats = new LinkedHashMap<String, GeneratorStats>();
+
+	/** Allocation counter for the current thread, if supported by the JVM */
+	private static com.sun.management.ThreadMXBean threadBean;
+
+	/** Number of values stored for each call in progress; see {@link #frames} */
+	private static final int FRAME_SIZE = 4;
+
+	/**
+	 * Start time, allocated byte count at start, and time and bytes spent in nested calls,
+	 * for each call to {@link #start} not yet finished, innermost last
+	 */
+	private static long[] frames = new long[FRAME_SIZE * 8];
+
+	/** Number of calls in progress */
+	private static int depth;
+
+	static {
+		try {
+			java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean) {
+				threadBean = (com.sun.management.ThreadMXBean) bean;
+				threadBean.setThreadAllocatedMemoryEnabled(true);
+			}
+		} catch (Throwable t) {
+			threadBean = null;
+		}
+	}
+
+	/** Whether stats are being recorded */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/** Starts or stops recording stats; any calls in progress are not recorded */
+	public static void setEnabled(boolean enable) {
+		enabled = enable;
+		depth = 0;
+	}
+
+	/** Discards all stats recorded so far */
+	public static void reset() {
+		stats.clear();
+		depth = 0;
+	}
+
+	private static GeneratorStats getStats(String generator) {
+		GeneratorStats s = stats.get(generator);
+		if (s == null) {
+			s = new GeneratorStats();
+			stats.put(generator, s);
+		}
+		return s;
+	}
+
+	private static long getAllocatedBytes() {
+		return (threadBean == null ? 0L : threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()));
+	}
+
+	/**
+	 * Call immediately before running a generator for a chunk
+	 * @return the start time to pass to {@link #finish}
+	 */
+	public static long start() {
+		if (!isEnabled()) {
+			return 0L;
+		}
+		if ((depth + 1) * FRAME_SIZE > frames.length) {
+			frames = Arrays.copyOf(frames, frames.length << 1);
+		}
+		int i = depth++ * FRAME_SIZE;
+		frames[i + 1] = getAllocatedBytes();
+		frames[i + 2] = 0L;
+		frames[i + 3] = 0L;
+		return (frames[i] = System.nanoTime());
+	}
+
+	/**
+	 * Call immediately after running a generator for a chunk; the time and allocations of
+	 * any generators run in the meantime are excluded and added to their own totals instead
+	 * @param startTime value returned from {@link #start}
+	 */
+	public static void finish(String generator, long startTime) {
+		if (!isEnabled()) {
+			return;
+		}
+		// discard calls that never finished, e.g. due to an exception
+		while (depth > 0 && frames[(depth - 1) * FRAME_SIZE] != startTime) {
+			--depth;
+		}
+		if (depth == 0) {
+			return;
+		}
+		int i = --depth * FRAME_SIZE;
+		long nanos = System.nanoTime() - startTime;
+		long bytes = getAllocatedBytes() - frames[i + 1];
+		GeneratorStats s = getStats(generator);
+		s.nanos += nanos - frames[i + 2];
+		s.bytes += bytes - frames[i + 3];
+		++s.chunks;
+		if (depth > 0) {
+			int parent = (depth - 1) * FRAME_SIZE;
+			frames[parent + 2] += nanos;
+			frames[parent + 3] += bytes;
+		}
+	}
+
+	/** Records a structure successfully generated */
+	public static void onGenerated(String generator) {
+		if (isEnabled()) {
+			++getStats(generator).generated;
+		}
+	}
+
+	/** Records a room candidate that failed to generate */
+	public static void onRejected(String generator, Rejection reason) {
+		if (isEnabled()) {
+			++getStats(generator).rejections[reason.ordinal()];
+		}
+	}
+
+	/**
+	 * Records the current size of the generator's room data
+	 * @param numStructures number of structures currently loaded
+	 * @param numRegions number of regions currently loaded
+	 */
+	public static void onDataSaved(String generator, int numStructures, int numRegions) {
+		if (isEnabled()) {
+			GeneratorStats s = getStats(generator);
+			s.structures = numStructures;
+			s.regions = numRegions;
+		}
+	}
+
+	/**
+	 * Writes all stats recorded so far to the world folder given and resets them
+	 * @return the file written, or null if there was nothing to write or it failed
+	 */
+	public static File writeToFile(File worldDir) {
+		if (!isEnabled() || stats.isEmpty() || worldDir == null) {
+			return null;
+		}
+		File file = new File(worldDir, FILE_NAME);
+		Writer writer = null;
+		try {
+			writer = new FileWriter(file);
+			writer.write(toJson());
+			LogHelper.log(Level.INFO, "Wrote world generation stats to " + file.getPath());
+		} catch (IOException e) {
+			LogHelper.log(Level.WARNING, "Failed to write world generation stats to " + file.getPath() + ": " + e.getMessage());
+			file = null;
+		} finally {
+			if (writer != null) {
+				try {
+					writer.close();
+				} catch (IOException e) {
+					;
+				}
+			}
+		}
+		stats.clear();
+		return file;
+	}
+
+	/** Returns all stats recorded so far as a JSON object */
+	public static String toJson() {
+		StringBuilder sb = new StringBuilder("{\n  \"allocationsTracked\": ").append(threadBean != null).append(",\n  \"generators\": {");
+		boolean first = true;
+		for (Map.Entry<String, GeneratorStats> entry : stats.entrySet()) {
+			sb.append(first ? "\n" : ",\n");
+			first = false;
+			GeneratorStats s = entry.getValue();
+			long chunks = Math.max(s.chunks, 1);
+			sb.append("    \"").append(entry.getKey()).append("\": {\n");
+			sb.append("      \"chunks\": ").append(s.chunks).append(",\n");
+			sb.append("      \"chunksPerSecond\": ").append(String.format(Locale.US, "%.2f", s.nanos > 0 ? s.chunks * 1.0E9D / s.nanos : 0.0D)).append(",\n");
+			sb.append("      \"nanosPerChunk\": ").append(s.nanos / chunks).append(",\n");
+			sb.append("      \"bytesPerChunk\": ").append(s.bytes / chunks).append(",\n");
+			sb.append("      \"generated\": ").append(s.generated).append(",\n");
+			sb.append("      \"rejections\": {");
+			for (Rejection reason : Rejection.values()) {
+				sb.append(reason.ordinal() == 0 ? " " : ", ").append('"').append(reason.name()).append("\": ").append(s.rejections[reason.ordinal()]);
+			}
+			sb.append(" },\n");
+			sb.append("      \"structures\": ").append(s.structures).append(",\n");
+			sb.append("      \"regions\": ").append(s.regions).append("\n    }");
+		}
+		return sb.append("\n  }\n}\n").toString();
+	}
+
+	/**
+	 *
+	 * Totals for a single generator
+	 *
+	 */
+	private static class GeneratorStats
+	{
+		private long chunks, nanos, bytes, generated;
+		private final long[] rejections = new long[Rejection.values().length];
+		private int structures, regions;
+	}
+}
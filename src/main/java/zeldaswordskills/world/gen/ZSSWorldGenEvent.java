@@ -22,7 +22,10 @@ import net.minecraftforge.event.ForgeSubscribe;
 import net.minecraftforge.event.terraingen.DecorateBiomeEvent;
 import net.minecraftforge.event.terraingen.PopulateChunkEvent;
 import net.minecraftforge.event.terraingen.PopulateChunkEvent.Populate.EventType;
+import net.minecraftforge.event.world.ChunkEvent;
+import net.minecraftforge.event.world.WorldEvent;
 import zeldaswordskills.lib.Config;
+import zeldaswordskills.util.SurfaceHeightCache;
 import zeldaswordskills.world.gen.feature.WorldGenJars;
 import zeldaswordskills.world.gen.structure.MapGenBossRoom;
 import zeldaswordskills.world.gen.structure.MapGenBossRoomNether;
@@ -35,6 +38,8 @@ public class ZSSWorldGenEvent
 	private MapGenSecretRoomNether netherRoomGen = new MapGenSecretRoomNether();
 	private MapGenBossRoom bossRoomGen = new MapGenBossRoom();
 	private MapGenBossRoomNether netherBossGen = new MapGenBossRoomNether();
+	/** Shared by every jar cluster; decoration only happens on the server thread */
+	private WorldGenJars jarGen = new WorldGenJars();
 
 	/*
 	@ForgeSubscribe
@@ -58,7 +63,7 @@ public class ZSSWorldGenEvent
 				if (Config.areBossDungeonsEnabled()) {
 					bossRoomGen.generate(event.chunkProvider, event.world, event.rand, event.chunkX, event.chunkZ);
 				}
-			} else if (event.type == EventType.LAKE && bossRoomGen.shouldDenyLakeAt(event.chunkX, event.chunkZ)) {
+			} else if (event.type == EventType.LAKE && bossRoomGen.shouldDenyLakeAt(event.world, event.chunkX, event.chunkZ)) {
 				event.setResult(Result.DENY);
 			}
 			break;
@@ -73,13 +78,17 @@ public class ZSSWorldGenEvent
 		switch(event.world.provider.dimensionId) {
 		case -1: // the Nether
 			if (event.type == EventType.GLOWSTONE) {
+				long start = WorldGenStats.start();
 				netherBossGen.generate(event.chunkProvider, event.world, event.rand, event.chunkX, event.chunkZ);
+				WorldGenStats.finish(netherBossGen.getTagName(), start);
 			}
 			break;
 		case 0: // the Overworld
 			if (event.type == EventType.ICE) {
+				long start = WorldGenStats.start();
 				bossRoomGen.generate(event.chunkProvider, event.world, event.rand, event.chunkX, event.chunkZ);
-			} else if (event.type == EventType.LAKE && bossRoomGen.shouldDenyLakeAt(event.chunkX, event.chunkZ)) {
+				WorldGenStats.finish(bossRoomGen.getTagName(), start);
+			} else if (event.type == EventType.LAKE && bossRoomGen.shouldDenyLakeAt(event.world, event.chunkX, event.chunkZ)) {
 				event.setResult(Result.DENY);
 			}
 			break;
@@ -93,12 +102,16 @@ public class ZSSWorldGenEvent
 		switch(event.world.provider.dimensionId) {
 		case -1: // the Nether
 			if (Config.getNetherAttemptsPerChunk() > 0) {
+				long start = WorldGenStats.start();
 				netherRoomGen.generate(event.chunkProvider, event.world, event.rand, event.chunkX, event.chunkZ);
+				WorldGenStats.finish(netherRoomGen.getTagName(), start);
 			}
 			break;
 		case 0: // the Overworld
 			if (Config.getAttemptsPerChunk() > 0) {
+				long start = WorldGenStats.start();
 				secretRoomGen.generate(event.chunkProvider, event.world, event.rand, event.chunkX, event.chunkZ);
+				WorldGenStats.finish(secretRoomGen.getTagName(), start);
 			}
 			break;
 		default: break;
@@ -108,15 +121,16 @@ public class ZSSWorldGenEvent
 	// EVENT_BUS event
 	@ForgeSubscribe
 	public void onDecorate(DecorateBiomeEvent.Pre event) {
+		long start = WorldGenStats.start();
 		try {
 			if (event.world.provider.isHellWorld) {
 				for (int n = 0; n < Config.getJarClustersPerChunkNether(); ++n) {
 					if (event.rand.nextFloat() < Config.getJarGenChanceNether()) {
-						(new WorldGenJars()).doJarGen(event.world, event.rand, event.chunkX, event.chunkZ, Config.getJarsPerClusterNether(), true);
+						jarGen.doJarGen(event.world, event.rand, event.chunkX, event.chunkZ, Config.getJarsPerClusterNether(), true);
 					}
 				}
 			} else if (event.rand.nextFloat() < Config.getJarGenChance() && event.rand.nextInt(4) == 0) {
-				(new WorldGenJars()).doJarGen(event.world, event.rand, event.chunkX, event.chunkZ, Config.getJarsPerCluster(), false);
+				jarGen.doJarGen(event.world, event.rand, event.chunkX, event.chunkZ, Config.getJarsPerCluster(), false);
 			}
 		} catch (Exception e) {
 			Throwable cause = e.getCause();
@@ -128,11 +142,19 @@ public class ZSSWorldGenEvent
 				e.printStackTrace();
 			}
 		}
+		WorldGenStats.finish("jars", start);
 	}
 
 	// EVENT_BUS event
 	@ForgeSubscribe
 	public void onDecorate(DecorateBiomeEvent.Post event) {
+		// decoration may have changed the surface of any chunk it touched
+		for (int i = 0; i < 2; ++i) {
+			for (int k = 0; k < 2; ++k) {
+				SurfaceHeightCache.invalidate(event.world, (event.chunkX >> 4) + i, (event.chunkZ >> 4) + k);
+			}
+		}
+		long start = WorldGenStats.start();
 		try {
 			if (event.world.provider.isSurfaceWorld()) {
 				for (int n = 0; n < Config.getJarClustersPerChunkSub(); ++n) {
@@ -141,7 +163,7 @@ public class ZSSWorldGenEvent
 						int j = event.rand.nextInt(48) + event.rand.nextInt(48);
 						int k = event.chunkZ + event.rand.nextInt(16) + 8;
 						if (j < 60) {
-							(new WorldGenJars()).generate2(event.world, event.rand, i, j, k, Config.getJarsPerClusterSub(), true);
+							jarGen.generate2(event.world, event.rand, i, j, k, Config.getJarsPerClusterSub(), true);
 						}
 					}
 				}
@@ -156,5 +178,23 @@ public class ZSSWorldGenEvent
 				e.printStackTrace();
 			}
 		}
+		WorldGenStats.finish("jars", start);
+	}
+
+	// EVENT_BUS event
+	@ForgeSubscribe
+	public void onChunkUnload(ChunkEvent.Unload event) {
+		SurfaceHeightCache.invalidate(event.world, event.getChunk().xPosition, event.getChunk().zPosition);
+	}
+
+	// EVENT_BUS event; posted after the world's data has been saved
+	@ForgeSubscribe
+	public void onWorldSave(WorldEvent.Save event) {
+		if (!event.world.isRemote) {
+			secretRoomGen.saveRegions(event.world);
+			netherRoomGen.saveRegions(event.world);
+			bossRoomGen.saveRegions(event.world);
+			netherBossGen.saveRegions(event.world);
+		}
 	}
 }
@@ -25,9 +25,26 @@ import net.minecraft.world.World;
 import net.minecraft.world.gen.feature.WorldGenerator;
 import zeldaswordskills.block.ZSSBlocks;
 import zeldaswordskills.lib.Config;
+import zeldaswordskills.util.BlockVolumeSnapshot;
+import zeldaswordskills.util.SurfaceHeightCache;
 
 public class WorldGenJars extends WorldGenerator {
 
+	/** Maximum distance of a jar from the center of its cluster on each axis */
+	private static final int RANGE = 3;
+
+	/** Number of cells along each side of a cluster's volume */
+	private static final int SIZE = RANGE * 2 + 1;
+
+	/** Cells in which a jar may be placed, indexed by x, then y, then z */
+	private final boolean[] mask = new boolean[SIZE * SIZE * SIZE];
+
+	/** Mask indices of the jars chosen for the current cluster */
+	private final int[] jars = new int[64];
+
+	/** True while generating a cluster */
+	private boolean isBusy;
+
 	public WorldGenJars() {}
 
 	public WorldGenJars(boolean doNotify) {
@@ -38,22 +55,65 @@ public class WorldGenJars extends WorldGenerator {
 	 * Generates n jars in a cluster around x/y/z
 	 */
 	public void generate2(World world, Random rand, int x, int y, int z, int n, boolean isUnderground) {
+		if (isBusy) { // placing a jar caused a nested decoration to use this same instance
+			(new WorldGenJars()).generate2(world, rand, x, y, z, n, isUnderground);
+			return;
+		}
+		isBusy = true;
+		scanCluster(world, x, y, z, isUnderground);
+		int numJars = 0;
+		// same rolls as placing each jar as it is found, so a given seed still generates the same jars
 		for (int l = 0; l < 64 && n > 0; ++l) {
-			int i = x + rand.nextInt(4) - rand.nextInt(4);
-			int j = y + rand.nextInt(4) - rand.nextInt(4);
-			int k = z + rand.nextInt(4) - rand.nextInt(4);
-
-			if (canPlaceBlockAt(world, i, j, k, isUnderground) && (!world.provider.hasNoSky || j < 127) && Block.blocksList[ZSSBlocks.ceramicJar.blockID].canBlockStay(world, i, j, k)) {
-				world.setBlock(i, j, k, ZSSBlocks.ceramicJar.blockID, 0, 2);
+			int i = rand.nextInt(4) - rand.nextInt(4);
+			int j = rand.nextInt(4) - rand.nextInt(4);
+			int k = rand.nextInt(4) - rand.nextInt(4);
+			int index = getIndex(i, j, k);
+			if (mask[index]) {
+				mask[index] = false;
+				jars[numJars++] = index;
 				--n;
 			}
 		}
+		for (int l = 0; l < numJars; ++l) {
+			int index = jars[l];
+			world.setBlock(x + (index / (SIZE * SIZE)) - RANGE, y + (index / SIZE % SIZE) - RANGE, z + (index % SIZE) - RANGE, ZSSBlocks.ceramicJar.blockID, 0, 2);
+		}
+		isBusy = false;
 	}
-	
-	private boolean canPlaceBlockAt(World world, int i, int j, int k, boolean isUnderground) {
-		return world.isAirBlock(i, j, k) || (!isUnderground && Config.genJarsInWater() && world.getBlockMaterial(i, j, k) == Material.water && !world.canBlockFreeze(i, j, k, false));
+
+	/** Index into the mask of the cell at the offset from the cluster's center */
+	private static int getIndex(int i, int j, int k) {
+		return ((i + RANGE) * SIZE + (j + RANGE)) * SIZE + (k + RANGE);
 	}
-	
+
+	/**
+	 * Marks each cell within range of x/y/z in which a jar may be placed, reading the
+	 * blocks (plus the layer beneath, on which jars must rest) only once
+	 */
+	private void scanCluster(World world, int x, int y, int z, boolean isUnderground) {
+		BlockVolumeSnapshot snapshot = BlockVolumeSnapshot.capture(world, x - RANGE, y - RANGE - 1, z - RANGE, x + RANGE, y + RANGE, z + RANGE);
+		boolean inWater = (!isUnderground && Config.genJarsInWater());
+		int index = 0;
+		try {
+			for (int i = x - RANGE; i <= x + RANGE; ++i) {
+				for (int j = y - RANGE; j <= y + RANGE; ++j) {
+					for (int k = z - RANGE; k <= z + RANGE; ++k) {
+						mask[index++] = (j > 0 && j < 256 && (!world.provider.hasNoSky || j < 127) && isOpaqueCube(snapshot, i, j - 1, k) &&
+								(snapshot.isAirBlock(i, j, k) || (inWater && snapshot.getBlockMaterial(i, j, k) == Material.water && !world.canBlockFreeze(i, j, k, false))));
+					}
+				}
+			}
+		} finally {
+			snapshot.release();
+		}
+	}
+
+	/** Same as World#isBlockOpaqueCube, which is all that is required for a jar to stay */
+	private static boolean isOpaqueCube(BlockVolumeSnapshot snapshot, int x, int y, int z) {
+		Block block = Block.blocksList[snapshot.getBlockId(x, y, z)];
+		return (block != null && block.isOpaqueCube());
+	}
+
 	/**
 	 * Attempts to generate a single jar cluster
 	 * @param jarsPerCluster max number of jars to generate in this cluster
@@ -61,7 +121,7 @@ public class WorldGenJars extends WorldGenerator {
 	public void doJarGen(World world, Random rand, int chunkX, int chunkZ, int jarsPerCluster, boolean isUnderground) {
 		int i = chunkX + rand.nextInt(16) + 8;
 		int k = chunkZ + rand.nextInt(16) + 8;
-		int j = (world.provider.isHellWorld ? rand.nextInt(128) : world.getHeightValue(i, k) + 1);
+		int j = (world.provider.isHellWorld ? rand.nextInt(128) : SurfaceHeightCache.get(world).getSurfaceHeight(i, k) + 1);
 		int n = jarsPerCluster - rand.nextInt(jarsPerCluster);
 		if (Config.genJarsInWater() && !isUnderground) {
 			while (j > 0 && world.getBlockMaterial(i, j, k) == Material.water) {
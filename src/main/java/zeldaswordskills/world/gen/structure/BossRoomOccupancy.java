@@ -0,0 +1,332 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.world.gen.structure;
+
+import java.util.Arrays;
+
+import net.minecraft.util.LongHashMap;
+import zeldaswordskills.util.BossType;
+
+/**
+ *
+ * Tracks which chunks of a single dimension are occupied by Boss Rooms.
+ *
+ * Every chunk containing or adjacent to a boss room is marked 'protected' in a bitmap made
+ * of 8x8 chunk tiles, so checking whether a chunk is protected costs one table probe and one
+ * bit test. Rooms are also kept in a list per BossType for each 16x16 chunk cell, so spacing
+ * checks only need to look at rooms in the few cells within range rather than every chunk
+ * within range or every room.
+ *
+ */
+public class BossRoomOccupancy
+{
+	/** Number of chunks around each room that are protected */
+	public static final int PROTECTED_RADIUS = 1;
+
+	/** Number of bits to shift chunk coordinates to get the coordinates of their room cell */
+	private static final int CELL_SHIFT = 4;
+
+	private static final int NUM_TYPES = BossType.values().length;
+
+	/** Tile coordinates for each slot of the protected chunk bitmap */
+	private long[] tileKeys = new long[64];
+
+	/** Bits for the 8x8 chunks of each tile; a value of zero marks an empty slot */
+	private long[] tileBits = new long[64];
+
+	/** Number of occupied tile slots */
+	private int numTiles;
+
+	/** Room cells by cell key; see {@link Cell} */
+	private LongHashMap cells = new LongHashMap();
+
+	/** Number of rooms of each BossType */
+	private final int[] numRooms = new int[NUM_TYPES];
+
+	/** Returns the tile key containing the chunk coordinates */
+	private static long getTileKey(int chunkX, int chunkZ) {
+		return StructureIndex.getKey(chunkX >> 3, chunkZ >> 3);
+	}
+
+	/** Returns the bit for the chunk coordinates within its tile */
+	private static long getTileBit(int chunkX, int chunkZ) {
+		return 1L << (((chunkZ & 7) << 3) | (chunkX & 7));
+	}
+
+	/** Returns the slot at which the tile key would be placed in an empty table */
+	private int getHomeSlot(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32)) & (tileKeys.length - 1);
+	}
+
+	/**
+	 * Returns the slot containing the tile key, or the empty slot in which it should be placed
+	 */
+	private int findSlot(long key) {
+		int mask = tileKeys.length - 1;
+		int slot = getHomeSlot(key);
+		while (tileBits[slot] != 0 && tileKeys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/** Returns the cell containing the chunk, or null if no rooms have been added to it */
+	private Cell getCell(int cellX, int cellZ) {
+		return (Cell) cells.getValueByKey(StructureIndex.getKey(cellX, cellZ));
+	}
+
+	/**
+	 * Marks the boss room at the chunk coordinates, protecting it and all chunks around it
+	 * @param bossType the BossType ordinal of the room
+	 */
+	public void addRoom(int chunkX, int chunkZ, int bossType) {
+		for (int i = chunkX - PROTECTED_RADIUS; i <= chunkX + PROTECTED_RADIUS; ++i) {
+			for (int j = chunkZ - PROTECTED_RADIUS; j <= chunkZ + PROTECTED_RADIUS; ++j) {
+				setProtected(i, j);
+			}
+		}
+		if (bossType >= 0 && bossType < NUM_TYPES) {
+			long key = StructureIndex.getKey(chunkX >> CELL_SHIFT, chunkZ >> CELL_SHIFT);
+			Cell cell = (Cell) cells.getValueByKey(key);
+			if (cell == null) {
+				cell = new Cell();
+				cells.add(key, cell);
+			}
+			cell.add(chunkX, chunkZ, bossType);
+			++numRooms[bossType];
+		}
+	}
+
+	/**
+	 * Removes the boss room at the chunk coordinates, unprotecting the chunks around it
+	 * that are not also next to another room
+	 * @param bossType the BossType ordinal of the room
+	 */
+	public void removeRoom(int chunkX, int chunkZ, int bossType) {
+		if (bossType >= 0 && bossType < NUM_TYPES) {
+			long key = StructureIndex.getKey(chunkX >> CELL_SHIFT, chunkZ >> CELL_SHIFT);
+			Cell cell = (Cell) cells.getValueByKey(key);
+			if (cell != null && cell.remove(chunkX, chunkZ, bossType)) {
+				--numRooms[bossType];
+				if (cell.isEmpty()) {
+					cells.remove(key);
+				}
+			}
+		}
+		for (int i = chunkX - PROTECTED_RADIUS; i <= chunkX + PROTECTED_RADIUS; ++i) {
+			for (int j = chunkZ - PROTECTED_RADIUS; j <= chunkZ + PROTECTED_RADIUS; ++j) {
+				if (!isRoomWithin(i, j, PROTECTED_RADIUS)) {
+					clearProtected(i, j);
+				}
+			}
+		}
+	}
+
+	private void setProtected(int chunkX, int chunkZ) {
+		if ((numTiles + 1) > tileKeys.length * 3 / 4) {
+			long[] oldKeys = tileKeys;
+			long[] oldBits = tileBits;
+			tileKeys = new long[oldKeys.length << 1];
+			tileBits = new long[oldBits.length << 1];
+			for (int i = 0; i < oldKeys.length; ++i) {
+				if (oldBits[i] != 0) {
+					int slot = findSlot(oldKeys[i]);
+					tileKeys[slot] = oldKeys[i];
+					tileBits[slot] = oldBits[i];
+				}
+			}
+		}
+		long key = getTileKey(chunkX, chunkZ);
+		int slot = findSlot(key);
+		if (tileBits[slot] == 0) {
+			tileKeys[slot] = key;
+			++numTiles;
+		}
+		tileBits[slot] |= getTileBit(chunkX, chunkZ);
+	}
+
+	/**
+	 * Clears the chunk's protected bit, emptying its tile's slot once no bits remain; tiles
+	 * following the slot are shifted back so that every tile stays reachable from its home slot
+	 */
+	private void clearProtected(int chunkX, int chunkZ) {
+		int slot = findSlot(getTileKey(chunkX, chunkZ));
+		if (tileBits[slot] == 0) {
+			return;
+		}
+		tileBits[slot] &= ~getTileBit(chunkX, chunkZ);
+		if (tileBits[slot] != 0) {
+			return;
+		}
+		int mask = tileKeys.length - 1;
+		int hole = slot;
+		for (int i = (slot + 1) & mask; tileBits[i] != 0; i = (i + 1) & mask) {
+			int home = getHomeSlot(tileKeys[i]);
+			boolean reachable = (hole <= i ? (hole < home && home <= i) : (hole < home || home <= i));
+			if (!reachable) {
+				tileKeys[hole] = tileKeys[i];
+				tileBits[hole] = tileBits[i];
+				tileBits[i] = 0;
+				hole = i;
+			}
+		}
+		--numTiles;
+	}
+
+	/**
+	 * Returns true if the chunk contains or is adjacent to a boss room
+	 */
+	public boolean isProtected(int chunkX, int chunkZ) {
+		return (tileBits[findSlot(getTileKey(chunkX, chunkZ))] & getTileBit(chunkX, chunkZ)) != 0;
+	}
+
+	/**
+	 * Returns true if a boss room of any type is within range chunks on either axis
+	 */
+	private boolean isRoomWithin(int chunkX, int chunkZ, int range) {
+		for (int i = (chunkX - range) >> CELL_SHIFT; i <= (chunkX + range) >> CELL_SHIFT; ++i) {
+			for (int j = (chunkZ - range) >> CELL_SHIFT; j <= (chunkZ + range) >> CELL_SHIFT; ++j) {
+				Cell cell = getCell(i, j);
+				if (cell != null) {
+					for (int type = 0; type < NUM_TYPES; ++type) {
+						if (cell.hasRoomWithin(type, chunkX, chunkZ, range)) {
+							return true;
+						}
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if a boss room of the same type is within range chunks on either axis,
+	 * or one of any other type is within range / sqrt(2) chunks
+	 * @param bossType the BossType ordinal of the room to be placed
+	 * @param range range is in chunks
+	 */
+	public boolean isRoomWithinRange(int chunkX, int chunkZ, int bossType, int range) {
+		int minDistSq = (range * range) / 2;
+		// rooms of other types must be within range / sqrt(2), so the same cells cover both checks
+		for (int i = (chunkX - range) >> CELL_SHIFT; i <= (chunkX + range) >> CELL_SHIFT; ++i) {
+			for (int j = (chunkZ - range) >> CELL_SHIFT; j <= (chunkZ + range) >> CELL_SHIFT; ++j) {
+				Cell cell = getCell(i, j);
+				if (cell == null) {
+					continue;
+				}
+				for (int type = 0; type < NUM_TYPES; ++type) {
+					if (type == bossType) {
+						if (cell.hasRoomWithin(type, chunkX, chunkZ, range)) {
+							return true;
+						}
+					} else if (cell.hasRoomCloserThan(type, chunkX, chunkZ, minDistSq)) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/** Returns the number of rooms of the given BossType ordinal */
+	public int getNumRooms(int bossType) {
+		return numRooms[bossType];
+	}
+
+	/** Removes all rooms */
+	public void clear() {
+		Arrays.fill(tileBits, 0L);
+		Arrays.fill(numRooms, 0);
+		numTiles = 0;
+		cells = new LongHashMap();
+	}
+
+	/**
+	 *
+	 * The rooms in a single 16x16 chunk cell, as a list of chunk coordinates for each BossType
+	 *
+	 */
+	private static final class Cell
+	{
+		/** Chunk coordinates of the rooms of each BossType, packed as x then z; null if none yet */
+		private final int[][] rooms = new int[NUM_TYPES][];
+
+		/** Number of rooms of each BossType */
+		private final int[] counts = new int[NUM_TYPES];
+
+		void add(int chunkX, int chunkZ, int type) {
+			int[] list = rooms[type];
+			if (list == null) {
+				list = rooms[type] = new int[4];
+			} else if (counts[type] * 2 == list.length) {
+				list = rooms[type] = Arrays.copyOf(list, list.length << 1);
+			}
+			int i = counts[type]++ * 2;
+			list[i] = chunkX;
+			list[i + 1] = chunkZ;
+		}
+
+		/** Removes one room of the type at the chunk coordinates, returning true if found */
+		boolean remove(int chunkX, int chunkZ, int type) {
+			int[] list = rooms[type];
+			for (int i = 0; i < counts[type] * 2; i += 2) {
+				if (list[i] == chunkX && list[i + 1] == chunkZ) {
+					int last = --counts[type] * 2;
+					list[i] = list[last];
+					list[i + 1] = list[last + 1];
+					return true;
+				}
+			}
+			return false;
+		}
+
+		boolean isEmpty() {
+			for (int count : counts) {
+				if (count > 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/** Returns true if a room of the type is within range chunks on either axis */
+		boolean hasRoomWithin(int type, int chunkX, int chunkZ, int range) {
+			int[] list = rooms[type];
+			for (int i = 0; i < counts[type] * 2; i += 2) {
+				if (Math.abs(list[i] - chunkX) <= range && Math.abs(list[i + 1] - chunkZ) <= range) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/** Returns true if a room of the type is less than the square root of distSq chunks away */
+		boolean hasRoomCloserThan(int type, int chunkX, int chunkZ, int distSq) {
+			int[] list = rooms[type];
+			for (int i = 0; i < counts[type] * 2; i += 2) {
+				int dx = list[i] - chunkX;
+				int dz = list[i + 1] - chunkZ;
+				if ((dx * dx + dz * dz) < distSq) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
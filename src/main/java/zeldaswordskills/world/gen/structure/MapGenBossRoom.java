@@ -22,7 +22,6 @@ import java.util.logging.Level;
 
 import net.minecraft.block.Block;
 import net.minecraft.nbt.NBTTagCompound;
-import net.minecraft.world.ChunkCoordIntPair;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.IChunkProvider;
 import net.minecraft.world.gen.structure.StructureBoundingBox;
@@ -32,35 +31,66 @@ import zeldaswordskills.lib.ModInfo;
 import zeldaswordskills.util.BossType;
 import zeldaswordskills.util.LogHelper;
 import zeldaswordskills.util.StructureGenUtils;
+import zeldaswordskills.world.gen.WorldGenStats;
+import zeldaswordskills.world.gen.WorldGenStats.Rejection;
+import zeldaswordskills.world.gen.structure.RoomSitePlanner.RegionPlan;
 
 /**
  * 
- * The structureMap for Boss Dungeons uses the standard chunkXZ pair for the key and stores
- * the BossType ordinal as the value.
+ * The structureIndex for Boss Dungeons uses the standard chunkXZ pair for the key and stores
+ * the room's bounding box with the BossType ordinal as the record data.
  *
  */
 public class MapGenBossRoom extends ZSSMapGenBase
 {
+	/** Chunks occupied by boss rooms in this generator's dimension; updated along with the structure index */
+	protected final BossRoomOccupancy occupancy = new BossRoomOccupancy();
+
 	@Override
 	public void generate(IChunkProvider provider, World world, Random rand, int chunkX, int chunkZ) {
 		this.worldObj = world;
 		loadOrCreateData(worldObj);
-		int posX = (chunkX << 4) + rand.nextInt(16);
-		int posZ = (chunkZ << 4) + rand.nextInt(16);
+		getExistingRegionData(chunkX, chunkZ);
+		RegionPlan plan = sitePlanner.getPlan(world.getSeed(), chunkX, chunkZ);
+		int i = plan.getStart(chunkX, chunkZ);
+		if (i == plan.getEnd(chunkX, chunkZ)) {
+			return;
+		}
+		int posX = (chunkX << 4) + plan.get(i);
+		int posZ = (chunkZ << 4) + plan.get(i + 1);
 
 		BossType type = BossType.getBossType(world, posX, posZ);
 		if (type != null) {
-			RoomBoss room = new RoomBoss(type, chunkX, chunkZ, rand, rand.nextInt(5) + 9, Block.stone.blockID);
-			if (rand.nextFloat() < 0.2F && !areStructuresWithinRange(room, Config.getMinBossDistance())) {
+			RoomBoss room = new RoomBoss(type, chunkX, chunkZ, rand, plan.get(i + 2), Block.stone.blockID);
+			if (areStructuresWithinRange(room, Config.getMinBossDistance())) {
+				WorldGenStats.onRejected(getTagName(), Rejection.NEARBY_STRUCTURE);
+			} else {
 				int posY = StructureGenUtils.getAverageSurfaceHeight(world, posX, posZ);
 				if (room.generate(this, world, rand, posX, posY, posZ)) {
 					//LogHelper.log(Level.INFO, "Boss room of type " + type.toString() + " successfully generated at " + room.getBoundingBox().toString());
-					onStructureGenerated(type, chunkX, chunkZ);
+					onStructureGenerated(room);
 					ZSSMain.atlasHelper.placeCustomTile(world, ModInfo.ATLAS_DUNGEON_ID + type.ordinal(), room.getBoundingBox().getCenterX() >> 4, room.getBoundingBox().getCenterZ() >> 4);
 				} else {
 					//LogHelper.log(Level.INFO, "Boss room of type " + type.toString() + " failed to generate at " + room.getBoundingBox().toString());
 				}
 			}
+		} else {
+			WorldGenStats.onRejected(getTagName(), Rejection.BIOME);
+		}
+	}
+
+	/**
+	 * At most one site per chunk, of 3 values: x offset, z offset, and room size
+	 */
+	@Override
+	public void planSites(Random rand, int chunkX, int chunkZ, RegionPlan plan) {
+		int x = rand.nextInt(16);
+		int z = rand.nextInt(16);
+		int size = rand.nextInt(5) + 9;
+		if (rand.nextFloat() < 0.2F) {
+			plan.add(x);
+			plan.add(z);
+			plan.add(size);
 		}
 	}
 
@@ -81,19 +111,17 @@ public class MapGenBossRoom extends ZSSMapGenBase
 	 * Whether the lake generating at chunkX and chunkZ should be denied or not
 	 * (prevents lakes from destroying boss rooms within one chunk)
 	 */
-	public boolean shouldDenyLakeAt(int chunkX, int chunkZ) {
-		return (isRoomInChunk(chunkX, chunkZ) || isRoomInChunk(chunkX + 1, chunkZ + 1) ||
-				isRoomInChunk(chunkX + 1, chunkZ - 1) || isRoomInChunk(chunkX - 1, chunkZ + 1) ||
-				isRoomInChunk(chunkX - 1, chunkZ - 1) || isRoomInChunk(chunkX, chunkZ + 1) ||
-				isRoomInChunk(chunkX, chunkZ - 1) || isRoomInChunk(chunkX + 1, chunkZ) ||
-				isRoomInChunk(chunkX - 1, chunkZ));
+	public boolean shouldDenyLakeAt(World world, int chunkX, int chunkZ) {
+		loadOrCreateData(world);
+		loadRegions(chunkX - 1, chunkZ - 1, chunkX + 1, chunkZ + 1);
+		return occupancy.isProtected(chunkX, chunkZ);
 	}
 
 	/**
 	 * Returns true if a boss room exists in the chunk provided
 	 */
 	protected boolean isRoomInChunk(int chunkX, int chunkZ) {
-		return structureMap.containsKey(Long.valueOf(ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ)));
+		return structureIndex.hasChunk(chunkX, chunkZ);
 	}
 
 	/**
@@ -102,22 +130,14 @@ public class MapGenBossRoom extends ZSSMapGenBase
 	@Override
 	public boolean areStructuresWithinRange(RoomBase room, int range) {
 		loadOrCreateData(worldObj);
-		for (int i = room.chunkX - range; i <= room.chunkX + range; ++i) {
-			for (int j = room.chunkZ - range; j <= room.chunkZ + range; ++j) {
-				if (structureMap.containsKey(Long.valueOf(ChunkCoordIntPair.chunkXZ2Int(i, j)))) {
-					BossType type = ((RoomBoss) room).getBossType();
-					if (type != null && type.ordinal() == getBossTypeFor(i, j)) {
-						//LogHelper.log(Level.INFO, "Boss room of same type found within " + range + " chunks of " + room.chunkX + "/" + room.chunkZ);
-						return true;
-					} else if (((room.chunkX - i) * (room.chunkX - i) + (room.chunkZ - j) * (room.chunkZ - j)) < (range * range) / 2) {
-						//LogHelper.log(Level.INFO, "Boss room of different type found within " + ((range * range) / 2) + " chunks squared of " + room.chunkX + "/" + room.chunkZ);
-						return true;
-					}
-				}
-			}
-		}
+		loadRegions(room.chunkX - range, room.chunkZ - range, room.chunkX + range, room.chunkZ + range);
+		BossType type = ((RoomBoss) room).getBossType();
+		return occupancy.isRoomWithinRange(room.chunkX, room.chunkZ, (type == null ? -1 : type.ordinal()), range);
+	}
 
-		return false;
+	@Override
+	protected void onDataReset() {
+		occupancy.clear();
 	}
 
 	@Override
@@ -126,32 +146,44 @@ public class MapGenBossRoom extends ZSSMapGenBase
 			int i = compound.getInteger("chunkX");
 			int j = compound.getInteger("chunkZ");
 			int bossType = compound.getInteger("bossType");
-			structureMap.put(Long.valueOf(ChunkCoordIntPair.chunkXZ2Int(i, j)), bossType);
+			occupancy.addRoom(i, j, bossType);
+			if (compound.hasKey("BB")) {
+				structureIndex.add(i, j, compound.getIntArray("BB"), bossType);
+			} else { // rooms saved before bounding boxes were stored; just occupy the chunk
+				structureIndex.add(i, j, i << 4, 0, j << 4, (i << 4) + 15, 0, (j << 4) + 15, bossType);
+			}
 			//LogHelper.log(Level.INFO, "Loaded roomList data for chunk " + i + "/" + j);
 		} else {
 			LogHelper.log(Level.WARNING, "Failed to translate Boss Room NBT compound into structure map");
 		}
 	}
 
+	@Override
+	protected void removeNbtFromMap(NBTTagCompound compound) {
+		super.removeNbtFromMap(compound);
+		if (compound.hasKey("chunkX") && compound.hasKey("chunkZ") && compound.hasKey("bossType")) {
+			occupancy.removeRoom(compound.getInteger("chunkX"), compound.getInteger("chunkZ"), compound.getInteger("bossType"));
+		}
+	}
+
 	/**
 	 * Returns the ordinal value of the BossType of the Boss Dungeon in chunkXZ, or -1 if
 	 * no structure exists there
 	 */
 	protected int getBossTypeFor(int chunkX, int chunkZ) {
-		if (structureMap.containsKey(Long.valueOf(ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ)))) {
-			return (Integer) structureMap.get(Long.valueOf(ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ)));
-		} else {
-			return -1;
-		}
+		int record = structureIndex.getFirst(chunkX, chunkZ);
+		return (record == -1 ? -1 : structureIndex.getData(record));
 	}
 
 	/**
-	 * Updates the structure map and adds the appropriate nbt compound to the room data
+	 * Updates the structure index and adds the appropriate nbt compound to the room data
 	 */
-	protected void onStructureGenerated(BossType type, int chunkX, int chunkZ) {
-		structureMap.put(Long.valueOf(ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ)), type.ordinal());
-		NBTTagCompound compound = new NBTTagCompound();
-		compound.setInteger("bossType", type.ordinal());
-		addRoomTag(compound, chunkX, chunkZ);
+	protected void onStructureGenerated(RoomBoss room) {
+		int bossType = room.getBossType().ordinal();
+		structureIndex.add(room.chunkX, room.chunkZ, room.getBoundingBox(), bossType);
+		occupancy.addRoom(room.chunkX, room.chunkZ, bossType);
+		NBTTagCompound compound = room.writeToNBT();
+		compound.setInteger("bossType", bossType);
+		addRoomTag(compound, room.chunkX, room.chunkZ);
 	}
 }
@@ -24,6 +24,9 @@ import net.minecraft.world.World;
 import net.minecraft.world.chunk.IChunkProvider;
 import zeldaswordskills.lib.Config;
 import zeldaswordskills.util.BossType;
+import zeldaswordskills.world.gen.WorldGenStats;
+import zeldaswordskills.world.gen.WorldGenStats.Rejection;
+import zeldaswordskills.world.gen.structure.RoomSitePlanner.RegionPlan;
 
 public class MapGenBossRoomNether extends MapGenBossRoom
 {
@@ -31,21 +34,47 @@ public class MapGenBossRoomNether extends MapGenBossRoom
 	public void generate(IChunkProvider provider, World world, Random rand, int chunkX, int chunkZ) {
 		this.worldObj = world;
 		loadOrCreateData(worldObj);
-		int posX = (chunkX << 4) + rand.nextInt(16);
-		int posZ = (chunkZ << 4) + rand.nextInt(16);
+		getExistingRegionData(chunkX, chunkZ);
+		RegionPlan plan = sitePlanner.getPlan(world.getSeed(), chunkX, chunkZ);
+		int i = plan.getStart(chunkX, chunkZ);
+		if (i == plan.getEnd(chunkX, chunkZ)) {
+			return;
+		}
+		int posX = (chunkX << 4) + plan.get(i);
+		int posZ = (chunkZ << 4) + plan.get(i + 1);
 
 		BossType type = BossType.getBossType(world, posX, posZ);
 		if (type != null) {
-			RoomBoss room = new RoomBoss(type, chunkX, chunkZ, rand, rand.nextInt(6) + 8, Block.netherrack.blockID);
-			if (rand.nextFloat() < 0.2F && !areStructuresWithinRange(room, Config.getNetherMinBossDistance())) {
-				int posY = rand.nextInt(128) - rand.nextInt(16);
+			RoomBoss room = new RoomBoss(type, chunkX, chunkZ, rand, plan.get(i + 2), Block.netherrack.blockID);
+			if (areStructuresWithinRange(room, Config.getNetherMinBossDistance())) {
+				WorldGenStats.onRejected(getTagName(), Rejection.NEARBY_STRUCTURE);
+			} else {
+				int posY = plan.get(i + 3);
 				if (posY > 16 && room.generate(this, world, rand, posX, posY, posZ)) {
 					//LogHelper.log(Level.INFO, "Nether Boss room of type " + type.toString() + " successfully generated at " + room.getBoundingBox().toString());
-					onStructureGenerated(type, chunkX, chunkZ);
+					onStructureGenerated(room);
 				} else {
 					//LogHelper.log(Level.INFO, "Nether Boss room of type " + type.toString() + " failed to generate at " + room.getBoundingBox().toString());
 				}
 			}
+		} else {
+			WorldGenStats.onRejected(getTagName(), Rejection.BIOME);
+		}
+	}
+
+	/**
+	 * At most one site per chunk, of 4 values: x offset, z offset, room size, and y
+	 */
+	@Override
+	public void planSites(Random rand, int chunkX, int chunkZ, RegionPlan plan) {
+		int x = rand.nextInt(16);
+		int z = rand.nextInt(16);
+		int size = rand.nextInt(6) + 8;
+		if (rand.nextFloat() < 0.2F) {
+			plan.add(x);
+			plan.add(z);
+			plan.add(size);
+			plan.add(rand.nextInt(128) - rand.nextInt(16));
 		}
 	}
 
@@ -23,11 +23,11 @@ import java.util.logging.Level;
 import net.minecraft.block.Block;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
-import net.minecraft.world.ChunkCoordIntPair;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.IChunkProvider;
 import net.minecraft.world.gen.structure.StructureBoundingBox;
 import zeldaswordskills.lib.Config;
+import zeldaswordskills.world.gen.structure.RoomSitePlanner.RegionPlan;
 import zeldaswordskills.util.LogHelper;
 import zeldaswordskills.util.StructureGenUtils;
 
@@ -35,44 +35,67 @@ import zeldaswordskills.util.StructureGenUtils;
  * 
  * Generates secret rooms in each chunk according to the config specifications.
  * 
- * The structureMap for Secret Rooms uses the standard chunkXZ pair for the key and stores
- * an NBTTagList of all the rooms generated in that chunk as the value.
+ * The structureIndex for Secret Rooms stores the bounding box of each room generated in
+ * a chunk; the room data stores an NBTTagList of all the rooms generated in that chunk.
  *
  */
 public class MapGenSecretRoom extends ZSSMapGenBase
 {
+	/** Reused for each range check during generation */
+	private final SearchResult searchResult = new SearchResult();
+
 	@Override
 	public void generate(IChunkProvider provider, World world, Random rand, int chunkX, int chunkZ) {
 		this.worldObj = world;
 		loadOrCreateData(worldObj);
-		NBTTagList roomList = getStructureListFor(chunkX, chunkZ);
+		getExistingRegionData(chunkX, chunkZ);
+		RegionPlan plan = sitePlanner.getPlan(world.getSeed(), chunkX, chunkZ);
+		int start = plan.getStart(chunkX, chunkZ);
+		int end = plan.getEnd(chunkX, chunkZ);
+		if (start == end) {
+			return;
+		}
 		int posX = chunkX << 4;
 		int posZ = chunkZ << 4;
 		int posY = StructureGenUtils.getAverageSurfaceHeight(world, posX, posZ);
 		if (posY < 1) {
 			return;
 		}
-		for (int i = 0; i < Config.getAttemptsPerChunk(); ++i) {
-			if (rand.nextFloat() < Config.getSecretRoomChance()) {
-				int x = posX + rand.nextInt(16);
-				int y = rand.nextInt(posY) + (i % 2 == 0 ? rand.nextInt(16) : rand.nextInt(8));
-				int z = posZ + rand.nextInt(16);
-				RoomSecret room = new RoomSecret(chunkX, chunkZ, Math.min(rand.nextInt(6) + 3, 6), Block.stone.blockID);
-				if (room.generate(this, world, rand, x, y, z)) {
-					roomList.appendTag(room.writeToNBT());
-					updateChunkStructureMap(roomList, chunkX, chunkZ);
-				}
+		boolean flag = false;
+		for (int i = start; i < end; i += 5) {
+			int x = posX + plan.get(i);
+			int y = (int)(((long) plan.get(i + 1) * posY) >> 16) + plan.get(i + 2);
+			int z = posZ + plan.get(i + 3);
+			RoomSecret room = new RoomSecret(chunkX, chunkZ, plan.get(i + 4), Block.stone.blockID);
+			if (room.generate(this, world, rand, x, y, z)) {
+				onStructureGenerated(room);
+				flag = true;
 			}
 		}
 		
-		if (roomList.tagCount() > 0) {
+		if (flag) {
 			//LogHelper.log(Level.INFO, "roomList for chunk " + chunkX + "/" + chunkZ + " contains " + roomList.tagCount() + " elements");
-			NBTTagCompound compound = new NBTTagCompound();
-			compound.setTag("roomList", roomList);
-			addRoomTag(compound, chunkX, chunkZ);
+			saveStructuresFor(chunkX, chunkZ);
 		}
 	}
 	
+	/**
+	 * Each site is 5 values: x offset, y as a fraction of the surface height out of 65536,
+	 * additional y offset, z offset, and room size
+	 */
+	@Override
+	public void planSites(Random rand, int chunkX, int chunkZ, RegionPlan plan) {
+		for (int i = 0; i < Config.getAttemptsPerChunk(); ++i) {
+			if (rand.nextFloat() < Config.getSecretRoomChance()) {
+				plan.add(rand.nextInt(16));
+				plan.add(rand.nextInt(65536));
+				plan.add(i % 2 == 0 ? rand.nextInt(16) : rand.nextInt(8));
+				plan.add(rand.nextInt(16));
+				plan.add(Math.min(rand.nextInt(6) + 3, 6));
+			}
+		}
+	}
+
 	@Override
 	public String getTagName() {
 		return "zssSecretRooms";
@@ -80,18 +103,8 @@ public class MapGenSecretRoom extends ZSSMapGenBase
 
 	@Override
 	protected StructureBoundingBox getStructureBBAt(int x, int y, int z) {
-		NBTTagList roomList = getStructureListFor(x >> 4, z >> 4);
-		for (int i = 0; i < roomList.tagCount(); ++i) {
-			NBTTagCompound compound = (NBTTagCompound) roomList.tagAt(i);
-			if (compound.hasKey("BB")) {
-				StructureBoundingBox box = new StructureBoundingBox(compound.getIntArray("BB"));
-				if (box.isVecInside(x, y, z)) {
-					return box;
-				}
-			}
-		}
-
-		return null;
+		int record = structureIndex.getRecordAt(x, y, z);
+		return (record == -1 ? null : structureIndex.getBoundingBox(record));
 	}
 	
 	@Override
@@ -100,92 +113,159 @@ public class MapGenSecretRoom extends ZSSMapGenBase
 			int i = compound.getInteger("chunkX");
 			int j = compound.getInteger("chunkZ");
 			NBTTagList roomList = compound.getTagList("roomList");
-			structureMap.put(Long.valueOf(ChunkCoordIntPair.chunkXZ2Int(i, j)), roomList);
+			for (int n = 0; n < roomList.tagCount(); ++n) {
+				NBTTagCompound tag = (NBTTagCompound) roomList.tagAt(n);
+				if (tag.hasKey("BB")) {
+					structureIndex.add(i, j, tag.getIntArray("BB"), 0);
+				} else {
+					LogHelper.log(Level.WARNING, "Invalid room tag while loading structures for chunk " + i + "/" + j);
+				}
+			}
 		} else {
 			LogHelper.log(Level.WARNING, "Failed to translate NBT compound into structure map");
 		}
 	}
 	
 	/**
-	 * Returns an NBTTagList of all the structures generated in the given chunk or a new list if none exists
+	 * Returns a new NBTTagList of all the structures generated in the given chunk
 	 */
 	protected NBTTagList getStructureListFor(int chunkX, int chunkZ) {
-		loadOrCreateData(worldObj);
-		if (structureMap.containsKey(Long.valueOf(ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ)))) {
-			return (NBTTagList) structureMap.get(Long.valueOf(ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ)));
-		} else {
-			return new NBTTagList();
+		NBTTagList roomList = new NBTTagList();
+		for (int r = structureIndex.getFirst(chunkX, chunkZ); r != -1; r = structureIndex.getNext(r)) {
+			NBTTagCompound compound = new NBTTagCompound();
+			compound.setIntArray("BB", structureIndex.getBounds(r));
+			roomList.appendTag(compound);
 		}
+		return roomList;
+	}
+	
+	/** Adds a newly generated room to the structure index */
+	protected void onStructureGenerated(RoomBase room) {
+		structureIndex.add(room.chunkX, room.chunkZ, room.getBoundingBox(), 0);
 	}
 	
-	/** Keeps the structure map's room list for this chunk up-to-date during generation */
-	protected void updateChunkStructureMap(NBTTagList roomList, int chunkX, int chunkZ) {
-		structureMap.put(Long.valueOf(ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ)), roomList);
+	/** Writes all rooms in the chunk to the room data after generation has finished */
+	protected void saveStructuresFor(int chunkX, int chunkZ) {
+		NBTTagCompound compound = new NBTTagCompound();
+		compound.setTag("roomList", getStructureListFor(chunkX, chunkZ));
+		addRoomTag(compound, chunkX, chunkZ);
 	}
 
 	@Override
 	public boolean areStructuresWithinRange(RoomBase room, int range) {
-		StructureBoundingBox box = room.getBoundingBox();
-		// check room's containing chunk first
-		if (isNearStructureInChunk(room, box, room.chunkX, room.chunkZ, range)) {
-			return true;
-		}
-		
-		for (int i = 0; i <= (range + 8) / 16; ++i) {
-			// neighbors along x and z axis directly
-			if (isNearStructureInChunk(room, box, room.chunkX + i + 1, room.chunkZ, range)) {
-				return true;
-			}
-			if (isNearStructureInChunk(room, box, room.chunkX - i - 1, room.chunkZ, range)) {
-				return true;
-			}
-			if (isNearStructureInChunk(room, box, room.chunkX, room.chunkZ + i + 1, range)) {
-				return true;
-			}
-			if (isNearStructureInChunk(room, box, room.chunkX, room.chunkZ - i - 1, range)) {
-				return true;
-			}
+		return findNearestStructure(room, range, true, searchResult).isStructureFound();
+	}
 
-			// check neighbors diagonally
-			if (isNearStructureInChunk(room, box, room.chunkX + i + 1, room.chunkZ + i + 1, range)) {
-				return true;
-			}
-			if (isNearStructureInChunk(room, box, room.chunkX + i + 1, room.chunkZ - i - 1, range)) {
-				return true;
+	/**
+	 * Searches outward from the room's center, one ring of chunks at a time, for the nearest structure
+	 * that is within the specified range of the room. Only chunks which could possibly contain such a
+	 * structure are examined, and the search ends as soon as no further ring could contain one closer.
+	 * @param range the minimum distance, in blocks, required between the edges of the rooms
+	 * @param stopAtFirst if true, the search ends at the first structure found within range, which
+	 * 			may not be the nearest, and the result's bounding box is not set
+	 * @param result the result in which to store the search information; it is reset before searching
+	 * @return the result passed in, for convenience
+	 */
+	public SearchResult findNearestStructure(RoomBase room, int range, boolean stopAtFirst, SearchResult result) {
+		result.reset();
+		StructureBoundingBox box = room.getBoundingBox();
+		int centerX = box.getCenterX();
+		int centerZ = box.getCenterZ();
+		int chunkX = centerX >> 4;
+		int chunkZ = centerZ >> 4;
+		// regions must be loaded before the index's bounds can be trusted
+		int loaded = (range + box.getXSize() + 16) / 16 + 1;
+		loadRegions(chunkX - loaded, chunkZ - loaded, chunkX + loaded, chunkZ + loaded);
+		for (int r = 0; ; ++r) {
+			if (r > loaded) {
+				// everything inside this ring is already loaded, so only its four sides need to be
+				loaded = r;
+				loadRegions(chunkX - r, chunkZ - r, chunkX + r, chunkZ - r);
+				loadRegions(chunkX - r, chunkZ + r, chunkX + r, chunkZ + r);
+				loadRegions(chunkX - r, chunkZ - r + 1, chunkX - r, chunkZ + r - 1);
+				loadRegions(chunkX + r, chunkZ - r + 1, chunkX + r, chunkZ + r - 1);
 			}
-			if (isNearStructureInChunk(room, box, room.chunkX - i - 1, room.chunkZ + i + 1, range)) {
-				return true;
+			int spill = structureIndex.getMaxSpill();
+			// furthest center-to-center distance at which any stored structure could be in range
+			double limit = range + (box.getXSize() + structureIndex.getMaxXSize()) / 2;
+			double limitSq = limit * limit;
+			double ringMin = Math.max(0, (r << 4) - 15 - spill);
+			if (ringMin * ringMin >= Math.min(limitSq, result.distanceSq)) {
+				break;
 			}
-			if (isNearStructureInChunk(room, box, room.chunkX - i - 1, room.chunkZ - i - 1, range)) {
-				return true;
+			for (int i = chunkX - r; i <= chunkX + r; ++i) {
+				// only the first and last rows of the ring are walked in full; others just the two edges
+				int step = (i == chunkX - r || i == chunkX + r ? 1 : Math.max(1, r << 1));
+				for (int j = chunkZ - r; j <= chunkZ + r; j += step) {
+					double dx = Math.max(0, Math.max((i << 4) - spill - centerX, centerX - (i << 4) - 15 - spill));
+					double dz = Math.max(0, Math.max((j << 4) - spill - centerZ, centerZ - (j << 4) - 15 - spill));
+					if ((dx * dx + dz * dz) >= Math.min(limitSq, result.distanceSq)) {
+						continue;
+					}
+					++result.chunksExamined;
+					for (int rec = structureIndex.getFirst(i, j); rec != -1; rec = structureIndex.getNext(rec)) {
+						double d = structureIndex.getDistanceSq(rec, box);
+						if (d < result.distanceSq && isStructureInRange(room, box, rec, range)) {
+							result.record = rec;
+							result.distanceSq = d;
+							if (stopAtFirst) {
+								return result;
+							}
+						}
+					}
+				}
 			}
 		}
+		if (result.record != -1) {
+			result.box = structureIndex.getBoundingBox(result.record);
+		}
+		return result;
+	}
 
+	/**
+	 * Returns true if the room's bounding box is within the specified range of the structure index record
+	 */
+	protected boolean isStructureInRange(RoomBase room, StructureBoundingBox box, int record, int range) {
+		double dx = (box.getXSize() + structureIndex.getXSize(record)) / 2;
+		if (structureIndex.getDistanceSq(record, box) < ((range + dx) * (range + dx))) {
+			return !(room.inOcean && box.minY > structureIndex.getMaxY(record) + (range / 4) + 2);
+		}
 		return false;
 	}
-	
+
 	/**
-	 * Returns true if the room's bounding box is within the specified range of any other structures in the given chunk
+	 * 
+	 * Information about the outcome of a neighbor search; instances may be reused between searches.
+	 *
 	 */
-	protected boolean isNearStructureInChunk(RoomBase room, StructureBoundingBox box1, int chunkX, int chunkZ, int range) {
-		NBTTagList roomList = getStructureListFor(chunkX, chunkZ);
-		for (int i = 0; i < roomList.tagCount(); ++i) {
-			NBTTagCompound compound = (NBTTagCompound) roomList.tagAt(i);
-			if (compound.hasKey("BB")) {
-				StructureBoundingBox box2 = new StructureBoundingBox(compound.getIntArray("BB"));
-				double dx = (box1.getXSize() + box2.getXSize()) / 2;
-				if (StructureGenUtils.getDistanceSqBetween(box1, box2) < ((range + dx) * (range + dx))) {
-					if (room.inOcean && box1.minY > box2.maxY + (range / 4) + 2) {
-						continue;
-					} else {
-						return true;
-					}
-				}
-			} else {
-				LogHelper.log(Level.WARNING, "Invalid tag while checking for structures in chunk " + chunkX + "/" + chunkZ);
-			}
+	public static class SearchResult
+	{
+		/** Bounding box of the nearest structure found within range, or null if none */
+		public StructureBoundingBox box;
+
+		/** Structure index record of the structure found, or -1 if none */
+		protected int record;
+
+		/** Distance squared between the centers of the room and the structure found */
+		public double distanceSq;
+
+		/** Number of chunks whose structures were examined during the search */
+		public int chunksExamined;
+
+		public SearchResult() {
+			reset();
+		}
+
+		/** Returns true if a structure within range was found */
+		public boolean isStructureFound() {
+			return record != -1;
+		}
+
+		protected void reset() {
+			box = null;
+			record = -1;
+			distanceSq = Double.MAX_VALUE;
+			chunksExamined = 0;
 		}
-		
-		return false;
 	}
 }
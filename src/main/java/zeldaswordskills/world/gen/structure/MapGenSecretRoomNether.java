@@ -20,11 +20,10 @@ package zeldaswordskills.world.gen.structure;
 import java.util.Random;
 
 import net.minecraft.block.Block;
-import net.minecraft.nbt.NBTTagCompound;
-import net.minecraft.nbt.NBTTagList;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.IChunkProvider;
 import zeldaswordskills.lib.Config;
+import zeldaswordskills.world.gen.structure.RoomSitePlanner.RegionPlan;
 
 public class MapGenSecretRoomNether extends MapGenSecretRoom
 {
@@ -32,33 +31,45 @@ public class MapGenSecretRoomNether extends MapGenSecretRoom
 	public void generate(IChunkProvider provider, World world, Random rand, int chunkX, int chunkZ) {
 		this.worldObj = world;
 		loadOrCreateData(worldObj);
-		NBTTagList roomList = getStructureListFor(chunkX, chunkZ);
+		getExistingRegionData(chunkX, chunkZ);
+		RegionPlan plan = sitePlanner.getPlan(world.getSeed(), chunkX, chunkZ);
 		int posX = chunkX << 4;
 		int posZ = chunkZ << 4;
-		
-		for (int i = 0; i < Config.getNetherAttemptsPerChunk(); ++i) {
-			if (rand.nextFloat() < Config.getNetherSecretRoomChance()) {
-				int x = posX + rand.nextInt(16);
-				int y = rand.nextInt((i % 4 == 1 ? 64 : 128)) - rand.nextInt(16);
-				int z = posZ + rand.nextInt(16);
-				RoomSecret room = new RoomSecret(chunkX, chunkZ, rand.nextInt(6) + 3, Block.netherrack.blockID);
-				if (room.generate(this, world, rand, x, y, z)) {
-					roomList.appendTag(room.writeToNBT());
-					updateChunkStructureMap(roomList, chunkX, chunkZ);
-				}
+		boolean flag = false;
+		for (int i = plan.getStart(chunkX, chunkZ); i < plan.getEnd(chunkX, chunkZ); i += 4) {
+			int x = posX + plan.get(i);
+			int y = plan.get(i + 1);
+			int z = posZ + plan.get(i + 2);
+			RoomSecret room = new RoomSecret(chunkX, chunkZ, plan.get(i + 3), Block.netherrack.blockID);
+			if (room.generate(this, world, rand, x, y, z)) {
+				onStructureGenerated(room);
+				flag = true;
 			}
 		}
 		
-		if (roomList.tagCount() > 0) {
+		if (flag) {
 			//LogHelper.log(Level.INFO, "Nether roomList for chunk " + chunkX + "/" + chunkZ + " contains " + roomList.tagCount() + " elements");
-			NBTTagCompound compound = new NBTTagCompound();
-			compound.setTag("roomList", roomList);
-			addRoomTag(compound, chunkX, chunkZ);
+			saveStructuresFor(chunkX, chunkZ);
 		} else {
 			//LogHelper.log(Level.INFO, "Nether roomList for chunk " + chunkX + "/" + chunkZ + " contains ZERO elements");
 		}
 	}
 	
+	/**
+	 * Each site is 4 values: x offset, y, z offset, and room size
+	 */
+	@Override
+	public void planSites(Random rand, int chunkX, int chunkZ, RegionPlan plan) {
+		for (int i = 0; i < Config.getNetherAttemptsPerChunk(); ++i) {
+			if (rand.nextFloat() < Config.getNetherSecretRoomChance()) {
+				plan.add(rand.nextInt(16));
+				plan.add(rand.nextInt((i % 4 == 1 ? 64 : 128)) - rand.nextInt(16));
+				plan.add(rand.nextInt(16));
+				plan.add(rand.nextInt(6) + 3);
+			}
+		}
+	}
+
 	@Override
 	public String getTagName() {
 		return "zssSecretNether";
@@ -33,7 +33,10 @@ import zeldaswordskills.block.ZSSBlocks;
 import zeldaswordskills.block.tileentity.TileEntityPedestal;
 import zeldaswordskills.item.ZSSItems;
 import zeldaswordskills.lib.Config;
+import zeldaswordskills.util.BlockBatchWriter;
+import zeldaswordskills.util.BlockVolumeSnapshot;
 import zeldaswordskills.util.StructureGenUtils;
+import zeldaswordskills.util.SurfaceHeightCache;
 
 
 /**
@@ -130,13 +133,13 @@ public abstract class RoomBase
 	/**
 	 * Returns true if there aren't too many unacceptable materials within the structure's location
 	 */
-	protected boolean canGenerate(World world) {
+	protected boolean canGenerate(BlockVolumeSnapshot snapshot) {
 		int failedAmount = 0;
 		int maxFail = (bBox.getXSize() * bBox.getZSize() / 2);
 		for (int i = bBox.minX; i <= bBox.maxX; ++i) {
 			for (int j = bBox.minY; j <= bBox.maxY; ++j) {
 				for (int k = bBox.minZ; k <= bBox.maxZ; ++k) {
-					int blockId = world.getBlockId(i, j, k);
+					int blockId = snapshot.getBlockId(i, j, k);
 					if (!canReplaceBlockAt(j, blockId)) {
 						if (blockId == ZSSBlocks.secretStone.blockID || (Config.avoidModBlocks() && blockId > 255)) {
 							return false;
@@ -154,31 +157,34 @@ public abstract class RoomBase
 	 * Standard room gen procedure builds basic cube, fills with liquids/air, and calls decorateDungeon
 	 */
 	protected void doStandardRoomGen(World world, Random rand) {
-		StructureGenUtils.fillWithBlocks(world, bBox, 0, bBox.getXSize(), 0, bBox.getYSize(), 0, bBox.getZSize(), ZSSBlocks.secretStone.blockID, getMetadata());
-		genSubmerged(world);
-		generateAir(world);
+		BlockBatchWriter writer = new BlockBatchWriter(world);
+		StructureGenUtils.fillWithBlocks(writer, bBox, 0, bBox.getXSize(), 0, bBox.getYSize(), 0, bBox.getZSize(), ZSSBlocks.secretStone.blockID, getMetadata());
+		genSubmerged(writer);
+		generateAir(writer);
+		writer.flush();
 		decorateDungeon(world, rand);
 	}
 
 	/**
 	 * Returns true if the structure is considered well-hidden; i.e. not too many blocks exposed to air / water
 	 */
-	protected boolean isWellHidden(World world) {
+	protected boolean isWellHidden(BlockVolumeSnapshot snapshot) {
 		int difficulty = Config.getMainDungeonDifficulty();
+		Random rand = snapshot.getWorld().rand;
 		if (inOcean) {
 			return true;
 			//return world.rand.nextFloat() < (1.0F - (difficulty * 0.25F)) ||
 			//StructureGenUtils.getNumBlocksOfMaterialInArea(world, bBox, Material.water, 1) < (getArea() / (difficulty + 1));
 		}
-		Material material = (!inNether && StructureGenUtils.getNumBlocksOfMaterial(world, bBox, Material.water, 1) > 0 ? Material.water : Material.air);
-		int above = StructureGenUtils.getNumBlocksOfMaterial(world, bBox, material, 1);
-		int below = StructureGenUtils.getNumBlocksOfMaterial(world, bBox, material, -1);
+		Material material = (!inNether && StructureGenUtils.getNumBlocksOfMaterial(snapshot, bBox, Material.water, 1) > 0 ? Material.water : Material.air);
+		int above = StructureGenUtils.getNumBlocksOfMaterial(snapshot, bBox, material, 1);
+		int below = StructureGenUtils.getNumBlocksOfMaterial(snapshot, bBox, material, -1);
 		if (inNether) {
-			return world.rand.nextFloat() < (0.35F - (difficulty * 0.1F)) || ((difficulty != 3 || (above + below) < 4) &&
-					StructureGenUtils.getNumBlocksOfMaterialInArea(world, bBox, material, 1) < (getArea() / (difficulty + 1))); // above < (5 - difficulty) && 
+			return rand.nextFloat() < (0.35F - (difficulty * 0.1F)) || ((difficulty != 3 || (above + below) < 4) &&
+					StructureGenUtils.getNumBlocksOfMaterialInArea(snapshot, bBox, material, 1) < (getArea() / (difficulty + 1))); // above < (5 - difficulty) && 
 		}
 
-		return world.rand.nextFloat() < (0.35F - (difficulty * 0.1F)) || (above + below) < (5 - difficulty);
+		return rand.nextFloat() < (0.35F - (difficulty * 0.1F)) || (above + below) < (5 - difficulty);
 	}
 
 	/** Shortcut for canReplaceBlockAt(int y, int id) */
@@ -206,14 +212,14 @@ public abstract class RoomBase
 	}
 
 	/** Sets the room's metadata based on world biome */
-	protected abstract void setMetadata(World world, int x, int z);
+	protected abstract void setMetadata(BlockVolumeSnapshot snapshot, int x, int z);
 
 	/**
 	 * Fills room with air according to submerged / ocean status
 	 */
-	protected void generateAir(World world) {
+	protected void generateAir(BlockBatchWriter writer) {
 		if (!inOcean) {
-			StructureGenUtils.fillWithBlocks(world, bBox, 1, bBox.getXSize() - 1, (submerged ? (inLava || isLocked ? 2 : 3) : 1), bBox.getYSize() - 1, 1, bBox.getZSize() - 1, 0, 0);
+			StructureGenUtils.fillWithBlocks(writer, bBox, 1, bBox.getXSize() - 1, (submerged ? (inLava || isLocked ? 2 : 3) : 1), bBox.getYSize() - 1, 1, bBox.getZSize() - 1, 0, 0);
 		}
 	}
 
@@ -221,11 +227,11 @@ public abstract class RoomBase
 	 * Generation for submerged dungeons adds liquid layers: lava 1, water 2, ocean filled
 	 * Checks internally if this room is valid for liquid generation
 	 */
-	protected void genSubmerged(World world) {
+	protected void genSubmerged(BlockBatchWriter writer) {
 		if (submerged && bBox.getXSize() > 3) {
 			int fillTo = (inLava ? 2 : inOcean ? bBox.getYSize() - 1 : 3);
 			int blockID = (inLava ? Block.lavaStill.blockID : Block.waterStill.blockID);
-			StructureGenUtils.fillWithBlocks(world, bBox, 1, bBox.getXSize() - 1, 1, fillTo, 1, bBox.getZSize() - 1, blockID, 0);
+			StructureGenUtils.fillWithBlocks(writer, bBox, 1, bBox.getXSize() - 1, 1, fillTo, 1, bBox.getZSize() - 1, blockID, 0);
 		}
 	}
 
@@ -233,29 +239,36 @@ public abstract class RoomBase
 	 * After a failed validation, attempts to place structure in ocean if applicable
 	 * @param sink if true, sinks the structure by some amount into the ocean floor
 	 */
-	protected boolean placeInOcean(World world, boolean sink) {
+	protected boolean placeInOcean(BlockVolumeSnapshot snapshot, boolean sink) {
 		bBox.offset(0, 4, 0); // move back up a little
 		int x = bBox.getCenterX();
 		int z = bBox.getCenterZ();
-		boolean flag = world.getBiomeGenForCoords(x, z).biomeName.toLowerCase().contains("ocean");
-		if (flag && !inLava && world.getBlockMaterial(x, bBox.maxY, z) == Material.water) {
+		boolean flag = snapshot.getWorld().getBiomeGenForCoords(x, z).biomeName.toLowerCase().contains("ocean");
+		if (flag && !inLava && snapshot.getBlockMaterial(x, bBox.maxY, z) == Material.water) {
 			int count = 0;
-			while (bBox.minY > 16 && count < 8 && world.getBlockMaterial(x, bBox.minY, z) == Material.water) {
+			SurfaceHeightCache cache = SurfaceHeightCache.get(snapshot.getWorld());
+			int floor = cache.getWaterFloorHeight(x, z);
+			// within the surface water column, so drop straight down as far as allowed
+			if (bBox.minY >= floor && bBox.minY < cache.getSurfaceHeight(x, z)) {
+				count = Math.max(0, Math.min(8, bBox.minY - Math.max(floor, 16)));
+				bBox.offset(0, -count, 0);
+			}
+			while (bBox.minY > 16 && count < 8 && snapshot.getBlockMaterial(x, bBox.minY, z) == Material.water) {
 				bBox.offset(0, -1, 0);
 				++count;
 			}
 
-			if (world.getBlockMaterial(x, bBox.minY, z) != Material.water) {
+			if (snapshot.getBlockMaterial(x, bBox.minY, z) != Material.water) {
 				inOcean = true;
-				StructureGenUtils.adjustCornersForMaterial(world, bBox, Material.water, 6, false, false);
+				StructureGenUtils.adjustCornersForMaterial(snapshot, bBox, Material.water, 6, false, false);
 				if (sink) {
 					int diff = Config.getMainDungeonDifficulty();
 					int adj = 2 - diff;
-					if (world.rand.nextFloat() > (diff * 0.25F)) {
+					if (snapshot.getWorld().rand.nextFloat() > (diff * 0.25F)) {
 						if (diff == 3) {
 							++adj;
 						} else {
-							adj += (world.rand.nextFloat() < 0.5F ? 1 : -1);
+							adj += (snapshot.getWorld().rand.nextFloat() < 0.5F ? 1 : -1);
 						}
 					}
 					bBox.offset(0, -(bBox.getYSize() - adj), 0);
@@ -272,12 +285,20 @@ public abstract class RoomBase
 	 * Adjusts nether dungeons to rest on solid ground when submerged in lava
 	 * @return true if final bottom block is not another secret dungeon block
 	 */
-	protected boolean placeInNether(World world) {
-		while (bBox.minY > 8 && world.getBlockMaterial(bBox.getCenterX(), bBox.minY, bBox.getCenterZ()) == Material.lava) {
+	protected boolean placeInNether(BlockVolumeSnapshot snapshot) {
+		while (bBox.minY > 8 && snapshot.getBlockMaterial(bBox.getCenterX(), bBox.minY, bBox.getCenterZ()) == Material.lava) {
 			bBox.offset(0, -1, 0);
 		}
-		StructureGenUtils.adjustCornersForMaterial(world, bBox, Material.lava, 4, false, false);
-		return (world.getBlockId(bBox.getCenterX(), bBox.minY, bBox.getCenterZ()) != ZSSBlocks.secretStone.blockID);
+		StructureGenUtils.adjustCornersForMaterial(snapshot, bBox, Material.lava, 4, false, false);
+		return (snapshot.getBlockId(bBox.getCenterX(), bBox.minY, bBox.getCenterZ()) != ZSSBlocks.secretStone.blockID);
+	}
+
+	/**
+	 * Captures the blocks in and around the bounding box for validation; the snapshot extends
+	 * far enough below to cover all downward adjustments, and must be released when finished
+	 */
+	protected BlockVolumeSnapshot captureSnapshot(World world) {
+		return BlockVolumeSnapshot.capture(world, bBox, 2, NUM_VALIDATIONS + bBox.getYSize() + 8, 4);
 	}
 
 	protected int validations = 0;
@@ -290,7 +311,7 @@ public abstract class RoomBase
 	 * the structure downwards until no longer the case, the structure's lower level is too
 	 * low, or the number of attempts exceeds NUM_VALIDATIONS
 	 */
-	protected boolean validateTopLayer(World world) {
+	protected boolean validateTopLayer(BlockVolumeSnapshot snapshot) {
 		int invalidBlocks = 0; // number of blocks not matching the required block type
 		int area = getArea();
 		++validations;
@@ -300,16 +321,16 @@ public abstract class RoomBase
 				if (validations > NUM_VALIDATIONS || bBox.minY < 5) {
 					return false;
 				} else {
-					int blockId = world.getBlockId(i, bBox.maxY, k);
+					int blockId = snapshot.getBlockId(i, bBox.maxY, k);
 					if (Block.blocksList[blockId] != null && Block.blocksList[blockId].blockMaterial.isLiquid()) {
 						submerged = true;
 						inLava = (blockId == Block.lavaStill.blockID);
 						bBox.offset(0, -1, 0);
-						return ((inNether && bBox.maxY < 48) || validateTopLayer(world));
+						return ((inNether && bBox.maxY < 48) || validateTopLayer(snapshot));
 					} else if (blockId != blockRequired) {
 						if (++invalidBlocks > area / 2) {
 							bBox.offset(0, -1, 0);
-							return validateTopLayer(world);
+							return validateTopLayer(snapshot);
 						}
 					}
 				}
@@ -30,10 +30,14 @@ import zeldaswordskills.block.BlockSecretStone;
 import zeldaswordskills.block.ZSSBlocks;
 import zeldaswordskills.block.tileentity.TileEntityDungeonCore;
 import zeldaswordskills.lib.Config;
+import zeldaswordskills.util.BlockBatchWriter;
+import zeldaswordskills.util.BlockVolumeSnapshot;
 import zeldaswordskills.util.BossType;
 import zeldaswordskills.util.LogHelper;
 import zeldaswordskills.util.StructureGenUtils;
 import zeldaswordskills.world.gen.DungeonLootLists;
+import zeldaswordskills.world.gen.WorldGenStats;
+import zeldaswordskills.world.gen.WorldGenStats.Rejection;
 
 /**
  * 
@@ -66,30 +70,38 @@ public class RoomBoss extends RoomBase
 	
 	@Override
 	public boolean generate(ZSSMapGenBase mapGen, World world, Random rand, int x, int y, int z) {
-		if (initDungeon(world, x, y, z) && canGenerate(world)) {
-			doStandardRoomGen(world, rand);
-			return true;
-		} else {
+		bBox.offset(x, y, z);
+		if (type == null || y < bBox.getYSize() || y > (type == BossType.HELL ? 96 : 160)) {
+			WorldGenStats.onRejected(mapGen.getTagName(), type == null ? Rejection.BIOME : Rejection.HEIGHT);
+			return false;
+		}
+		BlockVolumeSnapshot snapshot = captureSnapshot(world);
+		Rejection reason;
+		try {
+			reason = (!initDungeon(snapshot, x, z) ? Rejection.TERRAIN : !canGenerate(snapshot) ? Rejection.OBSTRUCTED : null);
+		} finally {
+			snapshot.release();
+		}
+		if (reason != null) {
+			WorldGenStats.onRejected(mapGen.getTagName(), reason);
 			return false;
 		}
+		doStandardRoomGen(world, rand);
+		WorldGenStats.onGenerated(mapGen.getTagName());
+		return true;
 	}
 	
 	/**
-	 * Performs initial set up and placement of the dungeon
+	 * Performs initial set up and placement of the dungeon, once offset to its position
 	 * @return false if anything went awry and generation should be canceled
 	 */
-	protected boolean initDungeon(World world, int x, int y, int z) {
-		bBox.offset(x, y, z);
-		if (type == null || y < bBox.getYSize() || y > (type == BossType.HELL ? 96 : 160)) {
-			return false;
-		}
-		
+	protected boolean initDungeon(BlockVolumeSnapshot snapshot, int x, int z) {
 		switch(type) {
 		case HELL:
 			inNether = true;
-			if (placeInNether(world)) {
-				doDefaultAdjustments(world);
-				if (world.rand.nextFloat() < 0.75F) {
+			if (placeInNether(snapshot)) {
+				doDefaultAdjustments(snapshot);
+				if (snapshot.getWorld().rand.nextFloat() < 0.75F) {
 					submerged = true;
 					inLava = true;
 				}
@@ -98,40 +110,40 @@ public class RoomBoss extends RoomBase
 			}
 			break;
 		case OCEAN:
-			if (!placeInOcean(world, false)) {
+			if (!placeInOcean(snapshot, false)) {
 				return false;
 			}
 			break;
 		case SWAMP:
 			submerged = true;
-			doDefaultAdjustments(world);
+			doDefaultAdjustments(snapshot);
 			bBox.offset(0, -1, 0);
 			break;
 		default:
-			doDefaultAdjustments(world);
+			doDefaultAdjustments(snapshot);
 		}
 		if (submerged) {
 			--bBox.minY;
 		}
 		
-		determineDoorSide(world);
-		setMetadata(world, x, z);
-		boolean flag = StructureGenUtils.getAverageDistanceToGround(world, bBox, 6) < 4;
-		return (doorSide != -1 && flag && (submerged || !isWaterAroundOrUnder(world)));
+		determineDoorSide(snapshot);
+		setMetadata(snapshot, x, z);
+		boolean flag = StructureGenUtils.getAverageDistanceToGround(snapshot.getWorld(), bBox, 6) < 4;
+		return (doorSide != -1 && flag && (submerged || !isWaterAroundOrUnder(snapshot)));
 	}
 	
 	/**
 	 * Makes default adjustments for surrounding materials such as dirt, air, etc.
 	 */
-	private void doDefaultAdjustments(World world) {
+	private void doDefaultAdjustments(BlockVolumeSnapshot snapshot) {
 		// adjust up for dirt, grass, and sand
-		StructureGenUtils.adjustCornersForMaterial(world, bBox, Material.ground, 4, false, true);
-		StructureGenUtils.adjustCornersForMaterial(world, bBox, Material.grass, 4, false, true);
-		StructureGenUtils.adjustCornersForMaterial(world, bBox, Material.sand, 4, false, true);
+		StructureGenUtils.adjustCornersForMaterial(snapshot, bBox, Material.ground, 4, false, true);
+		StructureGenUtils.adjustCornersForMaterial(snapshot, bBox, Material.grass, 4, false, true);
+		StructureGenUtils.adjustCornersForMaterial(snapshot, bBox, Material.sand, 4, false, true);
 		// adjust down for air and water pockets
-		StructureGenUtils.adjustCornersForMaterial(world, bBox, Material.air, 4, false, false);
+		StructureGenUtils.adjustCornersForMaterial(snapshot, bBox, Material.air, 4, false, false);
 		if (type != BossType.SWAMP) {
-			StructureGenUtils.adjustCornersForMaterial(world, bBox, Material.water, 4, false, false);
+			StructureGenUtils.adjustCornersForMaterial(snapshot, bBox, Material.water, 4, false, false);
 		}
 		// adjust down one more so door is flush with ground
 		//bBox.offset(0, -1, 0); TODO add stairs or slabs up instead
@@ -141,23 +153,23 @@ public class RoomBoss extends RoomBase
 	 * Returns true if there are 2 or more blocks of water directly under the structure, 
 	 * or if there are 3 or more blocks of water next to any given side
 	 */
-	protected boolean isWaterAroundOrUnder(World world) {
-		if (StructureGenUtils.getNumBlocksOfMaterial(world, bBox, Material.water, -1) > 1) {
+	protected boolean isWaterAroundOrUnder(BlockVolumeSnapshot snapshot) {
+		if (StructureGenUtils.getNumBlocksOfMaterial(snapshot, bBox, Material.water, -1) > 1) {
 			return true;
-		} else if (StructureGenUtils.getNumBlocksOfMaterialInArea(world, Material.water, bBox.minX - 1, bBox.minX, bBox.minY, bBox.minY + 2, bBox.minZ, bBox.maxZ) > 2) {
+		} else if (StructureGenUtils.getNumBlocksOfMaterialInArea(snapshot, Material.water, bBox.minX - 1, bBox.minX, bBox.minY, bBox.minY + 2, bBox.minZ, bBox.maxZ) > 2) {
 			return true;
-		} else if (StructureGenUtils.getNumBlocksOfMaterialInArea(world, Material.water, bBox.maxX + 1, bBox.maxX + 2, bBox.minY, bBox.minY + 2, bBox.minZ, bBox.maxZ) > 2) {
+		} else if (StructureGenUtils.getNumBlocksOfMaterialInArea(snapshot, Material.water, bBox.maxX + 1, bBox.maxX + 2, bBox.minY, bBox.minY + 2, bBox.minZ, bBox.maxZ) > 2) {
 			return true;
-		} else if (StructureGenUtils.getNumBlocksOfMaterialInArea(world, Material.water, bBox.minX, bBox.maxX, bBox.minY, bBox.minY + 2, bBox.minZ - 1, bBox.minZ) > 2) {
+		} else if (StructureGenUtils.getNumBlocksOfMaterialInArea(snapshot, Material.water, bBox.minX, bBox.maxX, bBox.minY, bBox.minY + 2, bBox.minZ - 1, bBox.minZ) > 2) {
 			return true;
-		} else if (StructureGenUtils.getNumBlocksOfMaterialInArea(world, Material.water, bBox.minX, bBox.maxX, bBox.minY, bBox.minY + 2, bBox.maxZ + 1, bBox.maxZ + 2) > 2) {
+		} else if (StructureGenUtils.getNumBlocksOfMaterialInArea(snapshot, Material.water, bBox.minX, bBox.maxX, bBox.minY, bBox.minY + 2, bBox.maxZ + 1, bBox.maxZ + 2) > 2) {
 			return true;
 		}
 		return false;
 	}
 	
 	@Override
-	protected void setMetadata(World world, int x, int z) {
+	protected void setMetadata(BlockVolumeSnapshot snapshot, int x, int z) {
 		metadata = type.metadata;
 	}
 	
@@ -198,34 +210,34 @@ public class RoomBoss extends RoomBase
 	/**
 	 * Determines which side is most suitable for the door
 	 */
-	protected void determineDoorSide(World world) {
+	protected void determineDoorSide(BlockVolumeSnapshot snapshot) {
 		int x = bBox.getCenterX();
 		int y = bBox.minY + 1;
 		int z = bBox.getCenterZ();
 		
-		int id1 = world.getBlockId(x, y, bBox.maxZ + 1);
-		int id2 = world.getBlockId(x, y + 1, bBox.maxZ + 1);
+		int id1 = snapshot.getBlockId(x, y, bBox.maxZ + 1);
+		int id2 = snapshot.getBlockId(x, y + 1, bBox.maxZ + 1);
 		if (!Block.opaqueCubeLookup[id1] && !Block.opaqueCubeLookup[id2]) {
 			doorSide = SOUTH;
 			return;
 		}
 		
-		id1 = world.getBlockId(x, y, bBox.minZ - 1);
-		id2 = world.getBlockId(x, y + 1, bBox.minZ - 1);
+		id1 = snapshot.getBlockId(x, y, bBox.minZ - 1);
+		id2 = snapshot.getBlockId(x, y + 1, bBox.minZ - 1);
 		if (!Block.opaqueCubeLookup[id1] && !Block.opaqueCubeLookup[id2]) {
 			doorSide = NORTH;
 			return;
 		}
 		
-		id1 = world.getBlockId(bBox.maxX + 1, y, z);
-		id2 = world.getBlockId(bBox.maxX + 1, y + 1, z);
+		id1 = snapshot.getBlockId(bBox.maxX + 1, y, z);
+		id2 = snapshot.getBlockId(bBox.maxX + 1, y + 1, z);
 		if (!Block.opaqueCubeLookup[id1] && !Block.opaqueCubeLookup[id2]) {
 			doorSide = EAST;
 			return;
 		}
 		
-		id1 = world.getBlockId(bBox.minX - 1, y, z);
-		id2 = world.getBlockId(bBox.minX - 1, y + 1, z);
+		id1 = snapshot.getBlockId(bBox.minX - 1, y, z);
+		id2 = snapshot.getBlockId(bBox.minX - 1, y + 1, z);
 		if (!Block.opaqueCubeLookup[id1] && !Block.opaqueCubeLookup[id2]) {
 			doorSide = WEST;
 			return;
@@ -399,10 +411,12 @@ public class RoomBoss extends RoomBase
 		if (type != BossType.OCEAN && bBox.getYSize() > 7 && rand.nextFloat() < (type == BossType.HELL ? 0.75F : 0.5F)) {
 			int y = bBox.getCenterY();
 			int blockId = BlockSecretStone.getIdFromMeta(meta);
-			StructureGenUtils.fillWithoutReplace(world, bBox.minX + 1, bBox.minX + 2, y, y + 1, bBox.minZ + 1, bBox.maxZ, blockId, 0, 3);
-			StructureGenUtils.fillWithoutReplace(world, bBox.maxX - 1, bBox.maxX, y, y + 1, bBox.minZ + 1, bBox.maxZ, blockId, 0, 3);
-			StructureGenUtils.fillWithoutReplace(world, bBox.minX + 2, bBox.maxX - 1, y, y + 1, bBox.minZ + 1, bBox.minZ + 2, blockId, 0, 3);
-			StructureGenUtils.fillWithoutReplace(world, bBox.minX + 2, bBox.maxX - 1, y, y + 1, bBox.maxZ - 1, bBox.maxZ, blockId, 0, 3);
+			BlockBatchWriter writer = new BlockBatchWriter(world);
+			StructureGenUtils.fillWithoutReplace(writer, bBox.minX + 1, bBox.minX + 2, y, y + 1, bBox.minZ + 1, bBox.maxZ, blockId, 0, 3);
+			StructureGenUtils.fillWithoutReplace(writer, bBox.maxX - 1, bBox.maxX, y, y + 1, bBox.minZ + 1, bBox.maxZ, blockId, 0, 3);
+			StructureGenUtils.fillWithoutReplace(writer, bBox.minX + 2, bBox.maxX - 1, y, y + 1, bBox.minZ + 1, bBox.minZ + 2, blockId, 0, 3);
+			StructureGenUtils.fillWithoutReplace(writer, bBox.minX + 2, bBox.maxX - 1, y, y + 1, bBox.maxZ - 1, bBox.maxZ, blockId, 0, 3);
+			writer.flush();
 		}
 	}
 	
@@ -528,19 +542,19 @@ public class RoomBoss extends RoomBase
 	}
 	
 	@Override
-	protected boolean placeInOcean(World world, boolean sink) {
+	protected boolean placeInOcean(BlockVolumeSnapshot snapshot, boolean sink) {
 		if (type == BossType.OCEAN) {
-			while (bBox.minY > 60 && world.getBlockMaterial(bBox.getCenterX(), bBox.minY, bBox.getCenterZ()) == Material.air) {
+			while (bBox.minY > 60 && snapshot.getBlockMaterial(bBox.getCenterX(), bBox.minY, bBox.getCenterZ()) == Material.air) {
 				bBox.offset(0, -1, 0);
 			}
-			while (bBox.minY > 16 && world.getBlockMaterial(bBox.getCenterX(), bBox.minY, bBox.getCenterZ()) == Material.water) {
+			while (bBox.minY > 16 && snapshot.getBlockMaterial(bBox.getCenterX(), bBox.minY, bBox.getCenterZ()) == Material.water) {
 				bBox.offset(0, -1, 0);
 			}
-			if (world.getBlockMaterial(bBox.getCenterX(), bBox.minY, bBox.getCenterZ()) != Material.water &&
-				world.getBlockMaterial(bBox.getCenterX(), bBox.maxY, bBox.getCenterZ()) == Material.water) {
+			if (snapshot.getBlockMaterial(bBox.getCenterX(), bBox.minY, bBox.getCenterZ()) != Material.water &&
+				snapshot.getBlockMaterial(bBox.getCenterX(), bBox.maxY, bBox.getCenterZ()) == Material.water) {
 				inOcean = true;
 				submerged = true;
-				StructureGenUtils.adjustCornersForMaterial(world, bBox, Material.water, 6, false, false);
+				StructureGenUtils.adjustCornersForMaterial(snapshot, bBox, Material.water, 6, false, false);
 				return true;
 			}
 		}
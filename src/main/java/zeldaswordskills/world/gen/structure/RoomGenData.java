@@ -22,13 +22,17 @@ import net.minecraft.world.WorldSavedData;
 
 /**
  * 
- * Stores information about generated Boss rooms
+ * Stores information about generated rooms; each instance holds the rooms for a single
+ * region of chunks so that only regions which have changed need to be saved
  *
  */
 public class RoomGenData extends WorldSavedData
 {
 	private NBTTagCompound roomData = new NBTTagCompound("ZSSDungeons");
 
+	/** Number of world saves seen by the owning generator when this region was last used; not saved */
+	int lastUsed;
+
 	public RoomGenData(String tagName) {
 		super(tagName);
 	}
@@ -59,7 +63,17 @@ public class RoomGenData extends WorldSavedData
 		return "[" + chunkX + "," + chunkZ + "]";
 	}
 
+	/** Returns true if a room tag for the given chunk coordinates exists */
+	public boolean hasRoomTag(int chunkX, int chunkZ) {
+		return roomData.hasKey(createTagName(chunkX, chunkZ));
+	}
+
 	public NBTTagCompound getRoomData() {
 		return roomData;
 	}
+
+	/** Removes all room tags */
+	public void clearRoomData() {
+		roomData = new NBTTagCompound("ZSSDungeons");
+	}
 }
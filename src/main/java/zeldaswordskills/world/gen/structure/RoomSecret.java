@@ -32,10 +32,14 @@ import zeldaswordskills.block.ZSSBlocks;
 import zeldaswordskills.block.tileentity.TileEntityDungeonCore;
 import zeldaswordskills.item.ZSSItems;
 import zeldaswordskills.lib.Config;
+import zeldaswordskills.util.BlockVolumeSnapshot;
 import zeldaswordskills.util.BossType;
 import zeldaswordskills.util.StructureGenUtils;
+import zeldaswordskills.util.SurfaceHeightCache;
 import zeldaswordskills.util.WorldUtils;
 import zeldaswordskills.world.gen.DungeonLootLists;
+import zeldaswordskills.world.gen.WorldGenStats;
+import zeldaswordskills.world.gen.WorldGenStats.Rejection;
 
 public class RoomSecret extends RoomBase
 {
@@ -59,36 +63,63 @@ public class RoomSecret extends RoomBase
 	
 	@Override
 	public boolean generate(ZSSMapGenBase mapGen, World world, Random rand, int x, int y, int z) {
-		if (y < bBox.maxY) { return false; }
+		if (y < bBox.maxY) {
+			WorldGenStats.onRejected(mapGen.getTagName(), Rejection.HEIGHT);
+			return false;
+		}
 		inNether = (world.provider.dimensionId == -1);
 		bBox.offset(x, y - bBox.maxY, z);
-		int worldHeight = (inNether ? 128 : world.getHeightValue(bBox.getCenterX(), bBox.getCenterZ()));
+		int worldHeight = (inNether ? 128 : SurfaceHeightCache.get(world).getSurfaceHeight(bBox.getCenterX(), bBox.getCenterZ()));
 		if (bBox.maxY > worldHeight) {
 			bBox.offset(0, worldHeight - bBox.maxY - 1, 0);
 		}
-		if (!validateTopLayer(world) && !placeInOcean(world, true)) {
-			return false;
-		} else if (inNether && submerged && !placeInNether(world)) {
+		BlockVolumeSnapshot snapshot = captureSnapshot(world);
+		boolean flag;
+		try {
+			flag = canPlaceRoom(mapGen, snapshot, rand, x, z);
+		} finally {
+			snapshot.release();
+		}
+		if (flag) {
+			doStandardRoomGen(world, rand);
+			WorldGenStats.onGenerated(mapGen.getTagName());
+		}
+		return flag;
+	}
+
+	/**
+	 * Adjusts the room's position and validates its surroundings using the snapshot
+	 * @return true if the room may be generated at its final position
+	 */
+	private boolean canPlaceRoom(ZSSMapGenBase mapGen, BlockVolumeSnapshot snapshot, Random rand, int x, int z) {
+		if ((!validateTopLayer(snapshot) && !placeInOcean(snapshot, true)) || (inNether && submerged && !placeInNether(snapshot))) {
+			WorldGenStats.onRejected(mapGen.getTagName(), Rejection.TERRAIN);
 			return false;
 		}
 
-		StructureGenUtils.adjustForAir(world, this, bBox);
-		checkSpecialCases(world, rand);
-		setMetadata(world, x, z);
+		StructureGenUtils.adjustForAir(snapshot, this, bBox);
+		checkSpecialCases(snapshot.getWorld(), rand);
+		setMetadata(snapshot, x, z);
 		
 		int range = (inOcean ? Config.getMinOceanDistance() : inNether ? Config.getNetherMinDistance() : Config.getMinLandDistance());
-		if (!mapGen.areStructuresWithinRange(this, range) && isWellHidden(world) && canGenerate(world)) {
-			doStandardRoomGen(world, rand);
-			return true;
-		} else {
-			return false;
+		Rejection reason = null;
+		if (mapGen.areStructuresWithinRange(this, range)) {
+			reason = Rejection.NEARBY_STRUCTURE;
+		} else if (!isWellHidden(snapshot)) {
+			reason = Rejection.EXPOSED;
+		} else if (!canGenerate(snapshot)) {
+			reason = Rejection.OBSTRUCTED;
+		}
+		if (reason != null) {
+			WorldGenStats.onRejected(mapGen.getTagName(), reason);
 		}
+		return reason == null;
 	}
 	
 	@Override
-	protected void setMetadata(World world, int x, int z) {
-		BossType type = BossType.getBossType(world, x, z);
-		boolean inWater = inOcean || StructureGenUtils.getNumBlocksOfMaterial(world, bBox, Material.water, 1) > 0;
+	protected void setMetadata(BlockVolumeSnapshot snapshot, int x, int z) {
+		BossType type = BossType.getBossType(snapshot.getWorld(), x, z);
+		boolean inWater = inOcean || StructureGenUtils.getNumBlocksOfMaterial(snapshot, bBox, Material.water, 1) > 0;
 		if (type != null) {
 			switch(type) {
 			case HELL: metadata = 2; break; // nether brick
@@ -0,0 +1,305 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.world.gen.structure;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import net.minecraft.world.ChunkCoordIntPair;
+import zeldaswordskills.util.LogHelper;
+
+/**
+ *
+ * Plans candidate room sites for entire regions of chunks on worker threads, so that the
+ * server thread only needs to validate and place the sites that passed their random rolls.
+ *
+ * Planning never touches the world: each chunk's sites are rolled from a Random seeded by
+ * the world seed, the chunk coordinates and the generator, so a given seed always results
+ * in the same plan no matter which thread computed it or in what order. These rolls differ
+ * from those of the populate Random used before, so room positions for an existing seed
+ * changed when planning was introduced.
+ *
+ */
+public class RoomSitePlanner
+{
+	/** Number of chunks along each side of a region */
+	public static final int REGION_SIZE = 1 << ZSSMapGenBase.REGION_SHIFT;
+
+	/** Maximum number of region plans kept before the oldest is discarded */
+	private static final int MAX_PLANS = 64;
+
+	/** Worker pool shared by all planners; null if there are not enough processors to bother */
+	private static ExecutorService executor;
+
+	/** The generator rolling each chunk's sites */
+	private final IChunkPlanner planner;
+
+	/** World seed for which the current plans were made */
+	private long seed;
+
+	/** Plans completed or in progress, keyed by region coordinates */
+	private final Map<Long, Future<RegionPlan>> plans = new ConcurrentHashMap<Long, Future<RegionPlan>>();
+
+	/** Order in which plans were requested, for discarding the oldest */
+	private final Queue<Long> planOrder = new ConcurrentLinkedQueue<Long>();
+
+	public RoomSitePlanner(IChunkPlanner planner) {
+		this.planner = planner;
+	}
+
+	/**
+	 * Returns the plan for the region containing the chunk, waiting for or computing it if
+	 * necessary, and schedules planning for all neighboring regions. Server thread only.
+	 */
+	public RegionPlan getPlan(long worldSeed, int chunkX, int chunkZ) {
+		if (worldSeed != seed) {
+			seed = worldSeed;
+			plans.clear();
+			planOrder.clear();
+		}
+		int regionX = chunkX >> ZSSMapGenBase.REGION_SHIFT;
+		int regionZ = chunkZ >> ZSSMapGenBase.REGION_SHIFT;
+		for (int i = regionX - 1; i <= regionX + 1; ++i) {
+			for (int j = regionZ - 1; j <= regionZ + 1; ++j) {
+				if (i != regionX || j != regionZ) {
+					schedule(i, j);
+				}
+			}
+		}
+		Long key = ChunkCoordIntPair.chunkXZ2Int(regionX, regionZ);
+		Future<RegionPlan> future = plans.get(key);
+		if (future != null) {
+			// a plan already submitted is waited for rather than made a second time here
+			try {
+				return future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (CancellationException e) {
+				// discarded as one of the oldest plans while still pending
+			} catch (ExecutionException e) {
+				LogHelper.log(Level.WARNING, "Failed to plan room sites for region " + regionX + "/" + regionZ + ": " + e.getCause());
+			}
+		}
+		RegionPlan plan = createPlan(seed, regionX, regionZ);
+		store(key, new CompletedPlan(plan));
+		return plan;
+	}
+
+	/**
+	 * Submits the region for planning on a worker thread, if not already planned
+	 */
+	private void schedule(final int regionX, final int regionZ) {
+		Long key = ChunkCoordIntPair.chunkXZ2Int(regionX, regionZ);
+		ExecutorService pool = getExecutor();
+		if (pool != null && !plans.containsKey(key)) {
+			final long planSeed = seed;
+			store(key, pool.submit(new Callable<RegionPlan>() {
+				@Override
+				public RegionPlan call() {
+					return createPlan(planSeed, regionX, regionZ);
+				}
+			}));
+		}
+	}
+
+	/** Stores the plan, discarding the oldest if there are too many */
+	private void store(Long key, Future<RegionPlan> plan) {
+		if (plans.put(key, plan) == null) {
+			planOrder.add(key);
+		}
+		while (plans.size() > MAX_PLANS) {
+			Long oldest = planOrder.poll();
+			if (oldest == null) {
+				break;
+			}
+			Future<RegionPlan> removed = plans.remove(oldest);
+			if (removed != null) {
+				removed.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * Rolls the sites for every chunk in the region; safe to call from any thread
+	 */
+	private RegionPlan createPlan(long worldSeed, int regionX, int regionZ) {
+		Random rand = new Random(worldSeed);
+		long salt = planner.getPlannerSeed();
+		long a = rand.nextLong() / 2L * 2L + 1L;
+		long b = rand.nextLong() / 2L * 2L + 1L;
+		RegionPlan plan = new RegionPlan(regionX, regionZ);
+		for (int i = 0; i < REGION_SIZE; ++i) {
+			for (int j = 0; j < REGION_SIZE; ++j) {
+				int chunkX = (regionX << ZSSMapGenBase.REGION_SHIFT) + i;
+				int chunkZ = (regionZ << ZSSMapGenBase.REGION_SHIFT) + j;
+				rand.setSeed((long) chunkX * a + (long) chunkZ * b ^ worldSeed ^ salt);
+				plan.beginChunk(chunkX, chunkZ);
+				planner.planSites(rand, chunkX, chunkZ, plan);
+			}
+		}
+		plan.finish();
+		return plan;
+	}
+
+	/**
+	 * Returns the shared worker pool, creating it on first use; null if only one processor is available
+	 */
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			int threads = Math.min(Runtime.getRuntime().availableProcessors() - 1, 2);
+			if (threads < 1) {
+				return null;
+			}
+			executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+				private int count = 0;
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "ZSS Room Planner #" + (++count));
+					thread.setDaemon(true);
+					thread.setPriority(Thread.MIN_PRIORITY);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+
+	/**
+	 *
+	 * Rolls candidate sites for a single chunk. Implementations are called from worker
+	 * threads, so they must only use the Random and coordinates provided and never
+	 * access the world or any other mutable state.
+	 *
+	 */
+	public static interface IChunkPlanner
+	{
+		/** Returns a value unique to this generator, mixed into each chunk's seed */
+		long getPlannerSeed();
+
+		/** Rolls all sites for the chunk, adding the values for each site that passes to the plan */
+		void planSites(Random rand, int chunkX, int chunkZ, RegionPlan plan);
+	}
+
+	/**
+	 *
+	 * Packed site values for every chunk in a region; each generator decides how many values
+	 * make up one of its sites and what they mean.
+	 *
+	 */
+	public static class RegionPlan
+	{
+		public final int regionX, regionZ;
+
+		/** Index into sites of each chunk's first value; the last entry marks the end */
+		private final int[] chunkStart = new int[REGION_SIZE * REGION_SIZE + 1];
+
+		private int[] sites = new int[256];
+
+		private int size;
+
+		private int currentChunk = -1;
+
+		public RegionPlan(int regionX, int regionZ) {
+			this.regionX = regionX;
+			this.regionZ = regionZ;
+		}
+
+		private static int getChunkIndex(int chunkX, int chunkZ) {
+			return ((chunkX & (REGION_SIZE - 1)) << ZSSMapGenBase.REGION_SHIFT) | (chunkZ & (REGION_SIZE - 1));
+		}
+
+		/** Chunks must be begun in order of their index within the region */
+		private void beginChunk(int chunkX, int chunkZ) {
+			int index = getChunkIndex(chunkX, chunkZ);
+			while (currentChunk < index) {
+				chunkStart[++currentChunk] = size;
+			}
+		}
+
+		private void finish() {
+			while (currentChunk < chunkStart.length - 1) {
+				chunkStart[++currentChunk] = size;
+			}
+		}
+
+		/** Adds the next value of the current chunk's site */
+		public void add(int value) {
+			if (size == sites.length) {
+				sites = Arrays.copyOf(sites, size << 1);
+			}
+			sites[size++] = value;
+		}
+
+		/** Index of the first value planned for the chunk */
+		public int getStart(int chunkX, int chunkZ) {
+			return chunkStart[getChunkIndex(chunkX, chunkZ)];
+		}
+
+		/** Index after the last value planned for the chunk */
+		public int getEnd(int chunkX, int chunkZ) {
+			return chunkStart[getChunkIndex(chunkX, chunkZ) + 1];
+		}
+
+		/** Returns the value at the index */
+		public int get(int index) {
+			return sites[index];
+		}
+	}
+
+	/**
+	 *
+	 * Future for a plan computed on the server thread
+	 *
+	 */
+	private static class CompletedPlan implements Future<RegionPlan>
+	{
+		private final RegionPlan plan;
+
+		public CompletedPlan(RegionPlan plan) {
+			this.plan = plan;
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterrupt) { return false; }
+
+		@Override
+		public boolean isCancelled() { return false; }
+
+		@Override
+		public boolean isDone() { return true; }
+
+		@Override
+		public RegionPlan get() { return plan; }
+
+		@Override
+		public RegionPlan get(long timeout, TimeUnit unit) { return plan; }
+	}
+}
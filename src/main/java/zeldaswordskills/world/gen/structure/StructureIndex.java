@@ -0,0 +1,374 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.world.gen.structure;
+
+import java.util.Arrays;
+
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
+
+/**
+ *
+ * Open-addressing map of chunk coordinates to all structures generated in that chunk.
+ *
+ * Each structure is stored as a record of packed ints (its bounding box plus one int of
+ * extra data, such as a BossType ordinal), and records belonging to the same chunk are
+ * chained together. Lookups use the primitive chunk key directly, so neither probing nor
+ * reading a structure's bounds requires any allocation.
+ *
+ * Records are referred to by index; -1 is used to signify 'no record'. Removing a chunk
+ * leaves its records unused until enough have been removed to make compacting worthwhile,
+ * at which point the remaining records are moved and may be given new indices.
+ *
+ */
+public class StructureIndex
+{
+	/** Offsets of each value within a record */
+	private static final int MIN_X = 0, MIN_Y = 1, MIN_Z = 2, MAX_X = 3, MAX_Y = 4, MAX_Z = 5, DATA = 6, NEXT = 7;
+
+	/** Number of ints used by each record */
+	private static final int RECORD_SIZE = 8;
+
+	/** Maximum ratio of occupied slots before the table is expanded */
+	private static final float LOAD_FACTOR = 0.6F;
+
+	/** Chunk key for each slot */
+	private long[] keys;
+
+	/** Index of the first record for each slot, plus one; zero marks an empty slot */
+	private int[] heads;
+
+	/** Packed record data; see offsets above */
+	private int[] records;
+
+	/** Number of occupied slots, i.e. chunks containing at least one structure */
+	private int numChunks;
+
+	/** Total number of records stored */
+	private int numRecords;
+
+	/** Index at which the next record will be stored; records below it may be unused */
+	private int nextRecord;
+
+	/** Largest x-axis size of any record stored */
+	private int maxXSize;
+
+	/** Furthest distance, in blocks, that any record's center lies outside of its chunk on either axis */
+	private int maxSpill;
+
+	public StructureIndex() {
+		this(256);
+	}
+
+	/**
+	 * @param capacity expected number of chunks; rounded up to the next power of two
+	 */
+	public StructureIndex(int capacity) {
+		int size = 16;
+		while (size * LOAD_FACTOR < capacity) {
+			size <<= 1;
+		}
+		keys = new long[size];
+		heads = new int[size];
+		records = new int[capacity * RECORD_SIZE];
+	}
+
+	/** Returns the key used for the chunk coordinates given; same as ChunkCoordIntPair.chunkXZ2Int */
+	public static long getKey(int chunkX, int chunkZ) {
+		return ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ);
+	}
+
+	/** Spreads the key bits so that neighboring chunks do not cluster in the table */
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32));
+	}
+
+	/**
+	 * Returns the slot containing the key, or the empty slot in which it should be placed
+	 */
+	private int findSlot(long key) {
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		while (heads[slot] != 0 && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Adds a structure with the given bounds and data to the chunk, returning the new record index
+	 */
+	public int add(int chunkX, int chunkZ, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int data) {
+		if ((numChunks + 1) > keys.length * LOAD_FACTOR) {
+			rehash(keys.length << 1);
+		}
+		if ((nextRecord + 1) * RECORD_SIZE > records.length) {
+			if (numRecords < nextRecord / 2) {
+				compact();
+			} else {
+				records = Arrays.copyOf(records, Math.max(records.length << 1, RECORD_SIZE * 16));
+			}
+		}
+		long key = getKey(chunkX, chunkZ);
+		int slot = findSlot(key);
+		int record = nextRecord++;
+		++numRecords;
+		int i = record * RECORD_SIZE;
+		records[i + MIN_X] = minX;
+		records[i + MIN_Y] = minY;
+		records[i + MIN_Z] = minZ;
+		records[i + MAX_X] = maxX;
+		records[i + MAX_Y] = maxY;
+		records[i + MAX_Z] = maxZ;
+		records[i + DATA] = data;
+		maxXSize = Math.max(maxXSize, maxX - minX + 1);
+		maxSpill = Math.max(maxSpill, getSpill(chunkX, getCenterX(record)));
+		maxSpill = Math.max(maxSpill, getSpill(chunkZ, getCenterZ(record)));
+		if (heads[slot] == 0) {
+			keys[slot] = key;
+			records[i + NEXT] = -1;
+			++numChunks;
+		} else {
+			records[i + NEXT] = heads[slot] - 1;
+		}
+		heads[slot] = record + 1;
+		return record;
+	}
+
+	/** Returns the distance of the block coordinate outside of the chunk coordinate's bounds, or 0 if within */
+	private static int getSpill(int chunk, int pos) {
+		return Math.max(0, Math.max((chunk << 4) - pos, pos - (chunk << 4) - 15));
+	}
+
+	/**
+	 * Adds a structure with the given bounding box and data to the chunk, returning the new record index
+	 */
+	public int add(int chunkX, int chunkZ, StructureBoundingBox box, int data) {
+		return add(chunkX, chunkZ, box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ, data);
+	}
+
+	/**
+	 * Adds a structure using bounds in the same order as StructureBoundingBox's int array
+	 * format, e.g. as stored in the NBT "BB" tag, returning the new record index
+	 */
+	public int add(int chunkX, int chunkZ, int[] bounds, int data) {
+		return add(chunkX, chunkZ, bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5], data);
+	}
+
+	/**
+	 * Expands the slot table; records are not moved, as chains are stored within the records
+	 */
+	private void rehash(int newSize) {
+		long[] oldKeys = keys;
+		int[] oldHeads = heads;
+		keys = new long[newSize];
+		heads = new int[newSize];
+		for (int i = 0; i < oldKeys.length; ++i) {
+			if (oldHeads[i] != 0) {
+				int slot = findSlot(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				heads[slot] = oldHeads[i];
+			}
+		}
+	}
+
+	/**
+	 * Removes all structures stored for the chunk, returning the number removed
+	 */
+	public int removeChunk(int chunkX, int chunkZ) {
+		int slot = findSlot(getKey(chunkX, chunkZ));
+		if (heads[slot] == 0) {
+			return 0;
+		}
+		int removed = 0;
+		for (int r = heads[slot] - 1; r != -1; r = getNext(r)) {
+			++removed;
+		}
+		heads[slot] = 0;
+		// shift back any following keys that would no longer be reachable from their home slot
+		int mask = keys.length - 1;
+		int hole = slot;
+		for (int i = (slot + 1) & mask; heads[i] != 0; i = (i + 1) & mask) {
+			int home = hash(keys[i]) & mask;
+			boolean reachable = (hole <= i ? (hole < home && home <= i) : (hole < home || home <= i));
+			if (!reachable) {
+				keys[hole] = keys[i];
+				heads[hole] = heads[i];
+				heads[i] = 0;
+				hole = i;
+			}
+		}
+		--numChunks;
+		numRecords -= removed;
+		return removed;
+	}
+
+	/**
+	 * Moves all records still in use to the start of a new array, keeping each chunk's chain
+	 * in the same order, and recalculates the size bounds from the records that remain
+	 */
+	private void compact() {
+		int[] oldRecords = records;
+		records = new int[Math.max(numRecords << 1, 16) * RECORD_SIZE];
+		nextRecord = 0;
+		maxXSize = 0;
+		maxSpill = 0;
+		for (int slot = 0; slot < keys.length; ++slot) {
+			if (heads[slot] == 0) {
+				continue;
+			}
+			int chunkX = (int) keys[slot];
+			int chunkZ = (int)(keys[slot] >> 32);
+			int prev = -1;
+			for (int r = heads[slot] - 1; r != -1; r = oldRecords[r * RECORD_SIZE + NEXT]) {
+				int record = nextRecord++;
+				System.arraycopy(oldRecords, r * RECORD_SIZE, records, record * RECORD_SIZE, RECORD_SIZE);
+				records[record * RECORD_SIZE + NEXT] = -1;
+				if (prev == -1) {
+					heads[slot] = record + 1;
+				} else {
+					records[prev * RECORD_SIZE + NEXT] = record;
+				}
+				prev = record;
+				maxXSize = Math.max(maxXSize, getXSize(record));
+				maxSpill = Math.max(maxSpill, getSpill(chunkX, getCenterX(record)));
+				maxSpill = Math.max(maxSpill, getSpill(chunkZ, getCenterZ(record)));
+			}
+		}
+	}
+
+	/** Returns true if at least one structure is stored for the chunk */
+	public boolean hasChunk(int chunkX, int chunkZ) {
+		return heads[findSlot(getKey(chunkX, chunkZ))] != 0;
+	}
+
+	/** Returns the index of the first record stored for the chunk, or -1 if none */
+	public int getFirst(int chunkX, int chunkZ) {
+		return heads[findSlot(getKey(chunkX, chunkZ))] - 1;
+	}
+
+	/** Returns the index of the next record stored in the same chunk, or -1 if none */
+	public int getNext(int record) {
+		return records[record * RECORD_SIZE + NEXT];
+	}
+
+	/**
+	 * Returns the index of the record whose bounds contain the position, or -1 if none;
+	 * only structures stored for the chunk containing the position are checked
+	 */
+	public int getRecordAt(int x, int y, int z) {
+		for (int r = getFirst(x >> 4, z >> 4); r != -1; r = getNext(r)) {
+			if (isVecInside(r, x, y, z)) {
+				return r;
+			}
+		}
+		return -1;
+	}
+
+	/** Returns true if the position is within the record's bounds */
+	public boolean isVecInside(int record, int x, int y, int z) {
+		int i = record * RECORD_SIZE;
+		return (x >= records[i + MIN_X] && x <= records[i + MAX_X] && z >= records[i + MIN_Z] &&
+				z <= records[i + MAX_Z] && y >= records[i + MIN_Y] && y <= records[i + MAX_Y]);
+	}
+
+	public int getMinX(int record) { return records[record * RECORD_SIZE + MIN_X]; }
+	public int getMinY(int record) { return records[record * RECORD_SIZE + MIN_Y]; }
+	public int getMinZ(int record) { return records[record * RECORD_SIZE + MIN_Z]; }
+	public int getMaxX(int record) { return records[record * RECORD_SIZE + MAX_X]; }
+	public int getMaxY(int record) { return records[record * RECORD_SIZE + MAX_Y]; }
+	public int getMaxZ(int record) { return records[record * RECORD_SIZE + MAX_Z]; }
+	public int getData(int record) { return records[record * RECORD_SIZE + DATA]; }
+
+	/** Same as StructureBoundingBox#getXSize */
+	public int getXSize(int record) {
+		return getMaxX(record) - getMinX(record) + 1;
+	}
+
+	/** Same as StructureBoundingBox#getCenterX */
+	public int getCenterX(int record) {
+		return getMinX(record) + (getMaxX(record) - getMinX(record) + 1) / 2;
+	}
+
+	/** Same as StructureBoundingBox#getCenterY */
+	public int getCenterY(int record) {
+		return getMinY(record) + (getMaxY(record) - getMinY(record) + 1) / 2;
+	}
+
+	/** Same as StructureBoundingBox#getCenterZ */
+	public int getCenterZ(int record) {
+		return getMinZ(record) + (getMaxZ(record) - getMinZ(record) + 1) / 2;
+	}
+
+	/**
+	 * Returns the distance squared between the centers of the record and the box given,
+	 * exactly as StructureGenUtils.getDistanceSqBetween would for two bounding boxes
+	 */
+	public double getDistanceSq(int record, StructureBoundingBox box) {
+		int dx = box.getCenterX() - getCenterX(record);
+		int dy = box.getCenterY() - getCenterY(record);
+		int dz = box.getCenterZ() - getCenterZ(record);
+		return (dx * dx + dy * dy + dz * dz);
+	}
+
+	/** Returns a new StructureBoundingBox with the record's bounds */
+	public StructureBoundingBox getBoundingBox(int record) {
+		return new StructureBoundingBox(getMinX(record), getMinY(record), getMinZ(record), getMaxX(record), getMaxY(record), getMaxZ(record));
+	}
+
+	/** Returns a new array of the record's bounds in StructureBoundingBox's int array format */
+	public int[] getBounds(int record) {
+		int i = record * RECORD_SIZE;
+		return Arrays.copyOfRange(records, i, i + DATA);
+	}
+
+	/** Number of chunks containing at least one structure */
+	public int getNumChunks() {
+		return numChunks;
+	}
+
+	/** Total number of structures stored */
+	public int getNumRecords() {
+		return numRecords;
+	}
+
+	/** Largest x-axis size of any structure stored; may include structures since removed */
+	public int getMaxXSize() {
+		return maxXSize;
+	}
+
+	/**
+	 * Furthest distance, in blocks, that any structure's center lies outside of the chunk under
+	 * which it is stored; used to bound which chunks need to be searched around a position.
+	 * May include structures since removed.
+	 */
+	public int getMaxSpill() {
+		return maxSpill;
+	}
+
+	/** Removes all entries without releasing the allocated storage */
+	public void clear() {
+		Arrays.fill(heads, 0);
+		numChunks = 0;
+		numRecords = 0;
+		nextRecord = 0;
+		maxXSize = 0;
+		maxSpill = 0;
+	}
+}
@@ -17,32 +17,76 @@
 
 package zeldaswordskills.world.gen.structure;
 
-import java.util.HashMap;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.Random;
+import java.util.logging.Level;
 
+import net.minecraft.nbt.CompressedStreamTools;
 import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.LongHashMap;
+import net.minecraft.world.ChunkCoordIntPair;
 import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
 import net.minecraft.world.chunk.IChunkProvider;
 import net.minecraft.world.gen.structure.StructureBoundingBox;
+import net.minecraft.world.storage.MapStorage;
+import zeldaswordskills.util.LogHelper;
+import zeldaswordskills.world.gen.WorldGenStats;
+import zeldaswordskills.world.gen.structure.RoomSitePlanner.IChunkPlanner;
 
-public abstract class ZSSMapGenBase
+public abstract class ZSSMapGenBase implements IChunkPlanner
 {
-	/** Saved and loaded world data containing previously generated structures */
-	private RoomGenData roomData;
+	/** Number of bits to shift chunk coordinates to get region coordinates; regions are 32x32 chunks */
+	public static final int REGION_SHIFT = 5;
+
+	/** World storage of the world whose room data is loaded; legacy room data is migrated from here */
+	private MapStorage storage;
+
+	/**
+	 * Directory to which region data is saved, the same one used by the world's storage, or
+	 * null if regions are only kept in memory. Regions are saved here directly rather than
+	 * through the world's storage so that they can be discarded once no longer needed.
+	 */
+	private File dataDir;
+
+	/**
+	 * Saved and loaded world data containing previously generated structures, one for each region
+	 * that has been accessed recently; regions are loaded on demand, saved only when changed, and
+	 * discarded once saved and unused for a full save interval, see {@link #saveRegions}
+	 */
+	private LongHashMap regionData = new LongHashMap();
+
+	/** Keys of regions found to have no saved data since the last save, so they are not read again */
+	private LongHashMap missingRegions = new LongHashMap();
+
+	/** Keys of every region in {@link #regionData}, in the order loaded */
+	private long[] regionKeys = new long[16];
+
+	private int numRegions;
+
+	/** Number of times the world has been saved since the room data was loaded */
+	private int saveCount;
 
 	/**
-	 * Used to store a list of all structures that have been recursively generated. Used so that during recursive
-	 * generation, the structure generator can avoid generating structures that intersect ones that have already been
-	 * placed. Each chunk coordinate pair key returns a list of bounding boxes.
+	 * Used to store all structures that have been generated, so that the structure generator can avoid
+	 * generating structures that intersect ones that have already been placed. Each chunk coordinate
+	 * pair is mapped to the bounding boxes (and any extra data) of the structures generated there.
+	 * Only structures in regions that have been loaded are present.
 	 */
-	protected Map structureMap = new HashMap();
+	protected final StructureIndex structureIndex = new StructureIndex();
 
 	/** This world object. */
 	protected World worldObj;
 
+	/** Plans each region's candidate room sites ahead of generation; see {@link #planSites} */
+	protected final RoomSitePlanner sitePlanner = new RoomSitePlanner(this);
+
 	/** Generates all relevant structures within the chunk provided */
 	public abstract void generate(IChunkProvider provider, World world, Random rand, int chunkX, int chunkZ);
 
@@ -58,42 +102,276 @@ public abstract class ZSSMapGenBase
 	 */
 	public abstract boolean areStructuresWithinRange(RoomBase room, int range);
 
+	@Override
+	public long getPlannerSeed() {
+		return getTagName().hashCode();
+	}
+
 	/**
-	 * Reads appropriate data from NBT compound and places it in the structure map; this
+	 * Reads appropriate data from NBT compound and places it in the structure index; this
 	 * allows for different storage formats (NBTTagCompound, NBTTagList, etc) in each MapGen
 	 */
 	protected abstract void translateNbtIntoMap(NBTTagCompound compound);
+
+	/**
+	 * Removes the structures read from the NBT compound by {@link #translateNbtIntoMap} when
+	 * its region is discarded; by default, removes everything stored for the compound's chunk
+	 */
+	protected void removeNbtFromMap(NBTTagCompound compound) {
+		if (compound.hasKey("chunkX") && compound.hasKey("chunkZ")) {
+			structureIndex.removeChunk(compound.getInteger("chunkX"), compound.getInteger("chunkZ"));
+		}
+	}
 	
 	/**
-	 * Wrapper method to add compound to roomData, using chunk coordinates as the tag identifier
+	 * Wrapper method to add compound to the room data for the chunk's region, using chunk
+	 * coordinates as the tag identifier; only that region's data will be saved
 	 */
 	protected final void addRoomTag(NBTTagCompound compound, int chunkX, int chunkZ) {
+		RoomGenData roomData = getRegionData(chunkX, chunkZ);
 		roomData.addRoomTag(compound, chunkX, chunkZ);
 		roomData.markDirty();
+		WorldGenStats.onDataSaved(getTagName(), structureIndex.getNumRecords(), regionData.getNumHashElements());
 	}
 	
 	/**
-	 * If roomData is null, it is loaded from world storage if available or a new one is created
+	 * Prepares room data for the world given: if the world's storage has changed, all
+	 * previously loaded data is discarded and any data saved in the legacy single-compound
+	 * format is migrated into regions. Region data itself is loaded on demand.
 	 */
 	protected final void loadOrCreateData(World world) {
-		if (roomData == null) {
-			roomData = (RoomGenData) world.perWorldStorage.loadData(RoomGenData.class, getTagName());
+		if (storage != world.perWorldStorage) {
+			File dir = null;
+			if (world instanceof WorldServer) {
+				dir = new File(((WorldServer) world).getChunkSaveLocation(), "data");
+			}
+			loadOrCreateData(world.perWorldStorage, dir);
+		}
+	}
 
+	/**
+	 * Prepares room data using the world storage given; see {@link #loadOrCreateData(World)}
+	 * @param dir directory to which region data is saved, or null to keep it only in memory
+	 */
+	final void loadOrCreateData(MapStorage worldStorage, File dir) {
+		if (storage != worldStorage) {
+			storage = worldStorage;
+			dataDir = dir;
+			regionData = new LongHashMap();
+			missingRegions = new LongHashMap();
+			numRegions = 0;
+			saveCount = 0;
+			structureIndex.clear();
+			onDataReset();
+			migrateLegacyData();
+		}
+	}
+
+	/**
+	 * Called when all loaded structure data is discarded due to a change of world, before
+	 * any data is loaded again; subclasses should clear any data derived from the index
+	 */
+	protected void onDataReset() {}
+
+	/**
+	 * Ensures the room data for all regions overlapping the given chunk area is loaded
+	 */
+	protected final void loadRegions(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+		for (int i = minChunkX >> REGION_SHIFT; i <= maxChunkX >> REGION_SHIFT; ++i) {
+			for (int j = minChunkZ >> REGION_SHIFT; j <= maxChunkZ >> REGION_SHIFT; ++j) {
+				getExistingRegionData(i << REGION_SHIFT, j << REGION_SHIFT);
+			}
+		}
+	}
+
+	/**
+	 * Returns the room data for the region containing the chunk, loading it from disk if saved,
+	 * or null if no rooms have been generated in the region; any rooms loaded are added to the
+	 * structure index. Use this when only looking for rooms, as no region is created.
+	 */
+	protected final RoomGenData getExistingRegionData(int chunkX, int chunkZ) {
+		int regionX = chunkX >> REGION_SHIFT;
+		int regionZ = chunkZ >> REGION_SHIFT;
+		long key = ChunkCoordIntPair.chunkXZ2Int(regionX, regionZ);
+		RoomGenData roomData = (RoomGenData) regionData.getValueByKey(key);
+		if (roomData == null) {
+			if (missingRegions.containsItem(key)) {
+				return null;
+			}
+			roomData = readRegion(getRegionTagName(regionX, regionZ));
 			if (roomData == null) {
-				roomData = new RoomGenData(getTagName());
-				world.perWorldStorage.setData(getTagName(), roomData);
+				missingRegions.add(key, Boolean.TRUE);
+				return null;
+			}
+			translateRoomData(roomData);
+			addRegion(key, roomData);
+		}
+		roomData.lastUsed = saveCount;
+		return roomData;
+	}
+
+	/**
+	 * Returns the room data for the region containing the chunk, loading it if saved or
+	 * creating a new one; use this only when adding rooms to the region
+	 */
+	protected final RoomGenData getRegionData(int chunkX, int chunkZ) {
+		RoomGenData roomData = getExistingRegionData(chunkX, chunkZ);
+		if (roomData == null) {
+			int regionX = chunkX >> REGION_SHIFT;
+			int regionZ = chunkZ >> REGION_SHIFT;
+			long key = ChunkCoordIntPair.chunkXZ2Int(regionX, regionZ);
+			roomData = new RoomGenData(getRegionTagName(regionX, regionZ));
+			roomData.lastUsed = saveCount;
+			missingRegions.remove(key);
+			addRegion(key, roomData);
+		}
+		return roomData;
+	}
+
+	private void addRegion(long key, RoomGenData roomData) {
+		regionData.add(key, roomData);
+		if (numRegions == regionKeys.length) {
+			regionKeys = Arrays.copyOf(regionKeys, numRegions << 1);
+		}
+		regionKeys[numRegions++] = key;
+	}
+
+	/**
+	 * Reads the region's room data from disk in the same format used by MapStorage,
+	 * returning null if there is none
+	 */
+	private RoomGenData readRegion(String name) {
+		if (dataDir == null) {
+			return null;
+		}
+		File file = new File(dataDir, name + ".dat");
+		if (!file.exists()) {
+			return null;
+		}
+		try {
+			FileInputStream in = new FileInputStream(file);
+			NBTTagCompound compound;
+			try {
+				compound = CompressedStreamTools.readCompressed(in);
+			} finally {
+				in.close();
+			}
+			RoomGenData roomData = new RoomGenData(name);
+			roomData.readFromNBT(compound.getCompoundTag("data"));
+			return roomData;
+		} catch (IOException e) {
+			LogHelper.log(Level.WARNING, "Failed to read room data from " + file.getPath() + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the region's room data to disk in the same format used by MapStorage
+	 */
+	private void writeRegion(RoomGenData roomData) {
+		File file = new File(dataDir, roomData.mapName + ".dat");
+		try {
+			NBTTagCompound data = new NBTTagCompound();
+			roomData.writeToNBT(data);
+			NBTTagCompound compound = new NBTTagCompound();
+			compound.setCompoundTag("data", data);
+			dataDir.mkdirs();
+			FileOutputStream out = new FileOutputStream(file);
+			try {
+				CompressedStreamTools.writeCompressed(compound, out);
+			} finally {
+				out.close();
+			}
+			roomData.setDirty(false);
+		} catch (IOException e) {
+			LogHelper.log(Level.WARNING, "Failed to write room data to " + file.getPath() + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes every region with unsaved changes to disk, then discards every region that has
+	 * not been used since the previous call, removing its rooms from the structure index;
+	 * call when the world is saved. Regions discarded are simply loaded again if needed.
+	 */
+	public final void saveRegions(World world) {
+		if (storage == null || storage != world.perWorldStorage) {
+			return;
+		}
+		int kept = 0;
+		for (int i = 0; i < numRegions; ++i) {
+			RoomGenData roomData = (RoomGenData) regionData.getValueByKey(regionKeys[i]);
+			if (roomData.isDirty() && dataDir != null) {
+				writeRegion(roomData);
+			}
+			if (roomData.lastUsed < saveCount && !roomData.isDirty()) {
+				regionData.remove(regionKeys[i]);
+				removeRoomData(roomData);
 			} else {
-				NBTTagCompound compound = roomData.getRoomData();
-				Iterator iterator = compound.getTags().iterator();
-
-				while (iterator.hasNext()) {
-					NBTBase nbtbase = (NBTBase) iterator.next();
-					if (nbtbase.getId() == 10) {
-						translateNbtIntoMap((NBTTagCompound) nbtbase);
-					}
+				regionKeys[kept++] = regionKeys[i];
+			}
+		}
+		numRegions = kept;
+		missingRegions = new LongHashMap();
+		++saveCount;
+	}
+
+	/** Returns the name under which room data for the region is saved */
+	protected final String getRegionTagName(int regionX, int regionZ) {
+		return getTagName() + "." + regionX + "." + regionZ;
+	}
+
+	/**
+	 * Translates every room compound stored in the room data into the structure index
+	 */
+	private void translateRoomData(RoomGenData roomData) {
+		Iterator iterator = roomData.getRoomData().getTags().iterator();
+		while (iterator.hasNext()) {
+			NBTBase nbtbase = (NBTBase) iterator.next();
+			if (nbtbase.getId() == 10) {
+				translateNbtIntoMap((NBTTagCompound) nbtbase);
+			}
+		}
+	}
+
+	/**
+	 * Removes every room compound stored in the room data from the structure index
+	 */
+	private void removeRoomData(RoomGenData roomData) {
+		Iterator iterator = roomData.getRoomData().getTags().iterator();
+		while (iterator.hasNext()) {
+			NBTBase nbtbase = (NBTBase) iterator.next();
+			if (nbtbase.getId() == 10) {
+				removeNbtFromMap((NBTTagCompound) nbtbase);
+			}
+		}
+	}
+
+	/**
+	 * Moves all rooms stored in the legacy single-compound room data into their regions,
+	 * then empties the legacy data so that the migration only occurs once
+	 */
+	private void migrateLegacyData() {
+		RoomGenData legacyData = (RoomGenData) storage.loadData(RoomGenData.class, getTagName());
+		if (legacyData == null || legacyData.getRoomData().getTags().isEmpty()) {
+			return;
+		}
+		Iterator iterator = legacyData.getRoomData().getTags().iterator();
+		while (iterator.hasNext()) {
+			NBTBase nbtbase = (NBTBase) iterator.next();
+			if (nbtbase.getId() == 10) {
+				NBTTagCompound compound = (NBTTagCompound) nbtbase;
+				int chunkX = compound.getInteger("chunkX");
+				int chunkZ = compound.getInteger("chunkZ");
+				RoomGenData roomData = getRegionData(chunkX, chunkZ);
+				if (!roomData.hasRoomTag(chunkX, chunkZ)) {
+					roomData.addRoomTag(compound, chunkX, chunkZ);
+					roomData.markDirty();
+					translateNbtIntoMap(compound);
 				}
 			}
 		}
+		legacyData.clearRoomData();
+		legacyData.markDirty();
 	}
 	
 	/**
@@ -101,6 +379,7 @@ public abstract class ZSSMapGenBase
 	 */
 	public boolean hasStructureAt(int x, int y, int z) {
 		loadOrCreateData(worldObj);
+		getExistingRegionData(x >> 4, z >> 4);
 		return getStructureBBAt(x, y, z) != null;
 	}
 }
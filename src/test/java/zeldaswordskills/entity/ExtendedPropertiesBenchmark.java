@@ -0,0 +1,81 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package zeldaswordskills.entity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.minecraftforge.common.IExtendedEntityProperties;
+import zeldaswordskills.util.MicroBenchmark;
+
+/**
+ * 
+ * Compares finding an entity's ZSSEntityInfo through the extended property map with
+ * reading a handle kept by the caller, such as {@link ZSSPlayerInfo#getEntityInfo}.
+ * Entities cannot be created without a world, so each one is modeled by the same
+ * String-keyed HashMap that Entity#getExtendedProperties reads, holding the mod's own
+ * properties alongside a few from other mods.
+ *
+ */
+public class ExtendedPropertiesBenchmark
+{
+	private static final int ENTITIES = 512;
+
+	private static final int OPERATIONS = 1 << 20;
+
+	/** Stand-in for an entity: its property map plus the handle a caller would keep */
+	private static final class Holder {
+		private final Map<String, IExtendedEntityProperties> properties = new HashMap<String, IExtendedEntityProperties>();
+		private final ZSSEntityInfo info;
+
+		private Holder(int index) {
+			info = new ZSSEntityInfo(null);
+			properties.put("ZSSEntityInfo", info);
+			properties.put("OtherModInfo", new ZSSEntityInfo(null));
+			properties.put("OtherModStats" + (index & 3), new ZSSEntityInfo(null));
+		}
+	}
+
+	public static void main(String[] args) {
+		final Holder[] holders = new Holder[ENTITIES];
+		for (int i = 0; i < ENTITIES; ++i) {
+			holders[i] = new Holder(i);
+		}
+		MicroBenchmark.run("getExtendedProperties lookup", new MicroBenchmark.Task() {
+			@Override
+			public long run(int operations) {
+				long sum = 0;
+				for (int i = 0; i < operations; ++i) {
+					ZSSEntityInfo info = (ZSSEntityInfo) holders[i & (ENTITIES - 1)].properties.get("ZSSEntityInfo");
+					sum += info.needsUpdate() ? 1 : 2;
+				}
+				return sum;
+			}
+		}, OPERATIONS, 5);
+		MicroBenchmark.run("kept handle", new MicroBenchmark.Task() {
+			@Override
+			public long run(int operations) {
+				long sum = 0;
+				for (int i = 0; i < operations; ++i) {
+					sum += holders[i & (ENTITIES - 1)].info.needsUpdate() ? 1 : 2;
+				}
+				return sum;
+			}
+		}, OPERATIONS, 5);
+		MicroBenchmark.printSink();
+	}
+}
@@ -0,0 +1,162 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package zeldaswordskills.entity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import net.minecraft.entity.passive.EntityPig;
+import net.minecraft.entity.passive.EntityVillager;
+import net.minecraft.nbt.NBTTagCompound;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import zeldaswordskills.entity.buff.Buff;
+import zeldaswordskills.entity.buff.BuffExpiryWheel;
+import zeldaswordskills.util.TestWorld;
+
+/**
+ * 
+ * Checks that updating {@link ZSSEntityInfo} only while {@link ZSSEntityInfo#needsUpdate}
+ * is true, as the living update event does, still expires timed buffs and stun resistance
+ * on time, including buffs applied after the entity was skipped for a long while.
+ * 
+ * Villagers are updated through the same gate for their buffs and stun, then through a
+ * second one for their {@link ZSSVillagerInfo}, which only covers mating; so a villager
+ * that is not mating must still have its buffs and stun resistance expire.
+ *
+ */
+public class ZSSEntityInfoUpdateTest
+{
+	private TestWorld world;
+
+	@Before
+	public void setUp() {
+		world = TestWorld.create();
+	}
+
+	@After
+	public void tearDown() {
+		BuffExpiryWheel.remove(world);
+	}
+
+	@Test
+	public void entitiesWithoutTimedStateAreSkipped() {
+		ZSSEntityInfo info = new ZSSEntityInfo(world.createEntity(EntityPig.class));
+		assertFalse(info.needsUpdate());
+		info.applyBuff(Buff.RESIST_FIRE, Integer.MAX_VALUE, 50);
+		assertFalse(info.needsUpdate());
+		for (long time = 0; time < 1000; ++time) {
+			assertFalse(tick(info, time));
+		}
+		assertTrue(info.isBuffPermanent(Buff.RESIST_FIRE));
+	}
+
+	@Test
+	public void buffAppliedAfterBeingSkippedExpiresOnTime() {
+		ZSSEntityInfo info = new ZSSEntityInfo(world.createEntity(EntityPig.class));
+		ZSSEntityInfo other = new ZSSEntityInfo(world.createEntity(EntityPig.class));
+		other.applyBuff(Buff.ATTACK_UP, 10, 10);
+		for (long time = 0; time < 500; ++time) {
+			// no entity updates the world's wheel once the other buff expires
+			assertFalse(tick(info, time));
+			assertEquals(time <= 10, tick(other, time));
+		}
+		world.setTotalWorldTime(500);
+		info.applyBuff(Buff.ATTACK_UP, 100, 10);
+		info.applyBuff(Buff.DEFENSE_UP, 400, 10);
+		assertEquals(600, expireTime(info, Buff.ATTACK_UP, 500));
+		assertEquals(900, expireTime(info, Buff.DEFENSE_UP, 601));
+		assertFalse(info.needsUpdate());
+	}
+
+	@Test
+	public void loadedBuffsExpireOnTime() {
+		ZSSEntityInfo info = new ZSSEntityInfo(world.createEntity(EntityPig.class));
+		info.applyBuff(Buff.ATTACK_UP, 300, 10);
+		NBTTagCompound compound = new NBTTagCompound();
+		info.saveNBTData(compound);
+		ZSSEntityInfo loaded = new ZSSEntityInfo(world.createEntity(EntityPig.class));
+		world.setTotalWorldTime(100);
+		loaded.loadNBTData(compound);
+		assertTrue(loaded.needsUpdate());
+		assertEquals(400, expireTime(loaded, Buff.ATTACK_UP, 100));
+		assertFalse(loaded.needsUpdate());
+	}
+
+	@Test
+	public void stunResistanceExpiresOnTime() {
+		ZSSEntityInfo info = new ZSSEntityInfo(world.createEntity(EntityPig.class));
+		checkStun(info);
+	}
+
+	@Test
+	public void villagerStunResistanceExpiresOnTime() {
+		ZSSEntityInfo info = new ZSSEntityInfo(world.createEntity(EntityVillager.class));
+		info.applyBuff(Buff.EVADE_UP, 40, 10);
+		checkStun(info);
+		assertFalse(info.isBuffActive(Buff.EVADE_UP));
+	}
+
+	/**
+	 * Stuns the entity for 20 ticks starting at time 0, after which it resists further
+	 * stuns for the 40 ticks up to time 59, during each of which it should be updated
+	 */
+	private void checkStun(ZSSEntityInfo info) {
+		world.setTotalWorldTime(0);
+		info.stun(20);
+		assertTrue(info.isBuffActive(Buff.STUN));
+		assertEquals(20, expireTime(info, Buff.STUN, 0));
+		for (long time = 21; time < 60; ++time) {
+			info.stun(20);
+			assertFalse("Stunned again at " + time, info.isBuffActive(Buff.STUN));
+			assertTrue("Skipped at " + time, tick(info, time));
+		}
+		assertFalse(info.needsUpdate());
+		info.stun(20);
+		assertTrue(info.isBuffActive(Buff.STUN));
+	}
+
+	/**
+	 * Updates the entity each tick from the time given until the buff expires, and returns
+	 * the time at which it did; the entity must not be skipped while the buff is active
+	 */
+	private int expireTime(ZSSEntityInfo info, Buff buff, long start) {
+		for (long time = start; time < start + 10000; ++time) {
+			assertTrue("Skipped at " + time, tick(info, time));
+			if (!info.isBuffActive(buff)) {
+				return (int) time;
+			}
+		}
+		throw new AssertionError(buff + " never expired");
+	}
+
+	/**
+	 * Sets the world time and updates the entity if it needs it, as the living update
+	 * event does; returns true if it was updated
+	 */
+	private boolean tick(ZSSEntityInfo info, long time) {
+		world.setTotalWorldTime(time);
+		boolean updated = info.needsUpdate();
+		if (updated) {
+			info.onUpdate();
+		}
+		return updated;
+	}
+}
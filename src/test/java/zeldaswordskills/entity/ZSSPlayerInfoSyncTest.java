@@ -0,0 +1,148 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package zeldaswordskills.entity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import zeldaswordskills.entity.ZSSPlayerInfo.Stats;
+
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+
+/**
+ * 
+ * Checks the versioned sync of {@link ZSSPlayerInfo} from a server copy to a client copy:
+ * partial syncs carry only what changed, and are ignored if any before them were missed
+ * or arrive again later, until the next full sync. Neither copy needs a player, since
+ * neither writing nor reading sync data refers to it.
+ *
+ */
+public class ZSSPlayerInfoSyncTest
+{
+	private ZSSPlayerInfo server;
+
+	private ZSSPlayerInfo client;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new ZSSPlayerInfo(null);
+		client = new ZSSPlayerInfo(null);
+		assertTrue(read(client, write(server, true), true));
+	}
+
+	@Test
+	public void partialSyncsRoundTrip() throws IOException {
+		server.addStat(Stats.STAT_SECRET_ROOMS, 3);
+		server.addStat(Stats.STAT_BOSS_ROOMS, 4);
+		assertTrue(read(client, write(server, false), false));
+		assertSameData();
+		server.receiveFairyOrb();
+		server.completeCurrentMaskStage();
+		assertTrue(read(client, write(server, false), false));
+		assertSameData();
+		// the empty syncs sent periodically still advance the version and verify the checksum
+		assertTrue(read(client, write(server, false), false));
+		server.addStat(Stats.STAT_SECRET_ROOMS, 1);
+		assertTrue(read(client, write(server, false), false));
+		assertSameData();
+	}
+
+	@Test
+	public void partialSyncAfterMissedOneIsIgnored() throws IOException {
+		server.addStat(Stats.STAT_SECRET_ROOMS, 1);
+		write(server, false); // lost
+		server.completeCurrentMaskStage();
+		assertFalse(read(client, write(server, false), false));
+		assertEquals(0, client.getStat(Stats.STAT_SECRET_ROOMS));
+		assertEquals(0, client.getCurrentMaskStage());
+		// later partial syncs are still out of sequence
+		server.addStat(Stats.STAT_BOSS_ROOMS, 2);
+		assertFalse(read(client, write(server, false), false));
+		assertEquals(0, client.getStat(Stats.STAT_BOSS_ROOMS));
+		// until a full sync, after which partial syncs apply again
+		assertTrue(read(client, write(server, true), true));
+		assertSameData();
+		server.addStat(Stats.STAT_SECRET_ROOMS, 5);
+		assertTrue(read(client, write(server, false), false));
+		assertSameData();
+	}
+
+	@Test
+	public void partialSyncsOutOfOrderAreIgnored() throws IOException {
+		server.addStat(Stats.STAT_SECRET_ROOMS, 1);
+		byte[] first = write(server, false);
+		server.addStat(Stats.STAT_SECRET_ROOMS, 1);
+		byte[] second = write(server, false);
+		assertFalse(read(client, second, false));
+		assertEquals(0, client.getStat(Stats.STAT_SECRET_ROOMS));
+		assertTrue(read(client, first, false));
+		assertEquals(1, client.getStat(Stats.STAT_SECRET_ROOMS));
+	}
+
+	@Test
+	public void stalePartialSyncIsIgnored() throws IOException {
+		server.addStat(Stats.STAT_SECRET_ROOMS, 1);
+		byte[] first = write(server, false);
+		assertTrue(read(client, first, false));
+		server.addStat(Stats.STAT_SECRET_ROOMS, 1);
+		assertTrue(read(client, write(server, false), false));
+		assertEquals(2, client.getStat(Stats.STAT_SECRET_ROOMS));
+		// a duplicate of an earlier sync must not roll the value back
+		assertFalse(read(client, first, false));
+		assertEquals(2, client.getStat(Stats.STAT_SECRET_ROOMS));
+		// nor one from before the last full sync
+		assertTrue(read(client, write(server, true), true));
+		assertFalse(read(client, first, false));
+		assertSameData();
+	}
+
+	@Test
+	public void checksumMismatchIsReported() throws IOException {
+		// client data that drifted from the server's is not corrected by a partial sync of other fields
+		client.addStat(Stats.STAT_SECRET_ROOMS, 7);
+		server.completeCurrentMaskStage();
+		assertFalse(read(client, write(server, false), false));
+		assertEquals(1, client.getCurrentMaskStage());
+		assertTrue(read(client, write(server, true), true));
+		assertEquals(0, client.getStat(Stats.STAT_SECRET_ROOMS));
+	}
+
+	private void assertSameData() {
+		for (Stats stat : Stats.values()) {
+			assertEquals(stat.toString(), server.getStat(stat), client.getStat(stat));
+		}
+		assertEquals(server.getCurrentMaskStage(), client.getCurrentMaskStage());
+		assertEquals(server.hasReceivedAllOrbs(), client.hasReceivedAllOrbs());
+	}
+
+	private static byte[] write(ZSSPlayerInfo info, boolean full) {
+		ByteArrayDataOutput out = ByteStreams.newDataOutput();
+		info.writeSyncData(out, full);
+		return out.toByteArray();
+	}
+
+	private static boolean read(ZSSPlayerInfo info, byte[] data, boolean full) throws IOException {
+		return info.readSyncData(ByteStreams.newDataInput(data), full);
+	}
+}
@@ -0,0 +1,144 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package zeldaswordskills.entity.buff;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import net.minecraft.entity.passive.EntityPig;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import zeldaswordskills.entity.ZSSEntityInfo;
+import zeldaswordskills.util.TestWorld;
+
+/**
+ * 
+ * Checks that buffs scheduled on {@link BuffExpiryWheel}s expire when they should: buffs
+ * lasting more than one turn of the wheel, buffs whose expiry was skipped over while the
+ * world was not updated, and buffs of entities that changed dimension. Buffs of entities
+ * no longer in the world are never expired, and wheels are discarded with their world.
+ *
+ */
+public class BuffExpiryWheelTest
+{
+	private TestWorld world;
+
+	private TestWorld otherWorld;
+
+	private EntityPig pig;
+
+	private ZSSEntityInfo info;
+
+	@Before
+	public void setUp() {
+		world = TestWorld.create();
+		otherWorld = TestWorld.create();
+		pig = world.createEntity(EntityPig.class);
+		info = new ZSSEntityInfo(pig);
+	}
+
+	@After
+	public void tearDown() {
+		BuffExpiryWheel.remove(world);
+		BuffExpiryWheel.remove(otherWorld);
+	}
+
+	@Test
+	public void buffLongerThanOneTurnExpiresOnTime() {
+		info.applyBuff(Buff.ATTACK_UP, 1000, 10);
+		for (long time = 0; time < 1000; ++time) {
+			tick(world, time);
+			assertTrue("Expired at " + time, info.isBuffActive(Buff.ATTACK_UP));
+		}
+		assertEquals(1, info.getActiveBuff(Buff.ATTACK_UP).getDuration());
+		tick(world, 1000);
+		assertFalse(info.isBuffActive(Buff.ATTACK_UP));
+		assertFalse(info.needsUpdate());
+	}
+
+	@Test
+	public void buffsExpireWhenTheirTimeIsSkipped() {
+		world.setTotalWorldTime(10);
+		info.applyBuff(Buff.ATTACK_UP, 300, 10);
+		info.applyBuff(Buff.DEFENSE_UP, 1990, 10);
+		tick(world, 10);
+		// more than one turn of the wheel passes without an update
+		tick(world, 1000);
+		assertFalse(info.isBuffActive(Buff.ATTACK_UP));
+		assertTrue(info.isBuffActive(Buff.DEFENSE_UP));
+		for (long time = 1001; time < 2000; ++time) {
+			tick(world, time);
+			assertTrue("Expired at " + time, info.isBuffActive(Buff.DEFENSE_UP));
+		}
+		tick(world, 2000);
+		assertFalse(info.isBuffActive(Buff.DEFENSE_UP));
+	}
+
+	@Test
+	public void buffExpiresInNewWorldAfterDimensionChange() {
+		info.applyBuff(Buff.ATTACK_UP, 300, 10);
+		tick(world, 0);
+		world.removeEntityDirect(pig);
+		otherWorld.addEntityDirect(pig);
+		for (long time = 1; time < 300; ++time) {
+			world.setTotalWorldTime(time);
+			BuffExpiryWheel.get(world).advance(world, time);
+			tick(otherWorld, time);
+			assertTrue("Expired at " + time, info.isBuffActive(Buff.ATTACK_UP));
+		}
+		// the previous world may keep running, or unload, without affecting the buff
+		BuffExpiryWheel.get(world).advance(world, 300);
+		BuffExpiryWheel.remove(world);
+		assertTrue(info.isBuffActive(Buff.ATTACK_UP));
+		tick(otherWorld, 300);
+		assertFalse(info.isBuffActive(Buff.ATTACK_UP));
+	}
+
+	@Test
+	public void buffsOfEntitiesNoLongerInWorldDoNotExpire() {
+		EntityPig deadPig = world.createEntity(EntityPig.class);
+		ZSSEntityInfo deadInfo = new ZSSEntityInfo(deadPig);
+		info.applyBuff(Buff.ATTACK_UP, 100, 10);
+		deadInfo.applyBuff(Buff.ATTACK_UP, 100, 10);
+		world.removeEntityDirect(pig);
+		deadPig.isDead = true;
+		BuffExpiryWheel.get(world).advance(world, 100);
+		assertTrue(info.isBuffActive(Buff.ATTACK_UP));
+		assertTrue(deadInfo.isBuffActive(Buff.ATTACK_UP));
+	}
+
+	@Test
+	public void wheelIsDiscardedWithWorld() {
+		BuffExpiryWheel wheel = BuffExpiryWheel.get(world);
+		assertSame(wheel, BuffExpiryWheel.get(world));
+		assertSame(BuffExpiryWheel.get(otherWorld), BuffExpiryWheel.get(otherWorld));
+		assertNotSame(wheel, BuffExpiryWheel.get(otherWorld));
+		BuffExpiryWheel.remove(world);
+		assertNotSame(wheel, BuffExpiryWheel.get(world));
+	}
+
+	/** Sets the world's time and updates the entity there, as on each server tick */
+	private void tick(TestWorld world, long time) {
+		world.setTotalWorldTime(time);
+		info.onUpdate();
+	}
+}
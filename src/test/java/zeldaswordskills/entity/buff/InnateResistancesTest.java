@@ -0,0 +1,135 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package zeldaswordskills.entity.buff;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import net.minecraft.entity.monster.EntitySkeleton;
+import net.minecraft.entity.passive.EntityPig;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import zeldaswordskills.entity.ZSSEntityInfo;
+import zeldaswordskills.util.TestWorld;
+
+/**
+ * 
+ * Checks that innate resistances take precedence over active buffs of the same type,
+ * and that mobs of the same class get separate shared profiles depending on whether
+ * they are immune to fire, as Skeletons and Wither Skeletons do.
+ *
+ */
+public class InnateResistancesTest
+{
+	private TestWorld world;
+
+	@Before
+	public void setUp() {
+		world = TestWorld.create();
+	}
+
+	@After
+	public void tearDown() {
+		BuffExpiryWheel.remove(world);
+	}
+
+	@Test
+	public void profilesAreNotChangedByCopies() {
+		InnateResistances profile = InnateResistances.NONE.with(Buff.RESIST_FIRE, 75);
+		assertFalse(InnateResistances.NONE.hasBuff(Buff.RESIST_FIRE));
+		assertEquals(0, InnateResistances.NONE.getAmplifier(Buff.RESIST_FIRE));
+		assertEquals(50, profile.with(Buff.RESIST_FIRE, 50).getAmplifier(Buff.RESIST_FIRE));
+		assertFalse(profile.without(Buff.RESIST_FIRE).hasBuff(Buff.RESIST_FIRE));
+		assertTrue(profile.hasBuff(Buff.RESIST_FIRE));
+		assertEquals(75, profile.getAmplifier(Buff.RESIST_FIRE));
+	}
+
+	@Test
+	public void buffAmplifierPrefersInnateValue() {
+		ZSSEntityInfo info = new ZSSEntityInfo(world.createEntity(EntityPig.class));
+		info.applyBuff(Buff.RESIST_FIRE, 100, 90);
+		info.applyBuff(Buff.RESIST_COLD, 100, 20);
+		info.setInnateResistances(InnateResistances.NONE.with(Buff.RESIST_FIRE, 75).with(Buff.WEAKNESS_HOLY, 0).with(Buff.RESIST_STUN, 50));
+		// innate values win even when lower, or zero
+		assertEquals(75, info.getBuffAmplifier(Buff.RESIST_FIRE));
+		info.applyBuff(Buff.WEAKNESS_HOLY, 100, 40);
+		assertEquals(0, info.getBuffAmplifier(Buff.WEAKNESS_HOLY));
+		// other buffs are unaffected
+		assertEquals(20, info.getBuffAmplifier(Buff.RESIST_COLD));
+		assertEquals(50, info.getBuffAmplifier(Buff.RESIST_STUN));
+		assertEquals(0, info.getBuffAmplifier(Buff.WEAKNESS_COLD));
+		// innate values are kept apart from the active buffs, which are still there without them
+		assertFalse(info.isBuffActive(Buff.RESIST_STUN));
+		assertEquals(90, info.getActiveBuff(Buff.RESIST_FIRE).getAmplifier());
+		info.setInnateResistances(InnateResistances.NONE);
+		assertEquals(90, info.getBuffAmplifier(Buff.RESIST_FIRE));
+		assertEquals(40, info.getBuffAmplifier(Buff.WEAKNESS_HOLY));
+		assertEquals(0, info.getBuffAmplifier(Buff.RESIST_STUN));
+	}
+
+	@Test
+	public void fireImmuneMobsHaveSeparateProfile() {
+		TestSkeleton skeleton = world.createEntity(TestSkeleton.class);
+		TestSkeleton witherSkeleton = world.createEntity(TestSkeleton.class);
+		witherSkeleton.setImmuneToFire();
+		InnateResistances normal = InnateResistances.forEntity(skeleton);
+		InnateResistances fireImmune = InnateResistances.forEntity(witherSkeleton);
+		assertNotSame(normal, fireImmune);
+		assertSame(normal, InnateResistances.forEntity(world.createEntity(TestSkeleton.class)));
+		assertSame(fireImmune, InnateResistances.forEntity(witherSkeleton));
+
+		assertEquals(50, normal.getAmplifier(Buff.WEAKNESS_FIRE));
+		assertFalse(normal.hasBuff(Buff.RESIST_FIRE));
+		assertFalse(normal.hasBuff(Buff.WEAKNESS_COLD));
+		assertEquals(50, normal.getAmplifier(Buff.RESIST_COLD));
+
+		assertFalse(fireImmune.hasBuff(Buff.WEAKNESS_FIRE));
+		assertEquals(75, fireImmune.getAmplifier(Buff.RESIST_FIRE));
+		assertEquals(100, fireImmune.getAmplifier(Buff.WEAKNESS_COLD));
+		// undead traits apply to both
+		for (InnateResistances profile : new InnateResistances[] {normal, fireImmune}) {
+			assertEquals(300, profile.getAmplifier(Buff.WEAKNESS_HOLY));
+			assertEquals(50, profile.getAmplifier(Buff.RESIST_STUN));
+		}
+	}
+
+	@Test
+	public void mobsWithoutTraitsShareEmptyProfile() {
+		assertSame(InnateResistances.NONE, InnateResistances.forEntity(world.createEntity(EntityPig.class)));
+	}
+
+	/**
+	 * Skeleton whose fire immunity can be set without its data watcher, which
+	 * the Wither Skeleton type needs; its own class keeps its profiles apart
+	 */
+	public static class TestSkeleton extends EntitySkeleton
+	{
+		/** Never called; instances are created by {@link TestWorld#createEntity} */
+		private TestSkeleton() {
+			super(null);
+		}
+
+		public void setImmuneToFire() {
+			isImmuneToFire = true;
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.handler;
+
+import java.util.EnumSet;
+
+import net.minecraft.util.DamageSource;
+import zeldaswordskills.api.damage.EnumDamageType;
+import zeldaswordskills.entity.ZSSEntityInfo;
+import zeldaswordskills.entity.buff.Buff;
+import zeldaswordskills.handler.DamageModifiersTest.TestMaskSource;
+import zeldaswordskills.handler.DamageModifiersTest.TestSource;
+import zeldaswordskills.util.MicroBenchmark;
+
+/**
+ * 
+ * Measures damage modifier hits per second for the single pass
+ * {@link ZSSCombatEvents#applyDamageModifiers}, with sources that provide a precomputed
+ * mask and sources that only provide a Set, against the previous three method chain.
+ *
+ */
+public class DamageModifiersBenchmark
+{
+	private static final int HITS = 1 << 20;
+
+	public static void main(String[] args) {
+		final ZSSEntityInfo attacker = DamageModifiersTest.withBuffs(Buff.ATTACK_UP, 50);
+		final ZSSEntityInfo victim = DamageModifiersTest.withBuffs(Buff.RESIST_COLD, 25, Buff.WEAKNESS_SHOCK, 50, Buff.DEFENSE_UP, 20);
+		final DamageSource[] setSources = {
+				new TestSource(EnumSet.noneOf(EnumDamageType.class), false, false),
+				new TestSource(EnumSet.of(EnumDamageType.COLD), false, true),
+				new TestSource(EnumSet.of(EnumDamageType.SHOCK, EnumDamageType.STUN), false, false),
+				new TestSource(EnumSet.of(EnumDamageType.HOLY), true, true)
+		};
+		final DamageSource[] maskSources = {
+				new TestMaskSource(EnumSet.noneOf(EnumDamageType.class), false, false),
+				new TestMaskSource(EnumSet.of(EnumDamageType.COLD), false, true),
+				new TestMaskSource(EnumSet.of(EnumDamageType.SHOCK, EnumDamageType.STUN), false, false),
+				new TestMaskSource(EnumSet.of(EnumDamageType.HOLY), true, true)
+		};
+		MicroBenchmark.run("previous chain", new MicroBenchmark.Task() {
+			@Override
+			public long run(int hits) {
+				long sum = 0;
+				for (int i = 0; i < hits; ++i) {
+					sum += Float.floatToIntBits(DamageModifiersTest.applyPreviousChain(10.0F, setSources[i & 3], attacker, victim));
+				}
+				return sum;
+			}
+		}, HITS, 10);
+		MicroBenchmark.run("single pass, Set sources", new MicroBenchmark.Task() {
+			@Override
+			public long run(int hits) {
+				long sum = 0;
+				for (int i = 0; i < hits; ++i) {
+					sum += Float.floatToIntBits(ZSSCombatEvents.applyDamageModifiers(10.0F, setSources[i & 3], attacker, victim));
+				}
+				return sum;
+			}
+		}, HITS, 10);
+		MicroBenchmark.run("single pass, mask sources", new MicroBenchmark.Task() {
+			@Override
+			public long run(int hits) {
+				long sum = 0;
+				for (int i = 0; i < hits; ++i) {
+					sum += Float.floatToIntBits(ZSSCombatEvents.applyDamageModifiers(10.0F, maskSources[i & 3], attacker, victim));
+				}
+				return sum;
+			}
+		}, HITS, 10);
+		MicroBenchmark.printSink();
+	}
+}
@@ -0,0 +1,197 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.handler;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import net.minecraft.util.DamageSource;
+
+import org.junit.Test;
+
+import zeldaswordskills.api.damage.EnumDamageType;
+import zeldaswordskills.api.damage.IDamageType;
+import zeldaswordskills.api.damage.IDamageTypeMask;
+import zeldaswordskills.entity.ZSSEntityInfo;
+import zeldaswordskills.entity.buff.Buff;
+import zeldaswordskills.entity.buff.InnateResistances;
+
+/**
+ * 
+ * Checks the single pass {@link ZSSCombatEvents#applyDamageModifiers} against the previous
+ * three method chain (attack buffs, then weaknesses, then resistances), for every buff on
+ * either entity against every damage type, with and without fire and magic damage.
+ *
+ */
+public class DamageModifiersTest
+{
+	private static final float DAMAGE = 10.0F;
+
+	private static final int[] AMPLIFIERS = {0, 25, 50, 100, 150};
+
+	@Test
+	public void matchesPreviousChainForEveryBuffAndType() {
+		for (Buff buff : Buff.values()) {
+			for (int amplifier : AMPLIFIERS) {
+				for (EnumDamageType type : EnumDamageType.values()) {
+					checkAll(buff, amplifier, EnumSet.of(type));
+				}
+				checkAll(buff, amplifier, EnumSet.noneOf(EnumDamageType.class));
+				checkAll(buff, amplifier, EnumSet.allOf(EnumDamageType.class));
+			}
+		}
+	}
+
+	@Test
+	public void matchesPreviousChainWithSeveralBuffs() {
+		ZSSEntityInfo attacker = withBuffs(Buff.ATTACK_UP, 50, Buff.ATTACK_DOWN, 25);
+		for (EnumDamageType type : EnumDamageType.values()) {
+			Buff weakness = type.getWeakness(), resistance = type.getResistance();
+			if (weakness == null || resistance == null) {
+				continue;
+			}
+			ZSSEntityInfo victim = withBuffs(weakness, 50, resistance, 75);
+			victim.setInnateResistances(victim.getInnateResistances().with(Buff.DEFENSE_UP, 20).with(Buff.RESIST_FIRE, 50));
+			for (int flags = 0; flags < 4; ++flags) {
+				check(attacker, victim, EnumSet.of(type), (flags & 1) != 0, (flags & 2) != 0);
+			}
+		}
+	}
+
+	/** Checks the buff on the attacker and on the victim, with each combination of fire and magic */
+	private static void checkAll(Buff buff, int amplifier, Set<EnumDamageType> types) {
+		ZSSEntityInfo none = withBuffs();
+		ZSSEntityInfo buffed = withBuffs(buff, amplifier);
+		for (int flags = 0; flags < 4; ++flags) {
+			boolean fire = (flags & 1) != 0, magic = (flags & 2) != 0;
+			check(buffed, none, types, fire, magic);
+			check(none, buffed, types, fire, magic);
+			check(null, buffed, types, fire, magic);
+		}
+	}
+
+	private static void check(ZSSEntityInfo attacker, ZSSEntityInfo victim, Set<EnumDamageType> types, boolean fire, boolean magic) {
+		String message = types + " fire=" + fire + " magic=" + magic;
+		DamageSource source = new TestSource(types, fire, magic);
+		float expected = applyPreviousChain(DAMAGE, source, attacker, victim);
+		assertEquals(message, expected, ZSSCombatEvents.applyDamageModifiers(DAMAGE, source, attacker, victim), 0.0F);
+		DamageSource masked = new TestMaskSource(types, fire, magic);
+		assertEquals(message + " (mask)", expected, ZSSCombatEvents.applyDamageModifiers(DAMAGE, masked, attacker, victim), 0.0F);
+	}
+
+	/** Returns info with no entity whose buffs are the buff / amplifier pairs given */
+	static ZSSEntityInfo withBuffs(Object... buffs) {
+		InnateResistances profile = InnateResistances.NONE;
+		for (int i = 0; i < buffs.length; i += 2) {
+			profile = profile.with((Buff) buffs[i], (Integer) buffs[i + 1]);
+		}
+		ZSSEntityInfo info = new ZSSEntityInfo(null);
+		info.setInnateResistances(profile);
+		return info;
+	}
+
+	/**
+	 * The modifiers as applied before the single pass: attack buffs, then applyDamageWeaknesses,
+	 * then applyDamageResistances, each reading the types from the source's Set and the buffs
+	 * from the damage type maps
+	 */
+	static float applyPreviousChain(float amount, DamageSource source, ZSSEntityInfo attacker, ZSSEntityInfo victim) {
+		if (attacker != null) {
+			amount *= 1.0F - (attacker.getBuffAmplifier(Buff.ATTACK_DOWN) * 0.01F);
+			amount *= 1.0F + (attacker.getBuffAmplifier(Buff.ATTACK_UP) * 0.01F);
+		}
+		// applyDamageWeaknesses
+		if (source instanceof IDamageType) {
+			Set<EnumDamageType> damageTypes = ((IDamageType) source).getEnumDamageTypes();
+			if (damageTypes != null) {
+				for (EnumDamageType type : damageTypes) {
+					if (EnumDamageType.damageWeaknessMap.get(type) != null) {
+						amount *= 1.0F + (victim.getBuffAmplifier(EnumDamageType.damageWeaknessMap.get(type)) * 0.01F);
+					}
+				}
+			}
+		}
+		if (source.isFireDamage()) {
+			amount *= 1.0F + (victim.getBuffAmplifier(Buff.WEAKNESS_FIRE) * 0.01F);
+		}
+		if (source.isMagicDamage()) {
+			amount *= 1.0F + (victim.getBuffAmplifier(Buff.WEAKNESS_MAGIC) * 0.01F);
+		}
+		// applyDamageResistances
+		float defenseUp = (victim.getBuffAmplifier(Buff.DEFENSE_UP) * 0.01F);
+		float defenseDown = (victim.getBuffAmplifier(Buff.DEFENSE_DOWN) * 0.01F);
+		amount *= (1.0F + defenseDown - defenseUp);
+		if (source instanceof IDamageType && amount > 0.0F) {
+			Set<EnumDamageType> damageTypes = ((IDamageType) source).getEnumDamageTypes();
+			if (damageTypes != null) {
+				for (EnumDamageType type : damageTypes) {
+					if (EnumDamageType.damageResistMap.get(type) != null) {
+						amount *= 1.0F - (victim.getBuffAmplifier(EnumDamageType.damageResistMap.get(type)) * 0.01F);
+					}
+				}
+			}
+		}
+		if (source.isFireDamage()) {
+			amount *= 1.0F - (victim.getBuffAmplifier(Buff.RESIST_FIRE) * 0.01F);
+		}
+		if (source.isMagicDamage()) {
+			amount *= 1.0F - (victim.getBuffAmplifier(Buff.RESIST_MAGIC) * 0.01F);
+		}
+		return amount;
+	}
+
+	/** Damage source that only provides its types as a Set, like third party sources */
+	static class TestSource extends DamageSource implements IDamageType
+	{
+		private final Set<EnumDamageType> types;
+
+		public TestSource(Set<EnumDamageType> types, boolean fire, boolean magic) {
+			super("test");
+			this.types = types;
+			if (fire) {
+				setFireDamage();
+			}
+			if (magic) {
+				setMagicDamage();
+			}
+		}
+
+		@Override
+		public Set<EnumDamageType> getEnumDamageTypes() {
+			return types;
+		}
+	}
+
+	/** Damage source that also provides a precomputed mask, like those in DamageUtils */
+	static class TestMaskSource extends TestSource implements IDamageTypeMask
+	{
+		private final int mask;
+
+		public TestMaskSource(Set<EnumDamageType> types, boolean fire, boolean magic) {
+			super(types, fire, magic);
+			this.mask = EnumDamageType.getMask(types);
+		}
+
+		@Override
+		public int getDamageTypeMask() {
+			return mask;
+		}
+	}
+}
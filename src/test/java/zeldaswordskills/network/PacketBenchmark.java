@@ -0,0 +1,84 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.network;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import zeldaswordskills.util.MicroBenchmark;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * 
+ * Measures encode and decode throughput for each packet type that can be built without
+ * a world: encoding is {@link CustomPacket#toByteArray}, as done for every packet sent,
+ * and decoding is {@link CustomPacket#constructPacket} followed by reading the data,
+ * as done by {@link ZSSPacketHandler} for every packet received.
+ *
+ */
+public class PacketBenchmark
+{
+	private static final int OPERATIONS = 1 << 18;
+
+	public static void main(String[] args) {
+		CustomPacket[] packets = {
+				new AddExhaustionPacket(0.3F),
+				new InLiquidPacket((byte) 1),
+				new OpenGuiPacket(3),
+				new SpawnLeapingBlowPacket(true),
+				UnpressKeyPacket.UNPRESS_LMB,
+				GetBombPacket.INSTANCE,
+				ResyncPlayerInfoPacket.INSTANCE,
+				new AttackBlockedPacket(new ItemStack(Item.swordIron, 1, 200)),
+				new BorrowMaskPacket(new ItemStack(Item.diamond)),
+				new MultiPacket().add(new AddExhaustionPacket(0.3F).toByteArray())
+						.add(new OpenGuiPacket(3).toByteArray()).add(UnpressKeyPacket.UNPRESS_LMB.toByteArray())
+		};
+		for (final CustomPacket packet : packets) {
+			final byte[] data = packet.toByteArray();
+			String name = packet.getClass().getSimpleName() + " (" + data.length + " bytes)";
+			MicroBenchmark.run(name + " encode", new MicroBenchmark.Task() {
+				@Override
+				public long run(int operations) {
+					long sum = 0;
+					for (int i = 0; i < operations; ++i) {
+						sum += packet.toByteArray().length;
+					}
+					return sum;
+				}
+			}, OPERATIONS, 5);
+			MicroBenchmark.run(name + " decode", new MicroBenchmark.Task() {
+				@Override
+				public long run(int operations) {
+					long sum = 0;
+					try {
+						for (int i = 0; i < operations; ++i) {
+							CustomPacket decoded = CustomPacket.constructPacket(data[0] & 0xFF);
+							decoded.read(ByteStreams.newDataInput(data, 1));
+							sum += decoded.getPacketId();
+						}
+					} catch (Exception e) {
+						throw new RuntimeException(e);
+					}
+					return sum;
+				}
+			}, OPERATIONS, 5);
+		}
+		MicroBenchmark.printSink();
+	}
+}
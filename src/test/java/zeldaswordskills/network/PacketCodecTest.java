@@ -0,0 +1,286 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.Vec3;
+
+import org.junit.Test;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+
+/**
+ * 
+ * Round trip and malformed input tests for each {@link PacketCodec} encoding
+ *
+ */
+public class PacketCodecTest
+{
+	private static final int[] INTS = {0, 1, 127, 128, 255, 16383, 16384, 2097151, 2097152, Integer.MAX_VALUE, -1, -64, -65, Integer.MIN_VALUE};
+
+	@Test
+	public void varIntRoundTrip() throws IOException {
+		for (int value : INTS) {
+			ByteArrayDataOutput out = ByteStreams.newDataOutput();
+			PacketCodec.writeVarInt(out, value);
+			ByteArrayDataInput in = ByteStreams.newDataInput(out.toByteArray());
+			assertEquals(value, PacketCodec.readVarInt(in));
+		}
+	}
+
+	@Test
+	public void varIntSize() {
+		assertEquals(1, varIntSize(0));
+		assertEquals(1, varIntSize(127));
+		assertEquals(2, varIntSize(128));
+		assertEquals(3, varIntSize(2097151));
+		assertEquals(5, varIntSize(Integer.MAX_VALUE));
+		assertEquals(5, varIntSize(-1));
+	}
+
+	@Test
+	public void signedVarIntRoundTrip() throws IOException {
+		for (int value : INTS) {
+			ByteArrayDataOutput out = ByteStreams.newDataOutput();
+			PacketCodec.writeSignedVarInt(out, value);
+			assertEquals(value, PacketCodec.readSignedVarInt(ByteStreams.newDataInput(out.toByteArray())));
+		}
+	}
+
+	@Test
+	public void signedVarIntIsSmallForSmallNegatives() {
+		ByteArrayDataOutput out = ByteStreams.newDataOutput();
+		PacketCodec.writeSignedVarInt(out, -64);
+		assertEquals(1, out.toByteArray().length);
+	}
+
+	@Test(expected = IOException.class)
+	public void varIntTooLong() throws IOException {
+		byte[] data = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01};
+		PacketCodec.readVarInt(ByteStreams.newDataInput(data));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void varIntTruncated() throws IOException {
+		PacketCodec.readVarInt(ByteStreams.newDataInput(new byte[] {(byte) 0x80}));
+	}
+
+	@Test
+	public void coordinateRoundTrip() throws IOException {
+		double[] values = {0.0D, 0.5D, -0.5D, 1.0D / 256.0D, -1.0D / 256.0D, 64.25D, -1000.75D, 29999999.0D, -29999999.0D};
+		for (double value : values) {
+			ByteArrayDataOutput out = ByteStreams.newDataOutput();
+			PacketCodec.writeCoordinate(out, value);
+			assertEquals(value, PacketCodec.readCoordinate(ByteStreams.newDataInput(out.toByteArray())), 0.0D);
+		}
+	}
+
+	@Test
+	public void directionRoundTrip() throws IOException {
+		double[][] values = {{1, 0, 0}, {-1, 0, 0}, {0, 1, 0}, {0, -1, 0}, {0, 0, 1}, {0, 0, -1}, {1, 1, 1}, {-1, -2, -3}, {3, -4, 0}};
+		for (double[] value : values) {
+			ByteArrayDataOutput out = ByteStreams.newDataOutput();
+			PacketCodec.writeDirection(out, value[0], value[1], value[2]);
+			byte[] data = out.toByteArray();
+			assertEquals(4, data.length);
+			Vec3 vec = PacketCodec.readDirection(ByteStreams.newDataInput(data));
+			double length = Math.sqrt(value[0] * value[0] + value[1] * value[1] + value[2] * value[2]);
+			assertEquals(value[0] / length, vec.xCoord, 1.0E-4D);
+			assertEquals(value[1] / length, vec.yCoord, 1.0E-4D);
+			assertEquals(value[2] / length, vec.zCoord, 1.0E-4D);
+		}
+	}
+
+	@Test
+	public void zeroDirection() throws IOException {
+		ByteArrayDataOutput out = ByteStreams.newDataOutput();
+		PacketCodec.writeDirection(out, 0.0D, 0.0D, 0.0D);
+		Vec3 vec = PacketCodec.readDirection(ByteStreams.newDataInput(out.toByteArray()));
+		assertEquals(0.0D, vec.xCoord, 0.0D);
+		assertEquals(0.0D, vec.yCoord, 0.0D);
+		assertEquals(1.0D, vec.zCoord, 0.0D);
+	}
+
+	@Test(expected = IOException.class)
+	public void invalidEnumOrdinal() throws IOException {
+		ByteArrayDataOutput out = ByteStreams.newDataOutput();
+		PacketCodec.writeVarInt(out, Side.values().length);
+		PacketCodec.readEnum(ByteStreams.newDataInput(out.toByteArray()), Side.class);
+	}
+
+	@Test
+	public void enumRoundTrip() throws IOException {
+		for (Side side : Side.values()) {
+			ByteArrayDataOutput out = ByteStreams.newDataOutput();
+			PacketCodec.writeEnum(out, side);
+			assertEquals(side, PacketCodec.readEnum(ByteStreams.newDataInput(out.toByteArray()), Side.class));
+		}
+	}
+
+	@Test
+	public void itemStackRoundTrip() throws IOException {
+		NBTTagCompound tag = new NBTTagCompound();
+		tag.setString("name", "Master Sword");
+		ItemStack[] stacks = {null, new ItemStack(Item.diamond, 64), new ItemStack(Item.swordIron, 1, 200), new ItemStack(Item.swordGold)};
+		stacks[3].setTagCompound(tag);
+		for (ItemStack stack : stacks) {
+			ByteArrayDataOutput out = ByteStreams.newDataOutput();
+			PacketCodec.writeItemStack(out, stack);
+			ItemStack read = PacketCodec.readItemStack(ByteStreams.newDataInput(out.toByteArray()));
+			assertTrue(String.valueOf(stack), ItemStack.areItemStacksEqual(stack, read));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void invalidItemId() throws IOException {
+		ByteArrayDataOutput out = ByteStreams.newDataOutput();
+		PacketCodec.writeVarInt(out, Item.itemsList.length + 1);
+		out.writeByte(1);
+		PacketCodec.writeVarInt(out, 0);
+		PacketCodec.writeVarInt(out, 0);
+		PacketCodec.readItemStack(ByteStreams.newDataInput(out.toByteArray()));
+	}
+
+	@Test
+	public void nullNBT() throws IOException {
+		ByteArrayDataOutput out = ByteStreams.newDataOutput();
+		PacketCodec.writeNBT(out, null);
+		byte[] data = out.toByteArray();
+		assertEquals(1, data.length);
+		assertNull(PacketCodec.readNBT(ByteStreams.newDataInput(data)));
+	}
+
+	@Test
+	public void smallNBTIsNotCompressed() throws IOException {
+		NBTTagCompound compound = new NBTTagCompound();
+		compound.setInteger("level", 5);
+		compound.setString("skill", "swordBasic");
+		byte[] data = writeNBT(compound);
+		assertEquals(0, data[0] & 1);
+		assertEquals(compound, PacketCodec.readNBT(ByteStreams.newDataInput(data)));
+	}
+
+	@Test
+	public void largeNBTIsCompressed() throws IOException {
+		NBTTagCompound compound = createLargeCompound();
+		byte[] data = writeNBT(compound);
+		assertEquals(1, data[0] & 1);
+		assertEquals(compound, PacketCodec.readNBT(ByteStreams.newDataInput(data)));
+	}
+
+	@Test
+	public void corruptCompressedNBT() {
+		byte[] data = writeNBT(createLargeCompound());
+		// skip both headers, then overwrite the deflated data
+		int start = varIntLength(data, 0);
+		start += varIntLength(data, start);
+		for (int i = start; i < data.length; ++i) {
+			data[i] = (byte) 0xFF;
+		}
+		expectIOException(data);
+	}
+
+	@Test
+	public void truncatedCompressedNBT() {
+		NBTTagCompound compound = createLargeCompound();
+		byte[] data = writeNBT(compound);
+		// claim a larger uncompressed length than the deflated data holds
+		int headerLength = varIntLength(data, 0);
+		int rawLength = readVarInt(data, headerLength);
+		ByteArrayDataOutput out = ByteStreams.newDataOutput();
+		out.write(data, 0, headerLength);
+		PacketCodec.writeVarInt(out, rawLength + 1);
+		int start = headerLength + varIntLength(data, headerLength);
+		out.write(data, start, data.length - start);
+		expectIOException(out.toByteArray());
+	}
+
+	@Test
+	public void oversizedNBT() {
+		ByteArrayDataOutput out = ByteStreams.newDataOutput();
+		PacketCodec.writeVarInt(out, Integer.MAX_VALUE & ~1);
+		expectIOException(out.toByteArray());
+		out = ByteStreams.newDataOutput();
+		PacketCodec.writeVarInt(out, 16 << 1 | 1);
+		PacketCodec.writeVarInt(out, Integer.MAX_VALUE);
+		expectIOException(out.toByteArray());
+	}
+
+	private static void expectIOException(byte[] data) {
+		try {
+			PacketCodec.readNBT(ByteStreams.newDataInput(data));
+			fail("Expected an IOException");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	private static NBTTagCompound createLargeCompound() {
+		NBTTagCompound compound = new NBTTagCompound();
+		for (int i = 0; i < 64; ++i) {
+			compound.setInteger("skill" + i, i);
+		}
+		return compound;
+	}
+
+	private static byte[] writeNBT(NBTTagCompound compound) {
+		ByteArrayDataOutput out = ByteStreams.newDataOutput();
+		try {
+			PacketCodec.writeNBT(out, compound);
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+		return out.toByteArray();
+	}
+
+	private static int varIntSize(int value) {
+		ByteArrayDataOutput out = ByteStreams.newDataOutput();
+		PacketCodec.writeVarInt(out, value);
+		return out.toByteArray().length;
+	}
+
+	/** Returns the number of bytes in the var int starting at the index given */
+	private static int varIntLength(byte[] data, int index) {
+		int length = 1;
+		while ((data[index + length - 1] & 0x80) != 0) {
+			++length;
+		}
+		return length;
+	}
+
+	private static int readVarInt(byte[] data, int index) {
+		try {
+			return PacketCodec.readVarInt(ByteStreams.newDataInput(data, index));
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	private static enum Side { CLIENT, SERVER, BOTH }
+}
@@ -0,0 +1,95 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Random;
+
+import net.minecraft.util.Vec3;
+
+import org.junit.Test;
+
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+
+/**
+ * 
+ * Checks the round trip error of the quantized encodings used by effect packets over
+ * many random values: coordinates must be within 1/512 of a block, and directions within
+ * 0.004 degrees, of the values written
+ *
+ */
+public class QuantizationTest
+{
+	private static final int SAMPLES = 1000000;
+
+	private static final double MAX_COORDINATE_ERROR = 1.0D / 512.0D;
+
+	private static final double MAX_ANGLE_ERROR = 0.004D;
+
+	@Test
+	public void coordinateError() throws IOException {
+		Random rand = new Random(42L);
+		double maxError = 0.0D;
+		for (int i = 0; i < SAMPLES; ++i) {
+			double value = (rand.nextDouble() - 0.5D) * 2.0D * (i % 2 == 0 ? 30000000.0D : 1024.0D);
+			ByteArrayDataOutput out = ByteStreams.newDataOutput();
+			PacketCodec.writeCoordinate(out, value);
+			double read = PacketCodec.readCoordinate(ByteStreams.newDataInput(out.toByteArray()));
+			maxError = Math.max(maxError, Math.abs(read - value));
+		}
+		assertTrue("Max coordinate error " + maxError, maxError <= MAX_COORDINATE_ERROR + 1.0E-9D);
+	}
+
+	@Test
+	public void directionError() throws IOException {
+		Random rand = new Random(42L);
+		double maxError = 0.0D;
+		for (int i = 0; i < SAMPLES; ++i) {
+			// uniform over the sphere, at any length
+			double z = rand.nextDouble() * 2.0D - 1.0D;
+			double angle = rand.nextDouble() * 2.0D * Math.PI;
+			double r = Math.sqrt(1.0D - z * z);
+			double length = 0.01D + rand.nextDouble() * 10.0D;
+			double x = r * Math.cos(angle) * length, y = r * Math.sin(angle) * length;
+			z *= length;
+			ByteArrayDataOutput out = ByteStreams.newDataOutput();
+			PacketCodec.writeDirection(out, x, y, z);
+			Vec3 vec = PacketCodec.readDirection(ByteStreams.newDataInput(out.toByteArray()));
+			double dot = (vec.xCoord * x + vec.yCoord * y + vec.zCoord * z) / length;
+			maxError = Math.max(maxError, Math.toDegrees(Math.acos(Math.min(1.0D, dot))));
+		}
+		assertTrue("Max direction error " + maxError + " degrees", maxError <= MAX_ANGLE_ERROR);
+	}
+
+	@Test
+	public void readDirectionIsNormalized() throws IOException {
+		Random rand = new Random(7L);
+		for (int i = 0; i < 1000; ++i) {
+			ByteArrayDataOutput out = ByteStreams.newDataOutput();
+			out.writeShort(rand.nextInt(65536) - 32768);
+			out.writeShort(rand.nextInt(65536) - 32768);
+			Vec3 vec = PacketCodec.readDirection(ByteStreams.newDataInput(out.toByteArray()));
+			double length = Math.sqrt(vec.xCoord * vec.xCoord + vec.yCoord * vec.yCoord + vec.zCoord * vec.zCoord);
+			assertEquals(1.0D, length, 1.0E-9D);
+		}
+	}
+}
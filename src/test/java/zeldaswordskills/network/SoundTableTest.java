@@ -0,0 +1,125 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import zeldaswordskills.network.CustomPacket.ProtocolException;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+
+/**
+ * 
+ * Checks that names written through one {@link SoundTable} resolve to the same names in
+ * another, that ids are only sent once interned, and that out of order ids are rejected
+ *
+ */
+public class SoundTableTest
+{
+	@Test
+	public void namesAreSentInFullOnlyOnce() throws ProtocolException, IOException {
+		SoundTable sender = new SoundTable();
+		SoundTable receiver = new SoundTable();
+		String[] names = {"random.pop", "zeldaswordskills:hit", "random.pop", "mob.zombie.say", "zeldaswordskills:hit", "random.pop"};
+		int[] sizes = new int[names.length];
+		for (int i = 0; i < names.length; ++i) {
+			byte[] data = write(sender, names[i]);
+			sizes[i] = data.length;
+			assertEquals(names[i], read(receiver, data));
+		}
+		assertEquals(1, sizes[2]);
+		assertEquals(1, sizes[4]);
+		assertEquals(1, sizes[5]);
+	}
+
+	@Test
+	public void fullTableSendsNamesInFull() throws ProtocolException, IOException {
+		SoundTable sender = new SoundTable();
+		SoundTable receiver = new SoundTable();
+		for (int i = 0; i < SoundTable.MAX_SOUNDS; ++i) {
+			assertEquals("sound" + i, read(receiver, write(sender, "sound" + i)));
+		}
+		// not interned, so written in full each time with an id of zero
+		for (int i = 0; i < 2; ++i) {
+			byte[] data = write(sender, "extra");
+			assertEquals(1, data[0]);
+			assertEquals("extra", read(receiver, data));
+		}
+		// names interned before the table filled are still sent by id
+		assertEquals(1, write(sender, "sound0").length);
+		assertEquals("sound" + (SoundTable.MAX_SOUNDS - 1), read(receiver, write(sender, "sound" + (SoundTable.MAX_SOUNDS - 1))));
+	}
+
+	@Test
+	public void idPastFullTableIsRejected() throws ProtocolException {
+		SoundTable receiver = new SoundTable();
+		for (int i = 1; i <= SoundTable.MAX_SOUNDS; ++i) {
+			receiver.resolve(i, "sound" + i);
+		}
+		expectProtocolException(receiver, SoundTable.MAX_SOUNDS + 1, "extra");
+	}
+
+	@Test
+	public void outOfOrderIdsAreRejected() throws ProtocolException {
+		SoundTable receiver = new SoundTable();
+		expectProtocolException(receiver, 2, "random.pop");
+		receiver.resolve(1, "random.pop");
+		// ids may not be skipped or redefined
+		expectProtocolException(receiver, 3, "random.click");
+		expectProtocolException(receiver, 1, "random.click");
+		assertEquals("random.pop", receiver.resolve(1, null));
+	}
+
+	@Test
+	public void unknownIdsAreRejected() throws ProtocolException {
+		SoundTable receiver = new SoundTable();
+		expectProtocolException(receiver, 1, null);
+		expectProtocolException(receiver, 0, null);
+		receiver.resolve(1, "random.pop");
+		expectProtocolException(receiver, 2, null);
+	}
+
+	private static byte[] write(SoundTable table, String name) {
+		ByteArrayDataOutput out = ByteStreams.newDataOutput();
+		table.writeSound(out, name);
+		return out.toByteArray();
+	}
+
+	private static String read(SoundTable table, byte[] data) throws ProtocolException, IOException {
+		ByteArrayDataInput in = ByteStreams.newDataInput(data);
+		String[] name = new String[1];
+		int id = SoundTable.readSound(in, name);
+		return table.resolve(id, name[0]);
+	}
+
+	private static void expectProtocolException(SoundTable table, int id, String name) {
+		try {
+			table.resolve(id, name);
+			fail("Expected a ProtocolException for id " + id + " and name " + name);
+		} catch (ProtocolException e) {
+			// expected
+		}
+	}
+}
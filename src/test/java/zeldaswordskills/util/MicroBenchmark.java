@@ -0,0 +1,71 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.util;
+
+import java.util.Locale;
+
+/**
+ * 
+ * Minimal harness for the microbenchmarks under src/test: runs a task for a number of
+ * untimed warm up rounds so the JIT settles, then reports the best throughput of the
+ * timed rounds. Benchmarks are plain classes with a main method rather than tests, so
+ * they do not slow down the test run; run them from the IDE or with 'java -cp'.
+ *
+ */
+public final class MicroBenchmark
+{
+	/** Work measured by the harness */
+	public static interface Task {
+		/**
+		 * Performs the given number of operations, returning any value computed from their
+		 * results so that the work cannot be optimized away
+		 */
+		long run(int operations);
+	}
+
+	/** Sum of the values returned by every task, printed so that it is used */
+	private static long sink;
+
+	private MicroBenchmark() {}
+
+	/**
+	 * Runs the task and prints its best throughput
+	 * @param operations	Number of operations per round
+	 * @param rounds		Number of timed rounds, after the same number of warm up rounds
+	 * @return the best throughput of the timed rounds, in operations per second
+	 */
+	public static double run(String name, Task task, int operations, int rounds) {
+		for (int i = 0; i < rounds; ++i) {
+			sink += task.run(operations);
+		}
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < rounds; ++i) {
+			long start = System.nanoTime();
+			sink += task.run(operations);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		double perSecond = operations * 1.0E9D / Math.max(best, 1L);
+		System.out.println(String.format(Locale.ROOT, "%-40s %,15.0f ops/s %10.1f ns/op", name, perSecond, 1.0E9D / perSecond));
+		return perSecond;
+	}
+
+	/** Prints the combined results of every task run, so that none of their work is eliminated */
+	public static void printSink() {
+		System.out.println("(checksum " + sink + ")");
+	}
+}
@@ -0,0 +1,228 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package zeldaswordskills.util;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EnumCreatureType;
+import net.minecraft.util.IProgressUpdate;
+import net.minecraft.util.LongHashMap;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.ChunkPosition;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldProvider;
+import net.minecraft.world.WorldSettings;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.EmptyChunk;
+import net.minecraft.world.chunk.IChunkProvider;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+/**
+ * 
+ * A server world for tests and benchmarks, created without running any World constructor so
+ * that no server, save handler or world provider is needed. Only the following is supported:
+ * 
+ * - block access through chunks: chunks are added by the caller and looked up by the same
+ *   kind of map the server's chunk provider uses, so World#getBlockId goes through the usual
+ *   chunk provider path
+ * - world time, which only changes when set by the caller
+ * - looking up entities by id, for entities added with {@link #addEntityDirect}
+ * 
+ * Anything else a real world would have set up, such as its provider, is null.
+ *
+ */
+public class TestWorld extends World
+{
+	/** Chunks added so far, keyed by ChunkCoordIntPair#chunkXZ2Int */
+	private LongHashMap chunks;
+
+	/** Entities added to the world, by entity id */
+	private Map<Integer, Entity> entities;
+
+	/** Id of the next entity created */
+	private static int nextEntityId = 1;
+
+	/** Current total world time */
+	private long time;
+
+	/** Never called; instances are created by {@link #create} */
+	private TestWorld() {
+		super(null, null, (WorldProvider) null, (WorldSettings) null, null, null);
+	}
+
+	/**
+	 * Returns a new, empty world
+	 */
+	public static TestWorld create() {
+		TestWorld world = allocate(TestWorld.class);
+		world.chunks = new LongHashMap();
+		world.entities = new HashMap<Integer, Entity>();
+		world.chunkProvider = world.new Provider();
+		world.rand = new Random(0L);
+		return world;
+	}
+
+	/**
+	 * Returns a new entity of the class given, added to this world; as for the world, no
+	 * constructor is run, so the entity only has a world and an entity id
+	 */
+	public <T extends Entity> T createEntity(Class<T> type) {
+		T entity = allocate(type);
+		entity.entityId = nextEntityId++;
+		addEntityDirect(entity);
+		return entity;
+	}
+
+	/**
+	 * Adds the entity to this world, as when it is loaded or changes dimension to it;
+	 * the entity is not removed from any other world
+	 */
+	public void addEntityDirect(Entity entity) {
+		entity.worldObj = this;
+		entities.put(entity.entityId, entity);
+	}
+
+	/**
+	 * Removes the entity from this world, as when its chunk unloads; the entity is not marked dead
+	 */
+	public void removeEntityDirect(Entity entity) {
+		entities.remove(entity.entityId);
+	}
+
+	/** Sets the total world time */
+	public void setTotalWorldTime(long time) {
+		this.time = time;
+	}
+
+	/** Returns a new instance of the class without running any of its constructors */
+	private static <T> T allocate(Class<T> type) {
+		try {
+			Field field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			Object unsafe = field.get(null);
+			return type.cast(unsafe.getClass().getMethod("allocateInstance", Class.class).invoke(unsafe, type));
+		} catch (Exception e) {
+			throw new IllegalStateException("Unable to create an instance of " + type.getName(), e);
+		}
+	}
+
+	/**
+	 * Sets the block id at the position, adding its chunk and section if necessary;
+	 * nothing else, such as lighting or height maps, is updated
+	 */
+	public void setBlockIdDirect(int x, int y, int z, int id) {
+		Chunk chunk = (Chunk) chunks.getValueByKey(ChunkCoordIntPair.chunkXZ2Int(x >> 4, z >> 4));
+		if (chunk == null) {
+			chunk = new Chunk(this, x >> 4, z >> 4);
+			chunks.add(ChunkCoordIntPair.chunkXZ2Int(x >> 4, z >> 4), chunk);
+		}
+		ExtendedBlockStorage[] storage = chunk.getBlockStorageArray();
+		if (storage[y >> 4] == null) {
+			storage[y >> 4] = new ExtendedBlockStorage(y >> 4 << 4, true);
+		}
+		storage[y >> 4].setExtBlockID(x & 15, y & 15, z & 15, id);
+	}
+
+	@Override
+	protected IChunkProvider createChunkProvider() {
+		return null;
+	}
+
+	@Override
+	public long getTotalWorldTime() {
+		return time;
+	}
+
+	@Override
+	public Entity getEntityByID(int id) {
+		return entities.get(id);
+	}
+
+	/**
+	 * 
+	 * Serves the chunks added to the world; chunks never added are empty
+	 *
+	 */
+	private class Provider implements IChunkProvider
+	{
+		@Override
+		public boolean chunkExists(int chunkX, int chunkZ) {
+			return chunks.containsItem(ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ));
+		}
+
+		@Override
+		public Chunk provideChunk(int chunkX, int chunkZ) {
+			Chunk chunk = (Chunk) chunks.getValueByKey(ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ));
+			return (chunk == null ? new EmptyChunk(TestWorld.this, chunkX, chunkZ) : chunk);
+		}
+
+		@Override
+		public Chunk loadChunk(int chunkX, int chunkZ) {
+			return provideChunk(chunkX, chunkZ);
+		}
+
+		@Override
+		public void populate(IChunkProvider provider, int chunkX, int chunkZ) {}
+
+		@Override
+		public boolean saveChunks(boolean saveAll, IProgressUpdate progress) {
+			return true;
+		}
+
+		@Override
+		public boolean unloadQueuedChunks() {
+			return false;
+		}
+
+		@Override
+		public boolean canSave() {
+			return false;
+		}
+
+		@Override
+		public String makeString() {
+			return "TestChunkCache: " + chunks.getNumHashElements();
+		}
+
+		@SuppressWarnings("rawtypes")
+		@Override
+		public List getPossibleCreatures(EnumCreatureType type, int x, int y, int z) {
+			return null;
+		}
+
+		@Override
+		public ChunkPosition findClosestStructure(World world, String name, int x, int y, int z) {
+			return null;
+		}
+
+		@Override
+		public int getLoadedChunkCount() {
+			return chunks.getNumHashElements();
+		}
+
+		@Override
+		public void recreateStructures(int chunkX, int chunkZ) {}
+
+		@Override
+		public void func_104112_b() {}
+	}
+}
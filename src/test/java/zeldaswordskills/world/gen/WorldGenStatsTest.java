@@ -0,0 +1,94 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.world.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * 
+ * Checks that {@link WorldGenStats} counts nested generator calls once each, excluding
+ * nested time from the outer call, and recovers from calls that never finish
+ *
+ */
+public class WorldGenStatsTest
+{
+	private boolean wasEnabled;
+
+	@Before
+	public void enable() {
+		wasEnabled = WorldGenStats.isEnabled();
+		WorldGenStats.setEnabled(true);
+		WorldGenStats.reset();
+	}
+
+	@After
+	public void restore() {
+		WorldGenStats.reset();
+		WorldGenStats.setEnabled(wasEnabled);
+	}
+
+	@Test
+	public void nestedTimeIsNotCountedTwice() throws InterruptedException {
+		long outer = WorldGenStats.start();
+		long inner = WorldGenStats.start();
+		Thread.sleep(100L);
+		WorldGenStats.finish("inner", inner);
+		WorldGenStats.finish("outer", outer);
+		String json = WorldGenStats.toJson();
+		assertEquals(1L, getValue(json, "inner", "chunks"));
+		assertEquals(1L, getValue(json, "outer", "chunks"));
+		assertTrue(getValue(json, "inner", "nanosPerChunk") >= 100000000L);
+		assertTrue(getValue(json, "outer", "nanosPerChunk") < 50000000L);
+	}
+
+	@Test
+	public void unfinishedCallsAreDiscarded() {
+		long outer = WorldGenStats.start();
+		WorldGenStats.start();
+		// the inner call never finishes, e.g. because its generator threw an exception
+		WorldGenStats.finish("outer", outer);
+		long next = WorldGenStats.start();
+		WorldGenStats.finish("next", next);
+		String json = WorldGenStats.toJson();
+		assertEquals(1L, getValue(json, "outer", "chunks"));
+		assertEquals(1L, getValue(json, "next", "chunks"));
+	}
+
+	@Test
+	public void disabledCallsAreIgnored() {
+		WorldGenStats.setEnabled(false);
+		WorldGenStats.finish("disabled", WorldGenStats.start());
+		WorldGenStats.setEnabled(true);
+		assertTrue(!WorldGenStats.toJson().contains("disabled"));
+	}
+
+	/** Returns the named value of the generator's entry in the JSON written by WorldGenStats */
+	private static long getValue(String json, String generator, String name) {
+		Matcher m = Pattern.compile("\"" + generator + "\": \\{[^}]*?\"" + name + "\": (\\d+)").matcher(json);
+		assertTrue(generator + "." + name + " in " + json, m.find());
+		return Long.parseLong(m.group(1));
+	}
+}
@@ -0,0 +1,85 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package zeldaswordskills.world.gen.structure;
+
+import java.util.Random;
+
+import zeldaswordskills.util.MicroBenchmark;
+import zeldaswordskills.world.gen.structure.MapGenSecretRoom.SearchResult;
+
+/**
+ * 
+ * Measures {@link MapGenSecretRoom#findNearestStructure} as used when placing secret rooms,
+ * at the default and largest minimum distances allowed by the config for land, ocean and
+ * nether rooms (see Config#getMinLandDistance, #getMinOceanDistance and #getNetherMinDistance),
+ * against a scan of every structure in the index. The index is filled to about one room per
+ * chunk, with the occasional much larger structure, as in a well explored world.
+ *
+ */
+public class MapGenSecretRoomSearchBenchmark
+{
+	/** Searches per round; scans are much slower, so they only do 1/64th as many */
+	private static final int OPERATIONS = 1 << 12;
+
+	/** Index contents span this many chunks in each direction from the origin */
+	private static final int RADIUS = 64;
+
+	public static void main(String[] args) {
+		final MapGenSecretRoom gen = MapGenSecretRoomSearchTest.createGenerator(new Random(0L), (RADIUS * 2 + 1) * (RADIUS * 2 + 1), RADIUS);
+		run(gen, "land", 6, false);
+		run(gen, "land max", 16, false);
+		run(gen, "ocean", 6, true);
+		run(gen, "ocean max", 32, true);
+		run(gen, "nether", 6, false);
+		run(gen, "nether max", 16, false);
+		MicroBenchmark.printSink();
+	}
+
+	private static void run(final MapGenSecretRoom gen, String name, final int range, final boolean inOcean) {
+		MicroBenchmark.run(name + " (" + range + ") ring", new MicroBenchmark.Task() {
+			@Override
+			public long run(int operations) {
+				return search(gen, range, inOcean, operations, false);
+			}
+		}, OPERATIONS, 5);
+		MicroBenchmark.run(name + " (" + range + ") scan", new MicroBenchmark.Task() {
+			@Override
+			public long run(int operations) {
+				return search(gen, range, inOcean, operations, true);
+			}
+		}, OPERATIONS >> 6, 5);
+	}
+
+	/**
+	 * Searches for structures near rooms at random positions within the index, as during
+	 * generation, returning the number found
+	 * @param scan true to check every structure in the index instead
+	 */
+	private static long search(MapGenSecretRoom gen, int range, boolean inOcean, int operations, boolean scan) {
+		Random rand = new Random(range);
+		SearchResult result = new SearchResult();
+		long found = 0;
+		for (int i = 0; i < operations; ++i) {
+			RoomBase room = MapGenSecretRoomSearchTest.createRoom(rand, RADIUS - 8);
+			room.inOcean = inOcean;
+			if (scan ? MapGenSecretRoomSearchTest.findNearestByScan(gen, room, range) < Double.MAX_VALUE : gen.findNearestStructure(room, range, true, result).isStructureFound()) {
+				++found;
+			}
+		}
+		return found;
+	}
+}
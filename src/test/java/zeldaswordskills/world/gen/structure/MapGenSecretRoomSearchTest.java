@@ -0,0 +1,139 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.world.gen.structure;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import net.minecraft.block.Block;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
+import net.minecraft.world.storage.MapStorage;
+
+import org.junit.Test;
+
+import zeldaswordskills.world.gen.structure.MapGenSecretRoom.SearchResult;
+
+/**
+ * 
+ * Checks {@link MapGenSecretRoom#findNearestStructure} against a brute force scan over every
+ * structure in the index, for random index contents spanning several regions and random
+ * rooms and ranges
+ *
+ */
+public class MapGenSecretRoomSearchTest
+{
+	/** Ranges to search, including the configured minimum land, ocean and nether distances */
+	private static final int[] RANGES = {0, 4, 6, 8, 16, 32, 64, 128};
+
+	@Test
+	public void ringSearchMatchesFullScan() {
+		Random rand = new Random(1234L);
+		for (int trial = 0; trial < 20; ++trial) {
+			MapGenSecretRoom gen = createGenerator(rand, 200 + rand.nextInt(2000), 24 + rand.nextInt(48));
+			SearchResult result = new SearchResult();
+			for (int i = 0; i < 200; ++i) {
+				RoomBase room = createRoom(rand, 80);
+				int range = RANGES[rand.nextInt(RANGES.length)];
+				String message = "trial " + trial + ", room " + room.getBoundingBox() + ", range " + range;
+				double expected = findNearestByScan(gen, room, range);
+				gen.findNearestStructure(room, range, false, result);
+				assertEquals(message, expected < Double.MAX_VALUE, result.isStructureFound());
+				assertEquals(message, expected, result.distanceSq, 0.0D);
+				if (result.isStructureFound()) {
+					assertTrue(message, gen.isStructureInRange(room, room.getBoundingBox(), result.record, range));
+					assertEquals(message, gen.structureIndex.getBoundingBox(result.record).toString(), result.box.toString());
+				}
+				gen.findNearestStructure(room, range, true, result);
+				assertEquals(message, expected < Double.MAX_VALUE, result.isStructureFound());
+				assertEquals(message, expected < Double.MAX_VALUE, gen.areStructuresWithinRange(room, range));
+			}
+		}
+	}
+
+	@Test
+	public void emptyIndex() {
+		MapGenSecretRoom gen = createGenerator(new Random(0L), 0, 1);
+		RoomBase room = createRoom(new Random(1L), 16);
+		SearchResult result = gen.findNearestStructure(room, 128, false, new SearchResult());
+		assertTrue(!result.isStructureFound());
+		assertEquals(null, result.box);
+	}
+
+	@Test
+	public void ringSearchExaminesFewerChunks() {
+		Random rand = new Random(99L);
+		MapGenSecretRoom gen = createGenerator(rand, 5000, 64);
+		SearchResult result = new SearchResult();
+		long examined = 0L, candidates = 0L;
+		for (int i = 0; i < 500; ++i) {
+			RoomBase room = createRoom(rand, 64);
+			gen.findNearestStructure(room, 16, false, result);
+			examined += result.chunksExamined;
+			candidates += gen.structureIndex.getNumChunks();
+		}
+		assertTrue(examined + " chunks examined of " + candidates, examined < candidates);
+	}
+
+	/**
+	 * Returns a generator with no world whose index holds the given number of random structures,
+	 * placed in chunks up to the distance given from the origin; some structures extend well
+	 * beyond the chunk under which they are stored, as boss rooms may
+	 */
+	static MapGenSecretRoom createGenerator(Random rand, int numStructures, int maxChunk) {
+		MapGenSecretRoom gen = new MapGenSecretRoom();
+		gen.loadOrCreateData(new MapStorage(null), null);
+		for (int n = 0; n < numStructures; ++n) {
+			int chunkX = rand.nextInt(maxChunk * 2 + 1) - maxChunk;
+			int chunkZ = rand.nextInt(maxChunk * 2 + 1) - maxChunk;
+			int size = (rand.nextInt(8) == 0 ? 9 + rand.nextInt(16) : 3 + rand.nextInt(4));
+			int minX = (chunkX << 4) + rand.nextInt(16) - (size > 8 ? rand.nextInt(size) : 0);
+			int minZ = (chunkZ << 4) + rand.nextInt(16) - (size > 8 ? rand.nextInt(size) : 0);
+			int minY = 5 + rand.nextInt(60);
+			gen.structureIndex.add(chunkX, chunkZ, minX, minY, minZ, minX + size - 1, minY + size - 1, minZ + size - 1, 0);
+		}
+		return gen;
+	}
+
+	/** Returns a room at a random position up to the distance given, in chunks, from the origin */
+	static RoomBase createRoom(Random rand, int maxChunk) {
+		int chunkX = rand.nextInt(maxChunk * 2 + 1) - maxChunk;
+		int chunkZ = rand.nextInt(maxChunk * 2 + 1) - maxChunk;
+		int size = 3 + rand.nextInt(4);
+		RoomSecret room = new RoomSecret(chunkX, chunkZ, size, Block.stone.blockID);
+		int minX = (chunkX << 4) + rand.nextInt(16);
+		int minY = 5 + rand.nextInt(60);
+		int minZ = (chunkZ << 4) + rand.nextInt(16);
+		room.bBox = new StructureBoundingBox(minX, minY, minZ, minX + size - 1, minY + size - 1, minZ + size - 1);
+		room.inOcean = rand.nextInt(4) == 0;
+		return room;
+	}
+
+	/** Returns the distance squared to the nearest structure within range, checking every record */
+	static double findNearestByScan(MapGenSecretRoom gen, RoomBase room, int range) {
+		StructureBoundingBox box = room.getBoundingBox();
+		double nearest = Double.MAX_VALUE;
+		for (int rec = 0; rec < gen.structureIndex.getNumRecords(); ++rec) {
+			if (gen.isStructureInRange(room, box, rec, range)) {
+				nearest = Math.min(nearest, gen.structureIndex.getDistanceSq(rec, box));
+			}
+		}
+		return nearest;
+	}
+}
@@ -0,0 +1,99 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package zeldaswordskills.world.gen.structure;
+
+import java.util.Random;
+
+import net.minecraft.block.Block;
+import zeldaswordskills.util.BlockVolumeSnapshot;
+import zeldaswordskills.util.MicroBenchmark;
+import zeldaswordskills.util.TestWorld;
+
+/**
+ * 
+ * Measures the cost of validating a secret room as {@link RoomSecret} does: capturing its
+ * snapshot, then validateTopLayer, canGenerate and isWellHidden. The terrain is flat stone
+ * under a few layers of dirt, so each room is first moved down through the dirt one layer
+ * per validation pass, as rooms often are. The 'world' cases use a snapshot of an empty volume
+ * instead, so that every read falls through to World#getBlockId and the chunk provider,
+ * as all reads did before snapshots were used.
+ *
+ */
+public class RoomValidationBenchmark
+{
+	private static final int OPERATIONS = 1 << 12;
+
+	/** Terrain is solid below this height and air from it up */
+	private static final int SURFACE = 64;
+
+	/** Number of dirt layers at the top of the terrain */
+	private static final int DIRT = 4;
+
+	/** Number of chunks along each side of the terrain */
+	private static final int CHUNKS = 8;
+
+	public static void main(String[] args) {
+		final TestWorld world = TestWorld.create();
+		for (int x = 0; x < CHUNKS << 4; ++x) {
+			for (int z = 0; z < CHUNKS << 4; ++z) {
+				for (int y = 0; y < SURFACE; ++y) {
+					world.setBlockIdDirect(x, y, z, (y < SURFACE - DIRT ? Block.stone.blockID : Block.dirt.blockID));
+				}
+			}
+		}
+		for (final int size : new int[] {3, 5, 8}) {
+			MicroBenchmark.run("size " + size + " snapshot", new MicroBenchmark.Task() {
+				@Override
+				public long run(int operations) {
+					return validateRooms(world, size, operations, true);
+				}
+			}, OPERATIONS, 5);
+			MicroBenchmark.run("size " + size + " world", new MicroBenchmark.Task() {
+				@Override
+				public long run(int operations) {
+					return validateRooms(world, size, operations, false);
+				}
+			}, OPERATIONS, 5);
+		}
+		MicroBenchmark.printSink();
+	}
+
+	/**
+	 * Validates rooms at random positions on the terrain, returning a checksum of the results
+	 * @param useSnapshot false to read every block from the world
+	 */
+	private static long validateRooms(TestWorld world, int size, int operations, boolean useSnapshot) {
+		Random rand = new Random(size);
+		long sum = 0;
+		for (int i = 0; i < operations; ++i) {
+			int x = 16 + rand.nextInt(((CHUNKS - 2) << 4) - size);
+			int z = 16 + rand.nextInt(((CHUNKS - 2) << 4) - size);
+			RoomSecret room = new RoomSecret(x >> 4, z >> 4, size, Block.stone.blockID);
+			room.bBox.offset(x, SURFACE - 1 - room.bBox.maxY, z);
+			BlockVolumeSnapshot snapshot = (useSnapshot ? room.captureSnapshot(world) : BlockVolumeSnapshot.capture(world, 0, 0, 0, -1, -1, -1));
+			try {
+				if (room.validateTopLayer(snapshot) && room.canGenerate(snapshot) && room.isWellHidden(snapshot)) {
+					++sum;
+				}
+			} finally {
+				snapshot.release();
+			}
+			sum += room.bBox.minY;
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,111 @@
+/**
+    Copyright (C) <2014> <coolAlias>
+
+    This file is part of coolAlias' Zelda Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package zeldaswordskills.world.gen.structure;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * 
+ * Checks {@link StructureIndex} against a plain map of each chunk's structures while chunks
+ * are added and removed at random, so that removal, slot shifting and compacting are covered
+ *
+ */
+public class StructureIndexTest
+{
+	@Test
+	public void removedChunksAreGoneAndOthersRemain() {
+		Random rand = new Random(42L);
+		StructureIndex index = new StructureIndex(16);
+		Map<Long, List<int[]>> expected = new HashMap<Long, List<int[]>>();
+		for (int step = 0; step < 20000; ++step) {
+			int chunkX = rand.nextInt(64) - 32;
+			int chunkZ = rand.nextInt(64) - 32;
+			long key = StructureIndex.getKey(chunkX, chunkZ);
+			if (rand.nextInt(3) == 0) {
+				List<int[]> removed = expected.remove(key);
+				assertEquals(removed == null ? 0 : removed.size(), index.removeChunk(chunkX, chunkZ));
+			} else {
+				int[] bounds = {chunkX << 4, rand.nextInt(64), chunkZ << 4, (chunkX << 4) + rand.nextInt(24), 64 + rand.nextInt(64), (chunkZ << 4) + rand.nextInt(24), rand.nextInt(8)};
+				index.add(chunkX, chunkZ, bounds, bounds[6]);
+				List<int[]> list = expected.get(key);
+				if (list == null) {
+					list = new ArrayList<int[]>();
+					expected.put(key, list);
+				}
+				list.add(bounds);
+			}
+			if (step % 500 == 0) {
+				checkContents(index, expected);
+			}
+		}
+		checkContents(index, expected);
+	}
+
+	@Test
+	public void removingMissingChunkDoesNothing() {
+		StructureIndex index = new StructureIndex();
+		index.add(1, 2, 16, 0, 32, 20, 10, 40, 3);
+		assertEquals(0, index.removeChunk(2, 1));
+		assertTrue(index.hasChunk(1, 2));
+		assertEquals(1, index.removeChunk(1, 2));
+		assertFalse(index.hasChunk(1, 2));
+		assertEquals(0, index.getNumChunks());
+		assertEquals(0, index.getNumRecords());
+	}
+
+	private static void checkContents(StructureIndex index, Map<Long, List<int[]>> expected) {
+		int numRecords = 0;
+		for (int chunkX = -32; chunkX < 32; ++chunkX) {
+			for (int chunkZ = -32; chunkZ < 32; ++chunkZ) {
+				List<int[]> list = expected.get(StructureIndex.getKey(chunkX, chunkZ));
+				assertEquals(list != null, index.hasChunk(chunkX, chunkZ));
+				Set<String> stored = new HashSet<String>();
+				for (int r = index.getFirst(chunkX, chunkZ); r != -1; r = index.getNext(r)) {
+					stored.add(describe(index.getBounds(r), index.getData(r)));
+					assertTrue(index.getXSize(r) <= index.getMaxXSize());
+				}
+				Set<String> wanted = new HashSet<String>();
+				if (list != null) {
+					for (int[] bounds : list) {
+						wanted.add(describe(bounds, bounds[6]));
+					}
+					numRecords += list.size();
+				}
+				assertEquals(wanted, stored);
+			}
+		}
+		assertEquals(expected.size(), index.getNumChunks());
+		assertEquals(numRecords, index.getNumRecords());
+	}
+
+	private static String describe(int[] bounds, int data) {
+		return bounds[0] + "," + bounds[1] + "," + bounds[2] + "," + bounds[3] + "," + bounds[4] + "," + bounds[5] + ":" + data;
+	}
+}